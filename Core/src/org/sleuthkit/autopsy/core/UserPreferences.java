@@ -34,6 +34,22 @@ public final class UserPreferences {
     public static final String HIDE_KNOWN_FILES_IN_VIEWS_TREE = "HideKnownFilesInViewsTree"; //NON-NLS 
     public static final String DISPLAY_TIMES_IN_LOCAL_TIME = "DisplayTimesInLocalTime"; //NON-NLS
     public static final String NUMBER_OF_FILE_INGEST_THREADS = "NumberOfFileIngestThreads"; //NON-NLS
+    public static final String USE_WORK_STEALING_FILE_INGEST_SCHEDULER = "UseWorkStealingFileIngestScheduler"; //NON-NLS
+    public static final String PREFETCH_FILE_INGEST_TASKS = "PrefetchFileIngestTasks"; //NON-NLS
+    public static final String FILE_INGEST_TASK_PREFETCH_LOW_WATERMARK = "FileIngestTaskPrefetchLowWatermark"; //NON-NLS
+    public static final String FILE_INGEST_TASK_PREFETCH_HIGH_WATERMARK = "FileIngestTaskPrefetchHighWatermark"; //NON-NLS
+    private static final int DEFAULT_FILE_INGEST_TASK_PREFETCH_LOW_WATERMARK = 256;
+    private static final int DEFAULT_FILE_INGEST_TASK_PREFETCH_HIGH_WATERMARK = 2048;
+    public static final String FILE_INGEST_CONTENT_CACHE_MAX_SIZE = "FileIngestContentCacheMaxSize"; //NON-NLS
+    private static final int DEFAULT_FILE_INGEST_CONTENT_CACHE_MAX_SIZE = 4 * 1024 * 1024;
+    public static final String INGEST_EVENT_BATCH_INTERVAL_MS = "IngestEventBatchIntervalMs"; //NON-NLS
+    private static final int DEFAULT_INGEST_EVENT_BATCH_INTERVAL_MS = 500;
+    public static final String MAX_PENDING_FILE_DONE_EVENTS = "MaxPendingFileDoneEvents"; //NON-NLS
+    private static final int DEFAULT_MAX_PENDING_FILE_DONE_EVENTS = 10000;
+    public static final String DROP_FILE_DONE_EVENTS_ON_OVERFLOW = "DropFileDoneEventsOnOverflow"; //NON-NLS
+    public static final String LOAD_HASH_SET_INDEXES_INTO_MEMORY = "LoadHashSetIndexesIntoMemory"; //NON-NLS
+    public static final String BUILD_HASH_SET_INDEXES_IN_PARALLEL = "BuildHashSetIndexesInParallel"; //NON-NLS
+    public static final String EXTRACT_ARCHIVES_IN_PARALLEL = "ExtractArchivesInParallel"; //NON-NLS
         
     // Prevent instantiation.
     private UserPreferences() {
@@ -86,5 +102,105 @@ public static int numberOfFileIngestThreads() {
     public static void setNumberOfFileIngestThreads(int value) {
         preferences.putInt(NUMBER_OF_FILE_INGEST_THREADS, value);
     }      
+
+    public static boolean useWorkStealingFileIngestScheduler() {
+        return preferences.getBoolean(USE_WORK_STEALING_FILE_INGEST_SCHEDULER, false);
+    }
+
+    public static void setUseWorkStealingFileIngestScheduler(boolean value) {
+        preferences.putBoolean(USE_WORK_STEALING_FILE_INGEST_SCHEDULER, value);
+    }
+
+    public static boolean prefetchFileIngestTasks() {
+        return preferences.getBoolean(PREFETCH_FILE_INGEST_TASKS, false);
+    }
+
+    public static void setPrefetchFileIngestTasks(boolean value) {
+        preferences.putBoolean(PREFETCH_FILE_INGEST_TASKS, value);
+    }
+
+    public static int fileIngestTaskPrefetchLowWatermark() {
+        int value = preferences.getInt(FILE_INGEST_TASK_PREFETCH_LOW_WATERMARK, DEFAULT_FILE_INGEST_TASK_PREFETCH_LOW_WATERMARK);
+        if (value < 1 || value >= fileIngestTaskPrefetchHighWatermark()) {
+            return Math.min(DEFAULT_FILE_INGEST_TASK_PREFETCH_LOW_WATERMARK, fileIngestTaskPrefetchHighWatermark() / 2);
+        }
+        return value;
+    }
+
+    public static void setFileIngestTaskPrefetchLowWatermark(int value) {
+        preferences.putInt(FILE_INGEST_TASK_PREFETCH_LOW_WATERMARK, value);
+    }
+
+    public static int fileIngestTaskPrefetchHighWatermark() {
+        int value = preferences.getInt(FILE_INGEST_TASK_PREFETCH_HIGH_WATERMARK, DEFAULT_FILE_INGEST_TASK_PREFETCH_HIGH_WATERMARK);
+        if (value < 2) {
+            return DEFAULT_FILE_INGEST_TASK_PREFETCH_HIGH_WATERMARK;
+        }
+        return value;
+    }
+
+    public static void setFileIngestTaskPrefetchHighWatermark(int value) {
+        preferences.putInt(FILE_INGEST_TASK_PREFETCH_HIGH_WATERMARK, value);
+    }
+
+    public static int fileIngestContentCacheMaxSize() {
+        return Math.max(preferences.getInt(FILE_INGEST_CONTENT_CACHE_MAX_SIZE, DEFAULT_FILE_INGEST_CONTENT_CACHE_MAX_SIZE), 0);
+    }
+
+    public static void setFileIngestContentCacheMaxSize(int value) {
+        preferences.putInt(FILE_INGEST_CONTENT_CACHE_MAX_SIZE, value);
+    }
+
+    public static int ingestEventBatchIntervalMillis() {
+        return Math.max(preferences.getInt(INGEST_EVENT_BATCH_INTERVAL_MS, DEFAULT_INGEST_EVENT_BATCH_INTERVAL_MS), 0);
+    }
+
+    public static void setIngestEventBatchIntervalMillis(int value) {
+        preferences.putInt(INGEST_EVENT_BATCH_INTERVAL_MS, value);
+    }
+
+    public static int maxPendingFileDoneEvents() {
+        int value = preferences.getInt(MAX_PENDING_FILE_DONE_EVENTS, DEFAULT_MAX_PENDING_FILE_DONE_EVENTS);
+        if (value < 1) {
+            return DEFAULT_MAX_PENDING_FILE_DONE_EVENTS;
+        }
+        return value;
+    }
+
+    public static void setMaxPendingFileDoneEvents(int value) {
+        preferences.putInt(MAX_PENDING_FILE_DONE_EVENTS, value);
+    }
+
+    public static boolean dropFileDoneEventsOnOverflow() {
+        return preferences.getBoolean(DROP_FILE_DONE_EVENTS_ON_OVERFLOW, false);
+    }
+
+    public static void setDropFileDoneEventsOnOverflow(boolean value) {
+        preferences.putBoolean(DROP_FILE_DONE_EVENTS_ON_OVERFLOW, value);
+    }
+
+    public static boolean loadHashSetIndexesIntoMemory() {
+        return preferences.getBoolean(LOAD_HASH_SET_INDEXES_INTO_MEMORY, false);
+    }
+
+    public static void setLoadHashSetIndexesIntoMemory(boolean value) {
+        preferences.putBoolean(LOAD_HASH_SET_INDEXES_INTO_MEMORY, value);
+    }
+
+    public static boolean buildHashSetIndexesInParallel() {
+        return preferences.getBoolean(BUILD_HASH_SET_INDEXES_IN_PARALLEL, false);
+    }
+
+    public static void setBuildHashSetIndexesInParallel(boolean value) {
+        preferences.putBoolean(BUILD_HASH_SET_INDEXES_IN_PARALLEL, value);
+    }
+
+    public static boolean extractArchivesInParallel() {
+        return preferences.getBoolean(EXTRACT_ARCHIVES_IN_PARALLEL, false);
+    }
+
+    public static void setExtractArchivesInParallel(boolean value) {
+        preferences.putBoolean(EXTRACT_ARCHIVES_IN_PARALLEL, value);
+    }
     
 }
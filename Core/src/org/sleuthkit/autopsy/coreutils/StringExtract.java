@@ -22,6 +22,7 @@
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Properties;
 import java.util.StringTokenizer;
@@ -52,6 +53,14 @@ public class StringExtract {
      * currently enabled scripts
      */
     private List<SCRIPT> enabledScripts;
+    /**
+     * script values of the unicode table, and the scripts and table blocks
+     * that can be part of a string given the enabled scripts, looked up for
+     * every character
+     */
+    private final char[] scriptValues;
+    private final boolean[] scriptEnabled = new boolean[StringExtractUnicodeTable.SCRIPT_VALUES.length];
+    private final boolean[] blockExtractable = new boolean[StringExtractUnicodeTable.NUM_BLOCKS];
     private boolean enableUTF8;
     private boolean enableUTF16;
     
@@ -59,10 +68,14 @@ public class StringExtract {
     private final StringExtractResult resUTF16En1 = new StringExtractResult();
     private final StringExtractResult resUTF16En2 = new StringExtractResult();
     private final StringExtractResult resUTF8 = new StringExtractResult();
+    private final StringExtractResult resExtractInto = new StringExtractResult();
     
     /**
      * supported scripts, can be overridden with enableScriptX methods
      */
+    private static final int SCRIPT_NONE = SCRIPT.NONE.ordinal();
+    private static final int SCRIPT_COMMON = SCRIPT.COMMON.ordinal();
+    private static final int STRING_END = -1;
     private static final List<SCRIPT> SUPPORTED_SCRIPTS =
             Arrays.asList(
             SCRIPT.LATIN_1, SCRIPT.LATIN_2, SCRIPT.ARABIC, SCRIPT.CYRILLIC, SCRIPT.HAN,
@@ -83,6 +96,7 @@ public StringExtract() {
             throw new IllegalStateException(
                     NbBundle.getMessage(StringExtract.class, "StringExtract.illegalStateException.cannotInit.msg"));
         }
+        scriptValues = unicodeTable.getScriptValues();
 
         setEnabledScripts(SUPPORTED_SCRIPTS);
         enableUTF8 = true;
@@ -113,7 +127,8 @@ public void setEnableUTF16(boolean enableUTF16) {
      * @param scripts scripts to consider for when extracting strings
      */
     public final void setEnabledScripts(List<SCRIPT> scripts) {
-        this.enabledScripts = scripts;
+        this.enabledScripts = new ArrayList<>(scripts);
+        updateLookupTables();
     }
 
 
@@ -126,6 +141,24 @@ public final void setEnabledScript(SCRIPT script) {
 
         this.enabledScripts = new ArrayList<SCRIPT>();
         this.enabledScripts.add(script);
+        updateLookupTables();
+    }
+
+    /**
+     * Precomputes which scripts and which blocks of the unicode table can be
+     * part of a string, so that characters are classified with array lookups
+     */
+    private void updateLookupTables() {
+        BitSet extractable = new BitSet(scriptEnabled.length);
+        for (SCRIPT script : StringExtractUnicodeTable.SCRIPT_VALUES) {
+            scriptEnabled[script.ordinal()] = isExtractionEnabled(script);
+            if (scriptEnabled[script.ordinal()] || StringExtractUnicodeTable.isGeneric(script)) {
+                extractable.set(script.ordinal());
+            }
+        }
+        for (int block = 0; block < blockExtractable.length; ++block) {
+            blockExtractable[block] = unicodeTable.getBlockScripts(block).intersects(extractable);
+        }
     }
 
     /**
@@ -210,28 +243,7 @@ public StringExtractResult extract(byte[] buff, int len, int offset) {
             }
 
             //extract using all methods and see which one wins
-            StringExtractResult resUTF16 = null;
-            boolean runUTF16 = false;
-            if (enableUTF16 && curOffset % 2 == 0) {
-                runUTF16 = true;
-                extractUTF16(buff, len, curOffset, true, resUTF16En1);
-                extractUTF16(buff, len, curOffset, false, resUTF16En2);
-                resUTF16 = resUTF16En1.numChars > resUTF16En2.numChars ? resUTF16En1 : resUTF16En2;
-            } 
-            
-            if (enableUTF8) {
-                extractUTF8(buff, len, curOffset, resUTF8);
-            }
-
-            StringExtractResult resWin = null;
-            if (enableUTF8 && enableUTF16) {
-                resWin = runUTF16 && resUTF16.numChars > resUTF8.numChars ? resUTF16 : resUTF8;
-            } else if (enableUTF16){
-                resWin = resUTF16;
-            }
-            else if (enableUTF8) {
-                resWin = resUTF8;
-            }
+            StringExtractResult resWin = extractString(buff, len, curOffset);
 
             if (resWin.numChars >= MIN_CHARS_STRING) {
                 //record string 
@@ -240,7 +252,7 @@ else if (enableUTF8) {
                     startOffset = resWin.offset;
                 }
                 curStringLen += resWin.numChars;
-                curString.append(resWin.textString);
+                curString.append(resWin.chars, 0, resWin.numChars);
                 curString.append("\n");
                 curStringLen += resWin.numChars + 1;
 
@@ -269,94 +281,163 @@ else if (enableUTF8) {
         return res;
     }
 
-    private StringExtractResult extractUTF16(byte[] buff, int len, int offset, boolean endianSwap, final StringExtractResult res) {
+    /**
+     * Runs the byte buffer through the string extractor, like
+     * extract(byte[], int, int), but without creating strings: the text of
+     * each string found, followed by a new line, is appended to a buffer that
+     * the caller can reuse. Only strings that start within a range of the
+     * buffer are appended, the strings before the range are only used to
+     * keep scanning in step with a scan of the preceding bytes.
+     *
+     * @param buff the bytes to extract strings from
+     * @param len the number of bytes in the buffer
+     * @param offset offset in the buffer to start scanning from
+     * @param emitStart offset of the first byte of the range in which strings
+     * have to start to be appended
+     * @param emitEnd offset past the last byte of the range in which strings
+     * have to start to be appended, the scan stops there
+     * @param out the buffer to append the text of the strings to
+     * @return the result of the extraction, without text, with the start
+     * offset of the first string appended (-1 if none) and the offset past the
+     * last string appended. The result object is reused by the next call.
+     */
+    public StringExtractResult extract(byte[] buff, int len, int offset, int emitStart, int emitEnd, StringBuilder out) {
+        final StringExtractResult res = resExtractInto;
         res.reset();
-        
+        res.offset = -1;
+        if (this.enableUTF16 == false && this.enableUTF8 == false) {
+            return res;
+        }
+
         int curOffset = offset;
+        while (curOffset < len && curOffset < emitEnd) {
+            //shortcut, skip processing empty bytes
+            if (buff[curOffset] == 0 && curOffset + 1 < len && buff[curOffset + 1] == 0) {
+                curOffset += 2;
+                continue;
+            }
 
-        final StringBuilder tempString = new StringBuilder();
+            StringExtractResult resWin = extractString(buff, len, curOffset);
+            if (resWin != null && resWin.numChars >= MIN_CHARS_STRING) {
+                if (curOffset >= emitStart) {
+                    if (res.offset == -1) {
+                        res.offset = curOffset;
+                    }
+                    out.append(resWin.chars, 0, resWin.numChars);
+                    out.append('\n');
+                    res.numChars += resWin.numChars + 1;
+                    res.numBytes += resWin.numBytes;
+                    res.firstUnprocessedOff = curOffset + resWin.numBytes;
+                }
+                curOffset += resWin.numBytes;
+            } else {
+                //if no encodings worked, advance byte
+                if (enableUTF8 == false) {
+                    curOffset += 2;
+                } else {
+                    ++curOffset;
+                }
+            }
+        }
 
-        SCRIPT currentScript = SCRIPT.NONE;
+        return res;
+    }
 
-        boolean inControl = false;
+    /**
+     * Extracts a string starting at an offset with all of the enabled
+     * encodings and picks the one with the most characters
+     *
+     * @return the winning result, reused by the next call, or null if no
+     * encoding could be tried at the offset
+     */
+    private StringExtractResult extractString(byte[] buff, int len, int curOffset) {
+        StringExtractResult resUTF16 = null;
+        boolean runUTF16 = false;
+        if (enableUTF16 && curOffset % 2 == 0) {
+            runUTF16 = true;
+            extractUTF16(buff, len, curOffset, true, resUTF16En1);
+            extractUTF16(buff, len, curOffset, false, resUTF16En2);
+            resUTF16 = resUTF16En1.numChars > resUTF16En2.numChars ? resUTF16En1 : resUTF16En2;
+        } 
+
+        if (enableUTF8) {
+            extractUTF8(buff, len, curOffset, resUTF8);
+        }
 
-        //while we have 2 byte chunks
-        byte[] b = new byte[2];
-        while (curOffset < len - 1) {
-            b[0] = buff[curOffset++];
-            b[1] = buff[curOffset++];
+        StringExtractResult resWin = null;
+        if (enableUTF8 && enableUTF16) {
+            resWin = runUTF16 && resUTF16.numChars > resUTF8.numChars ? resUTF16 : resUTF8;
+        } else if (enableUTF16){
+            resWin = resUTF16;
+        }
+        else if (enableUTF8) {
+            resWin = resUTF8;
+        }
+        return resWin;
+    }
 
-            if (endianSwap) {
-                byte temp = b[0];
-                b[0] = b[1];
-                b[1] = temp;
-            }
+    /**
+     * Classifies the next char of a string, using the lookup tables. Chars of
+     * generic (COMMON) script are allowed in any string, other chars have to
+     * be of an enabled script, the first one of which locks the string into
+     * its script.
+     *
+     * @param currentScript the script value the string is locked on to,
+     * SCRIPT_NONE if not locked yet
+     * @param ch the char, less than UNICODE_TABLE_SIZE
+     * @return the script value the string is locked on to after the char, or
+     * STRING_END if the char can't be part of the string
+     */
+    private int nextScript(int currentScript, int ch) {
+        //most chars of binary data fall in blocks with nothing to extract
+        if (!blockExtractable[ch >>> StringExtractUnicodeTable.BLOCK_BITS]) {
+            return STRING_END;
+        }
+        final int scriptFound = scriptValues[ch];
+        if (scriptFound == SCRIPT_COMMON) {
+            return currentScript;
+        } else if (scriptFound == SCRIPT_NONE || !scriptEnabled[scriptFound]) {
+            return STRING_END;
+        } else if (currentScript == SCRIPT_NONE || currentScript == scriptFound) {
+            return scriptFound;
+        } else {
+            return STRING_END;
+        }
+    }
 
-            //convert the byte sequence to 2 byte char
-            //ByteBuffer bb = ByteBuffer.wrap(b);
-            //int byteVal = bb.getInt();
-            char byteVal = (char) b[1];
-            byteVal = (char) (byteVal << 8);
-            byteVal += b[0];
+    private StringExtractResult extractUTF16(byte[] buff, int len, int offset, boolean endianSwap, final StringExtractResult res) {
+        res.reset();
+        
+        int curOffset = offset;
 
-            //skip if beyond range
-            if (byteVal > StringExtractUnicodeTable.UNICODE_TABLE_SIZE - 1) {
-                break;
-            }
+        int currentScript = SCRIPT_NONE;
 
-            //lookup byteVal in the unicode table
-            SCRIPT scriptFound = unicodeTable.getScript(byteVal);
+        //while we have 2 byte chunks
+        while (curOffset < len - 1) {
+            final byte lowByte = endianSwap ? buff[curOffset + 1] : buff[curOffset];
+            final byte highByte = endianSwap ? buff[curOffset] : buff[curOffset + 1];
+            curOffset += 2;
 
-            if (scriptFound == SCRIPT.NONE) {
-                break;
-            }
+            //convert the byte sequence to 2 byte char
+            //(the low byte is added as a signed value, as it always has been)
+            final char byteVal = (char) (((highByte & 0xFF) << 8) + lowByte);
 
-            /*
-             else if (scriptFound == SCRIPT.CONTROL) {
-             //update bytes processed
-             res.numBytes += 2;
-             continue;
-             } else if (inControl) {
-             break;
-             }*/
-
-
-            final boolean isGeneric = StringExtractUnicodeTable.isGeneric(scriptFound);
-            //allow generic and one of enabled scripts we locked in to
-            if (isGeneric
-                    || isExtractionEnabled(scriptFound)) {
-
-                if (currentScript == SCRIPT.NONE
-                        && !isGeneric) {
-                    //handle case when this is the first char in the string
-                    //lock into the script
-                    currentScript = scriptFound;
-                }
-                //check if we are within the same script we are locked on to, or COMMON
-                if (currentScript == scriptFound
-                        || isGeneric) {
-                    if (res.numChars == 0) {
-                        //set the start offset of the string
-                        res.offset = curOffset;
-                    }
-                    //update bytes processed
-                    res.numBytes += 2;
-                    //append the char
-                    ++res.numChars;
-                    tempString.append(byteVal);
-                } else {
-                    //bail out
-                    break;
-                }
-            } else {
-                //bail out 
+            //check if the char can be part of the string we are locked on to
+            currentScript = nextScript(currentScript, byteVal);
+            if (currentScript == STRING_END) {
                 break;
             }
 
+            if (res.numChars == 0) {
+                //set the start offset of the string
+                res.offset = curOffset;
+            }
+            //update bytes processed
+            res.numBytes += 2;
+            //append the char
+            res.appendChar(byteVal);
         } //no more data
 
-        res.textString = tempString.toString();
-
         return res;
     }
 
@@ -367,19 +448,29 @@ private StringExtractResult extractUTF8(byte[] buff, int len, int offset, final
         int ch = 0; //character being extracted
         int chBytes; //num bytes consumed by current char (1 - 4)
 
-        final StringBuilder tempString = new StringBuilder();
-
-        SCRIPT currentScript = SCRIPT.NONE;
-
-        boolean inControl = false;
+        int currentScript = SCRIPT_NONE;
 
         //decode and extract a character
         while (curOffset < len) {
             // based on "valid UTF-8 byte sequences" in the Unicode 5.0 book
             final int curByte = buff[curOffset] & 0xFF; //ensure we are not comparing signed bytes to ints
             if (curByte <= 0x7F) {
-                chBytes = 1;
-                ch = curByte;
+                //fast path for runs of ASCII chars, which need no decoding
+                int asciiByte = curByte;
+                do {
+                    currentScript = nextScript(currentScript, asciiByte);
+                    if (currentScript == STRING_END) {
+                        return res;
+                    }
+                    ++curOffset;
+                    if (res.numChars == 0) {
+                        //set the start byte offset of the string
+                        res.offset = curOffset;
+                    }
+                    ++res.numBytes;
+                    res.appendChar((char) asciiByte);
+                } while (curOffset < len && (asciiByte = buff[curOffset]) >= 0);
+                continue;
             } else if (curByte <= 0xC1) {
                 break;
             } else if (curByte <= 0xDF) {
@@ -488,57 +579,22 @@ private StringExtractResult extractUTF8(byte[] buff, int len, int offset, final
                 break;
             }
 
-            //lookup byteVal in the unicode table
-            SCRIPT scriptFound = unicodeTable.getScript(ch);
-
-            if (scriptFound == SCRIPT.NONE) {
+            //check if the char can be part of the string we are locked on to
+            currentScript = nextScript(currentScript, ch);
+            if (currentScript == STRING_END) {
                 break;
             }
 
-            /*else if (scriptFound == SCRIPT.CONTROL) {
-             //update bytes processed
-             res.numBytes += chBytes;
-             continue;
-             } else if (inControl) {
-             break;
-             }*/
-
-            final boolean isGeneric = StringExtractUnicodeTable.isGeneric(scriptFound);
-            //allow generic and one of enabled scripts we locked in to
-            if (isGeneric
-                    || isExtractionEnabled(scriptFound)) {
-
-                if (currentScript == SCRIPT.NONE
-                        && !isGeneric) {
-                    //handle case when this is the first char in the string
-                    //lock into the script
-                    currentScript = scriptFound;
-                }
-                //check if we are within the same script we are locked on to, or COMMON
-                if (currentScript == scriptFound
-                        || isGeneric) {
-                    if (res.numChars == 0) {
-                        //set the start byte offset of the string
-                        res.offset = curOffset;
-                    }
-                    //update bytes processed
-                    res.numBytes += chBytes;
-                    //append the char
-                    ++res.numChars;
-                    tempString.append((char) ch);
-                } else {
-                    //bail out
-                    break;
-                }
-            } else {
-                //bail out 
-                break;
+            if (res.numChars == 0) {
+                //set the start byte offset of the string
+                res.offset = curOffset;
             }
-
+            //update bytes processed
+            res.numBytes += chBytes;
+            //append the char
+            res.appendChar((char) ch);
         } //no more data
 
-        res.textString = tempString.toString();
-
         return res;
     }
     
@@ -615,6 +671,7 @@ public class StringExtractResult implements Comparable<StringExtractResult> {
         int numChars; ///< number of encoded characters extracted in the textString
         int firstUnprocessedOff; ///< first byte past the last byte used in extraction, offset+numBytes for a single result, but we keep track of it for multiple extractions
         String textString; ///< the actual text string extracted, of numChars long
+        char[] chars; ///< the characters extracted by a single extraction, reused, numChars long
 
         
         void reset() {
@@ -624,6 +681,15 @@ void reset() {
             firstUnprocessedOff = 0;
             textString = null;
         }
+
+        void appendChar(char c) {
+            if (chars == null) {
+                chars = new char[64];
+            } else if (numChars == chars.length) {
+                chars = Arrays.copyOf(chars, chars.length * 2);
+            }
+            chars[numChars++] = c;
+        }
         
         public int getFirstUnprocessedOff() {
             return firstUnprocessedOff;
@@ -1181,7 +1247,7 @@ public String getLanguages() {
                 }
             }
         };
-        private static final SCRIPT[] SCRIPT_VALUES = SCRIPT.values();
+        static final SCRIPT[] SCRIPT_VALUES = SCRIPT.values();
         private static final String PROPERTY_FILE = "StringExtract.properties"; //NON-NLS
         /**
          * table has an entry for every possible 2-byte value
@@ -1191,6 +1257,13 @@ public String getLanguages() {
          * unicode lookup table with 2 byte index and value of script
          */
         private static final char[] unicodeTable = new char[UNICODE_TABLE_SIZE];
+        /**
+         * the table is divided in blocks of 256 values, with a bitmap of the
+         * scripts found in each block
+         */
+        static final int BLOCK_BITS = 8;
+        static final int NUM_BLOCKS = UNICODE_TABLE_SIZE >>> BLOCK_BITS;
+        private static final BitSet[] blockScripts = new BitSet[NUM_BLOCKS];
         private static StringExtractUnicodeTable instance = null; //the singleton instance
 
         /**
@@ -1222,6 +1295,28 @@ public SCRIPT getScript(int value) {
             return SCRIPT_VALUES[scriptVal];
         }
 
+        /**
+         * Get the script values (SCRIPT ordinals) of all of the table
+         * entries, for table-driven lookups. The table must not be modified.
+         *
+         * @return the script values, indexed by 2-byte value
+         */
+        char[] getScriptValues() {
+            return unicodeTable;
+        }
+
+        /**
+         * Get the scripts found in a block of the table
+         *
+         * @param block the block number, the 2-byte value shifted right by
+         * BLOCK_BITS
+         * @return bitmap of the script values in the block, must not be
+         * modified
+         */
+        BitSet getBlockScripts(int block) {
+            return blockScripts[block];
+        }
+
         /**
          * Check if the script belongs to generic/common (chars are shared
          * between different scripts)
@@ -1279,6 +1374,13 @@ private boolean init() {
                     unicodeTable[tableIndex++] = code;
                 }
 
+                for (int block = 0; block < NUM_BLOCKS; ++block) {
+                    blockScripts[block] = new BitSet(SCRIPT_VALUES.length);
+                }
+                for (int value = 0; value < UNICODE_TABLE_SIZE; ++value) {
+                    blockScripts[value >>> BLOCK_BITS].set(unicodeTable[value]);
+                }
+
                 logger.log(Level.INFO, "initialized, unicode table loaded"); //NON-NLS
 
             } catch (IOException ex) {
@@ -41,6 +41,7 @@
 import org.sleuthkit.datamodel.LayoutFile;
 import org.sleuthkit.datamodel.LocalFile;
 import org.sleuthkit.datamodel.ReadContentInputStream;
+import org.sleuthkit.datamodel.TskCoreException;
 import org.sleuthkit.datamodel.TskException;
 import org.sleuthkit.datamodel.VirtualDirectory;
 
@@ -219,6 +220,62 @@ public static void writeToFile(Content content, java.io.File outputFile) throws
         writeToFile(content, outputFile, null, null, false);
     }
 
+    /**
+     * Reads bytes of a content object into a buffer, completing short reads.
+     *
+     * @param content Any content object.
+     * @param buffer The buffer to read into.
+     * @param bufferOffset The position in the buffer to read to.
+     * @param offset The offset in the content to read from.
+     * @param length The number of bytes to read.
+     * @return The number of bytes read, less than length only if the end of
+     * the content is reached.
+     * @throws TskCoreException if the content could not be read
+     */
+    public static int readFully(Content content, byte[] buffer, int bufferOffset, long offset, int length) throws TskCoreException {
+        return readFully(content, buffer, bufferOffset, offset, length, null);
+    }
+
+    /**
+     * Reads bytes of a content object into a buffer, completing short reads,
+     * through a scratch buffer supplied by the caller. Callers that read often
+     * into the middle of a buffer can reuse the scratch buffer across reads.
+     *
+     * @param content Any content object.
+     * @param buffer The buffer to read into.
+     * @param bufferOffset The position in the buffer to read to.
+     * @param offset The offset in the content to read from.
+     * @param length The number of bytes to read.
+     * @param scratch The buffer to read through when the bytes do not go to
+     * the beginning of the buffer, may be null to allocate one when needed.
+     * @return The number of bytes read, less than length only if the end of
+     * the content is reached.
+     * @throws TskCoreException if the content could not be read
+     */
+    public static int readFully(Content content, byte[] buffer, int bufferOffset, long offset, int length, byte[] scratch) throws TskCoreException {
+        int totalRead = 0;
+        if (bufferOffset == 0) {
+            totalRead = Math.max(content.read(buffer, offset, length), 0);
+            if (totalRead == 0 || totalRead == length) {
+                return totalRead;
+            }
+        }
+        // Content reads always fill the destination buffer from its
+        // beginning, so the rest is read through a scratch buffer.
+        if (scratch == null || scratch.length == 0) {
+            scratch = new byte[length - totalRead];
+        }
+        while (totalRead < length) {
+            int bytesRead = content.read(scratch, offset + totalRead, Math.min(scratch.length, length - totalRead));
+            if (bytesRead <= 0) {
+                break;
+            }
+            System.arraycopy(scratch, 0, buffer, bufferOffset + totalRead, bytesRead);
+            totalRead += bytesRead;
+        }
+        return totalRead;
+    }
+
     /**
      * Helper to ignore the '.' and '..' directories
      */
@@ -0,0 +1,196 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2015 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.ingest;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.datamodel.BlackboardArtifact;
+import org.sleuthkit.datamodel.BlackboardArtifact.ARTIFACT_TYPE;
+import org.sleuthkit.datamodel.BlackboardAttribute;
+import org.sleuthkit.datamodel.Content;
+import org.sleuthkit.datamodel.TskCoreException;
+
+/**
+ * Writes blackboard artifacts posted by ingest modules in batches. The
+ * artifacts are queued with all of their attributes, and each queued artifact
+ * is written with one write for the artifact and one write for all of its
+ * attributes, instead of one write per attribute. A module data event is fired
+ * for each module and artifact type per batch, instead of one per artifact.
+ *
+ * A batch is written when it is full, every couple of seconds, and when a
+ * module flushes the writer, which modules should do when they shut down.
+ * Modules that need an artifact right away, e.g., to post an ingest message
+ * for it, can pass a callback that is called once the artifact is written.
+ * <p>
+ * Thread-safe.
+ */
+public final class BlackboardArtifactWriter {
+
+    private static final Logger logger = Logger.getLogger(BlackboardArtifactWriter.class.getName());
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final long FLUSH_INTERVAL_MS = 2000;
+    private final Object batchLock = new Object();
+    private final Object writeLock = new Object();
+    private List<PendingArtifact> batch = new ArrayList<>();
+    private final ScheduledExecutorService flushExecutor;
+
+    /**
+     * A callback for a queued artifact, called once the artifact is written.
+     */
+    public interface ArtifactWrittenCallback {
+
+        /**
+         * Called with an artifact once it is written, before the module data
+         * event for it is fired.
+         *
+         * @param artifact The artifact.
+         */
+        void artifactWritten(BlackboardArtifact artifact);
+    }
+
+    /**
+     * An artifact waiting to be written.
+     */
+    private static final class PendingArtifact {
+
+        private final String moduleName;
+        private final Content content;
+        private final ARTIFACT_TYPE artifactType;
+        private final Collection<BlackboardAttribute> attributes;
+        private final ArtifactWrittenCallback onWritten;
+
+        private PendingArtifact(String moduleName, Content content, ARTIFACT_TYPE artifactType, Collection<BlackboardAttribute> attributes, ArtifactWrittenCallback onWritten) {
+            this.moduleName = moduleName;
+            this.content = content;
+            this.artifactType = artifactType;
+            this.attributes = new ArrayList<>(attributes);
+            this.onWritten = onWritten;
+        }
+    }
+
+    BlackboardArtifactWriter() {
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("IM-blackboard-writer-%d").setDaemon(true).build()); //NON-NLS
+        flushExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException ex) {
+                // An exception would cancel the periodic flushes
+                logger.log(Level.SEVERE, "Unexpected error writing blackboard artifacts", ex); //NON-NLS
+            }
+        }, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues an artifact to be written to the blackboard.
+     *
+     * @param moduleName The display name of the module posting the artifact,
+     * for the module data event.
+     * @param content The content the artifact is about.
+     * @param artifactType The type of the artifact.
+     * @param attributes The attributes of the artifact.
+     */
+    public void addArtifact(String moduleName, Content content, ARTIFACT_TYPE artifactType, Collection<BlackboardAttribute> attributes) {
+        addArtifact(moduleName, content, artifactType, attributes, null);
+    }
+
+    /**
+     * Queues an artifact to be written to the blackboard, with a callback to
+     * call once it is written.
+     *
+     * @param moduleName The display name of the module posting the artifact,
+     * for the module data event.
+     * @param content The content the artifact is about.
+     * @param artifactType The type of the artifact.
+     * @param attributes The attributes of the artifact.
+     * @param onWritten Called with the artifact once it is written, before the
+     * module data event for it is fired, may be null. It may be called by
+     * another thread than the caller.
+     */
+    public void addArtifact(String moduleName, Content content, ARTIFACT_TYPE artifactType, Collection<BlackboardAttribute> attributes, ArtifactWrittenCallback onWritten) {
+        boolean batchIsFull;
+        synchronized (batchLock) {
+            batch.add(new PendingArtifact(moduleName, content, artifactType, attributes, onWritten));
+            batchIsFull = batch.size() >= MAX_BATCH_SIZE;
+        }
+        if (batchIsFull) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the queued artifacts to the blackboard and fires the module data
+     * events for them.
+     */
+    public void flush() {
+        // Batches are written one at a time, so that the events for the
+        // artifacts are fired in the order they were queued.
+        synchronized (writeLock) {
+            List<PendingArtifact> pending;
+            synchronized (batchLock) {
+                if (batch.isEmpty()) {
+                    return;
+                }
+                pending = batch;
+                batch = new ArrayList<>();
+            }
+            write(pending);
+        }
+    }
+
+    private void write(List<PendingArtifact> pending) {
+        Map<String, Map<ARTIFACT_TYPE, List<BlackboardArtifact>>> written = new LinkedHashMap<>();
+        for (PendingArtifact pendingArtifact : pending) {
+            BlackboardArtifact artifact;
+            try {
+                artifact = pendingArtifact.content.newArtifact(pendingArtifact.artifactType);
+                if (!pendingArtifact.attributes.isEmpty()) {
+                    artifact.addAttributes(pendingArtifact.attributes);
+                }
+            } catch (TskCoreException | RuntimeException ex) {
+                // One bad artifact must not lose the rest of the batch
+                logger.log(Level.SEVERE, "Error posting " + pendingArtifact.artifactType.getDisplayName() + " artifact for " + pendingArtifact.moduleName + " to the blackboard", ex); //NON-NLS
+                continue;
+            }
+            written.computeIfAbsent(pendingArtifact.moduleName, name -> new LinkedHashMap<>())
+                    .computeIfAbsent(pendingArtifact.artifactType, type -> new ArrayList<>())
+                    .add(artifact);
+            if (pendingArtifact.onWritten != null) {
+                try {
+                    pendingArtifact.onWritten.artifactWritten(artifact);
+                } catch (RuntimeException ex) {
+                    logger.log(Level.SEVERE, "Error in callback for " + pendingArtifact.artifactType.getDisplayName() + " artifact for " + pendingArtifact.moduleName, ex); //NON-NLS
+                }
+            }
+        }
+        for (Map.Entry<String, Map<ARTIFACT_TYPE, List<BlackboardArtifact>>> moduleArtifacts : written.entrySet()) {
+            for (Map.Entry<ARTIFACT_TYPE, List<BlackboardArtifact>> typeArtifacts : moduleArtifacts.getValue().entrySet()) {
+                IngestServices.getInstance().fireModuleDataEvent(new ModuleDataEvent(moduleArtifacts.getKey(), typeArtifacts.getKey(), typeArtifacts.getValue()));
+            }
+        }
+    }
+}
@@ -536,7 +536,7 @@ public boolean cancel() {
      * Checks to see if the ingest tasks for the current stage of this job are
      * completed and does a stage transition if they are.
      */
-    private void checkForStageCompleted() {
+    void checkForStageCompleted() {
         synchronized (this.stageCompletionCheckLock) {
             if (DataSourceIngestJob.taskScheduler.tasksForJobAreCompleted(this)) {
                 switch (this.stage) {
@@ -618,6 +618,7 @@ private void finish() {
             }
         }
 
+        DataSourceIngestJob.taskScheduler.ingestJobFinished(this);
         this.parentJob.dataSourceJobFinished(this);
     }
 
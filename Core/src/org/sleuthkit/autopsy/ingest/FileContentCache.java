@@ -0,0 +1,193 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2015 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.ingest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import org.sleuthkit.autopsy.datamodel.ContentUtils;
+import org.sleuthkit.datamodel.AbstractFile;
+import org.sleuthkit.datamodel.ReadContentInputStream;
+import org.sleuthkit.datamodel.TskCoreException;
+
+/**
+ * A read-once content cache for the file currently being processed by a file
+ * ingest pipeline. Reads of the file through the cache read the file into
+ * memory from its beginning up to the end of the requested range, if the file
+ * is not larger than the maximum size of the cache, so that subsequent reads
+ * by the other modules in the pipeline do not go through the SleuthKit JNI
+ * layer again. Reads of larger files and of files other than the current file
+ * go directly to the file.
+ *
+ * Input streams are views of the buffer of the cache rather than copies of the
+ * content. The buffer is reused from file to file unless a stream has been
+ * handed out for the current file, in which case the next file gets a new
+ * buffer, so that the stream may outlive the current file of the cache.
+ */
+final class FileContentCache {
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    private static final int SCRATCH_BUFFER_SIZE = 256 * 1024;
+    private final int maxSize;
+    private byte[] buffer;
+    private AbstractFile file;
+    private int size; // the number of bytes from the beginning of the file in the buffer
+    private boolean loaded; // whether the whole file is in the buffer
+    private boolean loadFailed;
+    private boolean bufferShared; // whether a stream over the buffer has been handed out
+    private byte[] scratch; // for reads that extend the content already in the buffer
+
+    /**
+     * Constructs a read-once content cache.
+     *
+     * @param maxSize The size of the largest file that will be cached, zero to
+     * disable caching.
+     */
+    FileContentCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.buffer = new byte[0];
+    }
+
+    /**
+     * Makes a file the current file of the cache, discarding the content of the
+     * previous file. The content of the file is not read until it is needed.
+     *
+     * @param file The file.
+     */
+    synchronized void reset(AbstractFile file) {
+        if (this.bufferShared) {
+            this.buffer = new byte[0];
+            this.bufferShared = false;
+        }
+        this.file = file;
+        this.size = 0;
+        this.loaded = false;
+        this.loadFailed = false;
+    }
+
+    /**
+     * Discards the current file of the cache.
+     */
+    synchronized void clear() {
+        this.reset(null);
+    }
+
+    /**
+     * Reads content from a file, from memory if the file is the current file
+     * of the cache and it is not too large to be cached.
+     *
+     * @param file The file to read.
+     * @param buf The buffer to read into.
+     * @param offset The offset within the file of the first byte to read.
+     * @param len The maximum number of bytes to read.
+     * @return The number of bytes read.
+     * @throws TskCoreException if there is an error reading the file.
+     */
+    synchronized int read(AbstractFile file, byte[] buf, long offset, int len) throws TskCoreException {
+        if (!this.load(file, offset + len)) {
+            return file.read(buf, offset, len);
+        }
+        if (offset >= this.size) {
+            return 0;
+        }
+        int bytesToCopy = (int) Math.min(len, this.size - offset);
+        System.arraycopy(this.buffer, (int) offset, buf, 0, bytesToCopy);
+        return bytesToCopy;
+    }
+
+    /**
+     * Gets an input stream for the content of a file, a stream over the content
+     * in memory if the file is the current file of the cache and it is not too
+     * large to be cached. The stream may outlive the current file of the cache,
+     * e.g., when it is read by another thread.
+     *
+     * @param file The file to read.
+     * @return The input stream.
+     */
+    synchronized InputStream getInputStream(AbstractFile file) {
+        try {
+            if (this.load(file, Long.MAX_VALUE)) {
+                // The bytes of the stream are not overwritten, the next file
+                // gets a new buffer and this file is only ever appended to.
+                this.bufferShared = true;
+                return new ByteArrayInputStream(this.buffer, 0, this.size);
+            }
+        } catch (TskCoreException ignored) {
+            /**
+             * The error will be reported again to the caller when the stream
+             * over the file is read.
+             */
+        }
+        return new ReadContentInputStream(file);
+    }
+
+    /**
+     * Reads the content of the current file into memory, from the end of the
+     * content already read up to the end of a requested range. At least
+     * INITIAL_BUFFER_SIZE bytes are read at a time, so that small sequential
+     * reads do not each go to the file.
+     *
+     * @param file The file for which content is being requested.
+     * @param end The offset within the file just past the last byte
+     * requested.
+     * @return True if the requested content of the file is in memory, false
+     * if the file should be read directly.
+     * @throws TskCoreException if there is an error reading the file.
+     */
+    private boolean load(AbstractFile file, long end) throws TskCoreException {
+        if (this.file == null || file.getId() != this.file.getId() || this.loadFailed) {
+            return false;
+        }
+        if (this.loaded || end <= this.size) {
+            return true;
+        }
+        long fileSize = file.getSize();
+        if (fileSize <= 0 || fileSize > this.maxSize) {
+            this.loadFailed = true;
+            return false;
+        }
+        int target = (int) Math.min(fileSize, Math.max(end, (long) this.size + INITIAL_BUFFER_SIZE));
+        if (this.buffer.length < target) {
+            this.buffer = Arrays.copyOf(this.buffer, this.grownCapacity(target));
+        }
+        if (this.size > 0 && this.scratch == null) {
+            this.scratch = new byte[SCRATCH_BUFFER_SIZE];
+        }
+        try {
+            this.size += ContentUtils.readFully(file, this.buffer, this.size, this.size, target - this.size, this.scratch);
+            if (this.size < target) {
+                // The file is shorter than its reported size.
+                this.loaded = true;
+                return true;
+            }
+        } catch (TskCoreException ex) {
+            this.loadFailed = true;
+            throw ex;
+        }
+        this.loaded = (this.size >= fileSize);
+        return true;
+    }
+
+    /**
+     * Gets the capacity to grow the buffer to, to hold a number of bytes.
+     */
+    private int grownCapacity(int minCapacity) {
+        return (int) Math.min(this.maxSize, Math.max(minCapacity, Math.max(INITIAL_BUFFER_SIZE, 2L * this.buffer.length)));
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2015 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.ingest;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.datamodel.AbstractFile;
+import org.sleuthkit.datamodel.TskCoreException;
+
+/**
+ * Calculates the hashes of files for ingest modules, computing all of the
+ * requested hash types in one pass over the content of a file.
+ *
+ * Files are read through the ingest job context, so that the files that fit
+ * in the content cache of the file ingest pipeline are not read again. Larger
+ * files are read in chunks, and the digest of a chunk is computed by a hashing
+ * thread while the next chunk is read. The chunk buffers are pooled and shared
+ * by all of the ingest threads.
+ *
+ * The MD5 hash of a file is saved to the case database, where other modules
+ * can get it with AbstractFile.getMd5Hash(). The other hashes of the most
+ * recently hashed files are kept in memory, so that a module that needs them
+ * after another module has calculated them does not read the file again.
+ * <p>
+ * Thread-safe.
+ */
+public final class FileHashService {
+
+    /**
+     * The types of hashes the service calculates.
+     */
+    public enum HashType {
+
+        MD5("MD5"), //NON-NLS
+        SHA1("SHA-1"), //NON-NLS
+        SHA256("SHA-256"); //NON-NLS
+
+        private final String algorithm;
+
+        private HashType(String algorithm) {
+            this.algorithm = algorithm;
+        }
+    }
+
+    private static final Logger logger = Logger.getLogger(FileHashService.class.getName());
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 16;
+    private static final int MAX_CACHED_RESULTS = 1024;
+    private final BlockingQueue<byte[]> bufferPool = new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
+    private final ExecutorService hashingThreadPool;
+    private final Map<Long, Map<HashType, String>> recentResults;
+
+    FileHashService() {
+        hashingThreadPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactoryBuilder().setNameFormat("IM-file-hashing-%d").setDaemon(true).build()); //NON-NLS
+        recentResults = Collections.synchronizedMap(new LinkedHashMap<Long, Map<HashType, String>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Map<HashType, String>> eldest) {
+                return size() > MAX_CACHED_RESULTS;
+            }
+        });
+    }
+
+    /**
+     * Gets the MD5 hash of a file, calculating it and saving it to the case
+     * database if the file does not have one yet.
+     *
+     * @param file The file.
+     * @param context The ingest job context through which to read the file,
+     * may be null.
+     * @return The MD5 hash, as a string of lower case hexadecimal digits.
+     * @throws IOException if there is an error reading the file.
+     */
+    public String getMd5Hash(AbstractFile file, IngestJobContext context) throws IOException {
+        return getHashes(file, context, EnumSet.of(HashType.MD5)).get(HashType.MD5);
+    }
+
+    /**
+     * Gets hashes of a file, calculating the ones that are not known yet in
+     * one pass over the content of the file.
+     *
+     * @param file The file.
+     * @param context The ingest job context through which to read the file,
+     * may be null.
+     * @param hashTypes The types of hashes to get.
+     * @return The hashes, as strings of lower case hexadecimal digits.
+     * @throws IOException if there is an error reading the file.
+     */
+    public Map<HashType, String> getHashes(AbstractFile file, IngestJobContext context, Set<HashType> hashTypes) throws IOException {
+        Map<HashType, String> hashes = new EnumMap<>(HashType.class);
+        Map<HashType, String> knownHashes = recentResults.get(file.getId());
+        if (knownHashes != null) {
+            hashes.putAll(knownHashes);
+        }
+        String md5Hash = file.getMd5Hash();
+        if (md5Hash != null && !md5Hash.isEmpty()) {
+            hashes.put(HashType.MD5, md5Hash);
+        }
+        hashes.keySet().retainAll(hashTypes);
+        if (hashes.size() == hashTypes.size()) {
+            return hashes;
+        }
+
+        Set<HashType> missingHashTypes = EnumSet.copyOf(hashTypes);
+        missingHashTypes.removeAll(hashes.keySet());
+        hashes.putAll(calculateHashes(file, context, missingHashTypes));
+        if (missingHashTypes.contains(HashType.MD5)) {
+            try {
+                file.getSleuthkitCase().setMd5Hash(file, hashes.get(HashType.MD5));
+            } catch (TskCoreException ex) {
+                logger.log(Level.WARNING, "Error saving the MD5 hash of " + file.getName() + " (id: " + file.getId() + ")", ex); //NON-NLS
+            }
+        }
+        if (!missingHashTypes.equals(EnumSet.of(HashType.MD5))) {
+            synchronized (recentResults) {
+                Map<HashType, String> results = recentResults.get(file.getId());
+                if (results == null) {
+                    results = Collections.synchronizedMap(new EnumMap<>(HashType.class));
+                    recentResults.put(file.getId(), results);
+                }
+                results.putAll(hashes);
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Calculates hashes of a file in one pass over its content.
+     */
+    private Map<HashType, String> calculateHashes(AbstractFile file, IngestJobContext context, Set<HashType> hashTypes) throws IOException {
+        final MessageDigest[] digests = new MessageDigest[hashTypes.size()];
+        int digestIndex = 0;
+        for (HashType hashType : hashTypes) {
+            try {
+                digests[digestIndex++] = MessageDigest.getInstance(hashType.algorithm);
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IOException("No " + hashType.algorithm + " digest", ex); //NON-NLS
+            }
+        }
+
+        long fileSize = file.getSize();
+        byte[] buffer = acquireBuffer();
+        byte[] otherBuffer = null;
+        Future<?> pendingDigest = null;
+        try {
+            long offset = 0;
+            while (offset < fileSize) {
+                int bytesRead = read(file, context, buffer, offset, (int) Math.min(CHUNK_SIZE, fileSize - offset));
+                if (bytesRead <= 0) {
+                    break;
+                }
+                offset += bytesRead;
+                if (offset >= fileSize && pendingDigest == null) {
+                    // the whole file fits in one chunk, digest it here
+                    update(digests, buffer, bytesRead);
+                    break;
+                }
+
+                // digest the chunk on a hashing thread while reading the next
+                // one into the other buffer, once its digest is done
+                if (pendingDigest != null) {
+                    waitFor(pendingDigest, file);
+                } else {
+                    otherBuffer = acquireBuffer();
+                }
+                final byte[] chunk = buffer;
+                final int chunkLength = bytesRead;
+                pendingDigest = hashingThreadPool.submit(() -> update(digests, chunk, chunkLength));
+                buffer = otherBuffer;
+                otherBuffer = chunk;
+            }
+            if (pendingDigest != null) {
+                waitFor(pendingDigest, file);
+            }
+        } finally {
+            // a buffer that may still be in use by a hashing thread is not
+            // returned to the pool
+            if (pendingDigest == null || pendingDigest.isDone()) {
+                releaseBuffer(otherBuffer);
+            }
+            releaseBuffer(buffer);
+        }
+
+        Map<HashType, String> hashes = new EnumMap<>(HashType.class);
+        digestIndex = 0;
+        for (HashType hashType : hashTypes) {
+            hashes.put(hashType, toHexString(digests[digestIndex++].digest()));
+        }
+        return hashes;
+    }
+
+    private static int read(AbstractFile file, IngestJobContext context, byte[] buffer, long offset, int length) throws IOException {
+        try {
+            return (context != null) ? context.readFileContent(file, buffer, offset, length) : file.read(buffer, offset, length);
+        } catch (TskCoreException ex) {
+            throw new IOException("Error reading " + file.getName() + " (id: " + file.getId() + ") at offset " + offset, ex); //NON-NLS
+        }
+    }
+
+    private static void update(MessageDigest[] digests, byte[] buffer, int length) {
+        for (MessageDigest digest : digests) {
+            digest.update(buffer, 0, length);
+        }
+    }
+
+    private static void waitFor(Future<?> digest, AbstractFile file) throws IOException {
+        try {
+            digest.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while hashing " + file.getName()); //NON-NLS
+        } catch (ExecutionException ex) {
+            throw new IOException("Error hashing " + file.getName(), ex.getCause()); //NON-NLS
+        }
+    }
+
+    private byte[] acquireBuffer() {
+        byte[] buffer = bufferPool.poll();
+        return (buffer != null) ? buffer : new byte[CHUNK_SIZE];
+    }
+
+    private void releaseBuffer(byte[] buffer) {
+        if (buffer != null) {
+            bufferPool.offer(buffer);
+        }
+    }
+
+    private static String toHexString(byte[] bytes) {
+        final char[] hexDigits = "0123456789abcdef".toCharArray(); //NON-NLS
+        char[] chars = new char[2 * bytes.length];
+        for (int i = 0; i < bytes.length; ++i) {
+            chars[2 * i] = hexDigits[(bytes[i] >> 4) & 0xF];
+            chars[2 * i + 1] = hexDigits[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
@@ -21,6 +21,7 @@
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import org.sleuthkit.autopsy.core.UserPreferences;
 import org.sleuthkit.autopsy.coreutils.MessageNotifyUtil;
 import org.sleuthkit.datamodel.AbstractFile;
 
@@ -36,6 +37,7 @@ final class FileIngestPipeline {
     private static final IngestManager ingestManager = IngestManager.getInstance();
     private final DataSourceIngestJob job;
     private final List<PipelineModule> modules = new ArrayList<>();
+    private final FileContentCache contentCache = new FileContentCache(UserPreferences.fileIngestContentCacheMaxSize());
     private Date startTime;
     private volatile boolean running;
 
@@ -97,7 +99,7 @@ synchronized List<IngestModuleError> startUp() {
         List<IngestModuleError> errors = new ArrayList<>();
         for (PipelineModule module : this.modules) {
             try {
-                module.startUp(new IngestJobContext(this.job));
+                module.startUp(new IngestJobContext(this.job, this.contentCache));
             } catch (Throwable ex) { // Catch-all exception firewall
                 errors.add(new IngestModuleError(module.getDisplayName(), ex));
             }
@@ -114,6 +116,7 @@ synchronized List<IngestModuleError> startUp() {
     synchronized List<IngestModuleError> process(FileIngestTask task) {
         List<IngestModuleError> errors = new ArrayList<>();
         AbstractFile file = task.getFile();
+        this.contentCache.reset(file);
         for (PipelineModule module : this.modules) {
             try {
                 FileIngestPipeline.ingestManager.setIngestTaskProgress(task, module.getDisplayName());
@@ -130,6 +133,7 @@ synchronized List<IngestModuleError> process(FileIngestTask task) {
                 break;
             }
         }
+        this.contentCache.clear();
         file.close();
         if (!this.job.isCancelled()) {
             IngestManager.getInstance().fireFileIngestDone(file);
@@ -0,0 +1,275 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2015 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.ingest;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.beans.PropertyChangeSupport;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import org.openide.util.NbBundle;
+import org.sleuthkit.autopsy.core.UserPreferences;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.autopsy.coreutils.MessageNotifyUtil;
+import org.sleuthkit.datamodel.AbstractFile;
+import org.sleuthkit.datamodel.BlackboardArtifact;
+import org.sleuthkit.datamodel.Content;
+
+/**
+ * Delivers ingest events to the ingest manager property change listeners in
+ * batches, so that the work done by the listeners depends on time rather than
+ * on the number of events.
+ *
+ * Events are collected for a batch interval and then fired in the order they
+ * were posted, on a single thread. Within a batch:
+ * <ul>
+ * <li>DATA_ADDED events of the same module and artifact type are merged into
+ * one event, with the artifacts of all of them, or with no artifacts if one of
+ * them did not provide its artifacts.</li>
+ * <li>CONTENT_CHANGED events for content that already has an event in the
+ * batch are dropped.</li>
+ * <li>FILE_DONE events for a file that already has an event in the batch are
+ * dropped. FILE_DONE events are otherwise not merged, since their listeners
+ * need every file, but their number is bounded: when the bound is reached,
+ * the batch is delivered right away and the ingest threads wait for it, or,
+ * if so configured, further FILE_DONE events are dropped until then.</li>
+ * <li>Ingest job events cause the batch to be delivered right away.</li>
+ * </ul>
+ */
+final class IngestEventBus {
+
+    private static final Logger logger = Logger.getLogger(IngestEventBus.class.getName());
+    private final PropertyChangeSupport jobEventPublisher;
+    private final PropertyChangeSupport moduleEventPublisher;
+    private final long batchIntervalMillis;
+    private final int maxPendingFileDoneEvents;
+    private final boolean dropFileDoneEventsOnOverflow;
+    private final ExecutorService deliveryThread;
+    private final Object lock = new Object();
+    private List<PendingEvent> pendingEvents = new ArrayList<>();
+    private final Map<List<Object>, PendingEvent> pendingDataEvents = new HashMap<>();
+    private final Set<Long> pendingContentIds = new HashSet<>();
+    private final Set<Long> pendingFileDoneIds = new HashSet<>();
+    private boolean deliverNow;
+    private long droppedFileDoneEvents;
+
+    /**
+     * An event waiting to be delivered.
+     */
+    private static final class PendingEvent {
+
+        private final PropertyChangeSupport publisher;
+        private final String eventName;
+        private Object oldValue;
+        private final Object newValue;
+        private List<BlackboardArtifact> mergedArtifacts;
+
+        private PendingEvent(PropertyChangeSupport publisher, String eventName, Object oldValue, Object newValue) {
+            this.publisher = publisher;
+            this.eventName = eventName;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+        /**
+         * Merges a DATA_ADDED event for the same module and artifact type into
+         * this one.
+         */
+        private void merge(ModuleDataEvent event) {
+            ModuleDataEvent pendingEvent = (ModuleDataEvent) oldValue;
+            if (mergedArtifacts == null && pendingEvent.getArtifacts() != null) {
+                mergedArtifacts = new ArrayList<>(pendingEvent.getArtifacts());
+            }
+            if (mergedArtifacts != null && event.getArtifacts() != null) {
+                mergedArtifacts.addAll(event.getArtifacts());
+                oldValue = new ModuleDataEvent(pendingEvent.getModuleName(), pendingEvent.getArtifactType(), mergedArtifacts);
+            } else {
+                mergedArtifacts = null;
+                oldValue = new ModuleDataEvent(pendingEvent.getModuleName(), pendingEvent.getArtifactType());
+            }
+        }
+    }
+
+    /**
+     * Constructs an event bus that delivers events to property change
+     * listeners.
+     *
+     * @param jobEventPublisher The publisher of ingest job events.
+     * @param moduleEventPublisher The publisher of ingest module events.
+     */
+    IngestEventBus(PropertyChangeSupport jobEventPublisher, PropertyChangeSupport moduleEventPublisher) {
+        this.jobEventPublisher = jobEventPublisher;
+        this.moduleEventPublisher = moduleEventPublisher;
+        this.batchIntervalMillis = UserPreferences.ingestEventBatchIntervalMillis();
+        this.maxPendingFileDoneEvents = UserPreferences.maxPendingFileDoneEvents();
+        this.dropFileDoneEventsOnOverflow = UserPreferences.dropFileDoneEventsOnOverflow();
+        this.deliveryThread = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("IM-ingest-events-%d").build()); //NON-NLS
+        this.deliveryThread.submit(() -> deliverEvents());
+    }
+
+    /**
+     * Posts an ingest job event, delivering the events in the current batch
+     * right away.
+     *
+     * @param event The event.
+     * @param ingestJobId The ingest job id.
+     */
+    void postJobEvent(IngestManager.IngestJobEvent event, long ingestJobId) {
+        synchronized (lock) {
+            pendingEvents.add(new PendingEvent(jobEventPublisher, event.toString(), ingestJobId, null));
+            deliverNow = true;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Posts a DATA_ADDED event, merging it with any event for the same module
+     * and artifact type in the current batch.
+     *
+     * @param event The event.
+     */
+    void postDataEvent(ModuleDataEvent event) {
+        synchronized (lock) {
+            List<Object> key = Arrays.asList(event.getModuleName(), event.getArtifactType());
+            PendingEvent pendingEvent = pendingDataEvents.get(key);
+            if (pendingEvent != null) {
+                pendingEvent.merge(event);
+            } else {
+                pendingEvent = new PendingEvent(moduleEventPublisher, IngestManager.IngestModuleEvent.DATA_ADDED.toString(), event, null);
+                pendingDataEvents.put(key, pendingEvent);
+                add(pendingEvent);
+            }
+        }
+    }
+
+    /**
+     * Posts a CONTENT_CHANGED event, unless there is one for the same content
+     * in the current batch.
+     *
+     * @param event The event.
+     */
+    void postContentEvent(ModuleContentEvent event) {
+        synchronized (lock) {
+            Object source = event.getSource();
+            if (source instanceof Content && !pendingContentIds.add(((Content) source).getId())) {
+                return;
+            }
+            add(new PendingEvent(moduleEventPublisher, IngestManager.IngestModuleEvent.CONTENT_CHANGED.toString(), event, null));
+        }
+    }
+
+    /**
+     * Posts a FILE_DONE event, unless there is one for the same file in the
+     * current batch. If the maximum number of FILE_DONE events is pending, the
+     * calling thread waits for the batch to be delivered, or the event is
+     * dropped if the bus is configured to drop events on overflow.
+     *
+     * @param file The file.
+     */
+    void postFileDoneEvent(AbstractFile file) {
+        synchronized (lock) {
+            if (pendingFileDoneIds.contains(file.getId())) {
+                return;
+            }
+            while (pendingFileDoneIds.size() >= maxPendingFileDoneEvents) {
+                deliverNow = true;
+                lock.notifyAll();
+                if (dropFileDoneEventsOnOverflow) {
+                    ++droppedFileDoneEvents;
+                    return;
+                }
+                try {
+                    lock.wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            pendingFileDoneIds.add(file.getId());
+            add(new PendingEvent(moduleEventPublisher, IngestManager.IngestModuleEvent.FILE_DONE.toString(), file.getId(), file));
+        }
+    }
+
+    /**
+     * Adds an event to the current batch, waking up the delivery thread if it
+     * is the first one. Must be called while holding the lock.
+     */
+    private void add(PendingEvent event) {
+        pendingEvents.add(event);
+        if (pendingEvents.size() == 1) {
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Delivers the batches of events, runs on the delivery thread.
+     */
+    private void deliverEvents() {
+        while (true) {
+            List<PendingEvent> batch;
+            try {
+                synchronized (lock) {
+                    while (pendingEvents.isEmpty()) {
+                        lock.wait();
+                    }
+                    long deadline = System.currentTimeMillis() + batchIntervalMillis;
+                    long timeLeft;
+                    while (!deliverNow && (timeLeft = deadline - System.currentTimeMillis()) > 0) {
+                        lock.wait(timeLeft);
+                    }
+                    batch = pendingEvents;
+                    pendingEvents = new ArrayList<>();
+                    pendingDataEvents.clear();
+                    pendingContentIds.clear();
+                    pendingFileDoneIds.clear();
+                    deliverNow = false;
+                    if (droppedFileDoneEvents > 0) {
+                        logger.log(Level.WARNING, "Dropped {0} file done events, the listeners are not keeping up", droppedFileDoneEvents); //NON-NLS
+                        droppedFileDoneEvents = 0;
+                    }
+                    // wake up the ingest threads waiting for room for events
+                    lock.notifyAll();
+                }
+            } catch (InterruptedException ex) {
+                return;
+            }
+            for (PendingEvent event : batch) {
+                publish(event);
+            }
+        }
+    }
+
+    private void publish(PendingEvent event) {
+        try {
+            event.publisher.firePropertyChange(event.eventName, event.oldValue, event.newValue);
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Ingest manager listener threw exception", e); //NON-NLS
+            MessageNotifyUtil.Notify.show(NbBundle.getMessage(IngestManager.class, "IngestManager.moduleErr"),
+                    NbBundle.getMessage(IngestManager.class, "IngestManager.moduleErr.errListenToUpdates.msg"),
+                    MessageNotifyUtil.MessageType.ERROR);
+        }
+    }
+}
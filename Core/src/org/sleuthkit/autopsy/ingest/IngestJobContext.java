@@ -18,9 +18,12 @@
  */
 package org.sleuthkit.autopsy.ingest;
 
+import java.io.InputStream;
 import java.util.List;
 import org.sleuthkit.datamodel.AbstractFile;
 import org.sleuthkit.datamodel.Content;
+import org.sleuthkit.datamodel.ReadContentInputStream;
+import org.sleuthkit.datamodel.TskCoreException;
 
 /**
  * Provides an ingest module with services specific to the ingest job of which
@@ -29,9 +32,15 @@
 public final class IngestJobContext {
 
     private final DataSourceIngestJob ingestJob;
+    private final FileContentCache contentCache;
 
     IngestJobContext(DataSourceIngestJob ingestJob) {
+        this(ingestJob, null);
+    }
+
+    IngestJobContext(DataSourceIngestJob ingestJob, FileContentCache contentCache) {
         this.ingestJob = ingestJob;
+        this.contentCache = contentCache;
     }
 
     /**
@@ -120,4 +129,41 @@ public void addFilesToJob(List<AbstractFile> files) {
         this.ingestJob.addFiles(files);
     }
 
+    /**
+     * Reads content from a file. When called by a file ingest module for the
+     * file it is processing, the read is served from a content cache shared by
+     * the modules of the file ingest pipeline, so that small and medium sized
+     * files are only read once through the SleuthKit layer.
+     *
+     * @param file The file to read.
+     * @param buffer The buffer to read into, starting at index zero.
+     * @param offset The offset within the file of the first byte to read.
+     * @param length The maximum number of bytes to read.
+     * @return The number of bytes read.
+     * @throws TskCoreException if there is an error reading the file.
+     */
+    public int readFileContent(AbstractFile file, byte[] buffer, long offset, int length) throws TskCoreException {
+        if (this.contentCache != null) {
+            return this.contentCache.read(file, buffer, offset, length);
+        }
+        return file.read(buffer, offset, length);
+    }
+
+    /**
+     * Gets an input stream for the content of a file. When called by a file
+     * ingest module for the file it is processing, the stream is served from a
+     * content cache shared by the modules of the file ingest pipeline. The
+     * stream stays valid after the module returns from processing the file,
+     * e.g., for a module that reads it on another thread.
+     *
+     * @param file The file to read.
+     * @return The input stream.
+     */
+    public InputStream getFileContentInputStream(AbstractFile file) {
+        if (this.contentCache != null) {
+            return this.contentCache.getInputStream(file);
+        }
+        return new ReadContentInputStream(file);
+    }
+
 }
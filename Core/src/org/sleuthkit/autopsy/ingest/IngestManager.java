@@ -44,7 +44,6 @@
 import org.sleuthkit.autopsy.casemodule.Case;
 import org.sleuthkit.autopsy.core.UserPreferences;
 import org.sleuthkit.autopsy.coreutils.Logger;
-import org.sleuthkit.autopsy.coreutils.MessageNotifyUtil;
 import org.sleuthkit.datamodel.AbstractFile;
 import org.sleuthkit.datamodel.Content;
 
@@ -100,7 +99,7 @@ public class IngestManager {
      */
     private final PropertyChangeSupport ingestJobEventPublisher;
     private final PropertyChangeSupport ingestModuleEventPublisher;
-    private final ExecutorService fireIngestEventsThreadPool;
+    private final IngestEventBus ingestEventBus;
 
     /**
      * The ingest manager uses an ingest monitor to determine when system
@@ -227,8 +226,8 @@ private IngestManager() {
         this.ingestErrorMessagePosts = new AtomicLong(0L);
         this.ingestMonitor = new IngestMonitor();
         this.ingestModuleEventPublisher = new PropertyChangeSupport(IngestManager.class);
-        this.fireIngestEventsThreadPool = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("IM-ingest-events-%d").build()); //NON-NLS
         this.ingestJobEventPublisher = new PropertyChangeSupport(IngestManager.class);
+        this.ingestEventBus = new IngestEventBus(ingestJobEventPublisher, ingestModuleEventPublisher);
         this.dataSourceIngestThreadPool = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("IM-data-source-ingest-%d").build()); //NON-NLS
         this.startIngestJobsThreadPool = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("IM-start-ingest-jobs-%d").build()); //NON-NLS
         this.nextThreadId = new AtomicLong(0L);
@@ -573,7 +572,7 @@ public static void removePropertyChangeListener(final PropertyChangeListener lis
      * @param ingestJobId The ingest job id.
      */
     void fireIngestJobStarted(long ingestJobId) {
-        fireIngestEventsThreadPool.submit(new IngestEventPublisher(ingestJobEventPublisher, IngestJobEvent.STARTED, ingestJobId, null));
+        ingestEventBus.postJobEvent(IngestJobEvent.STARTED, ingestJobId);
     }
 
     /**
@@ -582,7 +581,7 @@ void fireIngestJobStarted(long ingestJobId) {
      * @param ingestJobId The ingest job id.
      */
     void fireIngestJobCompleted(long ingestJobId) {
-        fireIngestEventsThreadPool.submit(new IngestEventPublisher(ingestJobEventPublisher, IngestJobEvent.COMPLETED, ingestJobId, null));
+        ingestEventBus.postJobEvent(IngestJobEvent.COMPLETED, ingestJobId);
     }
 
     /**
@@ -591,7 +590,7 @@ void fireIngestJobCompleted(long ingestJobId) {
      * @param ingestJobId The ingest job id.
      */
     void fireIngestJobCancelled(long ingestJobId) {
-        fireIngestEventsThreadPool.submit(new IngestEventPublisher(ingestJobEventPublisher, IngestJobEvent.CANCELLED, ingestJobId, null));
+        ingestEventBus.postJobEvent(IngestJobEvent.CANCELLED, ingestJobId);
     }
 
     /**
@@ -600,7 +599,7 @@ void fireIngestJobCancelled(long ingestJobId) {
      * @param file The file that is completed.
      */
     void fireFileIngestDone(AbstractFile file) {
-        fireIngestEventsThreadPool.submit(new IngestEventPublisher(ingestModuleEventPublisher, IngestModuleEvent.FILE_DONE, file.getId(), file));
+        ingestEventBus.postFileDoneEvent(file);
     }
 
     /**
@@ -609,7 +608,7 @@ void fireFileIngestDone(AbstractFile file) {
      * @param moduleDataEvent A ModuleDataEvent with the details of the posting.
      */
     void fireIngestModuleDataEvent(ModuleDataEvent moduleDataEvent) {
-        fireIngestEventsThreadPool.submit(new IngestEventPublisher(ingestModuleEventPublisher, IngestModuleEvent.DATA_ADDED, moduleDataEvent, null));
+        ingestEventBus.postDataEvent(moduleDataEvent);
     }
 
     /**
@@ -620,7 +619,7 @@ void fireIngestModuleDataEvent(ModuleDataEvent moduleDataEvent) {
      * content.
      */
     void fireIngestModuleContentEvent(ModuleContentEvent moduleContentEvent) {
-        fireIngestEventsThreadPool.submit(new IngestEventPublisher(ingestModuleEventPublisher, IngestModuleEvent.CONTENT_CHANGED, moduleContentEvent, null));
+        ingestEventBus.postContentEvent(moduleContentEvent);
     }
 
     /**
@@ -818,46 +817,6 @@ public void run() {
         }
     }
 
-    /**
-     * Fires ingest events to ingest manager property change listeners.
-     */
-    private static final class IngestEventPublisher implements Runnable {
-
-        private final PropertyChangeSupport publisher;
-        private final IngestJobEvent jobEvent;
-        private final IngestModuleEvent moduleEvent;
-        private final Object oldValue;
-        private final Object newValue;
-
-        IngestEventPublisher(PropertyChangeSupport publisher, IngestJobEvent event, Object oldValue, Object newValue) {
-            this.publisher = publisher;
-            this.jobEvent = event;
-            this.moduleEvent = null;
-            this.oldValue = oldValue;
-            this.newValue = newValue;
-        }
-
-        IngestEventPublisher(PropertyChangeSupport publisher, IngestModuleEvent event, Object oldValue, Object newValue) {
-            this.publisher = publisher;
-            this.jobEvent = null;
-            this.moduleEvent = event;
-            this.oldValue = oldValue;
-            this.newValue = newValue;
-        }
-
-        @Override
-        public void run() {
-            try {
-                publisher.firePropertyChange((jobEvent != null ? jobEvent.toString() : moduleEvent.toString()), oldValue, newValue);
-            } catch (Exception e) {
-                logger.log(Level.SEVERE, "Ingest manager listener threw exception", e); //NON-NLS
-                MessageNotifyUtil.Notify.show(NbBundle.getMessage(IngestManager.class, "IngestManager.moduleErr"),
-                        NbBundle.getMessage(IngestManager.class, "IngestManager.moduleErr.errListenToUpdates.msg"),
-                        MessageNotifyUtil.MessageType.ERROR);
-            }
-        }
-    }
-
     static final class IngestThreadActivitySnapshot {
 
         private final long threadId;
@@ -33,6 +33,8 @@ public final class IngestServices {
 
     private static IngestServices instance = null;
     private final IngestManager manager = IngestManager.getInstance();
+    private BlackboardArtifactWriter blackboardArtifactWriter;
+    private FileHashService fileHashService;
 
     private IngestServices() {
     }
@@ -98,6 +100,33 @@ public void fireModuleDataEvent(ModuleDataEvent moduleDataEvent) {
         IngestManager.getInstance().fireIngestModuleDataEvent(moduleDataEvent);
     }
 
+    /**
+     * Get the writer that posts blackboard artifacts in batches, firing one
+     * module data event per module and artifact type per batch. Modules that
+     * use it should flush it when they shut down.
+     *
+     * @return The blackboard artifact writer.
+     */
+    public synchronized BlackboardArtifactWriter getBlackboardArtifactWriter() {
+        if (blackboardArtifactWriter == null) {
+            blackboardArtifactWriter = new BlackboardArtifactWriter();
+        }
+        return blackboardArtifactWriter;
+    }
+
+    /**
+     * Get the service that calculates the hashes of files, saving the MD5
+     * hashes to the case database so that each file is only hashed once.
+     *
+     * @return The file hash service.
+     */
+    public synchronized FileHashService getFileHashService() {
+        if (fileHashService == null) {
+            fileHashService = new FileHashService();
+        }
+        return fileHashService;
+    }
+
     /**
      * Fire module content event to notify registered module content event
      * listeners that there is new content (from ZIP file contents, carving,
@@ -18,20 +18,30 @@
  */
 package org.sleuthkit.autopsy.ingest;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.TreeSet;
 import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import org.sleuthkit.autopsy.core.UserPreferences;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.datamodel.AbstractFile;
 import org.sleuthkit.datamodel.Content;
@@ -80,24 +90,38 @@ final class IngestTasksScheduler {
      * Tasks in the pending file tasks queue are ready to be consumed by the
      * ingest threads, so the queue is wrapped in a "dispenser" that implements
      * the IngestTaskQueue interface and is exposed via a getter method.
+     *
+     * When the work stealing file ingest scheduler is enabled, the root
+     * directory tasks queue is still used, but the directory tasks and pending
+     * file tasks queues are replaced by a set of per ingest thread deques (see
+     * WorkStealingFileIngestTaskQueue).
+     *
+     * When file ingest task prefetching is enabled, the shuffling is not done
+     * by the ingest threads. Instead, a prefetcher running on its own thread
+     * expands directory tasks ahead of demand, keeping the number of tasks in
+     * the pending file tasks queue between a low and a high watermark (see
+     * DirectoryExpansionPrefetcher).
      */
     private final TreeSet<FileIngestTask> rootDirectoryTasks;
     private final List<FileIngestTask> directoryTasks;
     private final BlockingDeque<FileIngestTask> pendingFileTasks;
     private final FileIngestTaskQueue fileTasksDispenser;
+    private final WorkStealingFileIngestTaskQueue workStealingFileTasksDispenser;
+    private final DirectoryExpansionPrefetcher prefetcher;
 
     /**
      * The ingest tasks scheduler allows ingest jobs to query it to see if there
      * are any tasks in progress for the job. To make this possible, the ingest
      * tasks scheduler needs to keep track not only of the tasks in its queues,
      * but also of the tasks that have been handed out for processing by the
-     * ingest threads. Therefore all ingest tasks are added to this list when
-     * they are created and are not removed when an ingest thread takes an
-     * ingest task. Instead, the ingest thread calls back into the scheduler
-     * when the task is completed, at which time the task will be removed from
-     * this list.
+     * ingest threads. Therefore the tasks in progress counter for a job is
+     * incremented when a task is created and is not decremented when an ingest
+     * thread takes an ingest task. Instead, the ingest thread calls back into
+     * the scheduler when the task is completed, at which time the counter will
+     * be decremented. The counter for a job is discarded when the job is
+     * finished.
      */
-    private final Set<IngestTask> tasksInProgress;
+    private final Map<Long, TasksInProgressCounter> tasksInProgress;
 
     /**
      * Gets the ingest tasks scheduler singleton.
@@ -119,7 +143,20 @@ private IngestTasksScheduler() {
         this.directoryTasks = new ArrayList<>();
         this.pendingFileTasks = new LinkedBlockingDeque<>();
         this.fileTasksDispenser = new FileIngestTaskQueue();
-        this.tasksInProgress = new HashSet<>();
+        this.tasksInProgress = new ConcurrentHashMap<>();
+        if (UserPreferences.useWorkStealingFileIngestScheduler()) {
+            logger.log(Level.INFO, "Using work stealing file ingest tasks scheduler"); //NON-NLS
+            this.workStealingFileTasksDispenser = new WorkStealingFileIngestTaskQueue();
+            this.prefetcher = null;
+        } else if (UserPreferences.prefetchFileIngestTasks()) {
+            this.workStealingFileTasksDispenser = null;
+            this.prefetcher = new DirectoryExpansionPrefetcher(UserPreferences.fileIngestTaskPrefetchLowWatermark(), UserPreferences.fileIngestTaskPrefetchHighWatermark());
+            ExecutorService prefetchThreadPool = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("IM-file-task-prefetch-%d").setDaemon(true).build()); //NON-NLS
+            prefetchThreadPool.submit(this.prefetcher);
+        } else {
+            this.workStealingFileTasksDispenser = null;
+            this.prefetcher = null;
+        }
     }
 
     /**
@@ -139,6 +176,9 @@ IngestTaskQueue getDataSourceIngestTaskQueue() {
      * @return The file ingest tasks queue.
      */
     IngestTaskQueue getFileIngestTaskQueue() {
+        if (this.workStealingFileTasksDispenser != null) {
+            return this.workStealingFileTasksDispenser;
+        }
         return this.fileTasksDispenser;
     }
 
@@ -155,9 +195,13 @@ synchronized void scheduleIngestTasks(DataSourceIngestJob job) {
         // for a job must be an atomic operation. Otherwise, the data source 
         // task might be completed before the file tasks are scheduled, 
         // resulting in a potential false positive when another thread checks 
-        // whether or not all the tasks for the job are completed.
-        this.scheduleDataSourceIngestTask(job);
-        this.scheduleFileIngestTasks(job);
+        // whether or not all the tasks for the job are completed. Completion
+        // checks for the job synchronize on its tasks in progress counter.
+        TasksInProgressCounter counter = this.getTasksInProgressCounter(job.getId());
+        synchronized (counter) {
+            this.scheduleDataSourceIngestTask(job);
+            this.scheduleFileIngestTasks(job);
+        }
     }
 
     /**
@@ -167,7 +211,7 @@ synchronized void scheduleIngestTasks(DataSourceIngestJob job) {
      */
     synchronized void scheduleDataSourceIngestTask(DataSourceIngestJob job) {
         DataSourceIngestTask task = new DataSourceIngestTask(job);
-        this.tasksInProgress.add(task);
+        this.taskAdded(task);
         try {
             this.pendingDataSourceTasks.put(task);
         } catch (InterruptedException ex) {
@@ -175,7 +219,7 @@ synchronized void scheduleDataSourceIngestTask(DataSourceIngestJob job) {
              * The current thread was interrupted while blocked on a full queue.
              * Discard the task and reset the interrupted flag.
              */
-            this.tasksInProgress.remove(task);
+            this.taskRemoved(task);
             Thread.currentThread().interrupt();
         }
     }
@@ -192,11 +236,17 @@ synchronized void scheduleFileIngestTasks(DataSourceIngestJob job) {
         for (AbstractFile firstLevelFile : topLevelFiles) {
             FileIngestTask task = new FileIngestTask(job, firstLevelFile);
             if (IngestTasksScheduler.shouldEnqueueFileTask(task)) {
-                this.tasksInProgress.add(task);
+                this.taskAdded(task);
                 this.rootDirectoryTasks.add(task);
             }
         }
-        shuffleFileTaskQueues();
+        if (this.workStealingFileTasksDispenser != null) {
+            this.workStealingFileTasksDispenser.signalWorkAvailable();
+        } else if (this.prefetcher != null) {
+            this.notifyAll();
+        } else {
+            shuffleFileTaskQueues();
+        }
     }
 
     /**
@@ -205,11 +255,15 @@ synchronized void scheduleFileIngestTasks(DataSourceIngestJob job) {
      * @param job The job for which the tasks are to be scheduled.
      * @param file The file to be associated with the task.
      */
-    synchronized void scheduleFileIngestTask(DataSourceIngestJob job, AbstractFile file) {
+    void scheduleFileIngestTask(DataSourceIngestJob job, AbstractFile file) {
         FileIngestTask task = new FileIngestTask(job, file);
         if (IngestTasksScheduler.shouldEnqueueFileTask(task)) {
-            this.tasksInProgress.add(task);
-            addToPendingFileTasksQueue(task);
+            this.taskAdded(task);
+            if (this.workStealingFileTasksDispenser != null) {
+                this.workStealingFileTasksDispenser.addFileTask(task);
+            } else {
+                addToPendingFileTasksQueue(task);
+            }
         }
     }
 
@@ -219,8 +273,8 @@ synchronized void scheduleFileIngestTask(DataSourceIngestJob job, AbstractFile f
      *
      * @param task The completed task.
      */
-    synchronized void notifyTaskCompleted(IngestTask task) {
-        tasksInProgress.remove(task);
+    void notifyTaskCompleted(IngestTask task) {
+        this.taskRemoved(task);
     }
 
     /**
@@ -230,13 +284,36 @@ synchronized void notifyTaskCompleted(IngestTask task) {
      * @param job The job for which the query is to be performed.
      * @return True or false.
      */
-    synchronized boolean tasksForJobAreCompleted(DataSourceIngestJob job) {
-        for (IngestTask task : tasksInProgress) {
-            if (task.getIngestJob().getId() == job.getId()) {
-                return false;
+    boolean tasksForJobAreCompleted(DataSourceIngestJob job) {
+        TasksInProgressCounter counter = this.tasksInProgress.get(job.getId());
+        if (counter == null) {
+            return true;
+        }
+        synchronized (counter) {
+            return counter.get() == 0;
+        }
+    }
+
+    /**
+     * Allows an ingest job to notify this ingest task scheduler that it is
+     * finished, so that the tasks in progress counter for the job is
+     * discarded instead of being kept for the life of the application. The
+     * counter is only discarded if no tasks are in progress for the job, under
+     * its lock, so that a completion check or a late task for the job cannot
+     * be lost with it.
+     *
+     * @param job The job that is finished.
+     */
+    void ingestJobFinished(DataSourceIngestJob job) {
+        TasksInProgressCounter counter = this.tasksInProgress.get(job.getId());
+        if (counter == null) {
+            return;
+        }
+        synchronized (counter) {
+            if (counter.get() == 0) {
+                this.tasksInProgress.remove(job.getId(), counter);
             }
         }
-        return true;
     }
 
     /**
@@ -253,7 +330,68 @@ synchronized void cancelPendingTasksForIngestJob(DataSourceIngestJob job) {
         this.removeTasksForJob(this.directoryTasks, jobId);
         this.removeTasksForJob(this.pendingFileTasks, jobId);
         this.removeTasksForJob(this.pendingDataSourceTasks, jobId);
-        this.shuffleFileTaskQueues();
+        if (this.workStealingFileTasksDispenser != null) {
+            this.workStealingFileTasksDispenser.removeTasksForJob(jobId);
+        } else if (this.prefetcher != null) {
+            this.prefetcher.removeParkedExpansionForJob(jobId);
+        } else {
+            this.shuffleFileTaskQueues();
+        }
+    }
+
+    /**
+     * Gets the tasks in progress counter for an ingest job, creating it if
+     * necessary.
+     *
+     * @param jobId The id of the job.
+     * @return The counter.
+     */
+    private TasksInProgressCounter getTasksInProgressCounter(long jobId) {
+        TasksInProgressCounter counter = this.tasksInProgress.get(jobId);
+        if (counter == null) {
+            TasksInProgressCounter newCounter = new TasksInProgressCounter();
+            counter = this.tasksInProgress.putIfAbsent(jobId, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Increments the tasks in progress counter for the job of a newly created
+     * task. The increment is made under the lock of the counter, after
+     * checking that the counter has not been discarded by a finished job in
+     * the meantime, in which case a new counter is used.
+     *
+     * @param task The task.
+     */
+    private void taskAdded(IngestTask task) {
+        long jobId = task.getIngestJob().getId();
+        while (true) {
+            TasksInProgressCounter counter = this.getTasksInProgressCounter(jobId);
+            synchronized (counter) {
+                if (this.tasksInProgress.get(jobId) == counter) {
+                    counter.incrementAndGet();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Decrements the tasks in progress counter for the job of a task that has
+     * been completed or discarded. The decrement is made under the lock of the
+     * counter, like the increments and the completion checks.
+     *
+     * @param task The task.
+     * @return The number of tasks still in progress for the job.
+     */
+    private long taskRemoved(IngestTask task) {
+        TasksInProgressCounter counter = this.getTasksInProgressCounter(task.getIngestJob().getId());
+        synchronized (counter) {
+            return counter.decrementAndGet();
+        }
     }
 
     /**
@@ -327,12 +465,15 @@ synchronized private void shuffleFileTaskQueues() {
             }
 
             // Try to add the most recently added directory from the 
-            // directory tasks queue to the pending file tasks queue. 
+            // directory tasks queue to the pending file tasks queue. The
+            // directory task is counted once more while it is queued, its
+            // first count is released after its children are counted, so
+            // that an ingest thread completing the queued task cannot see
+            // its job as completed in between.
             FileIngestTask directoryTask = this.directoryTasks.remove(this.directoryTasks.size() - 1);
             if (shouldEnqueueFileTask(directoryTask)) {
+                this.taskAdded(directoryTask);
                 addToPendingFileTasksQueue(directoryTask);
-            } else {
-                this.tasksInProgress.remove(directoryTask);
             }
 
             // If the directory contains subdirectories or files, try to 
@@ -349,12 +490,12 @@ synchronized private void shuffleFileTaskQueues() {
                             // addition of the task to the tasks in progress
                             // list. This is necessary because this is the
                             // first appearance of this task in the queues.
-                            this.tasksInProgress.add(childTask);
+                            this.taskAdded(childTask);
                             this.directoryTasks.add(childTask);
                         } else if (shouldEnqueueFileTask(childTask)) {
                             // Found a file, put the task directly into the
                             // pending file tasks queue. 
-                            this.tasksInProgress.add(childTask);
+                            this.taskAdded(childTask);
                             addToPendingFileTasksQueue(childTask);
                         }
                     }
@@ -363,6 +504,7 @@ synchronized private void shuffleFileTaskQueues() {
                 String errorMessage = String.format("An error occurred getting the children of %s", directory.getName()); //NON-NLS
                 logger.log(Level.SEVERE, errorMessage, ex);
             }
+            this.taskRemoved(directoryTask);
         }
     }
 
@@ -448,14 +590,14 @@ synchronized private void addToPendingFileTasksQueue(FileIngestTask task) {
              * The current thread was interrupted while blocked on a full queue.
              * Discard the task and reset the interrupted flag.
              */
-            this.tasksInProgress.remove(task);
+            this.taskRemoved(task);
             Thread.currentThread().interrupt();
         }
     }
 
     /**
      * Removes all of the ingest tasks associated with an ingest job from a
-     * tasks queue. The task is removed from the the tasks in progress list as
+     * tasks queue. The tasks in progress counter for the job is decremented as
      * well.
      *
      * @param taskQueue The queue from which to remove the tasks.
@@ -466,7 +608,7 @@ private void removeTasksForJob(Collection<? extends IngestTask> taskQueue, long
         while (iterator.hasNext()) {
             IngestTask task = iterator.next();
             if (task.getIngestJob().getId() == jobId) {
-                this.tasksInProgress.remove(task);                
+                this.taskRemoved(task);
                 iterator.remove();
             }
         }
@@ -638,10 +780,588 @@ private final class FileIngestTaskQueue implements IngestTaskQueue {
         @Override
         public IngestTask getNextTask() throws InterruptedException {
             FileIngestTask task = IngestTasksScheduler.this.pendingFileTasks.takeFirst();
-            shuffleFileTaskQueues();
+            if (IngestTasksScheduler.this.prefetcher != null) {
+                IngestTasksScheduler.this.prefetcher.notifyTaskTaken();
+            } else {
+                shuffleFileTaskQueues();
+            }
+            return task;
+        }
+
+    }
+
+    /**
+     * Wraps access to pending file ingest tasks in the interface required by
+     * the ingest threads, using a work stealing scheme instead of the shared,
+     * synchronized "shuffle" of the file task queues.
+     *
+     * Each file ingest thread owns a deque of pending tasks. A thread pushes
+     * and pops tasks at the head of its own deque, so the LIFO processing of
+     * files extracted from archives is preserved, while idle threads steal
+     * tasks from the tail of the deques of other threads. Expansion of
+     * directories into child tasks is done by the thread that takes the
+     * directory task, outside of any scheduler wide lock. The root directory
+     * tasks priority queue is only consulted when there is nothing to take or
+     * to steal.
+     */
+    private final class WorkStealingFileIngestTaskQueue implements IngestTaskQueue {
+
+        private static final long IDLE_WAIT_MILLISECONDS = 250;
+        private final List<Deque<PendingFileTask>> threadDeques;
+        private final ThreadLocal<Deque<PendingFileTask>> currentThreadDeque;
+        private final Deque<PendingFileTask> sharedDeque;
+        private final AtomicLong workVersion;
+        private final AtomicInteger idleThreads;
+        private final AtomicInteger nextVictim;
+        private final Object idleMonitor;
+
+        WorkStealingFileIngestTaskQueue() {
+            this.threadDeques = new CopyOnWriteArrayList<>();
+            this.currentThreadDeque = new ThreadLocal<>();
+            this.sharedDeque = new ConcurrentLinkedDeque<>();
+            this.workVersion = new AtomicLong(0);
+            this.idleThreads = new AtomicInteger(0);
+            this.nextVictim = new AtomicInteger(0);
+            this.idleMonitor = new Object();
+        }
+
+        /**
+         * @inheritDoc
+         */
+        @Override
+        public IngestTask getNextTask() throws InterruptedException {
+            Deque<PendingFileTask> ownDeque = this.getOwnDeque();
+            while (true) {
+                // Read the work version before looking for work so that work
+                // added while looking is not missed by the idle wait below.
+                long version = this.workVersion.get();
+                PendingFileTask pendingTask = ownDeque.pollFirst();
+                if (pendingTask == null) {
+                    pendingTask = this.sharedDeque.pollFirst();
+                }
+                if (pendingTask == null) {
+                    pendingTask = this.steal(ownDeque);
+                }
+                if (pendingTask == null) {
+                    pendingTask = this.takeRootDirectoryTask();
+                }
+                if (pendingTask == null) {
+                    this.awaitWork(version);
+                    continue;
+                }
+                if (pendingTask.isDirectory()) {
+                    FileIngestTask task = this.expandDirectory(pendingTask.getTask(), ownDeque);
+                    if (task != null) {
+                        return task;
+                    }
+                } else {
+                    return pendingTask.getTask();
+                }
+            }
+        }
+
+        /**
+         * Adds a file ingest task to the head of the deque of the calling
+         * thread, if it is a file ingest thread, or to the head of a deque
+         * shared by all of the file ingest threads otherwise.
+         *
+         * @param task The task to add. The tasks in progress counter for its
+         * job must already have been incremented.
+         */
+        void addFileTask(FileIngestTask task) {
+            Deque<PendingFileTask> ownDeque = this.currentThreadDeque.get();
+            if (ownDeque != null) {
+                ownDeque.addFirst(new PendingFileTask(task, false));
+            } else {
+                this.sharedDeque.addFirst(new PendingFileTask(task, false));
+            }
+            this.signalWorkAvailable();
+        }
+
+        /**
+         * Wakes up any file ingest threads that are waiting for work.
+         */
+        void signalWorkAvailable() {
+            this.workVersion.incrementAndGet();
+            if (this.idleThreads.get() > 0) {
+                synchronized (this.idleMonitor) {
+                    this.idleMonitor.notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Removes all of the pending tasks for an ingest job from the deques.
+         * The tasks in progress counter for the job is decremented as well.
+         *
+         * @param jobId The id of the job for which the tasks are to be
+         * removed.
+         */
+        void removeTasksForJob(long jobId) {
+            this.removeTasksForJob(this.sharedDeque, jobId);
+            for (Deque<PendingFileTask> deque : this.threadDeques) {
+                this.removeTasksForJob(deque, jobId);
+            }
+        }
+
+        /**
+         * Counts the pending tasks for an ingest job in the deques.
+         *
+         * @param jobId The id of the job for which the tasks are to be
+         * counted.
+         * @param directories Whether to count directory tasks that have not yet
+         * been expanded or file tasks.
+         * @return The count.
+         */
+        long countTasksForJob(long jobId, boolean directories) {
+            long count = this.countTasksForJob(this.sharedDeque, jobId, directories);
+            for (Deque<PendingFileTask> deque : this.threadDeques) {
+                count += this.countTasksForJob(deque, jobId, directories);
+            }
+            return count;
+        }
+
+        /**
+         * Gets the deque owned by the calling file ingest thread, creating and
+         * registering it on the first call.
+         *
+         * @return The deque.
+         */
+        private Deque<PendingFileTask> getOwnDeque() {
+            Deque<PendingFileTask> ownDeque = this.currentThreadDeque.get();
+            if (ownDeque == null) {
+                ownDeque = new ConcurrentLinkedDeque<>();
+                this.currentThreadDeque.set(ownDeque);
+                this.threadDeques.add(ownDeque);
+            }
+            return ownDeque;
+        }
+
+        /**
+         * Tries to steal a task from the tail of the deque of another file
+         * ingest thread. The tail holds the oldest tasks, which are the
+         * directory tasks with the most work behind them.
+         *
+         * @param ownDeque The deque of the calling thread.
+         * @return The stolen task or null if there was nothing to steal.
+         */
+        private PendingFileTask steal(Deque<PendingFileTask> ownDeque) {
+            int numberOfDeques = this.threadDeques.size();
+            int start = Math.abs(this.nextVictim.getAndIncrement() % Math.max(numberOfDeques, 1));
+            for (int i = 0; i < numberOfDeques; ++i) {
+                Deque<PendingFileTask> victim = this.threadDeques.get((start + i) % numberOfDeques);
+                if (victim != ownDeque) {
+                    PendingFileTask task = victim.pollLast();
+                    if (task != null) {
+                        return task;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Takes the highest priority task from the root directory tasks queue.
+         *
+         * @return The task or null if the queue is empty.
+         */
+        private PendingFileTask takeRootDirectoryTask() {
+            synchronized (IngestTasksScheduler.this) {
+                FileIngestTask task = IngestTasksScheduler.this.rootDirectoryTasks.pollFirst();
+                if (task != null) {
+                    return new PendingFileTask(task, true);
+                }
+                return null;
+            }
+        }
+
+        /**
+         * Waits for work to be added, unless work was added since the caller
+         * read the work version.
+         *
+         * @param version The work version read by the caller before looking
+         * for work.
+         * @throws InterruptedException if the thread is interrupted while
+         * waiting.
+         */
+        private void awaitWork(long version) throws InterruptedException {
+            this.idleThreads.incrementAndGet();
+            try {
+                synchronized (this.idleMonitor) {
+                    if (this.workVersion.get() == version) {
+                        this.idleMonitor.wait(IDLE_WAIT_MILLISECONDS);
+                    }
+                }
+            } finally {
+                this.idleThreads.decrementAndGet();
+            }
+        }
+
+        /**
+         * Expands a directory task into tasks for its children, pushing them
+         * onto the deque of the calling thread. Subdirectory tasks are pushed
+         * before file tasks so that files are processed first by the owning
+         * thread while the subdirectories remain available for stealing.
+         *
+         * @param directoryTask The directory task.
+         * @param ownDeque The deque of the calling thread.
+         * @return The directory task itself if it should be processed, null
+         * otherwise.
+         */
+        private FileIngestTask expandDirectory(FileIngestTask directoryTask, Deque<PendingFileTask> ownDeque) {
+            final AbstractFile directory = directoryTask.getFile();
+            try {
+                List<PendingFileTask> fileTasks = new ArrayList<>();
+                for (Content child : directory.getChildren()) {
+                    if (child instanceof AbstractFile) {
+                        AbstractFile file = (AbstractFile) child;
+                        FileIngestTask childTask = new FileIngestTask(directoryTask.getIngestJob(), file);
+                        if (file.hasChildren()) {
+                            IngestTasksScheduler.this.taskAdded(childTask);
+                            ownDeque.addFirst(new PendingFileTask(childTask, true));
+                        } else if (shouldEnqueueFileTask(childTask)) {
+                            IngestTasksScheduler.this.taskAdded(childTask);
+                            fileTasks.add(new PendingFileTask(childTask, false));
+                        }
+                    }
+                }
+                for (PendingFileTask fileTask : fileTasks) {
+                    ownDeque.addFirst(fileTask);
+                }
+                if (!ownDeque.isEmpty()) {
+                    this.signalWorkAvailable();
+                }
+            } catch (TskCoreException ex) {
+                String errorMessage = String.format("An error occurred getting the children of %s", directory.getName()); //NON-NLS
+                logger.log(Level.SEVERE, errorMessage, ex);
+            }
+
+            if (shouldEnqueueFileTask(directoryTask)) {
+                return directoryTask;
+            } else {
+                // Unlike the shuffle of the file task queues, discarding a
+                // directory task here is not followed by the completion of a
+                // task by the calling thread, so it may have been the last
+                // task for the job.
+                if (IngestTasksScheduler.this.taskRemoved(directoryTask) == 0) {
+                    directoryTask.getIngestJob().checkForStageCompleted();
+                }
+                return null;
+            }
+        }
+
+        private void removeTasksForJob(Deque<PendingFileTask> deque, long jobId) {
+            Iterator<PendingFileTask> iterator = deque.iterator();
+            while (iterator.hasNext()) {
+                PendingFileTask pendingTask = iterator.next();
+                if (pendingTask.getTask().getIngestJob().getId() == jobId) {
+                    iterator.remove();
+                    IngestTasksScheduler.this.taskRemoved(pendingTask.getTask());
+                }
+            }
+        }
+
+        private long countTasksForJob(Deque<PendingFileTask> deque, long jobId, boolean directories) {
+            long count = 0;
+            for (PendingFileTask pendingTask : deque) {
+                if (pendingTask.isDirectory() == directories && pendingTask.getTask().getIngestJob().getId() == jobId) {
+                    ++count;
+                }
+            }
+            return count;
+        }
+
+    }
+
+    /**
+     * Expands directory tasks into file tasks ahead of demand, so that the
+     * ingest threads do not have to wait for the case database queries for the
+     * children of directories when the pending file tasks queue runs dry.
+     *
+     * When the number of tasks in the pending file tasks queue falls below the
+     * low watermark, the prefetcher expands directory tasks until the number of
+     * tasks reaches the high watermark. A directory with more children than
+     * that is expanded in parts: the expansion stops at the high watermark and
+     * goes on with the rest of the children at the next refill, unless its
+     * job is cancelled in the meantime, in which case it is dropped right
+     * away. Prefetched tasks are added to the back of the pending file tasks
+     * queue, in the order of the children of their directory, so tasks for
+     * files extracted from archive files, which are added to the front of the
+     * queue, are still processed first. The case database queries are done
+     * without holding the scheduler lock.
+     *
+     * The prefetcher runs on a daemon thread for the life of the application,
+     * like the scheduler itself.
+     */
+    private final class DirectoryExpansionPrefetcher implements Runnable {
+
+        private final int lowWatermark;
+        private final int highWatermark;
+        private boolean refilling; // Guarded by the scheduler lock.
+        private DirectoryExpansion parkedExpansion; // Guarded by the scheduler lock.
+
+        DirectoryExpansionPrefetcher(int lowWatermark, int highWatermark) {
+            this.lowWatermark = lowWatermark;
+            this.highWatermark = highWatermark;
+        }
+
+        @Override
+        public void run() {
+            try {
+                DirectoryExpansion expansion = null;
+                while (true) {
+                    if (expansion == null) {
+                        expansion = new DirectoryExpansion(this.takeDirectoryTask());
+                    } else {
+                        expansion = this.awaitRefill(expansion);
+                        if (expansion == null) {
+                            continue;
+                        }
+                    }
+                    if (expansion.expandPart()) {
+                        expansion = null;
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Allows an ingest thread to notify the prefetcher that it has taken a
+         * task from the pending file tasks queue.
+         */
+        void notifyTaskTaken() {
+            if (IngestTasksScheduler.this.pendingFileTasks.size() < this.lowWatermark) {
+                synchronized (IngestTasksScheduler.this) {
+                    IngestTasksScheduler.this.notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Blocks until the pending file tasks queue needs to be refilled and
+         * there is a directory task to expand, then takes the most recently
+         * added directory task.
+         *
+         * @return The directory task.
+         * @throws InterruptedException if the thread is interrupted while
+         * waiting.
+         */
+        private FileIngestTask takeDirectoryTask() throws InterruptedException {
+            synchronized (IngestTasksScheduler.this) {
+                while (true) {
+                    if (this.isRefilling()) {
+                        if (IngestTasksScheduler.this.directoryTasks.isEmpty() && !IngestTasksScheduler.this.rootDirectoryTasks.isEmpty()) {
+                            IngestTasksScheduler.this.directoryTasks.add(IngestTasksScheduler.this.rootDirectoryTasks.pollFirst());
+                        }
+                        if (!IngestTasksScheduler.this.directoryTasks.isEmpty()) {
+                            return IngestTasksScheduler.this.directoryTasks.remove(IngestTasksScheduler.this.directoryTasks.size() - 1);
+                        }
+                    }
+                    IngestTasksScheduler.this.wait();
+                }
+            }
+        }
+
+        /**
+         * Parks a partial directory expansion until the pending file tasks
+         * queue needs to be refilled, or until the expansion is removed
+         * because its job is cancelled.
+         *
+         * @param expansion The expansion.
+         * @return The expansion, or null if it was removed.
+         * @throws InterruptedException if the thread is interrupted while
+         * waiting.
+         */
+        private DirectoryExpansion awaitRefill(DirectoryExpansion expansion) throws InterruptedException {
+            synchronized (IngestTasksScheduler.this) {
+                this.parkedExpansion = expansion;
+                try {
+                    while (this.parkedExpansion == expansion && !this.isRefilling()) {
+                        IngestTasksScheduler.this.wait();
+                    }
+                    return this.parkedExpansion;
+                } finally {
+                    this.parkedExpansion = null;
+                }
+            }
+        }
+
+        /**
+         * Removes the parked partial directory expansion, if it is for a
+         * cancelled ingest job, releasing the count of its directory task
+         * right away rather than at the next refill. Must be called while
+         * holding the scheduler lock. The job checks for completion itself
+         * once its pending tasks are removed.
+         *
+         * @param jobId The id of the job.
+         */
+        void removeParkedExpansionForJob(long jobId) {
+            if (this.parkedExpansion != null && this.parkedExpansion.directoryTask.getIngestJob().getId() == jobId) {
+                IngestTasksScheduler.this.taskRemoved(this.parkedExpansion.directoryTask);
+                this.parkedExpansion = null;
+                IngestTasksScheduler.this.notifyAll();
+            }
+        }
+
+        /**
+         * Determines whether the pending file tasks queue is being refilled:
+         * from the time it falls below the low watermark until it reaches the
+         * high watermark. Must be called while holding the scheduler lock.
+         *
+         * @return True if the queue is being refilled.
+         */
+        private boolean isRefilling() {
+            int pendingTasksCount = IngestTasksScheduler.this.pendingFileTasks.size();
+            if (pendingTasksCount >= this.highWatermark) {
+                this.refilling = false;
+            } else if (pendingTasksCount < this.lowWatermark) {
+                this.refilling = true;
+            }
+            return this.refilling;
+        }
+
+        /**
+         * Discards a task that will not be queued. Unlike the shuffle of the
+         * file task queues, this is not followed by the completion of a task
+         * by the calling thread, so the task may have been the last task for
+         * its job.
+         *
+         * @param task The task.
+         */
+        private void discardTask(FileIngestTask task) {
+            if (IngestTasksScheduler.this.taskRemoved(task) == 0) {
+                task.getIngestJob().checkForStageCompleted();
+            }
+        }
+
+        /**
+         * The expansion of a directory task, which may take several refills of
+         * the pending file tasks queue. The directory task is counted as in
+         * progress until the expansion is finished or its job is cancelled,
+         * even if it is queued before that, so that its job is not completed
+         * while children of the directory are still to be queued.
+         */
+        private final class DirectoryExpansion {
+
+            private final FileIngestTask directoryTask;
+            private final List<Content> children;
+            private int nextChild;
+
+            /**
+             * Queries the case database for the children of a directory,
+             * without holding the scheduler lock.
+             *
+             * @param directoryTask The directory task.
+             */
+            DirectoryExpansion(FileIngestTask directoryTask) {
+                this.directoryTask = directoryTask;
+                List<Content> directoryChildren = Collections.emptyList();
+                final AbstractFile directory = directoryTask.getFile();
+                try {
+                    directoryChildren = directory.getChildren();
+                } catch (TskCoreException ex) {
+                    String errorMessage = String.format("An error occurred getting the children of %s", directory.getName()); //NON-NLS
+                    logger.log(Level.SEVERE, errorMessage, ex);
+                }
+                this.children = directoryChildren;
+            }
+
+            /**
+             * Queues tasks for the next children of the directory, and the
+             * directory itself the first time, until there are enough tasks to
+             * fill the pending file tasks queue up to the high watermark.
+             *
+             * @return True if the expansion is finished.
+             */
+            boolean expandPart() {
+                int room = Math.max(DirectoryExpansionPrefetcher.this.highWatermark - IngestTasksScheduler.this.pendingFileTasks.size(), 1);
+                List<FileIngestTask> subdirectoryTasks = new ArrayList<>();
+                List<FileIngestTask> fileTasks = new ArrayList<>();
+                if (this.nextChild == 0 && shouldEnqueueFileTask(this.directoryTask)) {
+                    // The directory task is counted once more while it is
+                    // queued, its first count is released when the
+                    // expansion is finished.
+                    IngestTasksScheduler.this.taskAdded(this.directoryTask);
+                    fileTasks.add(this.directoryTask);
+                }
+                try {
+                    while (this.nextChild < this.children.size() && fileTasks.size() < room) {
+                        Content child = this.children.get(this.nextChild++);
+                        if (child instanceof AbstractFile) {
+                            AbstractFile file = (AbstractFile) child;
+                            FileIngestTask childTask = new FileIngestTask(this.directoryTask.getIngestJob(), file);
+                            if (file.hasChildren()) {
+                                IngestTasksScheduler.this.taskAdded(childTask);
+                                subdirectoryTasks.add(childTask);
+                            } else if (shouldEnqueueFileTask(childTask)) {
+                                IngestTasksScheduler.this.taskAdded(childTask);
+                                fileTasks.add(childTask);
+                            }
+                        }
+                    }
+                } catch (TskCoreException ex) {
+                    String errorMessage = String.format("An error occurred getting the children of %s", this.directoryTask.getFile().getName()); //NON-NLS
+                    logger.log(Level.SEVERE, errorMessage, ex);
+                }
+
+                boolean finished = this.nextChild >= this.children.size();
+                synchronized (IngestTasksScheduler.this) {
+                    if (this.directoryTask.getIngestJob().isCancelled()) {
+                        // The job was cancelled while the children were being
+                        // queried, after its pending tasks were removed.
+                        subdirectoryTasks.addAll(fileTasks);
+                        fileTasks.clear();
+                        finished = true;
+                    } else {
+                        IngestTasksScheduler.this.directoryTasks.addAll(subdirectoryTasks);
+                        subdirectoryTasks.clear();
+                        IngestTasksScheduler.this.pendingFileTasks.addAll(fileTasks);
+                    }
+                }
+                for (FileIngestTask task : subdirectoryTasks) {
+                    DirectoryExpansionPrefetcher.this.discardTask(task);
+                }
+                if (finished) {
+                    DirectoryExpansionPrefetcher.this.discardTask(this.directoryTask);
+                }
+                return finished;
+            }
+        }
+    }
+
+    /**
+     * A file ingest task in a work stealing deque, flagged as either a file
+     * task ready for processing or a directory task still to be expanded.
+     */
+    private static final class PendingFileTask {
+
+        private final FileIngestTask task;
+        private final boolean directory;
+
+        PendingFileTask(FileIngestTask task, boolean directory) {
+            this.task = task;
+            this.directory = directory;
+        }
+
+        FileIngestTask getTask() {
             return task;
         }
 
+        boolean isDirectory() {
+            return directory;
+        }
+    }
+
+    /**
+     * Counts the tasks in progress for an ingest job. Scheduling of the tasks
+     * for a job and completion checks for the job synchronize on the counter,
+     * so that the checks see the scheduling as atomic.
+     */
+    private static final class TasksInProgressCounter extends AtomicLong {
+
+        private static final long serialVersionUID = 1L;
     }
 
     /**
@@ -664,10 +1384,16 @@ class IngestJobTasksSnapshot {
         IngestJobTasksSnapshot(long jobId) {
             this.jobId = jobId;
             this.rootQueueSize = countTasksForJob(IngestTasksScheduler.this.rootDirectoryTasks, jobId);
-            this.dirQueueSize = countTasksForJob(IngestTasksScheduler.this.directoryTasks, jobId);
-            this.fileQueueSize = countTasksForJob(IngestTasksScheduler.this.pendingFileTasks, jobId);
+            if (IngestTasksScheduler.this.workStealingFileTasksDispenser != null) {
+                this.dirQueueSize = IngestTasksScheduler.this.workStealingFileTasksDispenser.countTasksForJob(jobId, true);
+                this.fileQueueSize = IngestTasksScheduler.this.workStealingFileTasksDispenser.countTasksForJob(jobId, false);
+            } else {
+                this.dirQueueSize = countTasksForJob(IngestTasksScheduler.this.directoryTasks, jobId);
+                this.fileQueueSize = countTasksForJob(IngestTasksScheduler.this.pendingFileTasks, jobId);
+            }
             this.dsQueueSize = countTasksForJob(IngestTasksScheduler.this.pendingDataSourceTasks, jobId);
-            this.runningListSize = countTasksForJob(IngestTasksScheduler.this.tasksInProgress, jobId);
+            TasksInProgressCounter counter = IngestTasksScheduler.this.tasksInProgress.get(jobId);
+            this.runningListSize = (counter != null) ? counter.get() : 0;
         }
 
         /**
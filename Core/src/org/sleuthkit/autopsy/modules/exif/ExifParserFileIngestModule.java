@@ -32,21 +32,16 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import org.sleuthkit.autopsy.coreutils.ImageUtils;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.autopsy.ingest.FileIngestModule;
 import org.sleuthkit.autopsy.ingest.IngestJobContext;
 import org.sleuthkit.autopsy.ingest.IngestServices;
-import org.sleuthkit.autopsy.ingest.ModuleDataEvent;
-import org.sleuthkit.autopsy.ingest.IngestModuleReferenceCounter;
 import org.sleuthkit.datamodel.AbstractFile;
 import org.sleuthkit.datamodel.BlackboardArtifact;
 import org.sleuthkit.datamodel.BlackboardAttribute;
 import org.sleuthkit.datamodel.BlackboardAttribute.ATTRIBUTE_TYPE;
-import org.sleuthkit.datamodel.ReadContentInputStream;
-import org.sleuthkit.datamodel.TskCoreException;
 import org.sleuthkit.datamodel.TskData;
 import org.sleuthkit.datamodel.TskData.TSK_DB_FILES_TYPE_ENUM;
 
@@ -59,18 +54,14 @@ public final class ExifParserFileIngestModule implements FileIngestModule {
 
     private static final Logger logger = Logger.getLogger(ExifParserFileIngestModule.class.getName());
     private final IngestServices services = IngestServices.getInstance();
-    private AtomicInteger filesProcessed = new AtomicInteger(0);
-    private volatile boolean filesToFire = false;
-    private long jobId;
-    private static final IngestModuleReferenceCounter refCounter = new IngestModuleReferenceCounter();
+    private IngestJobContext context;
         
     ExifParserFileIngestModule() {
     }
 
     @Override
     public void startUp(IngestJobContext context) throws IngestModuleException {    
-        jobId = context.getJobId();
-        refCounter.incrementAndGet(jobId);
+        this.context = context;
     }
 
     
@@ -90,13 +81,6 @@ public ProcessResult process(AbstractFile content) {
             return ProcessResult.OK;
         }
 
-        // update the tree every 1000 files if we have EXIF data that is not being being displayed 
-        final int filesProcessedValue = filesProcessed.incrementAndGet();
-        if ((filesToFire) && (filesProcessedValue % 1000 == 0)) {
-            services.fireModuleDataEvent(new ModuleDataEvent(ExifParserModuleFactory.getModuleName(), BlackboardArtifact.ARTIFACT_TYPE.TSK_METADATA_EXIF));
-            filesToFire = false;
-        }
-
         //skip unsupported
         if (!parsableFormat(content)) {
             return ProcessResult.OK;
@@ -110,7 +94,7 @@ ProcessResult processFile(AbstractFile f) {
         BufferedInputStream bin = null;
 
         try {
-            in = new ReadContentInputStream(f);
+            in = context.getFileContentInputStream(f);
             bin = new BufferedInputStream(in);
 
             Collection<BlackboardAttribute> attributes = new ArrayList<>();
@@ -156,17 +140,14 @@ ProcessResult processFile(AbstractFile f) {
                 }
             }
 
-            // Add the attributes, if there are any, to a new artifact
+            // Add the attributes, if there are any, to a new artifact, written
+            // in a batch with other artifacts, with one module data event for
+            // the batch
             if (!attributes.isEmpty()) {
-                BlackboardArtifact bba = f.newArtifact(BlackboardArtifact.ARTIFACT_TYPE.TSK_METADATA_EXIF);
-                bba.addAttributes(attributes);
-                filesToFire = true;
+                services.getBlackboardArtifactWriter().addArtifact(ExifParserModuleFactory.getModuleName(), f, BlackboardArtifact.ARTIFACT_TYPE.TSK_METADATA_EXIF, attributes);
             }
 
             return ProcessResult.OK;
-        } catch (TskCoreException ex) {
-            logger.log(Level.WARNING, "Failed to create blackboard artifact for exif metadata ({0}).", ex.getLocalizedMessage()); //NON-NLS
-            return ProcessResult.ERROR;
         } catch (ImageProcessingException ex) {
             logger.log(Level.WARNING, "Failed to process the image file: {0}/{1}({2})", new Object[]{f.getParentPath(), f.getName(), ex.getLocalizedMessage()}); //NON-NLS
             return ProcessResult.ERROR;
@@ -202,12 +183,7 @@ private boolean parsableFormat(AbstractFile f) {
 
     @Override
     public void shutDown() {
-        // We only need to check for this final event on the last module per job
-        if (refCounter.decrementAndGet(jobId) == 0) {
-            if (filesToFire) {
-                //send the final new data event
-                services.fireModuleDataEvent(new ModuleDataEvent(ExifParserModuleFactory.getModuleName(), BlackboardArtifact.ARTIFACT_TYPE.TSK_METADATA_EXIF));
-            }
-        }
+        // write the artifacts still queued, firing the final new data event
+        services.getBlackboardArtifactWriter().flush();
     }
 }
\ No newline at end of file
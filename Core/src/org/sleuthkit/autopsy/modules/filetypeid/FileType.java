@@ -21,6 +21,7 @@
 import java.util.Arrays;
 import java.util.logging.Level;
 import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.autopsy.ingest.IngestJobContext;
 import org.sleuthkit.datamodel.AbstractFile;
 import org.sleuthkit.datamodel.TskCoreException;
 
@@ -79,7 +80,19 @@ Signature getSignature() {
      * @return True or false.
      */
     boolean matches(final AbstractFile file) {
-        return signature.containedIn(file);
+        return signature.containedIn(file, null);
+    }
+
+    /**
+     * Determines whether or not a file is an instance of this file type,
+     * reading the file through the content cache of an ingest job context.
+     *
+     * @param file The file to test.
+     * @param context The ingest job context, may be null.
+     * @return True or false.
+     */
+    boolean matches(final AbstractFile file, IngestJobContext context) {
+        return signature.containedIn(file, context);
     }
 
     /**
@@ -171,12 +184,14 @@ Type getType() {
          * file.
          *
          * @param file The file to test
+         * @param context The ingest job context through which to read the
+         * file, may be null.
          * @return True or false.
          */
-        boolean containedIn(final AbstractFile file) {
+        boolean containedIn(final AbstractFile file, IngestJobContext context) {
             try {
                 byte[] buffer = new byte[signatureBytes.length];
-                int bytesRead = file.read(buffer, offset, signatureBytes.length);
+                int bytesRead = (context != null) ? context.readFileContent(file, buffer, offset, signatureBytes.length) : file.read(buffer, offset, signatureBytes.length);
                 return ((bytesRead == signatureBytes.length) && (Arrays.equals(buffer, signatureBytes)));
             } catch (TskCoreException ex) {
                 /**
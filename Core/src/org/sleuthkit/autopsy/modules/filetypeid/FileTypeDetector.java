@@ -18,11 +18,15 @@
  */
 package org.sleuthkit.autopsy.modules.filetypeid;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 import org.apache.tika.Tika;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.mime.MimeTypes;
+import org.sleuthkit.autopsy.ingest.IngestJobContext;
+import org.sleuthkit.autopsy.ingest.IngestServices;
 import org.sleuthkit.datamodel.AbstractFile;
 import org.sleuthkit.datamodel.BlackboardArtifact;
 import org.sleuthkit.datamodel.BlackboardAttribute;
@@ -37,6 +41,8 @@ public class FileTypeDetector {
     private static final int BUFFER_SIZE = 64 * 1024;
     private final byte buffer[] = new byte[BUFFER_SIZE];
     private final Map<String, FileType> userDefinedFileTypes;
+    private final SignatureMatcher signatureMatcher;
+    private final IngestJobContext context;
 
     /**
      * Constructs an object that detects the type of a file by an inspection of
@@ -46,11 +52,26 @@ public class FileTypeDetector {
      * initialization error occurs.
      */
     public FileTypeDetector() throws FileTypeDetectorInitException {
+        this(null);
+    }
+
+    /**
+     * Constructs an object that detects the type of a file by an inspection of
+     * its contents, reading file content through the content cache of an
+     * ingest job context.
+     *
+     * @param context The ingest job context, may be null.
+     * @throws FileTypeDetector.FileTypeDetectorInitException if an
+     * initialization error occurs.
+     */
+    FileTypeDetector(IngestJobContext context) throws FileTypeDetectorInitException {
+        this.context = context;
         try {
             userDefinedFileTypes = UserDefinedFileTypesManager.getInstance().getFileTypes();
         } catch (UserDefinedFileTypesManager.UserDefinedFileTypesException ex) {
             throw new FileTypeDetectorInitException("Error loading user-defined file types", ex); //NON-NLS
         }
+        signatureMatcher = new SignatureMatcher(userDefinedFileTypes.values(), BUFFER_SIZE);
     }
 
     /**
@@ -125,11 +146,21 @@ public synchronized String detectAndPostToBlackboard(AbstractFile file) throws T
      * @return The MIME type name id detection was successful, null otherwise.
      */
     public String detect(AbstractFile file) throws TskCoreException {
-        String fileType = detectUserDefinedType(file);
+        /**
+         * The header of the file is read once, for both the user-defined
+         * types and Tika.
+         */
+        int headerLength;
+        try {
+            headerLength = readHeader(file);
+        } catch (TskCoreException ex) {
+            headerLength = -1;
+        }
+        String fileType = detectUserDefinedType(file, headerLength);
         if (null == fileType) {
             try {
                 byte buf[];
-                int len = file.read(buffer, 0, BUFFER_SIZE);
+                int len = (headerLength >= 0) ? headerLength : readHeader(file);
                 if (len < BUFFER_SIZE) {
                     buf = new byte[len];
                     System.arraycopy(buffer, 0, buf, 0, len);
@@ -156,6 +187,17 @@ public String detect(AbstractFile file) throws TskCoreException {
         return fileType;
     }
 
+    /**
+     * Reads the first bytes of a file into the buffer.
+     *
+     * @param file The file.
+     * @return The number of bytes read.
+     * @throws TskCoreException if there is an error reading the file.
+     */
+    private int readHeader(AbstractFile file) throws TskCoreException {
+        return (context != null) ? context.readFileContent(file, buffer, 0, BUFFER_SIZE) : file.read(buffer, 0, BUFFER_SIZE);
+    }
+
     /**
      * Determines whether or not the a file matches a user-defined or Autopsy
      * predefined file type. If a match is found and the file type definition
@@ -163,27 +205,35 @@ public String detect(AbstractFile file) throws TskCoreException {
      * to the blackboard.
      *
      * @param file The file to test.
+     * @param headerLength The number of bytes of the file in the buffer, -1
+     * if they could not be read.
      * @return The file type name string or null, if no match is detected.
      */
-    private String detectUserDefinedType(AbstractFile file) throws TskCoreException {
-        for (FileType fileType : userDefinedFileTypes.values()) {
-            if (fileType.matches(file)) {
-                if (fileType.alertOnMatch()) {
-                    BlackboardArtifact artifact;
-                        artifact = file.newArtifact(BlackboardArtifact.ARTIFACT_TYPE.TSK_INTERESTING_FILE_HIT);
-                        BlackboardAttribute setNameAttribute = new BlackboardAttribute(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_SET_NAME.getTypeID(), FileTypeIdModuleFactory.getModuleName(), fileType.getFilesSetName());
-                        artifact.addAttribute(setNameAttribute);
-
-                        /**
-                         * Use the MIME type as the category, i.e., the rule
-                         * that determined this file belongs to the interesting
-                         * files set.
-                         */
-                        BlackboardAttribute ruleNameAttribute = new BlackboardAttribute(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_CATEGORY.getTypeID(), FileTypeIdModuleFactory.getModuleName(), fileType.getMimeType());
-                        artifact.addAttribute(ruleNameAttribute);
+    private String detectUserDefinedType(AbstractFile file, int headerLength) throws TskCoreException {
+        FileType fileType = signatureMatcher.match(file, buffer, headerLength, context);
+        if (null != fileType) {
+            if (fileType.alertOnMatch()) {
+                List<BlackboardAttribute> attributes = new ArrayList<>();
+                attributes.add(new BlackboardAttribute(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_SET_NAME.getTypeID(), FileTypeIdModuleFactory.getModuleName(), fileType.getFilesSetName()));
+
+                /**
+                 * Use the MIME type as the category, i.e., the rule that
+                 * determined this file belongs to the interesting files set.
+                 */
+                attributes.add(new BlackboardAttribute(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_CATEGORY.getTypeID(), FileTypeIdModuleFactory.getModuleName(), fileType.getMimeType()));
+
+                if (context != null) {
+                    /**
+                     * During ingest, the artifact is written in a batch with
+                     * other artifacts.
+                     */
+                    IngestServices.getInstance().getBlackboardArtifactWriter().addArtifact(FileTypeIdModuleFactory.getModuleName(), file, BlackboardArtifact.ARTIFACT_TYPE.TSK_INTERESTING_FILE_HIT, attributes);
+                } else {
+                    BlackboardArtifact artifact = file.newArtifact(BlackboardArtifact.ARTIFACT_TYPE.TSK_INTERESTING_FILE_HIT);
+                    artifact.addAttributes(attributes);
                 }
-                return fileType.getMimeType();
             }
+            return fileType.getMimeType();
         }
         return null;
     }
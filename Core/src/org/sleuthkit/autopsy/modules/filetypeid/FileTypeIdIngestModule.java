@@ -81,7 +81,7 @@ public void startUp(IngestJobContext context) throws IngestModuleException {
         jobId = context.getJobId();
         refCounter.incrementAndGet(jobId);
         try {
-            fileTypeDetector = new FileTypeDetector();
+            fileTypeDetector = new FileTypeDetector(context);
         } catch (FileTypeDetector.FileTypeDetectorInitException ex) {
             String errorMessage = "Failed to create file type detector"; //NON-NLS
             logger.log(Level.SEVERE, errorMessage, ex);
@@ -132,6 +132,11 @@ public ProcessResult process(AbstractFile file) {
      */
     @Override
     public void shutDown() {
+        /**
+         * Write any interesting file hits still queued by the detector.
+         */
+        IngestServices.getInstance().getBlackboardArtifactWriter().flush();
+
         /**
          * If this is the instance of this module for this ingest job, post a
          * summary message to the ingest messages box.
@@ -0,0 +1,213 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2015 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.modules.filetypeid;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.sleuthkit.autopsy.ingest.IngestJobContext;
+import org.sleuthkit.datamodel.AbstractFile;
+
+/**
+ * Matches the signatures of a collection of file types against a file with
+ * one read of the header of the file, instead of one read per signature.
+ *
+ * The signatures that lie within the header are indexed by offset, then by
+ * their first byte, so that only the signatures whose first byte is found at
+ * their offset are compared. Signatures that lie beyond the header are
+ * matched by reading the file, and only if they could change the result.
+ *
+ * The file types are matched in the order of the collection they are
+ * compiled from: if a file matches several types, the first one is the
+ * match, as when the signatures are matched one at a time.
+ * <p>
+ * Thread-safe (immutable).
+ */
+final class SignatureMatcher {
+
+    private static final int[] NO_TYPES = new int[0];
+    private final FileType[] fileTypes;
+    private final byte[][] signatureBytes;
+    private final long[] signatureOffsets;
+    /**
+     * The distinct offsets of the signatures within the header, in ascending
+     * order, with the file types whose signature is at each offset, by first
+     * signature byte, and the end of the longest of those signatures.
+     */
+    private final long[] headerOffsets;
+    private final int[][][] headerTypesByFirstByte;
+    private final long[] headerOffsetEnds;
+    /**
+     * The file types whose signature is not within the header, in order.
+     */
+    private final int[] farTypes;
+
+    /**
+     * Compiles the signatures of a collection of file types.
+     *
+     * @param types The file types, in the order they are to be matched.
+     * @param headerSize The size of the header of the files, the signatures
+     * that end beyond it are matched by reading the file.
+     */
+    SignatureMatcher(Collection<FileType> types, int headerSize) {
+        this.fileTypes = types.toArray(new FileType[types.size()]);
+        this.signatureBytes = new byte[fileTypes.length][];
+        this.signatureOffsets = new long[fileTypes.length];
+        Map<Long, List<List<Integer>>> typesByOffset = new TreeMap<>();
+        List<Integer> far = new ArrayList<>();
+        for (int i = 0; i < fileTypes.length; ++i) {
+            FileType.Signature signature = fileTypes[i].getSignature();
+            signatureBytes[i] = signature.getSignatureBytes();
+            signatureOffsets[i] = signature.getOffset();
+            if (signatureBytes[i].length == 0 || signatureOffsets[i] < 0 || signatureOffsets[i] + signatureBytes[i].length > headerSize) {
+                far.add(i);
+                continue;
+            }
+            List<List<Integer>> typesByFirstByte = typesByOffset.get(signatureOffsets[i]);
+            if (typesByFirstByte == null) {
+                typesByFirstByte = new ArrayList<>(256);
+                for (int b = 0; b < 256; ++b) {
+                    typesByFirstByte.add(null);
+                }
+                typesByOffset.put(signatureOffsets[i], typesByFirstByte);
+            }
+            int firstByte = signatureBytes[i][0] & 0xFF;
+            if (typesByFirstByte.get(firstByte) == null) {
+                typesByFirstByte.set(firstByte, new ArrayList<>());
+            }
+            typesByFirstByte.get(firstByte).add(i);
+        }
+
+        headerOffsets = new long[typesByOffset.size()];
+        headerTypesByFirstByte = new int[typesByOffset.size()][][];
+        headerOffsetEnds = new long[typesByOffset.size()];
+        int offsetIndex = 0;
+        for (Map.Entry<Long, List<List<Integer>>> entry : typesByOffset.entrySet()) {
+            headerOffsets[offsetIndex] = entry.getKey();
+            headerTypesByFirstByte[offsetIndex] = new int[256][];
+            long end = entry.getKey();
+            for (int b = 0; b < 256; ++b) {
+                List<Integer> typeIndexes = entry.getValue().get(b);
+                headerTypesByFirstByte[offsetIndex][b] = (typeIndexes == null) ? NO_TYPES : toArray(typeIndexes);
+                for (int typeIndex : headerTypesByFirstByte[offsetIndex][b]) {
+                    end = Math.max(end, signatureOffsets[typeIndex] + signatureBytes[typeIndex].length);
+                }
+            }
+            headerOffsetEnds[offsetIndex] = end;
+            ++offsetIndex;
+        }
+        farTypes = toArray(far);
+    }
+
+    /**
+     * Finds the file type of a file.
+     *
+     * @param file The file.
+     * @param header The header of the file, i.e., up to the header size of
+     * its first bytes.
+     * @param headerLength The number of bytes in the header buffer, -1 if the
+     * header could not be read.
+     * @param context The ingest job context through which to read the file,
+     * may be null.
+     * @return The first file type that matches, or null if there is none.
+     */
+    FileType match(AbstractFile file, byte[] header, int headerLength, IngestJobContext context) {
+        if (headerLength < 0) {
+            // match the signatures one at a time, reporting the read errors
+            for (FileType fileType : fileTypes) {
+                if (fileType.matches(file, context)) {
+                    return fileType;
+                }
+            }
+            return null;
+        }
+
+        int match = fileTypes.length;
+        for (int i = 0; i < headerOffsets.length; ++i) {
+            if (headerOffsetEnds[i] <= headerLength) {
+                int firstByte = header[(int) headerOffsets[i]] & 0xFF;
+                for (int typeIndex : headerTypesByFirstByte[i][firstByte]) {
+                    if (typeIndex >= match) {
+                        break;
+                    }
+                    if (matchesHeader(typeIndex, header)) {
+                        match = typeIndex;
+                        break;
+                    }
+                }
+            } else {
+                // the header is short, check the signatures one at a time
+                for (int[] typeIndexes : headerTypesByFirstByte[i]) {
+                    for (int typeIndex : typeIndexes) {
+                        if (typeIndex < match && matchesShortHeader(typeIndex, file, header, headerLength, context)) {
+                            match = typeIndex;
+                        }
+                    }
+                }
+            }
+        }
+        for (int typeIndex : farTypes) {
+            if (typeIndex >= match) {
+                break;
+            }
+            if (fileTypes[typeIndex].matches(file, context)) {
+                match = typeIndex;
+                break;
+            }
+        }
+        return (match < fileTypes.length) ? fileTypes[match] : null;
+    }
+
+    private boolean matchesHeader(int typeIndex, byte[] header) {
+        byte[] bytes = signatureBytes[typeIndex];
+        int offset = (int) signatureOffsets[typeIndex];
+        for (int i = 1; i < bytes.length; ++i) {
+            if (header[offset + i] != bytes[i]) {
+                return false;
+            }
+        }
+        return bytes[0] == header[offset];
+    }
+
+    /**
+     * Matches a signature of the header when fewer bytes than the header size
+     * were read, which is usually because the file is smaller than the header.
+     */
+    private boolean matchesShortHeader(int typeIndex, AbstractFile file, byte[] header, int headerLength, IngestJobContext context) {
+        long end = signatureOffsets[typeIndex] + signatureBytes[typeIndex].length;
+        if (end <= headerLength) {
+            return matchesHeader(typeIndex, header);
+        } else if (end <= file.getSize()) {
+            // a short read, read the signature from the file
+            return fileTypes[typeIndex].matches(file, context);
+        } else {
+            return false;
+        }
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; ++i) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,666 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2015 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.modules.hashdatabase;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import org.netbeans.api.progress.ProgressHandle;
+import org.openide.util.NbBundle;
+import org.apache.commons.io.FilenameUtils;
+import org.sleuthkit.autopsy.coreutils.Logger;
+
+/**
+ * Builds the SleuthKit lookup index of a text hash database in Java, using all
+ * of the processors of the machine, instead of through the SleuthKit.
+ *
+ * The hash database is read in chunks that are parsed in parallel. The MD5
+ * hashes and line offsets of each chunk are sorted in memory and written to a
+ * temporary run file. The run files are then read back through buffers and
+ * merged, in parallel groups if there are many of them, into the index: the
+ * same sorted text file of "HASH|offset" lines with type and name header lines
+ * that the SleuthKit writes, so that the SleuthKit can look hashes up in it.
+ *
+ * NSRL and md5sum hash databases are supported. Other formats, e.g., EnCase
+ * and HashKeeper, are left to the SleuthKit.
+ * <p>
+ * Not thread-safe.
+ */
+final class HashDbIndexBuilder {
+
+    private static final Logger logger = Logger.getLogger(HashDbIndexBuilder.class.getName());
+    private static final String INDEX_TYPE_HEADER = "00000000000000000000000000000000000000000"; //NON-NLS
+    private static final String INDEX_NAME_HEADER = "00000000000000000000000000000000000000001"; //NON-NLS
+    private static final String NSRL_TYPE = "nsrl-md5"; //NON-NLS
+    private static final String MD5SUM_TYPE = "md5sum"; //NON-NLS
+    private static final String INDEX_FILE_SUFFIX = "-md5.idx"; //NON-NLS
+    private static final int CHUNK_SIZE = 16 * 1024 * 1024;
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+    private static final int MAX_MERGE_WAY = 64;
+    private static final int LONGS_PER_ENTRY = 3;
+    private static final int BYTES_PER_ENTRY = LONGS_PER_ENTRY * Long.BYTES;
+    private static final int RUN_BUFFER_SIZE = BYTES_PER_ENTRY * 64 * 1024;
+    private static final int INDEX_LINE_LENGTH = 32 + 1 + 16 + 1;
+    private static final int PROGRESS_UNITS = 100;
+    private static final int PARSING_PROGRESS_UNITS = 60;
+    private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII); //NON-NLS
+    private final File databaseFile;
+    private final String indexType;
+    private final int nsrlMd5Column;
+    private final List<File> tempFiles = new ArrayList<>();
+    private final AtomicLong bytesParsed = new AtomicLong();
+    private final AtomicLong hashesWritten = new AtomicLong();
+    private ProgressHandle progress;
+    private long startTime;
+    private long totalHashes;
+
+    private HashDbIndexBuilder(File databaseFile, String indexType, int nsrlMd5Column) {
+        this.databaseFile = databaseFile;
+        this.indexType = indexType;
+        this.nsrlMd5Column = nsrlMd5Column;
+    }
+
+    /**
+     * Gets a builder for the index of a hash database, if it is in a format
+     * the builder supports.
+     *
+     * @param databasePath The path of the hash database.
+     * @return The builder, or null if the format of the hash database is not
+     * supported.
+     * @throws IOException if the hash database cannot be read.
+     */
+    static HashDbIndexBuilder forDatabase(String databasePath) throws IOException {
+        File databaseFile = new File(databasePath);
+        if (!databaseFile.isFile()) {
+            return null;
+        }
+        String firstLine = readFirstLine(databaseFile);
+        if (firstLine.startsWith("\"SHA-1\"")) { //NON-NLS
+            String[] columns = firstLine.split(","); //NON-NLS
+            for (int i = 0; i < columns.length; ++i) {
+                if (columns[i].trim().equals("\"MD5\"")) { //NON-NLS
+                    return new HashDbIndexBuilder(databaseFile, NSRL_TYPE, i);
+                }
+            }
+            return null;
+        }
+        if (firstLine.startsWith("MD5 (") //NON-NLS
+                || (firstLine.length() > 32 && isHexDigits(firstLine.substring(0, 32)) && Character.isWhitespace(firstLine.charAt(32)))) {
+            return new HashDbIndexBuilder(databaseFile, MD5SUM_TYPE, -1);
+        }
+        return null;
+    }
+
+    /**
+     * Gets the path of the index of a hash database, where the SleuthKit looks
+     * for it.
+     *
+     * @param databasePath The path of the hash database.
+     * @return The path of the index.
+     */
+    static String getIndexPath(String databasePath) {
+        return databasePath + INDEX_FILE_SUFFIX;
+    }
+
+    /**
+     * Builds the index.
+     *
+     * @param indexFile The file to write the index to.
+     * @param progress A progress handle that has been started, to report
+     * progress and throughput to.
+     * @throws IOException if the hash database cannot be read or the index
+     * cannot be written.
+     * @throws InterruptedException if the thread building the index is
+     * interrupted.
+     */
+    void build(File indexFile, ProgressHandle progress) throws IOException, InterruptedException {
+        this.progress = progress;
+        startTime = System.currentTimeMillis();
+        progress.switchToDeterminate(PROGRESS_UNITS);
+        File tempDirectory = indexFile.getAbsoluteFile().getParentFile();
+        ExecutorService threadPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                new ThreadFactoryBuilder().setNameFormat("hash-index-builder-%d").setDaemon(true).build()); //NON-NLS
+        try {
+            List<Run> runs = createRuns(threadPool, tempDirectory);
+            for (Run run : runs) {
+                totalHashes += run.size;
+            }
+            while (runs.size() > MAX_MERGE_WAY) {
+                runs = mergeRunGroups(threadPool, runs, tempDirectory);
+            }
+            writeIndex(runs, indexFile);
+        } finally {
+            threadPool.shutdownNow();
+            for (File tempFile : tempFiles) {
+                deleteTempFile(tempFile);
+            }
+        }
+    }
+
+    /**
+     * Parses the hash database in chunks in parallel, writing the sorted
+     * hashes of each chunk to a run file.
+     */
+    private List<Run> createRuns(ExecutorService threadPool, File tempDirectory) throws IOException, InterruptedException {
+        List<Run> runs = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(databaseFile.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            List<Future<Run>> futures = new ArrayList<>();
+            for (long chunkStart = 0; chunkStart < fileSize; chunkStart += CHUNK_SIZE) {
+                final long start = chunkStart;
+                final long end = Math.min(chunkStart + CHUNK_SIZE, fileSize);
+                final File runFile = createTempFile(tempDirectory);
+                futures.add(threadPool.submit(() -> parseChunk(channel, fileSize, start, end, runFile)));
+            }
+            for (Future<Run> future : futures) {
+                runs.add(getResult(future));
+            }
+        }
+        return runs;
+    }
+
+    private Run parseChunk(FileChannel channel, long fileSize, long start, long end, File runFile) throws IOException {
+        // The chunk starts a byte early, to tell whether its first line
+        // starts in the previous chunk, and ends a line late, to finish its
+        // last line. The chunk is read rather than memory mapped, because a
+        // mapping keeps the file open on Windows until it is garbage
+        // collected. Positional reads do not move the channel's position, so
+        // the chunks can share the channel.
+        long readStart = Math.max(start - 1, 0);
+        long readEnd = Math.min(end + MAX_LINE_LENGTH, fileSize);
+        ByteBuffer buffer = ByteBuffer.allocate((int) (readEnd - readStart));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, readStart + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        int limit = buffer.limit();
+        int position = 0;
+        if (start > 0) {
+            while (position < limit && buffer.get(position) != '\n') {
+                ++position;
+            }
+            ++position;
+        }
+        long[] entries = new long[LONGS_PER_ENTRY * 1024];
+        int size = 0;
+        long[] hash = new long[2];
+        while (readStart + position < end) {
+            int lineEnd = position;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                ++lineEnd;
+            }
+            if (lineEnd == limit && readEnd < fileSize) {
+                throw new IOException("Line longer than " + MAX_LINE_LENGTH + " bytes at offset " + (readStart + position) + " of " + databaseFile.getPath()); //NON-NLS
+            }
+            long lineOffset = readStart + position;
+            if (lineOffset > 0 || !NSRL_TYPE.equals(indexType)) {
+                boolean found = NSRL_TYPE.equals(indexType)
+                        ? parseNsrlLine(buffer, position, lineEnd, hash)
+                        : parseMd5sumLine(buffer, position, lineEnd, hash);
+                if (found) {
+                    if (LONGS_PER_ENTRY * (size + 1) > entries.length) {
+                        entries = Arrays.copyOf(entries, entries.length * 2);
+                    }
+                    entries[LONGS_PER_ENTRY * size] = hash[0];
+                    entries[LONGS_PER_ENTRY * size + 1] = hash[1];
+                    entries[LONGS_PER_ENTRY * size + 2] = lineOffset;
+                    ++size;
+                }
+            }
+            position = lineEnd + 1;
+        }
+        sort(entries, 0, size - 1);
+        try (RunWriter writer = new RunWriter(runFile)) {
+            for (int i = 0; i < size; ++i) {
+                writer.add(entries[LONGS_PER_ENTRY * i], entries[LONGS_PER_ENTRY * i + 1], entries[LONGS_PER_ENTRY * i + 2]);
+            }
+        }
+        updateParsingProgress(end - start, fileSize);
+        return new Run(runFile, size);
+    }
+
+    /**
+     * Finds the MD5 hash in an NSRL line, a line of comma separated quoted
+     * fields.
+     */
+    private boolean parseNsrlLine(ByteBuffer buffer, int start, int end, long[] hash) {
+        int column = 0;
+        int fieldStart = start;
+        boolean inQuotes = false;
+        for (int i = start; i <= end; ++i) {
+            byte b = (i < end) ? buffer.get(i) : (byte) ',';
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if ((b == ',' && !inQuotes) || b == '\r') {
+                if (column == nsrlMd5Column) {
+                    int fieldEnd = i;
+                    if (fieldEnd - fieldStart == 34 && buffer.get(fieldStart) == '"') {
+                        ++fieldStart;
+                        --fieldEnd;
+                    }
+                    return fieldEnd - fieldStart == 32 && parseHash(buffer, fieldStart, hash);
+                }
+                ++column;
+                fieldStart = i + 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the MD5 hash in an md5sum line, either "hash  file name" or
+     * "MD5 (file name) = hash".
+     */
+    private static boolean parseMd5sumLine(ByteBuffer buffer, int start, int end, long[] hash) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            --end;
+        }
+        if (end - start > 32 && (buffer.get(start + 32) == ' ' || buffer.get(start + 32) == '\t')) {
+            return parseHash(buffer, start, hash);
+        }
+        if (end - start >= 32 + 4 && buffer.get(start) == 'M' && buffer.get(start + 1) == 'D' && buffer.get(start + 2) == '5') {
+            return buffer.get(end - 33) == ' ' && parseHash(buffer, end - 32, hash);
+        }
+        return false;
+    }
+
+    private static boolean parseHash(ByteBuffer buffer, int start, long[] hash) {
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < 32; ++i) {
+            int digit = Character.digit(buffer.get(start + i), 16);
+            if (digit < 0) {
+                return false;
+            }
+            if (i < 16) {
+                high = (high << 4) | digit;
+            } else {
+                low = (low << 4) | digit;
+            }
+        }
+        hash[0] = high;
+        hash[1] = low;
+        return true;
+    }
+
+    /**
+     * Merges groups of runs in parallel, until there are few enough runs to
+     * merge into the index in one pass.
+     */
+    private List<Run> mergeRunGroups(ExecutorService threadPool, List<Run> runs, File tempDirectory) throws IOException, InterruptedException {
+        List<Future<Run>> futures = new ArrayList<>();
+        for (int groupStart = 0; groupStart < runs.size(); groupStart += MAX_MERGE_WAY) {
+            final List<Run> group = runs.subList(groupStart, Math.min(groupStart + MAX_MERGE_WAY, runs.size()));
+            final File runFile = createTempFile(tempDirectory);
+            futures.add(threadPool.submit(() -> {
+                long size = 0;
+                try (RunWriter writer = new RunWriter(runFile)) {
+                    size = merge(group, writer);
+                }
+                for (Run run : group) {
+                    deleteTempFile(run.file);
+                }
+                return new Run(runFile, size);
+            }));
+        }
+        List<Run> mergedRuns = new ArrayList<>();
+        for (Future<Run> future : futures) {
+            mergedRuns.add(getResult(future));
+        }
+        return mergedRuns;
+    }
+
+    private void writeIndex(List<Run> runs, File indexFile) throws IOException {
+        progress.progress(NbBundle.getMessage(this.getClass(), "HashDbIndexBuilder.progress.writingIndex"), PARSING_PROGRESS_UNITS);
+        try (IndexWriter writer = new IndexWriter(indexFile)) {
+            merge(runs, writer);
+        }
+    }
+
+    /**
+     * Merges sorted runs.
+     *
+     * @return The number of hashes merged.
+     */
+    private long merge(List<Run> runs, EntryWriter writer) throws IOException {
+        PriorityQueue<RunReader> readers = new PriorityQueue<>(Math.max(runs.size(), 1),
+                (reader1, reader2) -> compare(reader1.high, reader1.low, reader1.offset, reader2.high, reader2.low, reader2.offset));
+        List<RunReader> allReaders = new ArrayList<>();
+        try {
+            for (Run run : runs) {
+                RunReader reader = new RunReader(run);
+                allReaders.add(reader);
+                if (reader.next()) {
+                    readers.add(reader);
+                }
+            }
+            long count = 0;
+            while (!readers.isEmpty()) {
+                RunReader reader = readers.poll();
+                writer.add(reader.high, reader.low, reader.offset);
+                ++count;
+                if (reader.next()) {
+                    readers.add(reader);
+                }
+            }
+            return count;
+        } finally {
+            for (RunReader reader : allReaders) {
+                reader.close();
+            }
+        }
+    }
+
+    private synchronized void updateParsingProgress(long bytes, long fileSize) {
+        long parsed = bytesParsed.addAndGet(bytes);
+        long elapsedMillis = Math.max(System.currentTimeMillis() - startTime, 1);
+        progress.progress(NbBundle.getMessage(this.getClass(), "HashDbIndexBuilder.progress.parsing",
+                String.format("%.1f", parsed / 1000.0 / elapsedMillis)), //NON-NLS
+                (int) (parsed * PARSING_PROGRESS_UNITS / Math.max(fileSize, 1)));
+    }
+
+    private void updateWritingProgress() {
+        long written = hashesWritten.get();
+        long elapsedMillis = Math.max(System.currentTimeMillis() - startTime, 1);
+        progress.progress(NbBundle.getMessage(this.getClass(), "HashDbIndexBuilder.progress.writing",
+                written * 1000 / elapsedMillis),
+                PARSING_PROGRESS_UNITS + (int) (written * (PROGRESS_UNITS - PARSING_PROGRESS_UNITS) / Math.max(totalHashes, 1)));
+    }
+
+    private synchronized File createTempFile(File tempDirectory) throws IOException {
+        File tempFile = File.createTempFile(FilenameUtils.getBaseName(databaseFile.getName()), ".run", tempDirectory); //NON-NLS
+        tempFiles.add(tempFile);
+        return tempFile;
+    }
+
+    /**
+     * Deletes a temporary file, if it has not been deleted already, and logs
+     * the files that cannot be deleted.
+     */
+    private static void deleteTempFile(File tempFile) {
+        if (tempFile.exists() && !tempFile.delete()) {
+            logger.log(Level.WARNING, "Could not delete temporary file {0}", tempFile.getPath()); //NON-NLS
+        }
+    }
+
+    private static <T> T getResult(Future<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException("Error building hash database index", ex.getCause()); //NON-NLS
+        }
+    }
+
+    private static String readFirstLine(File file) throws IOException {
+        byte[] buffer = new byte[4096];
+        int length = 0;
+        try (InputStream in = new FileInputStream(file)) {
+            int bytesRead;
+            while (length < buffer.length && (bytesRead = in.read(buffer, length, buffer.length - length)) > 0) {
+                length += bytesRead;
+            }
+        }
+        int lineEnd = 0;
+        while (lineEnd < length && buffer[lineEnd] != '\n' && buffer[lineEnd] != '\r') {
+            ++lineEnd;
+        }
+        return new String(buffer, 0, lineEnd, StandardCharsets.ISO_8859_1);
+    }
+
+    private static boolean isHexDigits(String s) {
+        for (int i = 0; i < s.length(); ++i) {
+            if (Character.digit(s.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares two entries by hash, as unsigned 128 bit numbers, which is the
+     * order of their hexadecimal strings, and then by offset.
+     */
+    private static int compare(long high1, long low1, long offset1, long high2, long low2, long offset2) {
+        int comparison = Long.compareUnsigned(high1, high2);
+        if (comparison == 0) {
+            comparison = Long.compareUnsigned(low1, low2);
+        }
+        return (comparison != 0) ? comparison : Long.compare(offset1, offset2);
+    }
+
+    private static int compareEntries(long[] entries, int i, int j) {
+        return compare(entries[LONGS_PER_ENTRY * i], entries[LONGS_PER_ENTRY * i + 1], entries[LONGS_PER_ENTRY * i + 2],
+                entries[LONGS_PER_ENTRY * j], entries[LONGS_PER_ENTRY * j + 1], entries[LONGS_PER_ENTRY * j + 2]);
+    }
+
+    /**
+     * Quick sorts the entries from low to high, inclusive, in place.
+     */
+    private static void sort(long[] entries, int low, int high) {
+        while (high - low > 16) {
+            int middle = (low + high) >>> 1;
+            // median of three as the pivot, moved to high
+            if (compareEntries(entries, middle, low) < 0) {
+                swap(entries, middle, low);
+            }
+            if (compareEntries(entries, high, low) < 0) {
+                swap(entries, high, low);
+            }
+            if (compareEntries(entries, middle, high) < 0) {
+                swap(entries, middle, high);
+            }
+            int store = low;
+            for (int i = low; i < high; ++i) {
+                if (compareEntries(entries, i, high) < 0) {
+                    swap(entries, i, store++);
+                }
+            }
+            swap(entries, store, high);
+            // recurse into the smaller part, loop on the larger one
+            if (store - low < high - store) {
+                sort(entries, low, store - 1);
+                low = store + 1;
+            } else {
+                sort(entries, store + 1, high);
+                high = store - 1;
+            }
+        }
+        for (int i = low + 1; i <= high; ++i) {
+            for (int j = i; j > low && compareEntries(entries, j - 1, j) > 0; --j) {
+                swap(entries, j - 1, j);
+            }
+        }
+    }
+
+    private static void swap(long[] entries, int i, int j) {
+        for (int k = 0; k < LONGS_PER_ENTRY; ++k) {
+            long value = entries[LONGS_PER_ENTRY * i + k];
+            entries[LONGS_PER_ENTRY * i + k] = entries[LONGS_PER_ENTRY * j + k];
+            entries[LONGS_PER_ENTRY * j + k] = value;
+        }
+    }
+
+    /**
+     * A temporary file of sorted entries.
+     */
+    private static final class Run {
+
+        private final File file;
+        private final long size;
+
+        private Run(File file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Receives sorted entries.
+     */
+    private interface EntryWriter extends AutoCloseable {
+
+        void add(long high, long low, long offset) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    /**
+     * Writes entries to a run file, as big endian longs.
+     */
+    private static final class RunWriter implements EntryWriter {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BYTES_PER_ENTRY * 64 * 1024);
+
+        private RunWriter(File file) throws IOException {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        @Override
+        public void add(long high, long low, long offset) throws IOException {
+            if (buffer.remaining() < BYTES_PER_ENTRY) {
+                flush();
+            }
+            buffer.putLong(high).putLong(low).putLong(offset);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Reads the entries of a run file through a buffer that is refilled as the
+     * entries are read.
+     */
+    private static final class RunReader {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(RUN_BUFFER_SIZE);
+        private long high;
+        private long low;
+        private long offset;
+
+        private RunReader(Run run) throws IOException {
+            channel = FileChannel.open(run.file.toPath(), StandardOpenOption.READ);
+            buffer.limit(0);
+        }
+
+        private boolean next() throws IOException {
+            if (buffer.remaining() < BYTES_PER_ENTRY) {
+                buffer.compact();
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        break;
+                    }
+                }
+                buffer.flip();
+                if (buffer.remaining() < BYTES_PER_ENTRY) {
+                    return false;
+                }
+            }
+            high = buffer.getLong();
+            low = buffer.getLong();
+            offset = buffer.getLong();
+            return true;
+        }
+
+        private void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes entries to the index in the SleuthKit text index format.
+     */
+    private final class IndexWriter implements EntryWriter {
+
+        private final OutputStream out;
+        private final byte[] line = new byte[INDEX_LINE_LENGTH];
+
+        private IndexWriter(File indexFile) throws IOException {
+            out = new BufferedOutputStream(new FileOutputStream(indexFile), 1024 * 1024);
+            out.write((INDEX_TYPE_HEADER + "|" + indexType + "\n").getBytes(StandardCharsets.US_ASCII)); //NON-NLS
+            out.write((INDEX_NAME_HEADER + "|" + FilenameUtils.getBaseName(databaseFile.getName()) + "\n").getBytes(StandardCharsets.UTF_8)); //NON-NLS
+            line[32] = '|';
+            line[INDEX_LINE_LENGTH - 1] = '\n';
+        }
+
+        @Override
+        public void add(long high, long low, long offset) throws IOException {
+            for (int i = 15; i >= 0; --i) {
+                line[i] = HEX_DIGITS[(int) (high & 0xF)];
+                high >>>= 4;
+                line[16 + i] = HEX_DIGITS[(int) (low & 0xF)];
+                low >>>= 4;
+            }
+            for (int i = 32 + 16; i > 32; --i) {
+                line[i] = (byte) ('0' + offset % 10);
+                offset /= 10;
+            }
+            out.write(line);
+            if (hashesWritten.incrementAndGet() % 1000000 == 0) {
+                updateWritingProgress();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -20,23 +20,22 @@
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import org.openide.util.NbBundle;
 import org.sleuthkit.autopsy.casemodule.Case;
+import org.sleuthkit.autopsy.core.UserPreferences;
 import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.autopsy.ingest.IngestJobContext;
 import org.sleuthkit.autopsy.ingest.IngestMessage;
 import org.sleuthkit.autopsy.ingest.IngestServices;
-import org.sleuthkit.autopsy.ingest.ModuleDataEvent;
 import org.sleuthkit.datamodel.AbstractFile;
 import org.sleuthkit.datamodel.BlackboardArtifact;
 import org.sleuthkit.datamodel.BlackboardArtifact.ARTIFACT_TYPE;
 import org.sleuthkit.datamodel.BlackboardAttribute;
 import org.sleuthkit.datamodel.BlackboardAttribute.ATTRIBUTE_TYPE;
-import org.sleuthkit.datamodel.HashUtility;
 import org.sleuthkit.datamodel.SleuthkitCase;
 import org.sleuthkit.datamodel.TskCoreException;
 import org.sleuthkit.datamodel.TskData;
@@ -55,6 +54,7 @@ public class HashDbIngestModule implements FileIngestModule {
     private final HashLookupModuleSettings settings;
     private List<HashDb> knownBadHashSets = new ArrayList<>();
     private List<HashDb> knownHashSets = new ArrayList<>();
+    private IngestJobContext context;
     private long jobId;
     private static final HashMap<Long, IngestJobTotals> totalsForIngestJobs = new HashMap<>();    
     private static final IngestModuleReferenceCounter refCounter = new IngestModuleReferenceCounter();
@@ -62,6 +62,7 @@ public class HashDbIngestModule implements FileIngestModule {
     private static class IngestJobTotals {
         private AtomicLong totalKnownBadCount = new AtomicLong(0);
         private AtomicLong totalCalctime = new AtomicLong(0);
+        private AtomicLong totalBytesHashed = new AtomicLong(0);
         private AtomicLong totalLookuptime = new AtomicLong(0);
     }    
     
@@ -79,10 +80,19 @@ private static synchronized IngestJobTotals getTotalsForIngestJobs(long ingestJo
     }
         
     @Override
-    public void startUp(org.sleuthkit.autopsy.ingest.IngestJobContext context) throws IngestModuleException {
+    public void startUp(IngestJobContext context) throws IngestModuleException {
+        this.context = context;
         jobId = context.getJobId();  
         updateEnabledHashSets(hashDbManager.getKnownBadFileHashSets(), knownBadHashSets);
         updateEnabledHashSets(hashDbManager.getKnownFileHashSets(), knownHashSets);        
+        if (UserPreferences.loadHashSetIndexesIntoMemory()) {
+            for (HashDb db : knownBadHashSets) {
+                db.loadIndexIntoMemory();
+            }
+            for (HashDb db : knownHashSets) {
+                db.loadIndexIntoMemory();
+            }
+        }
         
         if (refCounter.incrementAndGet(jobId) == 1) {                  
             // if first module for this job then post error msgs if needed
@@ -158,9 +168,10 @@ public ProcessResult process(AbstractFile file) {
         if (md5Hash == null || md5Hash.isEmpty()) {
             try {
                 long calcstart = System.currentTimeMillis();
-                md5Hash = HashUtility.calculateMd5(file);
+                md5Hash = services.getFileHashService().getMd5Hash(file, context);
                 long delta = (System.currentTimeMillis() - calcstart);
                 totals.totalCalctime.addAndGet(delta);
+                totals.totalBytesHashed.addAndGet(file.getSize());
                 
             } catch (IOException ex) {
                 logger.log(Level.WARNING, "Error calculating hash of file " + name, ex); //NON-NLS
@@ -274,61 +285,58 @@ public ProcessResult process(AbstractFile file) {
     }
         
     private void postHashSetHitToBlackboard(AbstractFile abstractFile, String md5Hash, String hashSetName, String comment, boolean showInboxMessage) {
-        try {
-            String MODULE_NAME = NbBundle.getMessage(HashDbIngestModule.class, "HashDbIngestModule.moduleName");
-            
-            BlackboardArtifact badFile = abstractFile.newArtifact(ARTIFACT_TYPE.TSK_HASHSET_HIT);
-            //TODO Revisit usage of deprecated constructor as per TSK-583
-            //BlackboardAttribute att2 = new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_SET_NAME.getTypeID(), MODULE_NAME, "Known Bad", hashSetName);
-            BlackboardAttribute att2 = new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_SET_NAME.getTypeID(), MODULE_NAME, hashSetName);
-            badFile.addAttribute(att2);
-            BlackboardAttribute att3 = new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_HASH_MD5.getTypeID(), MODULE_NAME, md5Hash);
-            badFile.addAttribute(att3);
-            BlackboardAttribute att4 = new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_COMMENT.getTypeID(), MODULE_NAME, comment);
-            badFile.addAttribute(att4);
-            
-            if (showInboxMessage) {
-                StringBuilder detailsSb = new StringBuilder();
-                //details
-                detailsSb.append("<table border='0' cellpadding='4' width='280'>"); //NON-NLS
-                //hit
-                detailsSb.append("<tr>"); //NON-NLS
-                detailsSb.append("<th>") //NON-NLS
-                         .append(NbBundle.getMessage(this.getClass(), "HashDbIngestModule.postToBB.fileName"))
-                         .append("</th>"); //NON-NLS
-                detailsSb.append("<td>") //NON-NLS
-                         .append(abstractFile.getName())
-                         .append("</td>"); //NON-NLS
-                detailsSb.append("</tr>"); //NON-NLS
+        String MODULE_NAME = NbBundle.getMessage(HashDbIngestModule.class, "HashDbIngestModule.moduleName");
 
-                detailsSb.append("<tr>"); //NON-NLS
-                detailsSb.append("<th>") //NON-NLS
-                         .append(NbBundle.getMessage(this.getClass(), "HashDbIngestModule.postToBB.md5Hash"))
-                         .append("</th>"); //NON-NLS
-                detailsSb.append("<td>").append(md5Hash).append("</td>"); //NON-NLS
-                detailsSb.append("</tr>"); //NON-NLS
+        //TODO Revisit usage of deprecated constructor as per TSK-583
+        //BlackboardAttribute att2 = new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_SET_NAME.getTypeID(), MODULE_NAME, "Known Bad", hashSetName);
+        List<BlackboardAttribute> attributes = new ArrayList<>();
+        attributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_SET_NAME.getTypeID(), MODULE_NAME, hashSetName));
+        attributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_HASH_MD5.getTypeID(), MODULE_NAME, md5Hash));
+        attributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_COMMENT.getTypeID(), MODULE_NAME, comment));
 
-                detailsSb.append("<tr>"); //NON-NLS
-                detailsSb.append("<th>") //NON-NLS
-                         .append(NbBundle.getMessage(this.getClass(), "HashDbIngestModule.postToBB.hashsetName"))
-                         .append("</th>"); //NON-NLS
-                detailsSb.append("<td>").append(hashSetName).append("</td>"); //NON-NLS
-                detailsSb.append("</tr>"); //NON-NLS
+        // The artifact is written in a batch with other artifacts, the inbox
+        // message for it is posted once it is written.
+        services.getBlackboardArtifactWriter().addArtifact(MODULE_NAME, abstractFile, ARTIFACT_TYPE.TSK_HASHSET_HIT, attributes,
+                showInboxMessage ? badFile -> postHashSetHitMessage(abstractFile, md5Hash, hashSetName, badFile) : null);
+    }
 
-                detailsSb.append("</table>"); //NON-NLS
+    private void postHashSetHitMessage(AbstractFile abstractFile, String md5Hash, String hashSetName, BlackboardArtifact badFile) {
+        StringBuilder detailsSb = new StringBuilder();
+        //details
+        detailsSb.append("<table border='0' cellpadding='4' width='280'>"); //NON-NLS
+        //hit
+        detailsSb.append("<tr>"); //NON-NLS
+        detailsSb.append("<th>") //NON-NLS
+                 .append(NbBundle.getMessage(this.getClass(), "HashDbIngestModule.postToBB.fileName"))
+                 .append("</th>"); //NON-NLS
+        detailsSb.append("<td>") //NON-NLS
+                 .append(abstractFile.getName())
+                 .append("</td>"); //NON-NLS
+        detailsSb.append("</tr>"); //NON-NLS
 
-                services.postMessage(IngestMessage.createDataMessage( HashLookupModuleFactory.getModuleName(),
-                         NbBundle.getMessage(this.getClass(),
-                                             "HashDbIngestModule.postToBB.knownBadMsg",
-                                             abstractFile.getName()),
-                         detailsSb.toString(),
-                         abstractFile.getName() + md5Hash,
-                         badFile));
-            }
-            services.fireModuleDataEvent(new ModuleDataEvent(MODULE_NAME, ARTIFACT_TYPE.TSK_HASHSET_HIT, Collections.singletonList(badFile)));
-        } catch (TskException ex) {
-            logger.log(Level.WARNING, "Error creating blackboard artifact", ex); //NON-NLS
-        }
+        detailsSb.append("<tr>"); //NON-NLS
+        detailsSb.append("<th>") //NON-NLS
+                 .append(NbBundle.getMessage(this.getClass(), "HashDbIngestModule.postToBB.md5Hash"))
+                 .append("</th>"); //NON-NLS
+        detailsSb.append("<td>").append(md5Hash).append("</td>"); //NON-NLS
+        detailsSb.append("</tr>"); //NON-NLS
+
+        detailsSb.append("<tr>"); //NON-NLS
+        detailsSb.append("<th>") //NON-NLS
+                 .append(NbBundle.getMessage(this.getClass(), "HashDbIngestModule.postToBB.hashsetName"))
+                 .append("</th>"); //NON-NLS
+        detailsSb.append("<td>").append(hashSetName).append("</td>"); //NON-NLS
+        detailsSb.append("</tr>"); //NON-NLS
+
+        detailsSb.append("</table>"); //NON-NLS
+
+        services.postMessage(IngestMessage.createDataMessage( HashLookupModuleFactory.getModuleName(),
+                 NbBundle.getMessage(this.getClass(),
+                                     "HashDbIngestModule.postToBB.knownBadMsg",
+                                     abstractFile.getName()),
+                 detailsSb.toString(),
+                 abstractFile.getName() + md5Hash,
+                 badFile));
     }
 
     private synchronized void postSummary() {
@@ -347,6 +355,11 @@ private synchronized void postSummary() {
             detailsSb.append("<tr><td>") //NON-NLS
                      .append(NbBundle.getMessage(this.getClass(), "HashDbIngestModule.complete.totalCalcTime"))
                      .append("</td><td>").append(jobTotals.totalCalctime.get()).append("</td></tr>\n"); //NON-NLS
+            if (jobTotals.totalCalctime.get() > 0) {
+                detailsSb.append("<tr><td>") //NON-NLS
+                         .append(NbBundle.getMessage(this.getClass(), "HashDbIngestModule.complete.hashingThroughput"))
+                         .append("</td><td>").append(String.format("%.1f", jobTotals.totalBytesHashed.get() / 1000.0 / jobTotals.totalCalctime.get())).append("</td></tr>\n"); //NON-NLS
+            }
             detailsSb.append("<tr><td>") //NON-NLS
                      .append(NbBundle.getMessage(this.getClass(), "HashDbIngestModule.complete.totalLookupTime"))
                      .append("</td><td>").append(jobTotals.totalLookuptime.get()).append("</td></tr>\n"); //NON-NLS
@@ -372,6 +385,7 @@ private synchronized void postSummary() {
                
     @Override
     public void shutDown() {
+        services.getBlackboardArtifactWriter().flush();
         if (refCounter.decrementAndGet(jobId) == 0) {
             postSummary();
         }
@@ -21,6 +21,8 @@
 import java.beans.PropertyChangeEvent;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -46,6 +48,7 @@
 import org.apache.commons.io.FileUtils;
 import org.netbeans.api.progress.ProgressHandle;
 import org.netbeans.api.progress.ProgressHandleFactory;
+import org.sleuthkit.autopsy.core.UserPreferences;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.datamodel.AbstractFile;
 import org.sleuthkit.datamodel.Content;
@@ -770,12 +773,13 @@ public enum Event {
 
             INDEXING_DONE
         }
-        private int handle;
+        private volatile int handle;
         private String hashSetName;
         private boolean searchDuringIngest;
         private boolean sendIngestMessages;
         private KnownFilesType knownFilesType;
         private boolean indexing;
+        private volatile InMemoryHashSetIndex memoryIndex;
         private final PropertyChangeSupport propertyChangeSupport = new PropertyChangeSupport(this);
 
         private HashDb(int handle, String hashSetName, boolean useForIngest, boolean sendHitMessages, KnownFilesType knownFilesType) {
@@ -869,6 +873,7 @@ public void addHashes(Content content, String comment) throws TskCoreException {
                 AbstractFile file = (AbstractFile) content;
                 if (null != file.getMd5Hash()) {
                     SleuthkitJNI.addToHashDatabase(null, file.getMd5Hash(), null, null, comment, handle);
+                    memoryIndex = null;
                 }
             }
         }
@@ -881,6 +886,7 @@ public void addHashes(Content content, String comment) throws TskCoreException {
          */
         public void addHashes(List<HashEntry> hashes) throws TskCoreException {
             SleuthkitJNI.addToHashDatabase(hashes, handle);
+            memoryIndex = null;
         }
 
         /**
@@ -895,12 +901,29 @@ public boolean lookupMD5Quick(Content content) throws TskCoreException {
             if (content instanceof AbstractFile) {
                 AbstractFile file = (AbstractFile) content;
                 if (null != file.getMd5Hash()) {
-                    result = SleuthkitJNI.lookupInHashDatabase(file.getMd5Hash(), handle);
+                    result = lookupMD5Quick(file.getMd5Hash());
                 }
             }
             return result;
         }
 
+        /**
+         * Perform a basic boolean lookup of an MD5 hash.
+         *
+         * @param md5Hash The hash.
+         * @return True if the hash is in the hash database
+         * @throws TskCoreException
+         */
+        boolean lookupMD5Quick(String md5Hash) throws TskCoreException {
+            if (!mayContain(md5Hash)) {
+                return false;
+            }
+            // The handle is replaced while the database is reindexed.
+            synchronized (this) {
+                return SleuthkitJNI.lookupInHashDatabase(md5Hash, handle);
+            }
+        }
+
         /**
          * Lookup hash value in DB and provide details on file. 
          * @param content
@@ -914,11 +937,64 @@ public HashHitInfo lookupMD5(Content content) throws TskCoreException {
             if (content instanceof AbstractFile) {
                 AbstractFile file = (AbstractFile) content;
                 if (null != file.getMd5Hash()) {
-                    result = SleuthkitJNI.lookupInHashDatabaseVerbose(file.getMd5Hash(), handle);
+                    result = lookupMD5(file.getMd5Hash());
                 }
             }
             return result;
         }
+
+        /**
+         * Lookup an MD5 hash in DB and provide details on it.
+         *
+         * @param md5Hash The hash.
+         * @return null if the hash is not in database.
+         * @throws TskCoreException
+         */
+        HashHitInfo lookupMD5(String md5Hash) throws TskCoreException {
+            if (!mayContain(md5Hash)) {
+                return null;
+            }
+            synchronized (this) {
+                return SleuthkitJNI.lookupInHashDatabaseVerbose(md5Hash, handle);
+            }
+        }
+
+        /**
+         * Indicates whether a hash may be in the hash database, according to
+         * the in-memory copy of its index, if it has been loaded.
+         */
+        private boolean mayContain(String md5Hash) {
+            InMemoryHashSetIndex index = memoryIndex;
+            return index == null || index.mayContain(md5Hash);
+        }
+
+        /**
+         * Reads the MD5 hashes of the index of the hash database into memory,
+         * if they have not been read already, so that lookups of hashes that
+         * are not in the database do not go through the SleuthKit. The hashes
+         * are discarded when hashes are added to the database.
+         */
+        synchronized void loadIndexIntoMemory() {
+            if (memoryIndex != null) {
+                return;
+            }
+            try {
+                memoryIndex = InMemoryHashSetIndex.load(getIndexPath());
+                logger.log(Level.INFO, "Loaded {0} hashes of the {1} hash database into memory ({2} bytes) in {3} ms", //NON-NLS
+                        new Object[]{memoryIndex.getSize(), hashSetName, memoryIndex.getMemoryUsage(), memoryIndex.getLoadTimeMillis()});
+            } catch (IOException | TskCoreException ex) {
+                logger.log(Level.WARNING, "Error loading the index of the " + hashSetName + " hash database into memory", ex); //NON-NLS
+            }
+        }
+
+        /**
+         * Gets the in-memory copy of the index of the hash database.
+         *
+         * @return The in-memory index, or null if it is not loaded.
+         */
+        InMemoryHashSetIndex getMemoryIndex() {
+            return memoryIndex;
+        }
         
 
         boolean hasIndex() throws TskCoreException {
@@ -938,6 +1014,7 @@ boolean isIndexing() {
         }
 
         private void close() throws TskCoreException {
+            memoryIndex = null;
             SleuthkitJNI.closeHashDatabase(handle);
         }
     }
@@ -964,7 +1041,9 @@ protected Object doInBackground() {
             progress.start();
             progress.switchToIndeterminate();
             try {
-                SleuthkitJNI.createLookupIndexForHashDatabase(hashDb.handle);
+                if (!UserPreferences.buildHashSetIndexesInParallel() || !buildIndexInParallel()) {
+                    SleuthkitJNI.createLookupIndexForHashDatabase(hashDb.handle);
+                }
             } catch (TskCoreException ex) {
                 Logger.getLogger(HashDb.class.getName()).log(Level.SEVERE, "Error indexing hash database", ex); //NON-NLS
                 JOptionPane.showMessageDialog(null,
@@ -977,6 +1056,67 @@ protected Object doInBackground() {
             return null;
         }
 
+        /**
+         * Builds the index of the hash database in Java, if the format of the
+         * database is supported, and reopens the database to use it.
+         *
+         * @return True if the index was built, false if the SleuthKit should
+         * build it.
+         */
+        private boolean buildIndexInParallel() throws TskCoreException {
+            String databasePath = hashDb.getDatabasePath();
+            HashDbIndexBuilder builder;
+            try {
+                builder = HashDbIndexBuilder.forDatabase(databasePath);
+            } catch (IOException ex) {
+                logger.log(Level.WARNING, "Error reading " + databasePath + " to index it", ex); //NON-NLS
+                return false;
+            }
+            if (builder == null) {
+                return false;
+            }
+            File indexFile = new File(HashDbIndexBuilder.getIndexPath(databasePath));
+            File tempIndexFile = new File(indexFile.getPath() + ".tmp"); //NON-NLS
+            long start = System.currentTimeMillis();
+            try {
+                builder.build(tempIndexFile, progress);
+            } catch (IOException ex) {
+                logger.log(Level.WARNING, "Error building index of " + hashDb.getHashSetName() + " hash database, indexing it with the SleuthKit", ex); //NON-NLS
+                tempIndexFile.delete();
+                progress.switchToIndeterminate();
+                return false;
+            } catch (InterruptedException ex) {
+                tempIndexFile.delete();
+                Thread.currentThread().interrupt();
+                throw new TskCoreException("Indexing of " + hashDb.getHashSetName() + " hash database was interrupted", ex); //NON-NLS
+            }
+
+            // The SleuthKit may have the old index open, so the database is
+            // closed while the index is replaced. Lookups take the same lock,
+            // so none of them use the closed handle. The SleuthKit's index of
+            // the old index, if any, would point into the wrong lines of the
+            // new one, so it is deleted and the SleuthKit searches the whole
+            // index instead.
+            synchronized (hashDb) {
+                hashDb.memoryIndex = null;
+                SleuthkitJNI.closeHashDatabase(hashDb.handle);
+                try {
+                    File indexOfIndexFile = new File(indexFile.getPath() + "2"); //NON-NLS
+                    if (indexOfIndexFile.exists() && !indexOfIndexFile.delete()) {
+                        throw new IOException("Could not delete " + indexOfIndexFile.getPath()); //NON-NLS
+                    }
+                    Files.move(tempIndexFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException ex) {
+                    tempIndexFile.delete();
+                    throw new TskCoreException("Error replacing index of " + hashDb.getHashSetName() + " hash database", ex); //NON-NLS
+                } finally {
+                    hashDb.handle = SleuthkitJNI.openHashDatabase(databasePath);
+                }
+            }
+            logger.log(Level.INFO, "Indexed {0} hash database in {1} ms", new Object[]{hashDb.getHashSetName(), System.currentTimeMillis() - start}); //NON-NLS
+            return true;
+        }
+
         @Override
         protected void done() {
             hashDb.indexing = false;
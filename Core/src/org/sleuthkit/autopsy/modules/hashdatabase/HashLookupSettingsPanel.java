@@ -175,6 +175,14 @@ private void updateComponentsForSelection(HashDb db) {
                     hashDbIndexStatusLabel.setText(
                             NbBundle.getMessage(this.getClass(), "HashDbConfigPanel.indexStatusText.indexed"));
                 }
+                InMemoryHashSetIndex memoryIndex = db.getMemoryIndex();
+                if (memoryIndex != null) {
+                    hashDbIndexStatusLabel.setText(
+                            NbBundle.getMessage(this.getClass(), "HashDbConfigPanel.indexStatusText.inMemory",
+                                    hashDbIndexStatusLabel.getText(),
+                                    memoryIndex.getMemoryUsage() / (1024 * 1024),
+                                    memoryIndex.getLoadTimeMillis() / 1000.0));
+                }
                 hashDbIndexStatusLabel.setForeground(Color.black);
                 if (db.canBeReIndexed()) {
                     indexButton.setText(
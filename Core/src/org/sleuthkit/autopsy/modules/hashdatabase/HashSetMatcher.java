@@ -0,0 +1,315 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2015 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.modules.hashdatabase;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import org.netbeans.api.progress.ProgressHandle;
+import org.openide.util.NbBundle;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.autopsy.ingest.BlackboardArtifactWriter;
+import org.sleuthkit.autopsy.ingest.IngestServices;
+import org.sleuthkit.autopsy.modules.hashdatabase.HashDbManager.HashDb;
+import org.sleuthkit.datamodel.AbstractFile;
+import org.sleuthkit.datamodel.BlackboardArtifact.ARTIFACT_TYPE;
+import org.sleuthkit.datamodel.BlackboardAttribute;
+import org.sleuthkit.datamodel.BlackboardAttribute.ATTRIBUTE_TYPE;
+import org.sleuthkit.datamodel.HashHitInfo;
+import org.sleuthkit.datamodel.SleuthkitCase;
+import org.sleuthkit.datamodel.SleuthkitCase.CaseDbQuery;
+import org.sleuthkit.datamodel.TskCoreException;
+import org.sleuthkit.datamodel.TskData;
+
+/**
+ * Matches the files of a case that already have MD5 hashes against a hash
+ * set, without running ingest again, e.g., after a hash set is imported in
+ * the middle of a case.
+ *
+ * The (obj_id, md5) pairs of the files are read from the case database in one
+ * query, sorted by hash, and merge joined with the sorted in-memory index of
+ * the hash set, so that each hash costs a step forward in the index instead of
+ * a lookup in the hash set. Only the hashes that are found are looked up in
+ * the hash set, once per distinct hash. The known status of the matching
+ * files is then set and, for known bad hash sets, hash set hit artifacts are
+ * posted, in batches.
+ * <p>
+ * Not thread-safe.
+ */
+final class HashSetMatcher {
+
+    private static final Logger logger = Logger.getLogger(HashSetMatcher.class.getName());
+    private static final int MAX_COMMENT_SIZE = 500;
+    private static final int BATCH_SIZE = 1000;
+    private final SleuthkitCase skCase;
+    private final HashDb hashDb;
+    private long filesChecked;
+    private long filesMatched;
+    private long elapsedMillis;
+
+    /**
+     * Constructs a matcher of the files of a case against a hash set.
+     *
+     * @param skCase The case database.
+     * @param hashDb The hash set, which must have an index.
+     */
+    HashSetMatcher(SleuthkitCase skCase, HashDb hashDb) {
+        this.skCase = skCase;
+        this.hashDb = hashDb;
+    }
+
+    /**
+     * Matches the files of the case against the hash set.
+     *
+     * @param progress A progress handle that has been started, to report
+     * progress to.
+     * @param isCancelled Indicates whether the matching has been cancelled.
+     * @throws TskCoreException if there is an error querying the case
+     * database or the hash set.
+     */
+    void match(ProgressHandle progress, BooleanSupplier isCancelled) throws TskCoreException {
+        long start = System.currentTimeMillis();
+        boolean knownBad = hashDb.getKnownFilesType() == HashDb.KnownFilesType.KNOWN_BAD;
+        String filesFilter = getFilesFilter(knownBad);
+
+        int totalFiles = countFiles(filesFilter);
+        progress.switchToDeterminate(totalFiles);
+
+        // Hashes are read before any of the matching files are updated, as the
+        // case database cannot be written to while the query is open.
+        Set<Long> filesAlreadyHit = knownBad ? getFilesAlreadyHit() : new HashSet<>();
+        Map<String, String> commentsByHash = new HashMap<>();
+        long[] matchingFileIds = new long[1024];
+        int matchingFileCount = 0;
+        Map<Long, String> hashesByFileId = new HashMap<>();
+        InMemoryHashSetIndex index = loadIndex();
+        InMemoryHashSetIndex.Cursor cursor = (index != null) ? index.cursor() : null;
+        String previousHash = null;
+        boolean previousHashMatched = false;
+        try (CaseDbQuery dbQuery = skCase.executeQuery("SELECT obj_id, md5 FROM tsk_files WHERE " + filesFilter + " ORDER BY md5")) { //NON-NLS
+            ResultSet resultSet = dbQuery.getResultSet();
+            while (resultSet.next()) {
+                if (isCancelled.getAsBoolean()) {
+                    return;
+                }
+                long objId = resultSet.getLong(1);
+                String md5Hash = resultSet.getString(2).toLowerCase();
+                if (!md5Hash.equals(previousHash)) {
+                    previousHash = md5Hash;
+                    previousHashMatched = (cursor == null || cursor.mayContain(md5Hash)) && lookUp(md5Hash, knownBad, commentsByHash);
+                }
+                if (previousHashMatched && !filesAlreadyHit.contains(objId)) {
+                    if (matchingFileCount == matchingFileIds.length) {
+                        matchingFileIds = Arrays.copyOf(matchingFileIds, matchingFileCount * 2);
+                    }
+                    matchingFileIds[matchingFileCount++] = objId;
+                    if (knownBad) {
+                        hashesByFileId.put(objId, md5Hash);
+                    }
+                }
+                if (++filesChecked % 10000 == 0) {
+                    progress.progress((int) Math.min(filesChecked, totalFiles));
+                }
+            }
+        } catch (SQLException ex) {
+            throw new TskCoreException("Error reading file hashes from the case database", ex); //NON-NLS
+        }
+
+        progress.switchToDeterminate(matchingFileCount);
+        for (int batchStart = 0; batchStart < matchingFileCount; batchStart += BATCH_SIZE) {
+            if (isCancelled.getAsBoolean()) {
+                break;
+            }
+            int batchEnd = Math.min(batchStart + BATCH_SIZE, matchingFileCount);
+            updateMatchingFiles(Arrays.copyOfRange(matchingFileIds, batchStart, batchEnd), knownBad, hashesByFileId, commentsByHash);
+            progress.progress(batchEnd);
+        }
+        IngestServices.getInstance().getBlackboardArtifactWriter().flush();
+        elapsedMillis = System.currentTimeMillis() - start;
+        logger.log(Level.INFO, "Matched {0} of {1} files against the {2} hash set in {3} ms", //NON-NLS
+                new Object[]{filesMatched, filesChecked, hashDb.getHashSetName(), elapsedMillis});
+    }
+
+    /**
+     * @return The number of files checked against the hash set.
+     */
+    long getFilesChecked() {
+        return filesChecked;
+    }
+
+    /**
+     * @return The number of files found in the hash set that had not been
+     * found in it before.
+     */
+    long getFilesMatched() {
+        return filesMatched;
+    }
+
+    /**
+     * @return The time the matching took, in milliseconds.
+     */
+    long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Gets the filter for the files to check, the files with hashes that the
+     * hash lookup ingest module would check. Files that are known bad are not
+     * checked against known hash sets.
+     */
+    private static String getFilesFilter(boolean knownBad) {
+        String filter = "md5 IS NOT NULL" //NON-NLS
+                + " AND type != " + TskData.TSK_DB_FILES_TYPE_ENUM.UNALLOC_BLOCKS.getFileType() //NON-NLS
+                + " AND meta_type != " + TskData.TSK_FS_META_TYPE_ENUM.TSK_FS_META_TYPE_DIR.getValue(); //NON-NLS
+        if (!knownBad) {
+            filter += " AND (known IS NULL OR known = " + TskData.FileKnown.UNKNOWN.getFileKnownValue() + ")"; //NON-NLS
+        }
+        return filter;
+    }
+
+    private int countFiles(String filesFilter) throws TskCoreException {
+        try (CaseDbQuery dbQuery = skCase.executeQuery("SELECT COUNT(*) FROM tsk_files WHERE " + filesFilter)) { //NON-NLS
+            ResultSet resultSet = dbQuery.getResultSet();
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        } catch (SQLException ex) {
+            throw new TskCoreException("Error counting files in the case database", ex); //NON-NLS
+        }
+    }
+
+    /**
+     * Gets the ids of the files that already have hits for the hash set, so
+     * that no duplicate hits are posted for them.
+     */
+    private Set<Long> getFilesAlreadyHit() throws TskCoreException {
+        String query = "SELECT blackboard_artifacts.obj_id FROM blackboard_artifacts, blackboard_attributes" //NON-NLS
+                + " WHERE blackboard_artifacts.artifact_type_id = " + ARTIFACT_TYPE.TSK_HASHSET_HIT.getTypeID() //NON-NLS
+                + " AND blackboard_attributes.artifact_id = blackboard_artifacts.artifact_id" //NON-NLS
+                + " AND blackboard_attributes.attribute_type_id = " + ATTRIBUTE_TYPE.TSK_SET_NAME.getTypeID() //NON-NLS
+                + " AND blackboard_attributes.value_text = '" + hashDb.getHashSetName().replace("'", "''") + "'"; //NON-NLS
+        Set<Long> objIds = new HashSet<>();
+        try (CaseDbQuery dbQuery = skCase.executeQuery(query)) {
+            ResultSet resultSet = dbQuery.getResultSet();
+            while (resultSet.next()) {
+                objIds.add(resultSet.getLong(1));
+            }
+        } catch (SQLException ex) {
+            throw new TskCoreException("Error querying the case database for hash set hits", ex); //NON-NLS
+        }
+        return objIds;
+    }
+
+    /**
+     * Gets the in-memory index of the hash set. If it has not been loaded for
+     * ingest, it is loaded for this matching only, and is discarded with the
+     * matcher instead of being kept with the hash set.
+     *
+     * @return The index, or null if it cannot be loaded, in which case every
+     * hash is looked up in the hash set.
+     */
+    private InMemoryHashSetIndex loadIndex() {
+        InMemoryHashSetIndex index = hashDb.getMemoryIndex();
+        if (index != null) {
+            return index;
+        }
+        try {
+            return InMemoryHashSetIndex.load(hashDb.getIndexPath());
+        } catch (IOException | TskCoreException ex) {
+            logger.log(Level.WARNING, "Error loading the index of the " + hashDb.getHashSetName() + " hash database into memory", ex); //NON-NLS
+            return null;
+        }
+    }
+
+    /**
+     * Looks up a hash in the hash set, saving the comment for a hit in a known
+     * bad hash set.
+     */
+    private boolean lookUp(String md5Hash, boolean knownBad, Map<String, String> commentsByHash) throws TskCoreException {
+        if (!knownBad) {
+            return hashDb.lookupMD5Quick(md5Hash);
+        }
+        HashHitInfo hashInfo = hashDb.lookupMD5(md5Hash);
+        if (hashInfo == null) {
+            return false;
+        }
+        commentsByHash.put(md5Hash, getComment(hashInfo));
+        return true;
+    }
+
+    private static String getComment(HashHitInfo hashInfo) {
+        String comment = "";
+        int i = 0;
+        for (String c : hashInfo.getComments()) {
+            if (++i > 1) {
+                comment += " ";
+            }
+            comment += c;
+            if (comment.length() > MAX_COMMENT_SIZE) {
+                comment = comment.substring(0, MAX_COMMENT_SIZE) + "...";
+                break;
+            }
+        }
+        return comment;
+    }
+
+    /**
+     * Sets the known status of a batch of matching files, and posts hash set
+     * hits for them if the hash set is a known bad hash set. The files of the
+     * batch are read from the case database with one query.
+     */
+    private void updateMatchingFiles(long[] objIds, boolean knownBad, Map<Long, String> hashesByFileId, Map<String, String> commentsByHash) throws TskCoreException {
+        StringBuilder where = new StringBuilder("obj_id IN ("); //NON-NLS
+        for (int i = 0; i < objIds.length; ++i) {
+            if (i > 0) {
+                where.append(',');
+            }
+            where.append(objIds[i]);
+        }
+        where.append(')');
+        List<AbstractFile> files = skCase.findAllFilesWhere(where.toString());
+
+        String moduleName = NbBundle.getMessage(HashDbIngestModule.class, "HashDbIngestModule.moduleName");
+        BlackboardArtifactWriter artifactWriter = IngestServices.getInstance().getBlackboardArtifactWriter();
+        for (AbstractFile file : files) {
+            try {
+                skCase.setKnown(file, knownBad ? TskData.FileKnown.BAD : TskData.FileKnown.KNOWN);
+            } catch (TskCoreException ex) {
+                logger.log(Level.WARNING, "Couldn't set known state for file " + file.getName() + " - see sleuthkit log for details", ex); //NON-NLS
+                continue;
+            }
+            ++filesMatched;
+            if (knownBad) {
+                String md5Hash = hashesByFileId.get(file.getId());
+                List<BlackboardAttribute> attributes = new ArrayList<>();
+                attributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_SET_NAME.getTypeID(), moduleName, hashDb.getHashSetName()));
+                attributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_HASH_MD5.getTypeID(), moduleName, md5Hash));
+                attributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_COMMENT.getTypeID(), moduleName, commentsByHash.get(md5Hash)));
+                artifactWriter.addArtifact(moduleName, file, ARTIFACT_TYPE.TSK_HASHSET_HIT, attributes);
+            }
+        }
+    }
+}
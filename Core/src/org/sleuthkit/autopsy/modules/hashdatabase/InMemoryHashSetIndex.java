@@ -0,0 +1,422 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2015 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.modules.hashdatabase;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * The MD5 hashes of a hash set index, held in memory outside of the Java heap
+ * as a sorted array of pairs of longs, so that lookups of hashes that are not
+ * in the hash set are answered without a call into the SleuthKit. A hash that
+ * is found still has to be looked up in the hash set for the details of the
+ * hit.
+ *
+ * The hashes are read from the index of a hash set, either a SleuthKit text
+ * index (lines of a hexadecimal hash, a pipe and an offset into the hash set)
+ * or a SleuthKit SQLite hash set (the md5 column of the hashes table).
+ * <p>
+ * Thread-safe (immutable).
+ */
+final class InMemoryHashSetIndex {
+
+    private static final int BYTES_PER_HASH = 16;
+    private static final int MAX_HASHES = Integer.MAX_VALUE / BYTES_PER_HASH;
+    private static final int MIN_INDEX_LINE_LENGTH = 32 + 1 + 1;
+    private static final byte[] SQLITE_HEADER = "SQLite format 3\0".getBytes(StandardCharsets.US_ASCII); //NON-NLS
+    private final LongBuffer hashes;
+    private final int size;
+    private final long loadTimeMillis;
+
+    private InMemoryHashSetIndex(LongBuffer hashes, int size, long loadTimeMillis) {
+        this.hashes = hashes;
+        this.size = size;
+        this.loadTimeMillis = loadTimeMillis;
+    }
+
+    /**
+     * Reads the MD5 hashes of a hash set index into memory.
+     *
+     * @param indexPath The path of the index, or of the hash set if it is a
+     * SQLite hash set.
+     * @return The in-memory index.
+     * @throws IOException if the index cannot be read, or there is not enough
+     * memory for it.
+     */
+    static InMemoryHashSetIndex load(String indexPath) throws IOException {
+        long start = System.currentTimeMillis();
+        File indexFile = new File(indexPath);
+        HashArrayBuilder builder;
+        if (isSQLiteFile(indexFile)) {
+            builder = readSQLiteHashSet(indexFile);
+        } else {
+            builder = readTextIndex(indexFile);
+        }
+        builder.finish();
+        return new InMemoryHashSetIndex(builder.hashes, builder.size, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Indicates whether a hash may be in the hash set.
+     *
+     * @param md5Hash An MD5 hash, as a string of hexadecimal digits.
+     * @return False if the hash is not in the hash set, true if it is or if
+     * the string is not an MD5 hash.
+     */
+    boolean mayContain(String md5Hash) {
+        if (!isMd5Hash(md5Hash)) {
+            return true;
+        }
+        long high = parseHex(md5Hash, 0);
+        long low = parseHex(md5Hash, 16);
+        int lowIndex = 0;
+        int highIndex = size - 1;
+        while (lowIndex <= highIndex) {
+            int middle = (lowIndex + highIndex) >>> 1;
+            int comparison = compare(hashes.get(2 * middle), hashes.get(2 * middle + 1), high, low);
+            if (comparison < 0) {
+                lowIndex = middle + 1;
+            } else if (comparison > 0) {
+                highIndex = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets a cursor for looking up hashes in ascending order, which walks the
+     * index forward instead of searching all of it for each hash.
+     *
+     * @return The cursor.
+     */
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Looks up hashes in ascending order, merging them with the hashes of the
+     * index. A hash that is lower than the previous one is searched for in the
+     * whole index. Not thread-safe.
+     */
+    final class Cursor {
+
+        private int position;
+
+        private Cursor() {
+        }
+
+        /**
+         * Indicates whether a hash may be in the hash set.
+         *
+         * @param md5Hash An MD5 hash, as a string of hexadecimal digits,
+         * usually not lower than the previous hash looked up.
+         * @return False if the hash is not in the hash set, true if it is or
+         * if the string is not an MD5 hash.
+         */
+        boolean mayContain(String md5Hash) {
+            if (!isMd5Hash(md5Hash)) {
+                return true;
+            }
+            long high = parseHex(md5Hash, 0);
+            long low = parseHex(md5Hash, 16);
+            if (position > 0 && compare(hashes.get(2 * position - 2), hashes.get(2 * position - 1), high, low) >= 0) {
+                return InMemoryHashSetIndex.this.mayContain(md5Hash);
+            }
+            // gallop forward to bracket the hash, then search the bracket
+            int step = 1;
+            int bound = position;
+            while (bound < size && compare(hashes.get(2 * bound), hashes.get(2 * bound + 1), high, low) < 0) {
+                position = bound + 1;
+                bound += step;
+                step <<= 1;
+            }
+            int lowIndex = position;
+            int highIndex = Math.min(bound, size - 1);
+            while (lowIndex <= highIndex) {
+                int middle = (lowIndex + highIndex) >>> 1;
+                int comparison = compare(hashes.get(2 * middle), hashes.get(2 * middle + 1), high, low);
+                if (comparison < 0) {
+                    lowIndex = middle + 1;
+                } else if (comparison > 0) {
+                    highIndex = middle - 1;
+                } else {
+                    position = middle;
+                    return true;
+                }
+            }
+            position = lowIndex;
+            return false;
+        }
+    }
+
+    /**
+     * @return The number of hashes in the index.
+     */
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * @return The number of bytes of memory used by the index.
+     */
+    long getMemoryUsage() {
+        return (long) hashes.capacity() * Long.BYTES;
+    }
+
+    /**
+     * @return The time it took to read the index into memory, in milliseconds.
+     */
+    long getLoadTimeMillis() {
+        return loadTimeMillis;
+    }
+
+    private static boolean isSQLiteFile(File file) throws IOException {
+        byte[] header = new byte[SQLITE_HEADER.length];
+        try (InputStream in = new FileInputStream(file)) {
+            int totalRead = 0;
+            int bytesRead;
+            while (totalRead < header.length && (bytesRead = in.read(header, totalRead, header.length - totalRead)) > 0) {
+                totalRead += bytesRead;
+            }
+        }
+        return Arrays.equals(header, SQLITE_HEADER);
+    }
+
+    private static HashArrayBuilder readTextIndex(File indexFile) throws IOException {
+        HashArrayBuilder builder = new HashArrayBuilder(indexFile.length() / MIN_INDEX_LINE_LENGTH);
+        byte[] buffer = new byte[64 * 1024];
+        // only the first 33 characters of a line matter: an MD5 hash and a
+        // pipe, the header lines start with longer strings of zeros
+        char[] line = new char[33];
+        int lineLength = 0;
+        try (InputStream in = new FileInputStream(indexFile)) {
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) > 0) {
+                for (int i = 0; i < bytesRead; ++i) {
+                    byte b = buffer[i];
+                    if (b == '\n') {
+                        addIndexLine(builder, line, lineLength);
+                        lineLength = 0;
+                    } else if (lineLength < line.length) {
+                        line[lineLength++] = (char) b;
+                    }
+                }
+            }
+            addIndexLine(builder, line, lineLength);
+        }
+        return builder;
+    }
+
+    private static void addIndexLine(HashArrayBuilder builder, char[] line, int lineLength) throws IOException {
+        if (lineLength == line.length && line[32] == '|') {
+            String hash = new String(line, 0, 32);
+            if (isMd5Hash(hash)) {
+                builder.add(parseHex(hash, 0), parseHex(hash, 16));
+            }
+        }
+    }
+
+    private static HashArrayBuilder readSQLiteHashSet(File hashSetFile) throws IOException {
+        try {
+            Class.forName("org.sqlite.JDBC"); //NON-NLS
+        } catch (ClassNotFoundException ex) {
+            throw new IOException("SQLite JDBC driver not found", ex); //NON-NLS
+        }
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + hashSetFile.getPath()); //NON-NLS
+                Statement statement = connection.createStatement()) {
+            HashArrayBuilder builder;
+            try (ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM hashes")) { //NON-NLS
+                builder = new HashArrayBuilder(resultSet.next() ? resultSet.getLong(1) : 0);
+            }
+            try (ResultSet resultSet = statement.executeQuery("SELECT md5 FROM hashes ORDER BY md5")) { //NON-NLS
+                while (resultSet.next()) {
+                    Object md5 = resultSet.getObject(1);
+                    if (md5 instanceof byte[] && ((byte[]) md5).length == BYTES_PER_HASH) {
+                        ByteBuffer bytes = ByteBuffer.wrap((byte[]) md5);
+                        builder.add(bytes.getLong(), bytes.getLong());
+                    } else if (md5 instanceof String && isMd5Hash((String) md5)) {
+                        builder.add(parseHex((String) md5, 0), parseHex((String) md5, 16));
+                    }
+                }
+            }
+            return builder;
+        } catch (SQLException ex) {
+            throw new IOException("Error reading hashes from " + hashSetFile.getPath(), ex); //NON-NLS
+        }
+    }
+
+    private static boolean isMd5Hash(String s) {
+        if (s == null || s.length() != 32) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); ++i) {
+            if (Character.digit(s.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses 16 hexadecimal digits of a string.
+     */
+    private static long parseHex(String s, int start) {
+        long value = 0;
+        for (int i = start; i < start + 16; ++i) {
+            value = (value << 4) | Character.digit(s.charAt(i), 16);
+        }
+        return value;
+    }
+
+    /**
+     * Compares two hashes as unsigned 128 bit numbers, which is the order of
+     * their hexadecimal strings.
+     */
+    private static int compare(long high1, long low1, long high2, long low2) {
+        int comparison = Long.compareUnsigned(high1, high2);
+        return (comparison != 0) ? comparison : Long.compareUnsigned(low1, low2);
+    }
+
+    /**
+     * Builds the sorted array of hashes in memory outside of the Java heap.
+     * The hashes of an index are expected to be sorted already, they are
+     * sorted here if they are not.
+     */
+    private static final class HashArrayBuilder {
+
+        private LongBuffer hashes;
+        private int size;
+        private boolean sorted = true;
+
+        private HashArrayBuilder(long expectedSize) throws IOException {
+            hashes = allocate((int) Math.max(Math.min(expectedSize, MAX_HASHES), 1024));
+        }
+
+        private void add(long high, long low) throws IOException {
+            if (size > 0 && sorted) {
+                int comparison = compare(hashes.get(2 * size - 2), hashes.get(2 * size - 1), high, low);
+                if (comparison == 0) {
+                    return;
+                }
+                sorted = comparison < 0;
+            }
+            if (2 * size == hashes.capacity()) {
+                if (size == MAX_HASHES) {
+                    throw new IOException("Too many hashes for an in-memory index"); //NON-NLS
+                }
+                hashes = copy(hashes, 2 * size, (int) Math.min((long) size + (size >> 1), MAX_HASHES));
+            }
+            hashes.put(2 * size, high);
+            hashes.put(2 * size + 1, low);
+            ++size;
+        }
+
+        private void finish() throws IOException {
+            if (!sorted) {
+                sort();
+                removeDuplicates();
+            }
+            if (size < (hashes.capacity() / 2) * 3 / 4) {
+                hashes = copy(hashes, 2 * size, size);
+            }
+        }
+
+        /**
+         * Heap sorts the pairs in place, so that no more memory is needed.
+         */
+        private void sort() {
+            for (int i = size / 2 - 1; i >= 0; --i) {
+                siftDown(i, size);
+            }
+            for (int end = size - 1; end > 0; --end) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+        }
+
+        private void siftDown(int root, int end) {
+            while (2 * root + 1 < end) {
+                int child = 2 * root + 1;
+                if (child + 1 < end && comparePairs(child, child + 1) < 0) {
+                    ++child;
+                }
+                if (comparePairs(root, child) >= 0) {
+                    return;
+                }
+                swap(root, child);
+                root = child;
+            }
+        }
+
+        private int comparePairs(int i, int j) {
+            return compare(hashes.get(2 * i), hashes.get(2 * i + 1), hashes.get(2 * j), hashes.get(2 * j + 1));
+        }
+
+        private void swap(int i, int j) {
+            long high = hashes.get(2 * i);
+            long low = hashes.get(2 * i + 1);
+            hashes.put(2 * i, hashes.get(2 * j));
+            hashes.put(2 * i + 1, hashes.get(2 * j + 1));
+            hashes.put(2 * j, high);
+            hashes.put(2 * j + 1, low);
+        }
+
+        private void removeDuplicates() {
+            int distinct = 0;
+            for (int i = 0; i < size; ++i) {
+                if (distinct == 0 || comparePairs(distinct - 1, i) != 0) {
+                    hashes.put(2 * distinct, hashes.get(2 * i));
+                    hashes.put(2 * distinct + 1, hashes.get(2 * i + 1));
+                    ++distinct;
+                }
+            }
+            size = distinct;
+        }
+
+        private static LongBuffer allocate(int numberOfHashes) throws IOException {
+            try {
+                return ByteBuffer.allocateDirect(numberOfHashes * BYTES_PER_HASH).order(ByteOrder.nativeOrder()).asLongBuffer();
+            } catch (OutOfMemoryError ex) {
+                throw new IOException("Not enough memory for an in-memory index of " + numberOfHashes + " hashes", ex); //NON-NLS
+            }
+        }
+
+        private static LongBuffer copy(LongBuffer source, int length, int numberOfHashes) throws IOException {
+            LongBuffer copy = allocate(numberOfHashes);
+            LongBuffer values = source.duplicate();
+            values.position(0).limit(length);
+            copy.put(values);
+            return copy;
+        }
+    }
+}
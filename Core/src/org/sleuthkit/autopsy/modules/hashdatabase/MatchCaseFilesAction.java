@@ -0,0 +1,162 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2015 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.modules.hashdatabase;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.api.progress.ProgressHandleFactory;
+import org.openide.awt.ActionID;
+import org.openide.awt.ActionReference;
+import org.openide.awt.ActionRegistration;
+import org.openide.util.HelpCtx;
+import org.openide.util.NbBundle;
+import org.openide.util.actions.CallableSystemAction;
+import org.sleuthkit.autopsy.casemodule.Case;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.autopsy.coreutils.MessageNotifyUtil;
+import org.sleuthkit.autopsy.modules.hashdatabase.HashDbManager.HashDb;
+import org.sleuthkit.datamodel.TskCoreException;
+
+/**
+ * Checks the files of the current case that have been hashed against a hash
+ * set chosen by the user, e.g., one imported after the case was ingested, in a
+ * background task.
+ */
+@ActionID(
+        category = "Tools",
+        id = "org.sleuthkit.autopsy.modules.hashdatabase.MatchCaseFilesAction"
+)
+@ActionRegistration(
+        displayName = "#MatchCaseFilesAction.actionName",
+        lazy = false
+)
+@ActionReference(path = "Menu/Tools", position = 202)
+public final class MatchCaseFilesAction extends CallableSystemAction {
+
+    private static final Logger logger = Logger.getLogger(MatchCaseFilesAction.class.getName());
+    private static final String ACTION_NAME = NbBundle.getMessage(MatchCaseFilesAction.class, "MatchCaseFilesAction.actionName");
+
+    public MatchCaseFilesAction() {
+        setEnabled(Case.isCaseOpen()); //no guarantee listener executed, so check here
+        Case.addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if (evt.getPropertyName().equals(Case.Events.CURRENT_CASE.toString())) {
+                    setEnabled(evt.getNewValue() != null);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void performAction() {
+        List<HashDb> hashSets = new ArrayList<>();
+        List<String> hashSetNames = new ArrayList<>();
+        for (HashDb db : HashDbManager.getInstance().getAllHashSets()) {
+            try {
+                if (db.hasIndex() && !db.isIndexing()) {
+                    hashSets.add(db);
+                    hashSetNames.add(db.getHashSetName());
+                }
+            } catch (TskCoreException ex) {
+                logger.log(Level.WARNING, "Error getting index status for " + db.getHashSetName() + " hash database", ex); //NON-NLS
+            }
+        }
+        if (hashSets.isEmpty()) {
+            JOptionPane.showMessageDialog(null,
+                    NbBundle.getMessage(this.getClass(), "MatchCaseFilesAction.noIndexedHashSetsMsg"),
+                    ACTION_NAME, JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        Object selection = JOptionPane.showInputDialog(null,
+                NbBundle.getMessage(this.getClass(), "MatchCaseFilesAction.selectHashSetMsg"),
+                ACTION_NAME, JOptionPane.QUESTION_MESSAGE, null,
+                hashSetNames.toArray(), hashSetNames.get(0));
+        if (selection != null) {
+            new MatchCaseFilesWorker(hashSets.get(hashSetNames.indexOf(selection))).execute();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return ACTION_NAME;
+    }
+
+    @Override
+    public HelpCtx getHelpCtx() {
+        return HelpCtx.DEFAULT_HELP;
+    }
+
+    @Override
+    protected boolean asynchronous() {
+        return false;
+    }
+
+    /**
+     * Worker thread to match the files of the case against a hash set.
+     */
+    private static class MatchCaseFilesWorker extends SwingWorker<HashSetMatcher, Void> {
+
+        private final HashDb hashDb;
+        private ProgressHandle progress;
+
+        MatchCaseFilesWorker(HashDb hashDb) {
+            this.hashDb = hashDb;
+        }
+
+        @Override
+        protected HashSetMatcher doInBackground() throws Exception {
+            progress = ProgressHandleFactory.createHandle(
+                    NbBundle.getMessage(MatchCaseFilesAction.class, "MatchCaseFilesAction.progress.matching", hashDb.getHashSetName()),
+                    () -> cancel(true));
+            progress.start();
+            HashSetMatcher matcher = new HashSetMatcher(Case.getCurrentCase().getSleuthkitCase(), hashDb);
+            matcher.match(progress, this::isCancelled);
+            return matcher;
+        }
+
+        @Override
+        protected void done() {
+            if (progress != null) {
+                progress.finish();
+            }
+            try {
+                HashSetMatcher matcher = get();
+                MessageNotifyUtil.Notify.info(ACTION_NAME,
+                        NbBundle.getMessage(MatchCaseFilesAction.class, "MatchCaseFilesAction.doneMsg",
+                                matcher.getFilesMatched(), matcher.getFilesChecked(), hashDb.getHashSetName(),
+                                matcher.getElapsedMillis() / 1000));
+            } catch (CancellationException ex) {
+                logger.log(Level.INFO, "Matching of case files against the {0} hash set was cancelled", hashDb.getHashSetName()); //NON-NLS
+            } catch (InterruptedException | ExecutionException ex) {
+                logger.log(Level.SEVERE, "Error matching case files against the " + hashDb.getHashSetName() + " hash set", ex); //NON-NLS
+                MessageNotifyUtil.Notify.error(ACTION_NAME,
+                        NbBundle.getMessage(MatchCaseFilesAction.class, "MatchCaseFilesAction.errorMsg", hashDb.getHashSetName()));
+            }
+        }
+    }
+}
@@ -19,21 +19,17 @@
 package org.sleuthkit.autopsy.modules.interestingitems;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.logging.Level;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.autopsy.ingest.FileIngestModule;
 import org.sleuthkit.autopsy.ingest.IngestJobContext;
 import org.sleuthkit.autopsy.ingest.IngestModuleReferenceCounter;
 import org.sleuthkit.autopsy.ingest.IngestServices;
-import org.sleuthkit.autopsy.ingest.ModuleDataEvent;
 import org.sleuthkit.datamodel.AbstractFile;
 import org.sleuthkit.datamodel.BlackboardArtifact;
 import org.sleuthkit.datamodel.BlackboardAttribute;
-import org.sleuthkit.datamodel.TskCoreException;
 
 /**
  * A file ingest module that generates interesting files set hit artifacts for
@@ -92,30 +88,25 @@ public ProcessResult process(AbstractFile file) {
         for (FilesSet filesSet : filesSets) {
             String ruleSatisfied = filesSet.fileIsMemberOf(file);
             if (ruleSatisfied != null) {
-                try {
-                    // Post an interesting files set hit artifact to the 
-                    // blackboard.
-                    String moduleName = InterestingItemsIngestModuleFactory.getModuleName();
-                    BlackboardArtifact artifact = file.newArtifact(BlackboardArtifact.ARTIFACT_TYPE.TSK_INTERESTING_FILE_HIT);
+                // Post an interesting files set hit artifact to the 
+                // blackboard.
+                String moduleName = InterestingItemsIngestModuleFactory.getModuleName();
+                List<BlackboardAttribute> attributes = new ArrayList<>();
 
-                    // Add a set name attribute to the artifact. This adds a 
-                    // fair amount of redundant data to the attributes table 
-                    // (i.e., rows that differ only in artifact id), but doing
-                    // otherwise would requires reworking the interesting files
-                    // set hit artifact.
-                    BlackboardAttribute setNameAttribute = new BlackboardAttribute(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_SET_NAME.getTypeID(), moduleName, filesSet.getName());
-                    artifact.addAttribute(setNameAttribute);
+                // Add a set name attribute to the artifact. This adds a 
+                // fair amount of redundant data to the attributes table 
+                // (i.e., rows that differ only in artifact id), but doing
+                // otherwise would requires reworking the interesting files
+                // set hit artifact.
+                attributes.add(new BlackboardAttribute(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_SET_NAME.getTypeID(), moduleName, filesSet.getName()));
 
-                    // Add a category attribute to the artifact to record the 
-                    // interesting files set membership rule that was satisfied.
-                    BlackboardAttribute ruleNameAttribute = new BlackboardAttribute(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_CATEGORY.getTypeID(), moduleName, ruleSatisfied);
-                    artifact.addAttribute(ruleNameAttribute);
-                    
-                    IngestServices.getInstance().fireModuleDataEvent(new ModuleDataEvent(moduleName, BlackboardArtifact.ARTIFACT_TYPE.TSK_INTERESTING_FILE_HIT, Collections.singletonList(artifact)));
+                // Add a category attribute to the artifact to record the 
+                // interesting files set membership rule that was satisfied.
+                attributes.add(new BlackboardAttribute(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_CATEGORY.getTypeID(), moduleName, ruleSatisfied));
 
-                } catch (TskCoreException ex) {
-                    FilesIdentifierIngestModule.logger.log(Level.SEVERE, "Error posting to the blackboard", ex); //NOI18N
-                }
+                // The artifact is written in a batch with other artifacts,
+                // with one module data event for the batch.
+                IngestServices.getInstance().getBlackboardArtifactWriter().addArtifact(moduleName, file, BlackboardArtifact.ARTIFACT_TYPE.TSK_INTERESTING_FILE_HIT, attributes);
             }
         }
         return ProcessResult.OK;
@@ -126,6 +117,7 @@ public ProcessResult process(AbstractFile file) {
      */
     @Override
     public void shutDown() {
+        IngestServices.getInstance().getBlackboardArtifactWriter().flush();
         if (refCounter.decrementAndGet(this.context.getJobId()) == 0) {
             // Shutting down the last instance of this module for this ingest 
             // job, so discard the interesting file sets definitions snapshot 
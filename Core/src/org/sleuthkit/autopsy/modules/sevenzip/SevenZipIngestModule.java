@@ -18,6 +18,7 @@
  */
 package org.sleuthkit.autopsy.modules.sevenzip;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -26,12 +27,18 @@
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import net.sf.sevenzipjbinding.ISequentialOutStream;
 import net.sf.sevenzipjbinding.ISevenZipInArchive;
+import net.sf.sevenzipjbinding.PropID;
 import org.openide.util.NbBundle;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.autopsy.ingest.IngestServices;
@@ -44,6 +51,7 @@
 import org.netbeans.api.progress.ProgressHandle;
 import org.netbeans.api.progress.ProgressHandleFactory;
 import org.sleuthkit.autopsy.casemodule.services.FileManager;
+import org.sleuthkit.autopsy.core.UserPreferences;
 import org.sleuthkit.autopsy.ingest.FileIngestModule;
 import org.sleuthkit.autopsy.ingest.IngestMessage;
 import org.sleuthkit.autopsy.ingest.IngestMonitor;
@@ -85,6 +93,10 @@ public final class SevenZipIngestModule implements FileIngestModule {
     private static final int MAX_COMPRESSION_RATIO = 600;
     private static final long MIN_COMPRESSION_RATIO_SIZE = 500 * 1000000L;
     private static final long MIN_FREE_DISK_SPACE = 1 * 1000 * 1000000L; //1GB
+    //unpacked files are added to the case and the ingest job in batches
+    private static final int UNPACKED_FILES_BATCH_SIZE = 200;
+    private static final long UNPACKED_FILES_POLL_INTERVAL_MS = 500;
+    private static final int UNPACK_THREADS = Math.min(Runtime.getRuntime().availableProcessors(), 4);
     //counts archive depth
     private ArchiveDepthCountTree archiveDepthCountTree;
     //buffer for checking file headers and signatures
@@ -176,13 +188,7 @@ public ProcessResult process(AbstractFile abstractFile) {
 
         logger.log(Level.INFO, "Processing with archive extractor: {0}", abstractFile.getName()); //NON-NLS
 
-        List<AbstractFile> unpackedFiles = unpack(abstractFile);
-        if (!unpackedFiles.isEmpty()) {
-            //currently sending a single event for all new files
-            services.fireModuleContentEvent(new ModuleContentEvent(abstractFile));
-        
-            context.addFilesToJob(unpackedFiles);
-        }
+        unpack(abstractFile);
 
         return ProcessResult.OK;
     }
@@ -311,15 +317,14 @@ else if (detectedFormat.contains("application/x-rar-compressed")) //NON-NLS
         
 
     /**
-     * Unpack the file to local folder and return a list of derived files
+     * Unpack the file to local folder, add the unpacked files to the case as
+     * derived files and add them to the ingest job. The files are added in
+     * batches as they are unpacked, rather than once the whole archive has been
+     * unpacked.
      *
-     * @param pipelineContext current ingest context
      * @param archiveFile file to unpack
-     * @return list of unpacked derived files
      */
-    private List<AbstractFile> unpack(AbstractFile archiveFile) {
-        List<AbstractFile> unpackedFiles = Collections.<AbstractFile>emptyList();
-
+    private void unpack(AbstractFile archiveFile) {
         //recursion depth check for zip bomb
         final long archiveId = archiveFile.getId();
         ArchiveDepthCountTree.Archive parentAr = archiveDepthCountTree.findArchive(archiveId);
@@ -333,7 +338,7 @@ private List<AbstractFile> unpack(AbstractFile archiveFile) {
                     parentAr.getDepth());
             //MessageNotifyUtil.Notify.error(msg, details);
             services.postMessage(IngestMessage.createWarningMessage(ArchiveFileExtractorModuleFactory.getModuleName(), msg, details));
-            return unpackedFiles;
+            return;
         }
 
         boolean hasEncrypted = false;
@@ -374,7 +379,7 @@ private List<AbstractFile> unpack(AbstractFile archiveFile) {
                 } catch (SecurityException e) {
                     logger.log(Level.SEVERE, "Error setting up output path for archive root: {0}", localRootAbsPath); //NON-NLS
                     //bail
-                    return unpackedFiles;
+                    return;
                 }
             }
 
@@ -383,7 +388,10 @@ private List<AbstractFile> unpack(AbstractFile archiveFile) {
 
             long freeDiskSpace = services.getFreeDiskSpace();
 
-            //unpack and process every item in archive
+            //files to unpack once every item in the archive has been checked
+            List<UnpackedTree.UnpackedNode> filesToUnpack = new ArrayList<>();
+
+            //check every item in archive and set up the local dirs and files
             int itemNumber = 0;
             for (ISimpleInArchiveItem item : simpleInArchive.getArchiveItems()) {
                 String pathInArchive = item.getPath();
@@ -429,20 +437,22 @@ private List<AbstractFile> unpack(AbstractFile archiveFile) {
                     continue; //skip the item
                 }
 
+                final boolean isDir = item.isFolder();
+
                 //find this node in the hierarchy, create if needed
-                UnpackedTree.UnpackedNode unpackedNode = unpackedTree.addNode(pathInArchive);
+                UnpackedTree.UnpackedNode unpackedNode = isDir
+                        ? unpackedTree.addNode(pathInArchive) : unpackedTree.addFileNode(pathInArchive);
+                if (unpackedNode == null) {
+                    continue;
+                }
 
                 String fileName = unpackedNode.getFileName();
 
-                //update progress bar
-                progress.progress(archiveFile.getName() + ": " + fileName, processedItems);
-
                 if (compressMethod == null) {
                     compressMethod = item.getMethod();
                 }
 
                 final boolean isEncrypted = item.isEncrypted();
-                final boolean isDir = item.isFolder();
 
                 if (isEncrypted) {
                     logger.log(Level.WARNING, "Skipping encrypted file in archive: {0}", pathInArchive); //NON-NLS
@@ -514,48 +524,44 @@ private List<AbstractFile> unpack(AbstractFile archiveFile) {
                 final long modtime = writeTime == null ? 0L : writeTime.getTime() / 1000;
                 final long accesstime = accessTime == null ? 0L : accessTime.getTime() / 1000;
 
-                //record derived data in unode, to be traversed later after unpacking the archive
+                //record derived data in unode, to be added to the DB after checking the archive
                 unpackedNode.addDerivedInfo(size, !isDir,
                         0L, createtime, accesstime, modtime, localRelPath);
 
-                //unpack locally if a file
-                if (!isDir) {
-                    UnpackStream unpackStream = null;
-                    try {
-                        unpackStream = new UnpackStream(localAbsPath);
-                        item.extractSlow(unpackStream);
-                    } catch (Exception e) {
-                        //could be something unexpected with this file, move on
-                        logger.log(Level.WARNING, "Could not extract file from archive: " + localAbsPath, e); //NON-NLS
-                    } finally {
-                        if (unpackStream != null) {
-                            unpackStream.close();
-                        }
-                    }
+                //unpack locally later if a file
+                if (isDir) {
+                    progress.progress(archiveFile.getName() + ": " + fileName, ++processedItems);
+                } else {
+                    unpackedNode.setItem(item.getItemIndex(), localAbsPath);
+                    filesToUnpack.add(unpackedNode);
                 }
-
-                //update units for progress bar
-                ++processedItems;
             }
-            
-            // add them to the DB. We wait until the end so that we have the metadata on all of the
-            // intermediate nodes since the order is not guaranteed
-            try {
-                unpackedTree.addDerivedFilesToCase();
-                unpackedFiles = unpackedTree.getAllFileObjects();
-
-                //check if children are archives, update archive depth tracking
-                for (AbstractFile unpackedFile : unpackedFiles) {
-                    if (isSupported(unpackedFile)) {
-                        archiveDepthCountTree.addArchive(parentAr, unpackedFile.getId());
-                    }
-                }
 
+            // add the dirs to the DB first. We wait until all of the items have been checked so that we
+            // have the metadata on all of the intermediate nodes since the order is not guaranteed.
+            // The files can then be added as they are unpacked.
+            UnpackedFileBatch unpackedFiles = new UnpackedFileBatch(archiveFile, parentAr);
+            try {
+                addUnpackedFilesToJob(archiveFile, parentAr, unpackedTree.addDirectoriesToCase());
             } catch (TskCoreException e) {
                 logger.log(Level.SEVERE, "Error populating complete derived file hierarchy from the unpacked dir structure"); //NON-NLS
                 //TODO decide if anything to cleanup, for now bailing
+                filesToUnpack.clear();
             }
 
+            if (UserPreferences.extractArchivesInParallel() && filesToUnpack.size() > 1 && canUnpackInParallel(inArchive)) {
+                unpackInParallel(archiveFile, options, inArchive, filesToUnpack, unpackedFiles, progress, processedItems);
+            } else {
+                for (int fileIndex = 0; fileIndex < filesToUnpack.size() && !context.fileIngestIsCancelled(); ++fileIndex) {
+                    //the batch holds the file node until it is added to the case
+                    UnpackedTree.UnpackedNode unpackedNode = filesToUnpack.set(fileIndex, null);
+                    progress.progress(archiveFile.getName() + ": " + unpackedNode.getFileName(), ++processedItems);
+                    unpackFile(inArchive, unpackedNode);
+                    unpackedFiles.add(unpackedNode);
+                }
+            }
+            unpackedFiles.flush();
+
         } catch (SevenZipException | TskCoreException ex) {
             logger.log(Level.SEVERE, "Error unpacking file: " + archiveFile, ex); //NON-NLS
             //inbox message
@@ -615,8 +621,183 @@ private List<AbstractFile> unpack(AbstractFile archiveFile) {
                     archiveFile.getName(), ArchiveFileExtractorModuleFactory.getModuleName());
             services.postMessage(IngestMessage.createWarningMessage(ArchiveFileExtractorModuleFactory.getModuleName(), msg, details));
         }
+    }
 
-        return unpackedFiles;
+    /**
+     * Check if the items of an archive can be unpacked independently of each
+     * other, by separate readers of the archive, without decompressing the
+     * items before them.
+     *
+     * @param inArchive the opened archive
+     * @return true if the archive is a zip archive or is not solid
+     */
+    private boolean canUnpackInParallel(ISevenZipInArchive inArchive) {
+        if (inArchive.getArchiveFormat() == ArchiveFormat.ZIP) {
+            return true;
+        }
+        try {
+            return Boolean.FALSE.equals(inArchive.getArchiveProperty(PropID.SOLID));
+        } catch (SevenZipException ex) {
+            logger.log(Level.WARNING, "Error checking if archive is solid", ex); //NON-NLS
+            return false;
+        }
+    }
+
+    /**
+     * Unpack the files of an archive using several threads, each with its own
+     * reader of the archive, while the unpacked files are added to the case
+     * and the ingest job on this thread.
+     *
+     * @param archiveFile the archive
+     * @param options input parameter for SevenZip.openInArchive()
+     * @param inArchive the archive opened by this thread, to unpack the
+     * files the other threads leave if they cannot open the archive
+     * @param filesToUnpack the file nodes to unpack
+     * @param unpackedFiles the batch of unpacked files to add to
+     * @param progress the progress bar
+     * @param processedItems the number of items processed so far
+     */
+    private void unpackInParallel(AbstractFile archiveFile, ArchiveFormat options, ISevenZipInArchive inArchive, List<UnpackedTree.UnpackedNode> filesToUnpack,
+            UnpackedFileBatch unpackedFiles, ProgressHandle progress, int processedItems) {
+        final AtomicInteger nextFile = new AtomicInteger();
+        final BlockingQueue<UnpackedTree.UnpackedNode> unpackedNodes = new LinkedBlockingQueue<>();
+        final int numThreads = Math.min(UNPACK_THREADS, filesToUnpack.size());
+        ExecutorService unpackers = Executors.newFixedThreadPool(numThreads,
+                new ThreadFactoryBuilder().setNameFormat("archive-extractor-%d").setDaemon(true).build()); //NON-NLS
+        for (int i = 0; i < numThreads; ++i) {
+            unpackers.submit(() -> unpackFiles(archiveFile, options, filesToUnpack, nextFile, unpackedNodes));
+        }
+        unpackers.shutdown();
+
+        try {
+            int unpackedCount = 0;
+            while (unpackedCount < filesToUnpack.size() && !context.fileIngestIsCancelled()) {
+                UnpackedTree.UnpackedNode unpackedNode = unpackedNodes.poll(UNPACKED_FILES_POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (unpackedNode == null) {
+                    //add what has been unpacked so far while waiting
+                    unpackedFiles.flush();
+                    if (unpackers.isTerminated() && unpackedNodes.isEmpty()) {
+                        //the unpackers could not open the archive
+                        break;
+                    }
+                    continue;
+                }
+                progress.progress(archiveFile.getName() + ": " + unpackedNode.getFileName(), ++processedItems);
+                unpackedFiles.add(unpackedNode);
+                ++unpackedCount;
+            }
+        } catch (InterruptedException ex) {
+            unpackers.shutdownNow();
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        //unpack the files that are left, if any
+        int fileIndex;
+        while (!context.fileIngestIsCancelled() && (fileIndex = nextFile.getAndIncrement()) < filesToUnpack.size()) {
+            UnpackedTree.UnpackedNode unpackedNode = filesToUnpack.set(fileIndex, null);
+            progress.progress(archiveFile.getName() + ": " + unpackedNode.getFileName(), ++processedItems);
+            unpackFile(inArchive, unpackedNode);
+            unpackedFiles.add(unpackedNode);
+        }
+    }
+
+    /**
+     * Unpack files of an archive with a reader of the archive of its own,
+     * until there are no files left to unpack. If the archive cannot be
+     * opened, the files are left for other threads to unpack. The archive is
+     * read through an AbstractFile of its own too, since the reads of an
+     * AbstractFile go through one SleuthKit file handle that is not safe to
+     * share between threads.
+     *
+     * @param archiveFile the archive
+     * @param options input parameter for SevenZip.openInArchive()
+     * @param filesToUnpack the file nodes to unpack
+     * @param nextFile the index of the next file node to unpack
+     * @param unpackedNodes receives the file nodes once they are unpacked
+     */
+    private void unpackFiles(AbstractFile archiveFile, ArchiveFormat options, List<UnpackedTree.UnpackedNode> filesToUnpack,
+            AtomicInteger nextFile, BlockingQueue<UnpackedTree.UnpackedNode> unpackedNodes) {
+        ISevenZipInArchive inArchive = null;
+        SevenZipContentReadStream stream = null;
+        try {
+            AbstractFile archiveFileCopy = Case.getCurrentCase().getSleuthkitCase().getAbstractFileById(archiveFile.getId());
+            stream = new SevenZipContentReadStream(new ReadContentInputStream(archiveFileCopy));
+            inArchive = SevenZip.openInArchive(options, stream);
+            int fileIndex;
+            while (!context.fileIngestIsCancelled() && !Thread.currentThread().isInterrupted()
+                    && (fileIndex = nextFile.getAndIncrement()) < filesToUnpack.size()) {
+                //each file node is taken by one thread only
+                UnpackedTree.UnpackedNode unpackedNode = filesToUnpack.set(fileIndex, null);
+                unpackFile(inArchive, unpackedNode);
+                unpackedNodes.add(unpackedNode);
+            }
+        } catch (SevenZipException | TskCoreException ex) {
+            logger.log(Level.SEVERE, "Error opening archive to unpack files: " + archiveFile, ex); //NON-NLS
+        } finally {
+            if (inArchive != null) {
+                try {
+                    inArchive.close();
+                } catch (SevenZipException e) {
+                    logger.log(Level.SEVERE, "Error closing archive: " + archiveFile, e); //NON-NLS
+                }
+            }
+
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException ex) {
+                    logger.log(Level.SEVERE, "Error closing stream after unpacking archive: " + archiveFile, ex); //NON-NLS
+                }
+            }
+        }
+    }
+
+    /**
+     * Unpack a file of an archive to its local file.
+     *
+     * @param inArchive the opened archive
+     * @param unpackedNode the file node
+     */
+    private static void unpackFile(ISevenZipInArchive inArchive, UnpackedTree.UnpackedNode unpackedNode) {
+        UnpackStream unpackStream = null;
+        try {
+            unpackStream = new UnpackStream(unpackedNode.getLocalAbsPath());
+            inArchive.extractSlow(unpackedNode.getItemIndex(), unpackStream);
+        } catch (Exception e) {
+            //could be something unexpected with this file, move on
+            logger.log(Level.WARNING, "Could not extract file from archive: " + unpackedNode.getLocalAbsPath(), e); //NON-NLS
+        } finally {
+            if (unpackStream != null) {
+                unpackStream.close();
+            }
+        }
+    }
+
+    /**
+     * Add unpacked files to the ingest job, after updating archive depth
+     * tracking for the ones that are archives.
+     *
+     * @param archiveFile the archive the files were unpacked from
+     * @param parentAr the archive depth tracking node of the archive
+     * @param unpackedFiles the derived files
+     */
+    private void addUnpackedFilesToJob(AbstractFile archiveFile, ArchiveDepthCountTree.Archive parentAr, List<AbstractFile> unpackedFiles) {
+        if (unpackedFiles.isEmpty()) {
+            return;
+        }
+
+        //check if children are archives, update archive depth tracking
+        for (AbstractFile unpackedFile : unpackedFiles) {
+            if (isSupported(unpackedFile)) {
+                archiveDepthCountTree.addArchive(parentAr, unpackedFile.getId());
+            }
+        }
+
+        //currently sending a single event for each batch of new files
+        services.fireModuleContentEvent(new ModuleContentEvent(archiveFile));
+
+        context.addFilesToJob(unpackedFiles);
     }
 
     private boolean isSupported(AbstractFile file) {
@@ -677,6 +858,46 @@ private boolean isZipFileHeader(AbstractFile file) {
         return signature == ZIP_SIGNATURE_BE;
     }
 
+    /**
+     * Unpacked files of an archive waiting to be added to the case as derived
+     * files and to the ingest job, so that they can be added in batches.
+     */
+    private class UnpackedFileBatch {
+
+        private final AbstractFile archiveFile;
+        private final ArchiveDepthCountTree.Archive parentAr;
+        private final List<UnpackedTree.UnpackedNode> unpackedNodes = new ArrayList<>();
+
+        UnpackedFileBatch(AbstractFile archiveFile, ArchiveDepthCountTree.Archive parentAr) {
+            this.archiveFile = archiveFile;
+            this.parentAr = parentAr;
+        }
+
+        void add(UnpackedTree.UnpackedNode unpackedNode) {
+            unpackedNodes.add(unpackedNode);
+            if (unpackedNodes.size() >= UNPACKED_FILES_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (unpackedNodes.isEmpty()) {
+                return;
+            }
+            final FileManager fileManager = Case.getCurrentCase().getServices().getFileManager();
+            List<AbstractFile> unpackedFiles = new ArrayList<>();
+            for (UnpackedTree.UnpackedNode unpackedNode : unpackedNodes) {
+                try {
+                    unpackedFiles.add(unpackedNode.addDerivedFileToCase(fileManager));
+                } catch (TskCoreException ex) {
+                    //already logged, move on to the next file
+                }
+            }
+            unpackedNodes.clear();
+            addUnpackedFilesToJob(archiveFile, parentAr, unpackedFiles);
+        }
+    }
+
     /**
      * Stream used to unpack the archive to local file
      */
@@ -751,6 +972,28 @@ private class UnpackedTree {
          * @return child node for the last file token in the filePath
          */
         UnpackedNode addNode(String filePath) {
+            return addNode(rootNode, getPathTokens(filePath));
+        }
+
+        /**
+         * Creates a node for a file at the given path, making intermediate
+         * nodes if needed. File nodes are not kept in the tree, so that the
+         * tree only holds the dirs of the archive while its files are unpacked
+         * and added to the case.
+         *
+         * @param filePath file path with 1 or more tokens separated by /
+         * @return node for the file, or null if the path has no tokens
+         */
+        UnpackedNode addFileNode(String filePath) {
+            List<String> tokens = getPathTokens(filePath);
+            if (tokens.isEmpty()) {
+                return null;
+            }
+            String fileName = tokens.remove(tokens.size() - 1);
+            return new UnpackedNode(fileName, addNode(rootNode, tokens), false);
+        }
+
+        private List<String> getPathTokens(String filePath) {
             String[] toks = filePath.split("[\\/\\\\]");
             List<String> tokens = new ArrayList<>();
             for (int i = 0; i < toks.length; ++i) {
@@ -758,7 +1001,7 @@ UnpackedNode addNode(String filePath) {
                     tokens.add(toks[i]);
                 }
             }
-            return addNode(rootNode, tokens);
+            return tokens;
         }
 
         /**
@@ -800,56 +1043,27 @@ List<AbstractFile> getRootFileObjects() {
         }
 
         /**
-         * Get the all file objects (after createDerivedFiles() ) of this tree,
-         * so that they can be rescheduled.
+         * Traverse the tree top-down after the archive items have been checked
+         * and create derived files for the dir hierarchy, so that the files can
+         * be added under their dirs as they are unpacked
          *
-         * @return all file objects of this unpacked tree
-         */
-        List<AbstractFile> getAllFileObjects() {
-            List<AbstractFile> ret = new ArrayList<>();
-            for (UnpackedNode child : rootNode.children) {
-                getAllFileObjectsRec(ret, child);
-            }
-            return ret;
-        }
-
-        private void getAllFileObjectsRec(List<AbstractFile> list, UnpackedNode parent) {
-            list.add(parent.getFile());
-            for (UnpackedNode child : parent.children) {
-                getAllFileObjectsRec(list, child);
-            }
-        }
-
-        /**
-         * Traverse the tree top-down after unzipping is done and create derived
-         * files for the entire hierarchy
+         * @return the derived files created for the dirs
          */
-        void addDerivedFilesToCase() throws TskCoreException {
+        List<AbstractFile> addDirectoriesToCase() throws TskCoreException {
             final FileManager fileManager =  Case.getCurrentCase().getServices().getFileManager();
+            List<AbstractFile> directories = new ArrayList<>();
             for (UnpackedNode child : rootNode.children) {
-                addDerivedFilesToCaseRec(child, fileManager);
+                addDirectoriesToCaseRec(child, fileManager, directories);
             }
+            return directories;
         }
 
-        private void addDerivedFilesToCaseRec(UnpackedNode node, FileManager fileManager) throws TskCoreException {
-            final String fileName = node.getFileName();
-
-            try {
-                DerivedFile df = fileManager.addDerivedFile(fileName, node.getLocalRelPath(), node.getSize(),
-                        node.getCtime(), node.getCrtime(), node.getAtime(), node.getMtime(),
-                        node.isIsFile(), node.getParent().getFile(), "", ArchiveFileExtractorModuleFactory.getModuleName(), "", "");
-                node.setFile(df);
-
-            } catch (TskCoreException ex) {
-                logger.log(Level.SEVERE, "Error adding a derived file to db:" + fileName, ex); //NON-NLS
-                throw new TskCoreException(
-                        NbBundle.getMessage(this.getClass(), "SevenZipIngestModule.UnpackedTree.exception.msg",
-                        fileName), ex);
-            }
+        private void addDirectoriesToCaseRec(UnpackedNode node, FileManager fileManager, List<AbstractFile> directories) throws TskCoreException {
+            directories.add(node.addDerivedFileToCase(fileManager));
 
             //recurse
             for (UnpackedNode child : node.children) {
-                addDerivedFilesToCaseRec(child, fileManager);
+                addDirectoriesToCaseRec(child, fileManager, directories);
             }
         }
 
@@ -867,6 +1081,8 @@ private class UnpackedNode {
             private long ctime, crtime, atime, mtime;
             private boolean isFile;
             private UnpackedNode parent;
+            private int itemIndex = -1;
+            private String localAbsPath;
 
             //root constructor
             UnpackedNode() {
@@ -874,12 +1090,18 @@ private class UnpackedNode {
 
             //child node constructor
             UnpackedNode(String fileName, UnpackedNode parent) {
+                this(fileName, parent, true);
+            }
+
+            //child node constructor, for a node that may be left out of the tree
+            UnpackedNode(String fileName, UnpackedNode parent, boolean addToTree) {
                 this.fileName = fileName;
                 this.parent = parent;
                 //this.localRelPath = parent.localRelPath + File.separator + fileName;
                 //new child derived file will be set by unpack() method
-                parent.children.add(this);
-
+                if (addToTree) {
+                    parent.children.add(this);
+                }
             }
 
             public long getCtime() {
@@ -922,6 +1144,47 @@ void setFile(AbstractFile file) {
                 this.file = file;
             }
 
+            /**
+             * Set the archive item to unpack to the local file of this node.
+             *
+             * @param itemIndex index of the item in the archive
+             * @param localAbsPath absolute path of the local file
+             */
+            void setItem(int itemIndex, String localAbsPath) {
+                this.itemIndex = itemIndex;
+                this.localAbsPath = localAbsPath;
+            }
+
+            int getItemIndex() {
+                return itemIndex;
+            }
+
+            String getLocalAbsPath() {
+                return localAbsPath;
+            }
+
+            /**
+             * Create the derived file for this node, under the derived file
+             * of its parent.
+             *
+             * @param fileManager
+             * @return the derived file
+             */
+            DerivedFile addDerivedFileToCase(FileManager fileManager) throws TskCoreException {
+                try {
+                    DerivedFile df = fileManager.addDerivedFile(fileName, getLocalRelPath(), getSize(),
+                            getCtime(), getCrtime(), getAtime(), getMtime(),
+                            isIsFile(), getParent().getFile(), "", ArchiveFileExtractorModuleFactory.getModuleName(), "", "");
+                    setFile(df);
+                    return df;
+                } catch (TskCoreException ex) {
+                    logger.log(Level.SEVERE, "Error adding a derived file to db:" + fileName, ex); //NON-NLS
+                    throw new TskCoreException(
+                            NbBundle.getMessage(SevenZipIngestModule.class, "SevenZipIngestModule.UnpackedTree.exception.msg",
+                            fileName), ex);
+                }
+            }
+
             /**
              * get child by name or null if it doesn't exist
              *
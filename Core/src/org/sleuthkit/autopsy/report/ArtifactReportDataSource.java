@@ -0,0 +1,186 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2015 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.report;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.sleuthkit.datamodel.BlackboardArtifact;
+import org.sleuthkit.datamodel.BlackboardArtifact.ARTIFACT_TYPE;
+import org.sleuthkit.datamodel.BlackboardAttribute;
+import org.sleuthkit.datamodel.SleuthkitCase;
+import org.sleuthkit.datamodel.SleuthkitCase.CaseDbQuery;
+import org.sleuthkit.datamodel.TskCoreException;
+
+/**
+ * Reads the artifacts of a type, with their attributes and tag names, from the
+ * case database a page at a time for the table reports. Each page is read with
+ * one query for the artifacts, one for their attributes and one for their
+ * tags, instead of two queries per artifact, and only one page is held in
+ * memory at a time. Artifacts are returned in the order of their ids.
+ * <p>
+ * Not thread-safe.
+ */
+final class ArtifactReportDataSource {
+
+    static final int DEFAULT_PAGE_SIZE = 1000;
+    private final SleuthkitCase skCase;
+    private final ARTIFACT_TYPE artifactType;
+    private final String tagNamesCondition;
+    private final int pageSize;
+    private long lastArtifactId = -1;
+    private boolean exhausted;
+
+    /**
+     * An artifact with its attributes and the display names of its tags.
+     */
+    static final class ArtifactRecord {
+
+        private final BlackboardArtifact artifact;
+        private final List<BlackboardAttribute> attributes;
+        private final HashSet<String> tagNames;
+
+        private ArtifactRecord(BlackboardArtifact artifact, List<BlackboardAttribute> attributes, HashSet<String> tagNames) {
+            this.artifact = artifact;
+            this.attributes = attributes;
+            this.tagNames = tagNames;
+        }
+
+        BlackboardArtifact getArtifact() {
+            return artifact;
+        }
+
+        List<BlackboardAttribute> getAttributes() {
+            return attributes;
+        }
+
+        HashSet<String> getTagNames() {
+            return tagNames;
+        }
+    }
+
+    /**
+     * Creates a data source for the artifacts of a type.
+     *
+     * @param skCase The case database.
+     * @param artifactType The artifact type.
+     * @param tagNamesFilter If not empty, only the artifacts tagged with at
+     * least one of these tag names are read.
+     * @param pageSize The maximum number of artifacts per page.
+     */
+    ArtifactReportDataSource(SleuthkitCase skCase, ARTIFACT_TYPE artifactType, Set<String> tagNamesFilter, int pageSize) {
+        this.skCase = skCase;
+        this.artifactType = artifactType;
+        this.pageSize = pageSize;
+        if (tagNamesFilter == null || tagNamesFilter.isEmpty()) {
+            tagNamesCondition = "";
+        } else {
+            List<String> quotedTagNames = new ArrayList<>();
+            for (String tagName : tagNamesFilter) {
+                quotedTagNames.add("'" + tagName.replace("'", "''") + "'");
+            }
+            tagNamesCondition = " AND artifact_id IN (SELECT bat.artifact_id FROM blackboard_artifact_tags AS bat, tag_names AS tn " //NON-NLS
+                    + "WHERE bat.tag_name_id = tn.tag_name_id AND tn.display_name IN (" + join(quotedTagNames) + "))"; //NON-NLS
+        }
+    }
+
+    /**
+     * Reads the next page of artifacts.
+     *
+     * @return The artifacts of the page, empty if all of the artifacts have
+     * been read.
+     * @throws TskCoreException if the case database cannot be queried.
+     */
+    List<ArtifactRecord> nextPage() throws TskCoreException {
+        List<ArtifactRecord> page = new ArrayList<>();
+        if (exhausted) {
+            return page;
+        }
+
+        List<BlackboardArtifact> artifacts = skCase.getMatchingArtifacts("WHERE artifact_type_id = " + artifactType.getTypeID() //NON-NLS
+                + " AND artifact_id > " + lastArtifactId + tagNamesCondition //NON-NLS
+                + " ORDER BY artifact_id LIMIT " + pageSize); //NON-NLS
+        if (artifacts.size() < pageSize) {
+            exhausted = true;
+        }
+        if (artifacts.isEmpty()) {
+            return page;
+        }
+
+        List<String> artifactIds = new ArrayList<>();
+        Map<Long, List<BlackboardAttribute>> attributesByArtifact = new HashMap<>();
+        Map<Long, HashSet<String>> tagNamesByArtifact = new HashMap<>();
+        for (BlackboardArtifact artifact : artifacts) {
+            artifactIds.add(Long.toString(artifact.getArtifactID()));
+            attributesByArtifact.put(artifact.getArtifactID(), new ArrayList<BlackboardAttribute>());
+            tagNamesByArtifact.put(artifact.getArtifactID(), new HashSet<String>());
+            lastArtifactId = Math.max(lastArtifactId, artifact.getArtifactID());
+        }
+        String artifactIdList = join(artifactIds);
+
+        for (BlackboardAttribute attribute : skCase.getMatchingAttributes("WHERE artifact_id IN (" + artifactIdList + ")")) { //NON-NLS
+            List<BlackboardAttribute> attributes = attributesByArtifact.get(attribute.getArtifactID());
+            if (attributes != null) {
+                attributes.add(attribute);
+            }
+        }
+        readTagNames(artifactIdList, tagNamesByArtifact);
+
+        for (BlackboardArtifact artifact : artifacts) {
+            page.add(new ArtifactRecord(artifact, attributesByArtifact.get(artifact.getArtifactID()), tagNamesByArtifact.get(artifact.getArtifactID())));
+        }
+        return page;
+    }
+
+    @SuppressWarnings("deprecation")
+    private void readTagNames(String artifactIdList, Map<Long, HashSet<String>> tagNamesByArtifact) throws TskCoreException {
+        String query = "SELECT bat.artifact_id AS artifact_id, tn.display_name AS display_name " //NON-NLS
+                + "FROM blackboard_artifact_tags AS bat, tag_names AS tn " //NON-NLS
+                + "WHERE bat.tag_name_id = tn.tag_name_id AND bat.artifact_id IN (" + artifactIdList + ")"; //NON-NLS
+        try (CaseDbQuery dbQuery = skCase.executeQuery(query)) {
+            ResultSet resultSet = dbQuery.getResultSet();
+            while (resultSet.next()) {
+                HashSet<String> tagNames = tagNamesByArtifact.get(resultSet.getLong("artifact_id")); //NON-NLS
+                if (tagNames != null) {
+                    tagNames.add(resultSet.getString("display_name")); //NON-NLS
+                }
+            }
+        } catch (SQLException ex) {
+            throw new TskCoreException("Error getting tag names for artifacts", ex); //NON-NLS
+        }
+    }
+
+    private static String join(Collection<String> items) {
+        StringBuilder list = new StringBuilder();
+        for (Iterator<String> iterator = items.iterator(); iterator.hasNext();) {
+            list.append(iterator.next());
+            if (iterator.hasNext()) {
+                list.append(", ");
+            }
+        }
+        return list.toString();
+    }
+}
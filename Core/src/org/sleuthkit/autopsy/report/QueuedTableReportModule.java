@@ -0,0 +1,200 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2015 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.report;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+import org.sleuthkit.autopsy.coreutils.Logger;
+
+/**
+ * Runs the calls made to a TableReportModule on a thread of its own, so that
+ * the report generator can read the case data once and hand it to several
+ * report modules that write their reports at the same time. The calls are put
+ * in a bounded queue, so a report module that is slower than the others holds
+ * back the report generator instead of letting the queue grow without bound.
+ * <p>
+ * The report generator thread makes the calls, the calls are run in the order
+ * they were made. The methods that return a value are not queued, they are
+ * called on the calling thread.
+ */
+final class QueuedTableReportModule implements TableReportModule {
+
+    private static final Logger logger = Logger.getLogger(QueuedTableReportModule.class.getName());
+    private static final int MAX_QUEUED_CALLS = 1000;
+    private static final Runnable END_OF_CALLS = () -> {
+    };
+    private final TableReportModule module;
+    private final BlockingQueue<Runnable> calls = new ArrayBlockingQueue<>(MAX_QUEUED_CALLS);
+    private final Thread thread;
+    private volatile boolean cancelled;
+    private volatile RuntimeException failure;
+
+    /**
+     * Starts a thread to run the calls made to a report module.
+     *
+     * @param module The report module.
+     */
+    QueuedTableReportModule(TableReportModule module) {
+        this.module = module;
+        thread = new ThreadFactoryBuilder().setNameFormat("table-report-" + module.getClass().getSimpleName() + "-%d").setDaemon(true).build().newThread(this::runCalls); //NON-NLS
+        thread.start();
+    }
+
+    /**
+     * Queues a call to the report module, e.g., to a method that is specific
+     * to the report module. Waits if the queue is full.
+     *
+     * @param call The call.
+     */
+    void submit(Runnable call) {
+        if (cancelled) {
+            return;
+        }
+        try {
+            calls.put(call);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits for all of the queued calls to be run and stops the thread.
+     *
+     * @return The exception thrown by a call to the report module, which
+     * stopped the calls that were queued after it from being run, or null.
+     * @throws InterruptedException if the calling thread is interrupted
+     * while waiting.
+     */
+    RuntimeException finish() throws InterruptedException {
+        calls.put(END_OF_CALLS);
+        thread.join();
+        return failure;
+    }
+
+    /**
+     * Discards the queued calls and stops the thread, without waiting.
+     */
+    void cancel() {
+        cancelled = true;
+        calls.clear();
+        calls.offer(END_OF_CALLS);
+    }
+
+    private void runCalls() {
+        try {
+            while (true) {
+                Runnable call = calls.take();
+                if (call == END_OF_CALLS) {
+                    return;
+                }
+                // Keep taking calls after a failure or cancellation, so that
+                // the report generator is never stuck waiting on a full queue.
+                if (cancelled || failure != null) {
+                    continue;
+                }
+                try {
+                    call.run();
+                } catch (RuntimeException ex) {
+                    logger.log(Level.SEVERE, "Error writing " + module.getName() + " report", ex); //NON-NLS
+                    failure = ex;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void startReport(String baseReportDir) {
+        submit(() -> module.startReport(baseReportDir));
+    }
+
+    @Override
+    public void endReport() {
+        submit(module::endReport);
+    }
+
+    @Override
+    public void startDataType(String title, String description) {
+        submit(() -> module.startDataType(title, description));
+    }
+
+    @Override
+    public void endDataType() {
+        submit(module::endDataType);
+    }
+
+    @Override
+    public void startSet(String setName) {
+        submit(() -> module.startSet(setName));
+    }
+
+    @Override
+    public void endSet() {
+        submit(module::endSet);
+    }
+
+    @Override
+    public void addSetIndex(List<String> sets) {
+        submit(() -> module.addSetIndex(sets));
+    }
+
+    @Override
+    public void addSetElement(String elementName) {
+        submit(() -> module.addSetElement(elementName));
+    }
+
+    @Override
+    public void startTable(List<String> titles) {
+        submit(() -> module.startTable(titles));
+    }
+
+    @Override
+    public void endTable() {
+        submit(module::endTable);
+    }
+
+    @Override
+    public void addRow(List<String> row) {
+        submit(() -> module.addRow(row));
+    }
+
+    @Override
+    public String dateToString(long date) {
+        return module.dateToString(date);
+    }
+
+    @Override
+    public String getName() {
+        return module.getName();
+    }
+
+    @Override
+    public String getDescription() {
+        return module.getDescription();
+    }
+
+    @Override
+    public String getRelativeFilePath() {
+        return module.getRelativeFilePath();
+    }
+}
@@ -21,10 +21,11 @@
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.openide.util.NbBundle;
 import org.sleuthkit.autopsy.casemodule.Case;
 import org.sleuthkit.autopsy.coreutils.Logger;
@@ -33,14 +34,20 @@
  class ReportExcel implements TableReportModule {
     private static final Logger logger = Logger.getLogger(ReportExcel.class.getName());
     private static ReportExcel instance;
+    // The number of rows of a sheet kept in memory, the rows before them are
+    // written to a temporary file as new rows are added.
+    private static final int ROWS_IN_MEMORY = 100;
+    // The largest column width allowed by Excel, in characters.
+    private static final int MAX_COLUMN_WIDTH = 255;
     
-    private Workbook wb;
+    private SXSSFWorkbook wb;
     private Sheet sheet;
     private CellStyle titleStyle;
     private CellStyle setStyle;
     private CellStyle elementStyle;
     private int rowIndex = 0;
     private int sheetColCount = 0;
+    private final List<Integer> columnWidths = new ArrayList<>();
     private String reportPath;
     
     // Get the default instance of this report
@@ -65,8 +72,9 @@ public void startReport(String baseReportDir) {
         // Set the path and save it for when the report is written to disk.
         this.reportPath = baseReportDir + getRelativeFilePath();
                 
-        // Make a workbook.
-        wb = new XSSFWorkbook();
+        // Make a streaming workbook, so that only the last rows of the current
+        // sheet are in memory no matter how big the report is.
+        wb = new SXSSFWorkbook(ROWS_IN_MEMORY);
         
         // Create some cell styles.
         // TODO: The commented out cell style settings below do not work as desired when
@@ -101,7 +109,8 @@ public void startReport(String baseReportDir) {
     }
 
     /**
-     * Write the Workbook to a file and end the report.
+     * Write the Workbook to a file and end the report. The temporary files
+     * that hold the rows written out of memory are deleted afterwards.
      */
     @Override
     public void endReport() {
@@ -123,6 +132,9 @@ public void endReport() {
                 } catch (IOException ex) {
                 }
             }
+            if (!wb.dispose()) {
+                logger.log(Level.WARNING, "Failed to delete the temporary files of the Excel report."); //NON-NLS
+            }
         }
     }
     
@@ -140,6 +152,7 @@ public void startDataType(String name, String description) {
         sheet = wb.createSheet(name);
         sheet.setAutobreaks(true);
         rowIndex = 0;
+        columnWidths.clear();
                 
         // There will be at least two columns, one each for the artifacts count and its label.
         sheetColCount = 2;
@@ -151,9 +164,9 @@ public void startDataType(String name, String description) {
     @Override
     public void endDataType() {  
         // Now that the sheet is complete, size the columns to the content.
-        for (int i = 0; i < sheetColCount; ++i) {
-            sheet.autoSizeColumn(i);
-        }
+        // The widths are tracked as the cells are written, since most of the
+        // rows are no longer in memory to be measured.
+        sizeColumns(sheetColCount);
     }
 
     /**
@@ -165,7 +178,7 @@ public void startSet(String setName) {
         setName = escapeForExcel(setName);
         Row row = sheet.createRow(rowIndex);
         row.setRowStyle(setStyle);
-        row.createCell(0).setCellValue(setName);
+        createCell(row, 0, setName);
         ++rowIndex;
     }
 
@@ -193,7 +206,7 @@ public void addSetElement(String elementName) {
         elementName = escapeForExcel(elementName);
         Row row = sheet.createRow(rowIndex);
         row.setRowStyle(elementStyle);
-        row.createCell(0).setCellValue(elementName);
+        createCell(row, 0, elementName);
         ++rowIndex;
     }
 
@@ -207,7 +220,7 @@ public void startTable(List<String> titles) {
         Row row = sheet.createRow(rowIndex);
         row.setRowStyle(titleStyle);
         for (int i=0; i<titles.size(); i++) {
-            row.createCell(i).setCellValue(titles.get(i));
+            createCell(row, i, titles.get(i));
             ++tableColCount;
         }
         ++rowIndex;
@@ -233,7 +246,7 @@ public void endTable() {
     public void addRow(List<String> rowData) {
         Row row = sheet.createRow(rowIndex);
         for (int i = 0; i < rowData.size(); ++i) {
-            row.createCell(i).setCellValue(rowData.get(i));
+            createCell(row, i, rowData.get(i));
         }
         ++rowIndex;
     }
@@ -274,13 +287,40 @@ private static String escapeForExcel(String text) {
          return text.replaceAll("[\\/\\:\\?\\*\\\\]", "_");
     }
     
+    /**
+     * Add a cell with a string value to a row, and keep track of the width of
+     * the column.
+     */
+    private void createCell(Row row, int column, String value) {
+        row.createCell(column).setCellValue(value);
+        while (columnWidths.size() <= column) {
+            columnWidths.add(0);
+        }
+        if (value != null && value.length() > columnWidths.get(column)) {
+            columnWidths.set(column, Math.min(value.length(), MAX_COLUMN_WIDTH));
+        }
+    }
+    
+    /**
+     * Size the columns of the current sheet to the widest value written to
+     * each of them.
+     */
+    private void sizeColumns(int columnCount) {
+        for (int i = 0; i < columnCount && i < columnWidths.size(); ++i) {
+            // Column widths are in 1/256ths of a character, with room for
+            // one more character.
+            sheet.setColumnWidth(i, Math.min(columnWidths.get(i) + 1, MAX_COLUMN_WIDTH) * 256);
+        }
+    }
+    
     private void writeSummaryWorksheet() {
         sheet = wb.createSheet(NbBundle.getMessage(this.getClass(), "ReportExcel.sheetName.text"));
         rowIndex = 0;
+        columnWidths.clear();
         
         Row row = sheet.createRow(rowIndex);
         row.setRowStyle(setStyle);
-        row.createCell(0).setCellValue(NbBundle.getMessage(this.getClass(), "ReportExcel.cellVal.summary"));
+        createCell(row, 0, NbBundle.getMessage(this.getClass(), "ReportExcel.cellVal.summary"));
         ++rowIndex;
 
         sheet.createRow(rowIndex);
@@ -290,25 +330,25 @@ private void writeSummaryWorksheet() {
                
         row = sheet.createRow(rowIndex);
         row.setRowStyle(setStyle);
-        row.createCell(0).setCellValue(NbBundle.getMessage(this.getClass(), "ReportExcel.cellVal.caseName"));
-        row.createCell(1).setCellValue(currentCase.getName());
+        createCell(row, 0, NbBundle.getMessage(this.getClass(), "ReportExcel.cellVal.caseName"));
+        createCell(row, 1, currentCase.getName());
         ++rowIndex;
 
         row = sheet.createRow(rowIndex);
         row.setRowStyle(setStyle);
-        row.createCell(0).setCellValue(NbBundle.getMessage(this.getClass(), "ReportExcel.cellVal.caseNum"));
-        row.createCell(1).setCellValue(currentCase.getNumber());
+        createCell(row, 0, NbBundle.getMessage(this.getClass(), "ReportExcel.cellVal.caseNum"));
+        createCell(row, 1, currentCase.getNumber());
         ++rowIndex;
 
         row = sheet.createRow(rowIndex);
         row.setRowStyle(setStyle);
-        row.createCell(0).setCellValue(NbBundle.getMessage(this.getClass(), "ReportExcel.cellVal.examiner"));
-        row.createCell(1).setCellValue(currentCase.getExaminer());
+        createCell(row, 0, NbBundle.getMessage(this.getClass(), "ReportExcel.cellVal.examiner"));
+        createCell(row, 1, currentCase.getExaminer());
         ++rowIndex;
 
         row = sheet.createRow(rowIndex);
         row.setRowStyle(setStyle);
-        row.createCell(0).setCellValue(NbBundle.getMessage(this.getClass(), "ReportExcel.cellVal.numImages"));
+        createCell(row, 0, NbBundle.getMessage(this.getClass(), "ReportExcel.cellVal.numImages"));
         int numImages;
         try {
             numImages = currentCase.getDataSources().size();
@@ -318,7 +358,6 @@ private void writeSummaryWorksheet() {
         row.createCell(1).setCellValue(numImages);
         ++rowIndex;
         
-        sheet.autoSizeColumn(0);
-        sheet.autoSizeColumn(1);        
+        sizeColumns(2);
     }
 }
@@ -80,6 +80,7 @@ class ReportGenerator {
     private SleuthkitCase skCase = currentCase.getSleuthkitCase();
     
     private Map<TableReportModule, ReportProgressPanel> tableProgress;
+    private final Map<TableReportModule, QueuedTableReportModule> queuedTableModules = new HashMap<>();
     private Map<GeneralReportModule, ReportProgressPanel> generalProgress;
     private Map<FileReportModule, ReportProgressPanel> fileProgress;
     
@@ -441,11 +442,31 @@ private class TableReportsWorker extends SwingWorker<Integer, Integer> {
 
         @Override
         protected Integer doInBackground() throws Exception {
+            // Give each TableReportModule a thread of its own, so that the
+            // data is read once and the reports are written at the same time.
+            for (TableReportModule module : tableModules) {
+                queuedTableModules.put(module, new QueuedTableReportModule(module));
+            }
+
+            try {
+                writeTableReports();
+            } finally {
+                // Stop the threads of any modules that did not finish.
+                for (QueuedTableReportModule queuedModule : queuedTableModules.values()) {
+                    queuedModule.cancel();
+                }
+                queuedTableModules.clear();
+            }
+            
+            return 0;
+        }
+
+        private void writeTableReports() throws InterruptedException {
             // Start the progress indicators for each active TableReportModule.
             for (TableReportModule module : tableModules) {
                 ReportProgressPanel progress = tableProgress.get(module);
                 if (progress.getStatus() != ReportStatus.CANCELED) {
-                    module.startReport(reportPath);
+                    queued(module).startReport(reportPath);
                     progress.start();
                     progress.setIndeterminate(false);
                     progress.setMaximumProgress(ARTIFACT_TYPE.values().length + 2); // +2 for content and blackboard artifact tags
@@ -464,11 +485,17 @@ protected Integer doInBackground() throws Exception {
 
             // finish progress, wrap up
             for (TableReportModule module : tableModules) {
-                tableProgress.get(module).complete(ReportStatus.COMPLETE);
-                module.endReport();
+                queued(module).endReport();
+            }
+            for (TableReportModule module : tableModules) {
+                RuntimeException failure = queued(module).finish();
+                if (failure != null) {
+                    errorList.add(NbBundle.getMessage(this.getClass(), "ReportGenerator.errList.failedWriteReport", module.getName()));
+                    tableProgress.get(module).complete(ReportStatus.ERROR);
+                } else {
+                    tableProgress.get(module).complete(ReportStatus.COMPLETE);
+                }
             }
-            
-            return 0;
         }
         
         /**
@@ -505,17 +532,6 @@ private void makeBlackboardArtifactTables() {
                     continue;
                 }
 
-                List<ArtifactData> unsortedArtifacts = getFilteredArtifacts(type, tagNamesFilter);
-                
-                if (unsortedArtifacts.isEmpty()) {
-                    continue;
-                }
-
-                // The most efficient way to sort all the Artifacts is to add them to a List, and then
-                // sort that List based off a Comparator. Adding to a TreeMap/Set/List sorts the list
-                // each time an element is added, which adds unnecessary overhead if we only need it sorted once.
-                Collections.sort(unsortedArtifacts);
-
                 // Get the column headers appropriate for the artifact type.
                 /* @@@ BC: Seems like a better design here would be to have a method that 
                  * takes in the artifact as an argument and returns the attributes. We then use that
@@ -527,19 +543,32 @@ private void makeBlackboardArtifactTables() {
                     // @@@ Hack to prevent system from hanging.  Better solution is to merge all attributes into a single column or analyze the artifacts to find out how many are needed.
                     continue;
                 }
+
+                // Read the artifacts a page at a time, so that only one page
+                // of artifacts is in memory no matter how many there are.
+                ArtifactReportDataSource dataSource = new ArtifactReportDataSource(skCase, type, tagNamesFilter, ArtifactReportDataSource.DEFAULT_PAGE_SIZE);
+                List<ArtifactReportDataSource.ArtifactRecord> page;
+                try {
+                    page = dataSource.nextPage();
+                } catch (TskCoreException ex) {
+                    errorList.add(NbBundle.getMessage(this.getClass(), "ReportGenerator.errList.failedGetBBArtifacts"));
+                    logger.log(Level.SEVERE, "Failed to get Blackboard Artifacts when generating report.", ex); //NON-NLS
+                    continue;
+                }
+                if (page.isEmpty()) {
+                    continue;
+                }
                 
                 for (TableReportModule module : tableModules) {
-                    module.startDataType(type.getDisplayName(), comment.toString());                                            
-                    module.startTable(columnHeaders);                    
+                    queued(module).startDataType(type.getDisplayName(), comment.toString());                                            
+                    queued(module).startTable(columnHeaders);                    
                 }
                 
                 boolean msgSent = false;    
-                for(ArtifactData artifactData : unsortedArtifacts) {
-                    // Add the row data to all of the reports.
-                    for (TableReportModule module : tableModules) {
-                        
+                while (!page.isEmpty()) {
+                    for (ArtifactReportDataSource.ArtifactRecord record : page) {
                         // Get the row data for this type of artifact.
-                        List<String> rowData = artifactData.getRow();
+                        List<String> rowData = new ArtifactData(record.getArtifact(), record.getAttributes(), record.getTagNames()).getRow();
                         if (rowData.isEmpty()) {
                             if (msgSent == false) {
                                 MessageNotifyUtil.Notify.show(NbBundle.getMessage(this.getClass(),
@@ -552,15 +581,32 @@ private void makeBlackboardArtifactTables() {
                             }
                             continue;
                         }
-                        
-                        module.addRow(rowData);
+
+                        // Add the row data to all of the reports.
+                        for (TableReportModule module : tableModules) {
+                            queued(module).addRow(rowData);
+                        }
+                    }
+
+                    // Check for cancellation between pages.
+                    removeCancelledTableReportModules();
+                    if (tableModules.isEmpty()) {
+                        return;
+                    }
+
+                    try {
+                        page = dataSource.nextPage();
+                    } catch (TskCoreException ex) {
+                        errorList.add(NbBundle.getMessage(this.getClass(), "ReportGenerator.errList.failedGetBBArtifacts"));
+                        logger.log(Level.SEVERE, "Failed to get Blackboard Artifacts when generating report.", ex); //NON-NLS
+                        break;
                     }
                 }
                 // Finish up this data type
                 for (TableReportModule module : tableModules) {
                     tableProgress.get(module).increment();
-                    module.endTable();
-                    module.endDataType();
+                    queued(module).endTable();
+                    queued(module).endDataType();
                 }
             }        
         }
@@ -613,12 +659,12 @@ private void makeContentTagsTables() {
                 }            
                 if (module instanceof ReportHTML) {
                     ReportHTML htmlReportModule = (ReportHTML)module;
-                    htmlReportModule.startDataType(ARTIFACT_TYPE.TSK_TAG_FILE.getDisplayName(), comment.toString());                        
-                    htmlReportModule.startContentTagsTable(columnHeaders); 
+                    queued(module).startDataType(ARTIFACT_TYPE.TSK_TAG_FILE.getDisplayName(), comment.toString());                        
+                    queued(module).submit(() -> htmlReportModule.startContentTagsTable(columnHeaders)); 
                 }
                 else {
-                    module.startDataType(ARTIFACT_TYPE.TSK_TAG_FILE.getDisplayName(), comment.toString());                        
-                    module.startTable(columnHeaders);
+                    queued(module).startDataType(ARTIFACT_TYPE.TSK_TAG_FILE.getDisplayName(), comment.toString());                        
+                    queued(module).startTable(columnHeaders);
                 }                
             }
                         
@@ -641,10 +687,10 @@ private void makeContentTagsTables() {
                     // @@@ This casting is a tricky little workaround to allow the HTML report module to slip in a content hyperlink.
                     if (module instanceof ReportHTML) {
                         ReportHTML htmlReportModule = (ReportHTML)module;
-                        htmlReportModule.addRowWithTaggedContentHyperlink(rowData, tag); 
+                        queued(module).submit(() -> htmlReportModule.addRowWithTaggedContentHyperlink(rowData, tag)); 
                     }
                     else {      
-                        module.addRow(rowData);
+                        queued(module).addRow(rowData);
                     }                        
                 }
                 
@@ -655,8 +701,8 @@ private void makeContentTagsTables() {
             // The the modules content tags reporting is ended.
             for (TableReportModule module : tableModules) {
                 tableProgress.get(module).increment();
-                module.endTable();
-                module.endDataType();
+                queued(module).endTable();
+                queued(module).endDataType();
             }            
         }
         
@@ -712,8 +758,8 @@ private void makeBlackboardArtifactTagsTables() {
                             NbBundle.getMessage(this.getClass(), "ReportGenerator.makeBbArtTagTab.taggedRes.msg"));
                     comment.append(makeCommaSeparatedList(tagNamesFilter));
                 }                        
-                module.startDataType(ARTIFACT_TYPE.TSK_TAG_ARTIFACT.getDisplayName(), comment.toString());  
-                module.startTable(new ArrayList<>(Arrays.asList(
+                queued(module).startDataType(ARTIFACT_TYPE.TSK_TAG_ARTIFACT.getDisplayName(), comment.toString());  
+                queued(module).startTable(new ArrayList<>(Arrays.asList(
                         NbBundle.getMessage(this.getClass(), "ReportGenerator.tagTable.header.resultType"),
                         NbBundle.getMessage(this.getClass(), "ReportGenerator.tagTable.header.tag"),
                         NbBundle.getMessage(this.getClass(), "ReportGenerator.tagTable.header.comment"),
@@ -729,7 +775,7 @@ private void makeBlackboardArtifactTagsTables() {
                 List<String> row;
                 for (TableReportModule module : tableModules) {
                     row = new ArrayList<>(Arrays.asList(tag.getArtifact().getArtifactTypeName(), tag.getName().getDisplayName(), tag.getComment(), tag.getContent().getName()));
-                    module.addRow(row);
+                    queued(module).addRow(row);
                 }
                 
                 // check if the tag is an image that we should later make a thumbnail for
@@ -739,8 +785,8 @@ private void makeBlackboardArtifactTagsTables() {
             // The the modules blackboard artifact tags reporting is ended.
             for (TableReportModule module : tableModules) {
                 tableProgress.get(module).increment();
-                module.endTable();
-                module.endDataType();
+                queued(module).endTable();
+                queued(module).endDataType();
             }            
         }     
         
@@ -758,6 +804,7 @@ void removeCancelledTableReportModules() {
             while (iter.hasNext()) {
                 TableReportModule module = iter.next();
                 if (tableProgress.get(module).getStatus() == ReportStatus.CANCELED) {
+                    queued(module).cancel();
                     iter.remove();
                 }
             }            
@@ -774,19 +821,19 @@ private void makeThumbnailTable() {
                 
                 if (module instanceof ReportHTML) {
                     ReportHTML htmlModule = (ReportHTML) module;
-                    htmlModule.startDataType(
+                    queued(module).startDataType(
                             NbBundle.getMessage(this.getClass(), "ReportGenerator.thumbnailTable.name"),
                                              NbBundle.getMessage(this.getClass(), "ReportGenerator.thumbnailTable.desc"));
                     List<String> emptyHeaders = new ArrayList<>();
                     for (int i = 0; i < ReportHTML.THUMBNAIL_COLUMNS; i++) {
                         emptyHeaders.add("");
                     }
-                    htmlModule.startTable(emptyHeaders);
+                    queued(module).startTable(emptyHeaders);
                     
-                    htmlModule.addThumbnailRows(images);
+                    queued(module).submit(() -> htmlModule.addThumbnailRows(images));
                     
-                    htmlModule.endTable();
-                    htmlModule.endDataType();
+                    queued(module).endTable();
+                    queued(module).endDataType();
                 }
             }
         }
@@ -841,6 +888,17 @@ private void checkIfFileIsImage(AbstractFile file) {
         }
     }
         
+    /**
+     * Gets the queue that the calls to a TableReportModule are made through
+     * while the table reports are being generated.
+     *
+     * @param module The report module.
+     * @return The queued module.
+     */
+    private QueuedTableReportModule queued(TableReportModule module) {
+        return queuedTableModules.get(module);
+    }
+    
     /// @@@ Should move the methods specific to TableReportsWorker into that scope.
     private Boolean failsTagFilter(HashSet<String> tagNames, HashSet<String> tagsNamesFilter) 
     {
@@ -853,40 +911,6 @@ private Boolean failsTagFilter(HashSet<String> tagNames, HashSet<String> tagsNam
         return filteredTagNames.isEmpty();
     }
     
-    /**
-     * Get a List of the artifacts and data of the given type that pass the given Tag Filter.
-     * 
-     * @param type The artifact type to get
-     * @param tagNamesFilter The tag names that should be included.
-     * @return a list of the filtered tags.
-     */
-    private List<ArtifactData> getFilteredArtifacts(ARTIFACT_TYPE type, HashSet<String> tagNamesFilter) {
-        List<ArtifactData> artifacts = new ArrayList<>();
-        try {
-             for (BlackboardArtifact artifact : skCase.getBlackboardArtifacts(type)) {
-                 List<BlackboardArtifactTag> tags = Case.getCurrentCase().getServices().getTagsManager().getBlackboardArtifactTagsByArtifact(artifact);
-                 HashSet<String> uniqueTagNames = new HashSet<>();
-                 for (BlackboardArtifactTag tag : tags) {
-                     uniqueTagNames.add(tag.getName().getDisplayName());
-                 }
-                 if(failsTagFilter(uniqueTagNames, tagNamesFilter)) {
-                     continue;
-                 }
-                 try {
-                     artifacts.add(new ArtifactData(artifact, skCase.getBlackboardAttributes(artifact), uniqueTagNames));
-                 } catch (TskCoreException ex) {
-                     errorList.add(NbBundle.getMessage(this.getClass(), "ReportGenerator.errList.failedGetBBAttribs"));
-                     logger.log(Level.SEVERE, "Failed to get Blackboard Attributes when generating report.", ex); //NON-NLS
-                 }
-             }
-         } 
-         catch (TskCoreException ex) {
-             errorList.add(NbBundle.getMessage(this.getClass(), "ReportGenerator.errList.failedGetBBArtifacts"));
-             logger.log(Level.SEVERE, "Failed to get Blackboard Artifacts when generating report.", ex); //NON-NLS
-         }
-        return artifacts;
-    }
-            
     /**
      * Write the keyword hits to the provided TableReportModules.
      * @param tableModules modules to report on
@@ -920,8 +944,8 @@ private void writeKeywordHits(List<TableReportModule> tableModules, String comme
             
             // Make keyword data type and give them set index
             for (TableReportModule module : tableModules) {
-                module.startDataType(ARTIFACT_TYPE.TSK_KEYWORD_HIT.getDisplayName(), comment);
-                module.addSetIndex(lists);
+                queued(module).startDataType(ARTIFACT_TYPE.TSK_KEYWORD_HIT.getDisplayName(), comment);
+                queued(module).addSetIndex(lists);
                 tableProgress.get(module).updateStatusLabel(
                         NbBundle.getMessage(this.getClass(), "ReportGenerator.progress.processing",
                                             ARTIFACT_TYPE.TSK_KEYWORD_HIT.getDisplayName()));
@@ -961,6 +985,7 @@ private void writeKeywordHits(List<TableReportModule> tableModules, String comme
                 while (iter.hasNext()) {
                     TableReportModule module = iter.next();
                     if (tableProgress.get(module).getStatus() == ReportStatus.CANCELED) {
+                        queued(module).cancel();
                         iter.remove();
                     }
                 }
@@ -991,15 +1016,15 @@ private void writeKeywordHits(List<TableReportModule> tableModules, String comme
                         NbBundle.getMessage(this.getClass(), "ReportGenerator.writeKwHits.userSrchs")))) {
                     if(!currentList.isEmpty()) {
                         for (TableReportModule module : tableModules) {
-                            module.endTable();
-                            module.endSet();
+                            queued(module).endTable();
+                            queued(module).endSet();
                         }
                     }
                     currentList = list.isEmpty() ? NbBundle
                             .getMessage(this.getClass(), "ReportGenerator.writeKwHits.userSrchs") : list;
                     currentKeyword = ""; // reset the current keyword because it's a new list
                     for (TableReportModule module : tableModules) {
-                        module.startSet(currentList);
+                        queued(module).startSet(currentList);
                         tableProgress.get(module).updateStatusLabel(
                                 NbBundle.getMessage(this.getClass(), "ReportGenerator.progress.processingList",
                                                     ARTIFACT_TYPE.TSK_KEYWORD_HIT.getDisplayName(), currentList));
@@ -1008,26 +1033,26 @@ private void writeKeywordHits(List<TableReportModule> tableModules, String comme
                 if (!keyword.equals(currentKeyword)) {
                     if(!currentKeyword.equals("")) {
                         for (TableReportModule module : tableModules) {
-                            module.endTable();
+                            queued(module).endTable();
                         }
                     }
                     currentKeyword = keyword;
                     for (TableReportModule module : tableModules) {
-                        module.addSetElement(currentKeyword);
-                        module.startTable(getArtifactTableColumnHeaders(ARTIFACT_TYPE.TSK_KEYWORD_HIT.getTypeID()));
+                        queued(module).addSetElement(currentKeyword);
+                        queued(module).startTable(getArtifactTableColumnHeaders(ARTIFACT_TYPE.TSK_KEYWORD_HIT.getTypeID()));
                     }
                 }
                 
                 String previewreplace = EscapeUtil.escapeHtml(preview);
                 for (TableReportModule module : tableModules) {
-                    module.addRow(Arrays.asList(new String[] {previewreplace.replaceAll("<!", ""), uniquePath, tagsList}));
+                    queued(module).addRow(Arrays.asList(new String[] {previewreplace.replaceAll("<!", ""), uniquePath, tagsList}));
                 }
             }
             
             // Finish the current data type
             for (TableReportModule module : tableModules) {
                 tableProgress.get(module).increment();
-                module.endDataType();
+                queued(module).endDataType();
             }
         } catch (TskCoreException | SQLException ex) {
             errorList.add(NbBundle.getMessage(this.getClass(), "ReportGenerator.errList.failedQueryKWs"));
@@ -1058,8 +1083,8 @@ private void writeHashsetHits(List<TableReportModule> tableModules,  String comm
             }
             
             for (TableReportModule module : tableModules) {
-                module.startDataType(ARTIFACT_TYPE.TSK_HASHSET_HIT.getDisplayName(), comment);
-                module.addSetIndex(lists);
+                queued(module).startDataType(ARTIFACT_TYPE.TSK_HASHSET_HIT.getDisplayName(), comment);
+                queued(module).addSetIndex(lists);
                 tableProgress.get(module).updateStatusLabel(
                         NbBundle.getMessage(this.getClass(), "ReportGenerator.progress.processing",
                                             ARTIFACT_TYPE.TSK_HASHSET_HIT.getDisplayName()));
@@ -1092,6 +1117,7 @@ private void writeHashsetHits(List<TableReportModule> tableModules,  String comm
                 while (iter.hasNext()) {
                     TableReportModule module = iter.next();
                     if (tableProgress.get(module).getStatus() == ReportStatus.CANCELED) {
+                        queued(module).cancel();
                         iter.remove();
                     }
                 }
@@ -1121,14 +1147,14 @@ private void writeHashsetHits(List<TableReportModule> tableModules,  String comm
                 if(!set.equals(currentSet)) {
                     if(!currentSet.isEmpty()) {
                         for (TableReportModule module : tableModules) {
-                            module.endTable();
-                            module.endSet();
+                            queued(module).endTable();
+                            queued(module).endSet();
                         }
                     }
                     currentSet = set;
                     for (TableReportModule module : tableModules) {
-                        module.startSet(currentSet);
-                        module.startTable(getArtifactTableColumnHeaders(ARTIFACT_TYPE.TSK_HASHSET_HIT.getTypeID()));
+                        queued(module).startSet(currentSet);
+                        queued(module).startTable(getArtifactTableColumnHeaders(ARTIFACT_TYPE.TSK_HASHSET_HIT.getTypeID()));
                         tableProgress.get(module).updateStatusLabel(
                                 NbBundle.getMessage(this.getClass(), "ReportGenerator.progress.processingList",
                                                     ARTIFACT_TYPE.TSK_HASHSET_HIT.getDisplayName(), currentSet));
@@ -1137,14 +1163,14 @@ private void writeHashsetHits(List<TableReportModule> tableModules,  String comm
                 
                 // Add a row for this hit to every module
                 for (TableReportModule module : tableModules) {
-                    module.addRow(Arrays.asList(new String[] {uniquePath, size, tagsList}));
+                    queued(module).addRow(Arrays.asList(new String[] {uniquePath, size, tagsList}));
                 }
             }
             
             // Finish the current data type
             for (TableReportModule module : tableModules) {
                 tableProgress.get(module).increment();
-                module.endDataType();
+                queued(module).endDataType();
             }
         } catch (TskCoreException | SQLException ex) {
             errorList.add(NbBundle.getMessage(this.getClass(), "ReportGenerator.errList.failedQueryHashsetHits"));
@@ -1522,7 +1548,7 @@ private String getFileUniquePath(long objId) {
      * Container class that holds data about an Artifact to eliminate duplicate
      * calls to the Sleuthkit database.
      */
-    private class ArtifactData implements Comparable<ArtifactData> {
+    private class ArtifactData {
         private BlackboardArtifact artifact;
         private List<BlackboardAttribute> attributes;
         private HashSet<String> tags;
@@ -1545,28 +1571,6 @@ private class ArtifactData implements Comparable<ArtifactData> {
         public long getObjectID() { return artifact.getObjectID(); }
 
         
-        /**
-         * Compares ArtifactData objects by the first attribute they have in
-         * common in their List<BlackboardAttribute>. 
-         * 
-         * If all attributes are the same, they are assumed duplicates and are
-         * compared by their artifact id. Should only be used with attributes
-         * of the same type.
-         */
-        @Override
-        public int compareTo(ArtifactData otherArtifactData) {
-            List<String> thisRow = getRow();
-            List<String> otherRow = otherArtifactData.getRow();
-            for (int i = 0; i < thisRow.size(); i++) {
-                int compare = thisRow.get(i).compareTo(otherRow.get(i));
-                if (compare != 0) {
-                    return compare;
-                }
-            }
-            // If all attributes are the same, they're most likely duplicates so sort by artifact ID
-            return ((Long) this.getArtifactID()).compareTo((Long) otherArtifactData.getArtifactID());
-        }
-        
         /**
          * Get the values for each row in the table report.
          */
@@ -22,6 +22,7 @@
  */
 package org.sleuthkit.autopsy.report;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -32,15 +33,26 @@
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
-import org.openide.filesystems.FileObject;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import org.openide.util.Exceptions;
 import org.openide.util.NbBundle;
 import org.sleuthkit.autopsy.casemodule.Case;
@@ -66,6 +78,9 @@ class ReportHTML implements TableReportModule {
     private static final String THUMBS_REL_PATH = "thumbs" + File.separator; //NON-NLS
     private static ReportHTML instance;
     private static final int MAX_THUMBS_PER_PAGE = 1000;
+    private static final int CONTENT_EXPORT_THREADS = Math.min(Runtime.getRuntime().availableProcessors(), 4);
+    private static final int MAX_QUEUED_CONTENT_EXPORTS = 1000;
+    private static final String THUMBNAIL_PLACEHOLDER = "/org/sleuthkit/autopsy/images/image-file.png"; //NON-NLS
     private Case currentCase;
     private SleuthkitCase skCase;
     static Integer THUMBNAIL_COLUMNS = 5;
@@ -76,6 +91,10 @@ class ReportHTML implements TableReportModule {
     private String currentDataType; // name of current data type
     private Integer rowCount;       // number of rows (aka artifacts or tags) for the current data type
     private Writer out;
+    private ExecutorService contentExportExecutor;
+    // Report relative paths of the local copies of files and thumbnails that
+    // have been exported, or are being exported, so that each is only written once.
+    private final Set<String> exportedContent = ConcurrentHashMap.newKeySet();
     
 
     private final ReportBranding reportBranding;
@@ -104,6 +123,13 @@ private void refresh() {
         thumbsPath = "";
         currentDataType = "";
         rowCount = 0;
+        exportedContent.clear();
+        
+        // Stop the content export of a report that was not ended, e.g., one that was canceled.
+        if (contentExportExecutor != null) {
+            contentExportExecutor.shutdownNow();
+            contentExportExecutor = null;
+        }
         
         if (out != null) {
             try {
@@ -314,6 +340,13 @@ public void startReport(String baseReportDir) {
         } catch (IOException ex) {
             logger.log(Level.SEVERE, "Unable to make HTML report folder."); //NON-NLS
         }
+        // Local copies of tagged files and thumbnails are written by a pool
+        // of threads, so that the pages can be written without waiting for
+        // them. When the pool is busy, the report thread does the work itself.
+        contentExportExecutor = new ThreadPoolExecutor(CONTENT_EXPORT_THREADS, CONTENT_EXPORT_THREADS,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(MAX_QUEUED_CONTENT_EXPORTS),
+                new ThreadFactoryBuilder().setNameFormat("html-report-content-export-%d").setDaemon(true).build(), //NON-NLS
+                new ThreadPoolExecutor.CallerRunsPolicy());
         // Write the basic files
         writeCss();
         writeIndex();
@@ -326,6 +359,7 @@ public void startReport(String baseReportDir) {
      */
     @Override
     public void endReport() {
+        finishContentExport();
         writeNav();
         if (out != null) {
             try {
@@ -649,12 +683,24 @@ public void addThumbnailRows(List<Content> images) {
             
             AbstractFile file = (AbstractFile) content; 
 
-            // save copies of the orginal image and thumbnail image
-            String thumbnailPath = prepareThumbnail(file);
-            if (thumbnailPath == null) {
-                continue;
+            // save copies of the orginal image and thumbnail image, with one
+            // task so that the file is not read by two threads at once
+            String contentPath = getLocalFilePath(file, "thumbs_fullsize"); //NON-NLS
+            String thumbnailPath = THUMBS_REL_PATH + ImageUtils.getFile(file.getId()).getName();
+            boolean saveCopy = exportedContent.add(contentPath);
+            boolean saveThumbnail = exportedContent.add(thumbnailPath);
+            if (saveCopy || saveThumbnail) {
+                File localFile = new File(path + contentPath);
+                File reportThumbFile = new File(path + thumbnailPath);
+                exportContent(() -> {
+                    if (saveCopy) {
+                        writeLocalFile(file, localFile);
+                    }
+                    if (saveThumbnail) {
+                        writeThumbnail(file, reportThumbFile);
+                    }
+                });
             }
-            String contentPath = saveContent(file, "thumbs_fullsize"); //NON-NLS
             String nameInImage;
             try {
                 nameInImage = file.getUniquePath();
@@ -720,12 +766,31 @@ private boolean failsContentCheck(Content c) {
     }
     
     /**
-     * Save a local copy of the given file in the reports folder.
+     * Save a local copy of the given file in the reports folder. The copy is
+     * written in the background, the path of the copy can be used in the
+     * report right away.
      * @param file File to save
      * @param dirName Custom top-level folder to use to store the files in (tag name, etc.)
      * @return Path to where file was stored (relative to root of HTML folder)
      */
     public String saveContent(AbstractFile file, String dirName) {
+        String relativePath = getLocalFilePath(file, dirName);
+        // The existence check is necessary because it is possible to apply multiple tags with the same tagName to a file.
+        if (exportedContent.add(relativePath)) {
+            File localFile = new File(path + relativePath);
+            exportContent(() -> writeLocalFile(file, localFile));
+        }
+        return relativePath;
+    }
+
+    /**
+     * Get the path of the local copy of the given file in the reports folder,
+     * making the folder for it if needed.
+     * @param file File to save
+     * @param dirName Custom top-level folder to use to store the files in (tag name, etc.)
+     * @return Path to where file is stored (relative to root of HTML folder)
+     */
+    private String getLocalFilePath(AbstractFile file, String dirName) {
         // clean up the dir name passed in
         String dirName2 = dirName.replace("/", "_");
         dirName2 = dirName2.replace("\\", "_");
@@ -756,15 +821,48 @@ public String saveContent(AbstractFile file, String dirName) {
         localFilePath.append(File.separator);
         localFilePath.append(fileName);
 
-        // If the local file doesn't already exist, create it now. 
-        // The existence check is necessary because it is possible to apply multiple tags with the same tagName to a file.
-        File localFile = new File(localFilePath.toString());
+        // get the relative path
+        return localFilePath.toString().substring(path.length());
+    }
+
+    /**
+     * Write the local copy of the given file, if it doesn't already exist.
+     */
+    private static void writeLocalFile(AbstractFile file, File localFile) {
         if (!localFile.exists()) {
             ExtractFscContentVisitor.extract(file, localFile, null, null);
         }
-        
-        // get the relative path
-        return localFilePath.toString().substring(path.length());
+    }
+    
+    /**
+     * Run a task that writes a local copy of a file or a thumbnail on the
+     * content export pool, or on this thread if there is no pool.
+     */
+    private void exportContent(Runnable task) {
+        if (contentExportExecutor != null) {
+            contentExportExecutor.execute(task);
+        } else {
+            task.run();
+        }
+    }
+    
+    /**
+     * Wait for the local copies of files and thumbnails to be written.
+     */
+    private void finishContentExport() {
+        if (contentExportExecutor == null) {
+            return;
+        }
+        contentExportExecutor.shutdown();
+        try {
+            while (!contentExportExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
+                logger.log(Level.INFO, "Waiting for tagged files and thumbnails to be saved to the HTML report."); //NON-NLS
+            }
+        } catch (InterruptedException ex) {
+            contentExportExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        contentExportExecutor = null;
     }
          
     /**
@@ -1108,21 +1206,54 @@ private void writeSummary() {
         }
     }
 
-    private String prepareThumbnail(AbstractFile file) {
-        File thumbFile = ImageUtils.getIconFile(file, ImageUtils.ICON_SIZE_MEDIUM);
-        if (thumbFile.exists() == false) {
-            return null;
+    /**
+     * Write a copy of the thumbnail of the given file to the thumbs folder. A
+     * thumbnail already in the case cache is reused if it is of the size used
+     * by the report, and a generic image is used if no thumbnail can be made.
+     * @param file File to save the thumbnail of
+     * @param reportThumbFile Where to write the thumbnail
+     */
+    private void writeThumbnail(AbstractFile file, File reportThumbFile) {
+        File thumbFile = ImageUtils.getFile(file.getId());
+        if (thumbFile.exists() == false || getImageWidth(thumbFile) != ImageUtils.ICON_SIZE_MEDIUM) {
+            thumbFile = ImageUtils.getIconFile(file, ImageUtils.ICON_SIZE_MEDIUM);
         }
         try {
-            File to = new File(thumbsPath);
-            FileObject from = FileUtil.toFileObject(thumbFile);
-            FileObject dest = FileUtil.toFileObject(to);
-            FileUtil.copyFile(from, dest, thumbFile.getName(), "");
+            if (thumbFile != null && thumbFile.exists()) {
+                Files.copy(thumbFile.toPath(), reportThumbFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                try (InputStream placeholder = getClass().getResourceAsStream(THUMBNAIL_PLACEHOLDER)) {
+                    Files.copy(placeholder, reportThumbFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
         } catch (IOException ex) {
             logger.log(Level.SEVERE, "Failed to write thumb file to report directory.", ex); //NON-NLS
         }
-        
-        return THUMBS_REL_PATH + thumbFile.getName();
+    }
+
+    /**
+     * Get the width of an image from its header, without decoding it.
+     * @param imageFile The image
+     * @return The width, or -1 if it cannot be read
+     */
+    private static int getImageWidth(File imageFile) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(imageFile)) {
+            if (in != null) {
+                Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+                if (readers.hasNext()) {
+                    ImageReader reader = readers.next();
+                    try {
+                        reader.setInput(in, true, true);
+                        return reader.getWidth(0);
+                    } finally {
+                        reader.dispose();
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Failed to read the size of thumbnail " + imageFile, ex); //NON-NLS
+        }
+        return -1;
     }
 
 }
@@ -0,0 +1,527 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2015 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.coreutils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.sleuthkit.autopsy.coreutils.StringExtract.StringExtractUnicodeTable;
+import org.sleuthkit.autopsy.coreutils.StringExtract.StringExtractUnicodeTable.SCRIPT;
+
+/**
+ * The string extraction of StringExtract as it was before characters were
+ * classified with lookup tables: each character is looked up in the unicode
+ * table and its script is checked against the list of enabled scripts. Kept
+ * to check that the table-driven StringExtract finds the same strings, and to
+ * compare their speed.
+ */
+final class ReferenceStringExtract {
+
+    private static final int MIN_CHARS_STRING = StringExtract.MIN_CHARS_STRING;
+    private static final int UNICODE_TABLE_SIZE = 65536;
+    private final StringExtractUnicodeTable unicodeTable = StringExtractUnicodeTable.getInstance();
+    private final List<SCRIPT> enabledScripts;
+    private final boolean enableUTF8;
+    private final boolean enableUTF16;
+
+    //stored and reused results
+    private final Result resUTF16En1 = new Result();
+    private final Result resUTF16En2 = new Result();
+    private final Result resUTF8 = new Result();
+    private final Result resExtractInto = new Result();
+    //current total string buffer, reuse for performance
+    private final StringBuilder curString = new StringBuilder();
+
+    ReferenceStringExtract(List<SCRIPT> enabledScripts, boolean enableUTF8, boolean enableUTF16) {
+        this.enabledScripts = new ArrayList<>(enabledScripts);
+        this.enableUTF8 = enableUTF8;
+        this.enableUTF16 = enableUTF16;
+    }
+
+    private boolean isExtractionEnabled(SCRIPT script) {
+        if (script.equals(SCRIPT.LATIN_1)) {
+            return enabledScripts.contains(SCRIPT.LATIN_1)
+                    || enabledScripts.contains(SCRIPT.LATIN_2);
+        } else {
+            return enabledScripts.contains(script);
+        }
+    }
+
+    /**
+     * Runs the byte buffer through the string extractor
+     *
+     * @param buff
+     * @param len
+     * @param offset
+     * @return string extraction result, with the string extracted and
+     * additional info
+     */
+    Result extract(byte[] buff, int len, int offset) {
+        if (this.enableUTF16 == false && this.enableUTF8 == false) {
+             return new Result();
+        }
+        
+        final int buffLen = buff.length;
+
+        int processedBytes = 0;
+        int curOffset = offset;
+        int startOffset = offset;
+        int curStringLen = 0;
+
+        //reset curString buffer
+        curString.delete(0, curString.length());
+
+        //keep track of first byte offset that hasn't been processed
+        //(one byte past the last byte processed in by last extraction)
+        int firstUnprocessedOff = offset;
+
+        while (curOffset < buffLen) {
+            //shortcut, skip processing empty bytes
+            if (buff[curOffset] == 0 && curOffset + 1 < buffLen && buff[curOffset + 1] == 0) {
+                curOffset += 2;
+                continue;
+            }
+
+            //extract using all methods and see which one wins
+            Result resWin = extractString(buff, len, curOffset);
+
+            if (resWin.numChars >= MIN_CHARS_STRING) {
+                //record string 
+                if (startOffset == offset) {
+                    //advance start offset where first string starts it hasn't been advanced
+                    startOffset = resWin.offset;
+                }
+                curStringLen += resWin.numChars;
+                curString.append(resWin.chars, 0, resWin.numChars);
+                curString.append("\n");
+                curStringLen += resWin.numChars + 1;
+
+                //advance
+                curOffset += resWin.numBytes;
+                processedBytes += resWin.numBytes;
+                firstUnprocessedOff = resWin.offset + resWin.numBytes;
+            } else {
+                //if no encodings worked, advance byte
+                if (enableUTF8 == false) {
+                    curOffset += 2;
+                } else {
+                    ++curOffset;
+                }
+            }
+        }
+
+        //build up the final result
+        Result res = new Result();
+        res.numBytes = processedBytes;
+        res.numChars = curStringLen;
+        res.offset = startOffset;
+        res.textString = curString.toString();
+        res.firstUnprocessedOff = firstUnprocessedOff; //save that of the last winning result
+
+        return res;
+    }
+
+    /**
+     * Runs the byte buffer through the string extractor, like
+     * extract(byte[], int, int), but without creating strings: the text of
+     * each string found, followed by a new line, is appended to a buffer that
+     * the caller can reuse. Only strings that start within a range of the
+     * buffer are appended, the strings before the range are only used to
+     * keep scanning in step with a scan of the preceding bytes.
+     *
+     * @param buff the bytes to extract strings from
+     * @param len the number of bytes in the buffer
+     * @param offset offset in the buffer to start scanning from
+     * @param emitStart offset of the first byte of the range in which strings
+     * have to start to be appended
+     * @param emitEnd offset past the last byte of the range in which strings
+     * have to start to be appended, the scan stops there
+     * @param out the buffer to append the text of the strings to
+     * @return the result of the extraction, without text, with the start
+     * offset of the first string appended (-1 if none) and the offset past the
+     * last string appended. The result object is reused by the next call.
+     */
+    Result extract(byte[] buff, int len, int offset, int emitStart, int emitEnd, StringBuilder out) {
+        final Result res = resExtractInto;
+        res.reset();
+        res.offset = -1;
+        if (this.enableUTF16 == false && this.enableUTF8 == false) {
+            return res;
+        }
+
+        int curOffset = offset;
+        while (curOffset < len && curOffset < emitEnd) {
+            //shortcut, skip processing empty bytes
+            if (buff[curOffset] == 0 && curOffset + 1 < len && buff[curOffset + 1] == 0) {
+                curOffset += 2;
+                continue;
+            }
+
+            Result resWin = extractString(buff, len, curOffset);
+            if (resWin != null && resWin.numChars >= MIN_CHARS_STRING) {
+                if (curOffset >= emitStart) {
+                    if (res.offset == -1) {
+                        res.offset = curOffset;
+                    }
+                    out.append(resWin.chars, 0, resWin.numChars);
+                    out.append('\n');
+                    res.numChars += resWin.numChars + 1;
+                    res.numBytes += resWin.numBytes;
+                    res.firstUnprocessedOff = curOffset + resWin.numBytes;
+                }
+                curOffset += resWin.numBytes;
+            } else {
+                //if no encodings worked, advance byte
+                if (enableUTF8 == false) {
+                    curOffset += 2;
+                } else {
+                    ++curOffset;
+                }
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Extracts a string starting at an offset with all of the enabled
+     * encodings and picks the one with the most characters
+     *
+     * @return the winning result, reused by the next call, or null if no
+     * encoding could be tried at the offset
+     */
+    private Result extractString(byte[] buff, int len, int curOffset) {
+        Result resUTF16 = null;
+        boolean runUTF16 = false;
+        if (enableUTF16 && curOffset % 2 == 0) {
+            runUTF16 = true;
+            extractUTF16(buff, len, curOffset, true, resUTF16En1);
+            extractUTF16(buff, len, curOffset, false, resUTF16En2);
+            resUTF16 = resUTF16En1.numChars > resUTF16En2.numChars ? resUTF16En1 : resUTF16En2;
+        } 
+
+        if (enableUTF8) {
+            extractUTF8(buff, len, curOffset, resUTF8);
+        }
+
+        Result resWin = null;
+        if (enableUTF8 && enableUTF16) {
+            resWin = runUTF16 && resUTF16.numChars > resUTF8.numChars ? resUTF16 : resUTF8;
+        } else if (enableUTF16){
+            resWin = resUTF16;
+        }
+        else if (enableUTF8) {
+            resWin = resUTF8;
+        }
+        return resWin;
+    }
+
+    private Result extractUTF16(byte[] buff, int len, int offset, boolean endianSwap, final Result res) {
+        res.reset();
+        
+        int curOffset = offset;
+
+        SCRIPT currentScript = SCRIPT.NONE;
+
+        boolean inControl = false;
+
+        //while we have 2 byte chunks
+        byte[] b = new byte[2];
+        while (curOffset < len - 1) {
+            b[0] = buff[curOffset++];
+            b[1] = buff[curOffset++];
+
+            if (endianSwap) {
+                byte temp = b[0];
+                b[0] = b[1];
+                b[1] = temp;
+            }
+
+            //convert the byte sequence to 2 byte char
+            //ByteBuffer bb = ByteBuffer.wrap(b);
+            //int byteVal = bb.getInt();
+            char byteVal = (char) b[1];
+            byteVal = (char) (byteVal << 8);
+            byteVal += b[0];
+
+            //skip if beyond range
+            if (byteVal > UNICODE_TABLE_SIZE - 1) {
+                break;
+            }
+
+            //lookup byteVal in the unicode table
+            SCRIPT scriptFound = unicodeTable.getScript(byteVal);
+
+            if (scriptFound == SCRIPT.NONE) {
+                break;
+            }
+
+            /*
+             else if (scriptFound == SCRIPT.CONTROL) {
+             //update bytes processed
+             res.numBytes += 2;
+             continue;
+             } else if (inControl) {
+             break;
+             }*/
+
+
+            final boolean isGeneric = StringExtractUnicodeTable.isGeneric(scriptFound);
+            //allow generic and one of enabled scripts we locked in to
+            if (isGeneric
+                    || isExtractionEnabled(scriptFound)) {
+
+                if (currentScript == SCRIPT.NONE
+                        && !isGeneric) {
+                    //handle case when this is the first char in the string
+                    //lock into the script
+                    currentScript = scriptFound;
+                }
+                //check if we are within the same script we are locked on to, or COMMON
+                if (currentScript == scriptFound
+                        || isGeneric) {
+                    if (res.numChars == 0) {
+                        //set the start offset of the string
+                        res.offset = curOffset;
+                    }
+                    //update bytes processed
+                    res.numBytes += 2;
+                    //append the char
+                    res.appendChar(byteVal);
+                } else {
+                    //bail out
+                    break;
+                }
+            } else {
+                //bail out 
+                break;
+            }
+
+        } //no more data
+
+        return res;
+    }
+
+    private Result extractUTF8(byte[] buff, int len, int offset, final Result res) {
+        res.reset();
+
+        int curOffset = offset;
+        int ch = 0; //character being extracted
+        int chBytes; //num bytes consumed by current char (1 - 4)
+
+        SCRIPT currentScript = SCRIPT.NONE;
+
+        boolean inControl = false;
+
+        //decode and extract a character
+        while (curOffset < len) {
+            // based on "valid UTF-8 byte sequences" in the Unicode 5.0 book
+            final int curByte = buff[curOffset] & 0xFF; //ensure we are not comparing signed bytes to ints
+            if (curByte <= 0x7F) {
+                chBytes = 1;
+                ch = curByte;
+            } else if (curByte <= 0xC1) {
+                break;
+            } else if (curByte <= 0xDF) {
+                if (len - curOffset < 2) {
+                    break;
+                }
+                final int curByte_1 = buff[curOffset + 1] & 0xFF;
+                if (curByte_1 >= 0x80 && curByte_1 <= 0xBF) {
+                    chBytes = 2;
+                    ch = (((curByte & 0x1f) << 6) + (curByte_1 & 0x3f));
+                } else {
+                    break;
+                }
+            } else if (curByte == 0xE0) {
+                if (len - curOffset < 3) {
+                    break;
+                }
+                final int curByte_1 = buff[curOffset + 1] & 0xFF;
+                final int curByte_2 = buff[curOffset + 2] & 0xFF;
+
+                if (curByte_1 >= 0xA0 && curByte_1 <= 0xBF
+                        && curByte_2 >= 0x80 && curByte_2 <= 0xBF) {
+                    chBytes = 3;
+                    ch = (((curByte & 0x0f) << 12) + ((curByte_1 & 0x3f) << 6) + (curByte_2 & 0x3f));
+                } else {
+                    break;
+                }
+            } else if (curByte <= 0xEC) {
+                if (len - curOffset < 3) {
+                    break;
+                }
+                final int curByte_1 = buff[curOffset + 1] & 0xFF;
+                final int curByte_2 = buff[curOffset + 2] & 0xFF;
+                if (curByte_1 >= 0x80 && curByte_1 <= 0xBF
+                        && curByte_2 >= 0x80 && curByte_2 <= 0xBF) {
+                    chBytes = 3;
+                    ch = (((curByte & 0x0f) << 12) + ((curByte_1 & 0x3f) << 6) + (curByte_2 & 0x3f));
+                } else {
+                    break;
+                }
+            } else if (curByte == 0xED) {
+                if (len - curOffset < 3) {
+                    break;
+                }
+                final int curByte_1 = buff[curOffset + 1] & 0xFF;
+                final int curByte_2 = buff[curOffset + 2] & 0xFF;
+                if (curByte_1 >= 0x80 && curByte_1 <= 0x9F
+                        && curByte_2 >= 0x80 && curByte_2 <= 0xBF) {
+                    chBytes = 3;
+                    ch = (((curByte & 0x0f) << 12) + ((curByte_1 & 0x3f) << 6) + (curByte_2 & 0x3f));
+                } else {
+                    break;
+                }
+            } else if (curByte <= 0xEF) {
+                if (len - curOffset < 3) {
+                    break;
+                }
+                final int curByte_1 = buff[curOffset + 1] & 0xFF;
+                final int curByte_2 = buff[curOffset + 2] & 0xFF;
+                if (curByte_1 >= 0x80 && curByte_1 <= 0xBF
+                        && curByte_2 >= 0x80 && curByte_2 <= 0xBF) {
+                    chBytes = 3;
+                    ch = (((curByte & 0x0f) << 12) + ((curByte_1 & 0x3f) << 6) + (curByte_2 & 0x3f));
+                } else {
+                    break;
+                }
+            } else if (curByte == 0xF0) {
+                if (len - curOffset < 4) {
+                    break;
+                }
+                final int curByte_1 = buff[curOffset + 1] & 0xFF;
+                final int curByte_2 = buff[curOffset + 2] & 0xFF;
+                final int curByte_3 = buff[curOffset + 3] & 0xFF;
+                if (curByte_1 >= 0x90 && curByte_1 <= 0xBF
+                        && curByte_2 >= 0x80 && curByte_2 <= 0xBF
+                        && curByte_3 >= 0x80 && curByte_3 <= 0xBF) {
+                    chBytes = 4;
+                    ch = (((curByte & 0x07) << 18) + ((curByte_1 & 0x3f) << 12) + ((curByte_2 & 0x3f) << 6) + (curByte_3 & 0x3f));
+                } else {
+                    break;
+                }
+            } else if (curByte <= 0xF3) {
+                if (len - curOffset < 4) {
+                    break;
+                }
+                final int curByte_1 = buff[curOffset + 1] & 0xFF;
+                final int curByte_2 = buff[curOffset + 2] & 0xFF;
+                final int curByte_3 = buff[curOffset + 3] & 0xFF;
+                if (curByte_1 >= 0x80 && curByte_1 <= 0xBF
+                        && curByte_2 >= 0x80 && curByte_2 <= 0xBF
+                        && curByte_3 >= 0x80 && curByte_3 <= 0xBF) {
+                    chBytes = 4;
+                    ch = (((curByte & 0x07) << 18) + ((curByte_1 & 0x3f) << 12) + ((curByte_2 & 0x3f) << 6) + (curByte_3 & 0x3f));
+                } else {
+                    break;
+                }
+            } else {
+                break;
+            }
+
+
+            curOffset += chBytes;
+
+            //skip if beyond range
+            if (ch > UNICODE_TABLE_SIZE - 1) {
+                break;
+            }
+
+            //lookup byteVal in the unicode table
+            SCRIPT scriptFound = unicodeTable.getScript(ch);
+
+            if (scriptFound == SCRIPT.NONE) {
+                break;
+            }
+
+            /*else if (scriptFound == SCRIPT.CONTROL) {
+             //update bytes processed
+             res.numBytes += chBytes;
+             continue;
+             } else if (inControl) {
+             break;
+             }*/
+
+            final boolean isGeneric = StringExtractUnicodeTable.isGeneric(scriptFound);
+            //allow generic and one of enabled scripts we locked in to
+            if (isGeneric
+                    || isExtractionEnabled(scriptFound)) {
+
+                if (currentScript == SCRIPT.NONE
+                        && !isGeneric) {
+                    //handle case when this is the first char in the string
+                    //lock into the script
+                    currentScript = scriptFound;
+                }
+                //check if we are within the same script we are locked on to, or COMMON
+                if (currentScript == scriptFound
+                        || isGeneric) {
+                    if (res.numChars == 0) {
+                        //set the start byte offset of the string
+                        res.offset = curOffset;
+                    }
+                    //update bytes processed
+                    res.numBytes += chBytes;
+                    //append the char
+                    res.appendChar((char) ch);
+                } else {
+                    //bail out
+                    break;
+                }
+            } else {
+                //bail out 
+                break;
+            }
+
+        } //no more data
+
+        return res;
+    }
+
+    /**
+     * The result of an extraction.
+     */
+    static final class Result {
+
+        int offset;
+        int numBytes;
+        int numChars;
+        int firstUnprocessedOff;
+        String textString;
+        char[] chars;
+
+        void reset() {
+            offset = 0;
+            numBytes = 0;
+            numChars = 0;
+            firstUnprocessedOff = 0;
+            textString = null;
+        }
+
+        void appendChar(char c) {
+            if (chars == null) {
+                chars = new char[64];
+            } else if (numChars == chars.length) {
+                chars = Arrays.copyOf(chars, chars.length * 2);
+            }
+            chars[numChars++] = c;
+        }
+    }
+}
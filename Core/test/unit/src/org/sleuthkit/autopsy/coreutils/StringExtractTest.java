@@ -0,0 +1,230 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2015 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.coreutils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.netbeans.junit.NbTestCase;
+import org.sleuthkit.autopsy.coreutils.StringExtract.StringExtractResult;
+import org.sleuthkit.autopsy.coreutils.StringExtract.StringExtractUnicodeTable.SCRIPT;
+
+/**
+ * Checks that StringExtract finds the same strings as the extraction it
+ * replaced, kept in ReferenceStringExtract, on synthetic data and on binaries
+ * of the Java runtime. Their speed is only compared if the
+ * stringextract.benchmark system property is true, so that the benchmark does
+ * not slow down the regular test runs.
+ */
+public class StringExtractTest extends NbTestCase {
+
+    private static final int BLOCK_SIZE = 1024 * 1024;
+    private static final int CORPUS_SIZE = 8 * BLOCK_SIZE;
+    private static final int BENCHMARK_ROUNDS = 3;
+    private static final String BENCHMARK_PROPERTY = "stringextract.benchmark"; //NON-NLS
+    // words in several of the supported scripts, e.g., Cyrillic, Han, Arabic
+    private static final String[] WORDS = {
+        "password", "Autopsy", "C:\\Windows\\System32", "http://www.sleuthkit.org/", //NON-NLS
+        "\u041f\u0440\u0438\u0432\u0435\u0442 \u043c\u0438\u0440", "\u0414\u043e\u0431\u0440\u043e \u043f\u043e\u0436\u0430\u043b\u043e\u0432\u0430\u0442\u044c", "\u6570\u5b57\u53d6\u8bc1", "\u6587\u4ef6\u7cfb\u7edf", "\u0645\u0631\u062d\u0628\u0627 \u0628\u0627\u0644\u0639\u0627\u0644\u0645", //NON-NLS
+        "\u3053\u3093\u306b\u3061\u306f", "\u30ab\u30bf\u30ab\u30ca", "\uc548\ub155\ud558\uc138\uc694", "Gr\u00fc\u00dfe aus K\u00f6ln", "\u017dlu\u0165ou\u010dk\u00fd k\u016f\u0148", //NON-NLS
+        "\u05e9\u05dc\u05d5\u05dd \u05e2\u05d5\u05dc\u05dd", "\u0e2a\u0e27\u0e31\u0e2a\u0e14\u0e35", "\u10e5\u10d0\u10e0\u10d7\u10e3\u10da\u10d8", "\u0532\u0561\u0580\u0565\u0582" //NON-NLS
+    };
+    private static final List<List<SCRIPT>> SCRIPT_SETS = Arrays.asList(
+            StringExtract.getSupportedScripts(),
+            Collections.singletonList(SCRIPT.LATIN_1),
+            Collections.singletonList(SCRIPT.LATIN_2),
+            Arrays.asList(SCRIPT.CYRILLIC, SCRIPT.HAN),
+            Collections.singletonList(SCRIPT.ARABIC));
+    private static final boolean[][] ENCODINGS = {{true, true}, {true, false}, {false, true}};
+
+    public StringExtractTest(String name) {
+        super(name);
+    }
+
+    public void testSameStringsAsReferenceOnRandomData() {
+        assertSameStrings(randomBytes(new Random(1), BLOCK_SIZE));
+    }
+
+    public void testSameStringsAsReferenceOnText() {
+        assertSameStrings(mixedText(new Random(2), BLOCK_SIZE));
+    }
+
+    public void testSameStringsAsReferenceOnBinaries() throws IOException {
+        for (byte[] binary : runtimeBinaries(BLOCK_SIZE)) {
+            assertSameStrings(binary);
+        }
+    }
+
+    /**
+     * Checks that the extraction is not slower than the one it replaced, for
+     * each kind of data. Only run if the benchmark system property is set.
+     */
+    public void testNotSlowerThanReference() throws IOException {
+        if (!Boolean.getBoolean(BENCHMARK_PROPERTY)) {
+            return;
+        }
+        benchmark("random", randomBytes(new Random(3), CORPUS_SIZE)); //NON-NLS
+        benchmark("text", mixedText(new Random(4), CORPUS_SIZE)); //NON-NLS
+        int i = 0;
+        for (byte[] binary : runtimeBinaries(CORPUS_SIZE)) {
+            benchmark("binary " + ++i, binary); //NON-NLS
+        }
+    }
+
+    private void assertSameStrings(byte[] data) {
+        for (List<SCRIPT> scripts : SCRIPT_SETS) {
+            for (boolean[] encoding : ENCODINGS) {
+                StringExtract extract = createExtract(scripts, encoding);
+                ReferenceStringExtract reference = new ReferenceStringExtract(scripts, encoding[0], encoding[1]);
+                String configuration = scripts + " UTF-8 " + encoding[0] + " UTF-16 " + encoding[1]; //NON-NLS
+                for (byte[] block : split(data)) {
+                    StringExtractResult result = extract.extract(block, block.length, 0);
+                    ReferenceStringExtract.Result expected = reference.extract(block, block.length, 0);
+                    assertEquals(configuration, expected.textString, result.getText());
+                    assertEquals(configuration, expected.numChars, result.getTextLength());
+                    assertEquals(configuration, expected.numBytes, result.getNumBytes());
+                    assertEquals(configuration, expected.offset, result.getStartOffset());
+                    assertEquals(configuration, expected.firstUnprocessedOff, result.getFirstUnprocessedOff());
+
+                    int emitStart = block.length / 3;
+                    int emitEnd = 2 * block.length / 3;
+                    StringBuilder text = new StringBuilder();
+                    StringBuilder expectedText = new StringBuilder();
+                    result = extract.extract(block, block.length, 0, emitStart, emitEnd, text);
+                    expected = reference.extract(block, block.length, 0, emitStart, emitEnd, expectedText);
+                    assertEquals(configuration, expectedText.toString(), text.toString());
+                    assertEquals(configuration, expected.offset, result.getStartOffset());
+                    assertEquals(configuration, expected.firstUnprocessedOff, result.getFirstUnprocessedOff());
+                }
+            }
+        }
+    }
+
+    private void benchmark(String corpus, byte[] data) {
+        List<byte[]> blocks = split(data);
+        List<SCRIPT> scripts = StringExtract.getSupportedScripts();
+        StringExtract extract = createExtract(scripts, ENCODINGS[0]);
+        ReferenceStringExtract reference = new ReferenceStringExtract(scripts, true, true);
+        long extractNanos = Long.MAX_VALUE;
+        long referenceNanos = Long.MAX_VALUE;
+        for (int round = 0; round < BENCHMARK_ROUNDS; ++round) {
+            long start = System.nanoTime();
+            for (byte[] block : blocks) {
+                reference.extract(block, block.length, 0);
+            }
+            referenceNanos = Math.min(referenceNanos, System.nanoTime() - start);
+            start = System.nanoTime();
+            for (byte[] block : blocks) {
+                extract.extract(block, block.length, 0);
+            }
+            extractNanos = Math.min(extractNanos, System.nanoTime() - start);
+        }
+        String throughput = String.format("%s (%.1f MB): reference %.1f MB/s, lookup tables %.1f MB/s", //NON-NLS
+                corpus, data.length / (double) BLOCK_SIZE, megabytesPerSecond(data.length, referenceNanos), megabytesPerSecond(data.length, extractNanos));
+        assertTrue(throughput, extractNanos <= referenceNanos);
+    }
+
+    private static double megabytesPerSecond(long bytes, long nanos) {
+        return (bytes / (double) BLOCK_SIZE) / (Math.max(nanos, 1) / 1e9);
+    }
+
+    private static StringExtract createExtract(List<SCRIPT> scripts, boolean[] encoding) {
+        StringExtract extract = new StringExtract();
+        extract.setEnabledScripts(scripts);
+        extract.setEnableUTF8(encoding[0]);
+        extract.setEnableUTF16(encoding[1]);
+        return extract;
+    }
+
+    private static List<byte[]> split(byte[] data) {
+        List<byte[]> blocks = new ArrayList<>();
+        for (int start = 0; start < data.length; start += BLOCK_SIZE) {
+            blocks.add(Arrays.copyOfRange(data, start, Math.min(start + BLOCK_SIZE, data.length)));
+        }
+        return blocks;
+    }
+
+    private static byte[] randomBytes(Random random, int size) {
+        byte[] data = new byte[size];
+        random.nextBytes(data);
+        return data;
+    }
+
+    /**
+     * Makes data of words of several scripts, in UTF-8 and in both byte orders
+     * of UTF-16, separated by zeros and random bytes.
+     */
+    private static byte[] mixedText(Random random, int size) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        while (out.size() < size) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            byte[] bytes;
+            switch (random.nextInt(3)) {
+                case 0:
+                    bytes = word.getBytes(StandardCharsets.UTF_8);
+                    break;
+                case 1:
+                    bytes = word.getBytes(StandardCharsets.UTF_16LE);
+                    break;
+                default:
+                    bytes = word.getBytes(StandardCharsets.UTF_16BE);
+                    break;
+            }
+            out.write(bytes, 0, bytes.length);
+            byte[] separator = new byte[random.nextInt(8)];
+            if (random.nextBoolean()) {
+                random.nextBytes(separator);
+            }
+            out.write(separator, 0, separator.length);
+        }
+        return Arrays.copyOf(out.toByteArray(), size);
+    }
+
+    /**
+     * Reads the beginning of a few binaries of the Java runtime running the
+     * test.
+     */
+    private static List<byte[]> runtimeBinaries(int size) throws IOException {
+        List<byte[]> binaries = new ArrayList<>();
+        File javaHome = new File(System.getProperty("java.home")); //NON-NLS
+        for (String path : new String[]{"lib/rt.jar", "lib/modules", "bin/java", "bin/java.exe"}) { //NON-NLS
+            File file = new File(javaHome, path);
+            if (file.isFile()) {
+                byte[] data = new byte[(int) Math.min(file.length(), size)];
+                int length = 0;
+                try (InputStream in = new FileInputStream(file)) {
+                    int bytesRead;
+                    while (length < data.length && (bytesRead = in.read(data, length, data.length - length)) > 0) {
+                        length += bytesRead;
+                    }
+                }
+                binaries.add(Arrays.copyOf(data, length));
+            }
+        }
+        return binaries;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2015 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.modules.hashdatabase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.api.progress.ProgressHandleFactory;
+import org.netbeans.junit.NbTestCase;
+
+/**
+ * Checks the index that HashDbIndexBuilder writes against small hash
+ * databases: the header lines, the order of the hashes and the offsets of the
+ * lines they are on.
+ */
+public class HashDbIndexBuilderTest extends NbTestCase {
+
+    private static final String TYPE_HEADER = "00000000000000000000000000000000000000000|"; //NON-NLS
+    private static final String NAME_HEADER = "00000000000000000000000000000000000000001|"; //NON-NLS
+
+    public HashDbIndexBuilderTest(String name) {
+        super(name);
+    }
+
+    public void testMd5sumDatabase() throws Exception {
+        String line0 = "d41d8cd98f00b204e9800998ecf8427e  empty.txt\n"; //NON-NLS
+        String line1 = "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF  last.bin\r\n"; //NON-NLS
+        String line2 = "MD5 (first.dat) = 0123456789abcdef0123456789abcdef\n"; //NON-NLS
+        String line3 = "not a hash\n"; //NON-NLS
+        String line4 = "d41d8cd98f00b204e9800998ecf8427e  copy of empty.txt\n"; //NON-NLS
+        File database = writeDatabase("sums.txt", line0 + line1 + line2 + line3 + line4); //NON-NLS
+        int offset1 = line0.length();
+        int offset2 = offset1 + line1.length();
+        int offset4 = offset2 + line2.length() + line3.length();
+
+        List<String> index = buildIndex(database);
+
+        assertEquals(TYPE_HEADER + "md5sum", index.get(0)); //NON-NLS
+        assertEquals(NAME_HEADER + "sums", index.get(1)); //NON-NLS
+        assertEquals(6, index.size());
+        assertEquals(indexLine("0123456789ABCDEF0123456789ABCDEF", offset2), index.get(2)); //NON-NLS
+        assertEquals(indexLine("D41D8CD98F00B204E9800998ECF8427E", 0), index.get(3)); //NON-NLS
+        assertEquals(indexLine("D41D8CD98F00B204E9800998ECF8427E", offset4), index.get(4)); //NON-NLS
+        assertEquals(indexLine("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF", offset1), index.get(5)); //NON-NLS
+    }
+
+    public void testNsrlDatabase() throws Exception {
+        String header = "\"SHA-1\",\"MD5\",\"CRC32\",\"FileName\",\"FileSize\",\"ProductCode\",\"OpSystemCode\",\"SpecialCode\"\r\n"; //NON-NLS
+        String line1 = "\"0000000F8527DCCAB6642252BBCFA1B8072D33EE\",\"8ED4B4ED952526D89899E723F3488DE4\",\"7A5407CA\",\"wow64_microsoft-windows-i..timezones.resources_31bf3856ad364e35_10.0.16299.579_de-de_f24979c73226184d.manifest\",2520,14109,\"362\",\"\"\r\n"; //NON-NLS
+        String line2 = "\"00000079FD7AAC9B2F9C988C50750E1F50B27EB5\",\"076F4E05A6E94F0BEF0E2A0A2D5E6A16\",\"E69A5DAA\",\"a,b.txt\",10,1,\"1\",\"\"\r\n"; //NON-NLS
+        File database = writeDatabase("NSRLFile.txt", header + line1 + line2); //NON-NLS
+
+        List<String> index = buildIndex(database);
+
+        assertEquals(TYPE_HEADER + "nsrl-md5", index.get(0)); //NON-NLS
+        assertEquals(NAME_HEADER + "NSRLFile", index.get(1)); //NON-NLS
+        assertEquals(4, index.size());
+        assertEquals(indexLine("076F4E05A6E94F0BEF0E2A0A2D5E6A16", header.length() + line1.length()), index.get(2)); //NON-NLS
+        assertEquals(indexLine("8ED4B4ED952526D89899E723F3488DE4", header.length()), index.get(3)); //NON-NLS
+    }
+
+    public void testUnsupportedDatabase() throws Exception {
+        File database = writeDatabase("hashkeeper.hsh", "file_id,hashset_id,file_name,directory,hash\n"); //NON-NLS
+        assertNull(HashDbIndexBuilder.forDatabase(database.getPath()));
+    }
+
+    private File writeDatabase(String fileName, String contents) throws IOException {
+        File database = new File(getWorkDir(), fileName);
+        Files.write(database.toPath(), contents.getBytes(StandardCharsets.US_ASCII));
+        return database;
+    }
+
+    private List<String> buildIndex(File database) throws Exception {
+        HashDbIndexBuilder builder = HashDbIndexBuilder.forDatabase(database.getPath());
+        assertNotNull(builder);
+        File indexFile = new File(HashDbIndexBuilder.getIndexPath(database.getPath()));
+        ProgressHandle progress = ProgressHandleFactory.createHandle(getName());
+        progress.start();
+        try {
+            builder.build(indexFile, progress);
+        } finally {
+            progress.finish();
+        }
+        String[] runFiles = getWorkDir().list((dir, name) -> name.endsWith(".run")); //NON-NLS
+        assertEquals(0, runFiles.length);
+        return Files.readAllLines(indexFile.toPath(), StandardCharsets.US_ASCII);
+    }
+
+    private static String indexLine(String hash, long offset) {
+        return hash + "|" + String.format("%016d", offset); //NON-NLS
+    }
+}
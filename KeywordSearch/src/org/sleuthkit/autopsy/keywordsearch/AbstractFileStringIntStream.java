@@ -20,11 +20,14 @@
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
 import java.util.List;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.autopsy.coreutils.StringExtract;
-import org.sleuthkit.autopsy.coreutils.StringExtract.StringExtractResult;
 import org.sleuthkit.autopsy.coreutils.StringExtract.StringExtractUnicodeTable.SCRIPT;
 import org.sleuthkit.datamodel.AbstractFile;
 import org.sleuthkit.datamodel.TskCoreException;
@@ -49,9 +52,10 @@ class AbstractFileStringIntStream extends InputStream {
     private boolean fileEOF = false; //if file has more bytes to read
     private boolean extractUTF8;
     private boolean extractUTF16;
-    private Charset outCharset;
-    
-    private StringExtractResult lastExtractResult;
+    private final CharsetEncoder encoder;
+    private final StringBuilder textBuff = new StringBuilder(); //extracted strings, before encoded
+    private char[] textChars = new char[0];
+    private final ParallelStringExtractor parallelExtractor;
 
     /**
      * Constructs new stream object that does conversion from file, to extracted
@@ -66,14 +70,34 @@ class AbstractFileStringIntStream extends InputStream {
      */
     public AbstractFileStringIntStream(AbstractFile content, List<SCRIPT> scripts, boolean extractUTF8, 
            boolean extractUTF16, Charset outCharset) {
+        this(content, scripts, extractUTF8, extractUTF16, outCharset, false);
+    }
+
+    /**
+     * Constructs new stream object that does conversion from file, to extracted
+     * strings, then to byte stream, optionally extracting the strings of
+     * segments of the file in parallel
+     *
+     * @param content input content to process and turn into a stream to convert into strings
+     * @param scripts a list of scripts to consider
+     * @param extractUTF8 whether to extract utf8 encoding
+     * @param extractUTF16 whether to extract utf16 encoding
+     * @param outCharset encoding to use in the output byte stream
+     * @param parallel whether to extract the strings of segments of the file in parallel
+     */
+    AbstractFileStringIntStream(AbstractFile content, List<SCRIPT> scripts, boolean extractUTF8,
+            boolean extractUTF16, Charset outCharset, boolean parallel) {
         this.content = content;
         this.stringExtractor = new StringExtract();
         this.stringExtractor.setEnabledScripts(scripts);
         this.extractUTF8 = extractUTF8;
         this.extractUTF16 = extractUTF16;
-        this.outCharset = outCharset;
+        this.encoder = outCharset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
         this.stringExtractor.setEnableUTF8(extractUTF8);
         this.stringExtractor.setEnableUTF16(extractUTF16);
+        this.parallelExtractor = parallel ? new ParallelStringExtractor(content, scripts, extractUTF8, extractUTF16) : null;
     }
 
     @Override
@@ -118,7 +142,16 @@ public int read(byte[] b, int off, int len) throws IOException {
             //check if we have enough converted strings         
             int convertBuffRemain = bytesInConvertBuff - convertBuffOffset;
 
-            if ((convertBuff == null || convertBuffRemain == 0) && !fileEOF && fileReadOffset < fileSize) {
+            if ((convertBuff == null || convertBuffRemain == 0) && !fileEOF && parallelExtractor != null) {
+                //get the strings of the next segment, in file order
+                textBuff.setLength(0);
+                if (parallelExtractor.nextText(textBuff)) {
+                    encode();
+                    convertBuffRemain = bytesInConvertBuff - convertBuffOffset;
+                } else {
+                    fileEOF = true;
+                }
+            } else if ((convertBuff == null || convertBuffRemain == 0) && !fileEOF && fileReadOffset < fileSize) {
                 try {
                     //convert more strings, store in buffer
                     long toRead = 0;
@@ -202,15 +235,40 @@ public int read(byte[] b, int off, int len) throws IOException {
      * @param numBytes num bytes in the fileReadBuff
      */
     private void convert(int numBytes) {
-        lastExtractResult = stringExtractor.extract(fileReadBuff, numBytes, 0);
-        convertBuff = lastExtractResult.getText().getBytes(outCharset);
+        textBuff.setLength(0);
+        stringExtractor.extract(fileReadBuff, numBytes, 0, 0, numBytes, textBuff);
+        encode();
+    }
 
-        //reset tracking vars
-        if (lastExtractResult.getNumBytes() == 0) {
-            bytesInConvertBuff = 0;
-        } else {
-            bytesInConvertBuff = convertBuff.length;
+    /**
+     * encode the extracted strings in textBuff into convertBuff, reusing the
+     * buffers from one conversion to the next
+     */
+    private void encode() {
+        final int numChars = textBuff.length();
+        if (textChars.length < numChars) {
+            textChars = new char[Math.max(numChars, 2 * textChars.length)];
+        }
+        textBuff.getChars(0, numChars, textChars, 0);
+        final int maxBytes = (int) Math.ceil(numChars * (double) encoder.maxBytesPerChar());
+        if (convertBuff == null || convertBuff.length < maxBytes) {
+            convertBuff = new byte[Math.max(maxBytes, convertBuff == null ? 0 : 2 * convertBuff.length)];
         }
+        ByteBuffer out = ByteBuffer.wrap(convertBuff);
+        encoder.reset();
+        encoder.encode(CharBuffer.wrap(textChars, 0, numChars), out, true);
+        encoder.flush(out);
+
+        //reset tracking vars
+        bytesInConvertBuff = out.position();
         convertBuffOffset = 0;
     }
+
+    @Override
+    public void close() throws IOException {
+        if (parallelExtractor != null) {
+            parallelExtractor.close();
+        }
+        super.close();
+    }
 }
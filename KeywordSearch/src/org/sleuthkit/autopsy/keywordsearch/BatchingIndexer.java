@@ -0,0 +1,346 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2015 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.keywordsearch;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import org.apache.solr.common.SolrInputDocument;
+import org.sleuthkit.autopsy.coreutils.Logger;
+
+/**
+ * Collects Solr input documents into batches bounded by document count, size
+ * and age, and sends the batches to the Solr server on a dedicated pool of
+ * sender threads. The number of batches waiting to be sent or being sent is
+ * bounded; when the bound is reached, callers adding documents block until a
+ * batch has been sent.
+ *
+ * When a batch cannot be added to the index, its documents are retried one at
+ * a time so that the failure can be attributed to the files that caused it.
+ * The ids of the source files of documents that could not be indexed are kept
+ * until they are collected with getFailedSourceIds().
+ */
+final class BatchingIndexer {
+
+    private static final Logger logger = Logger.getLogger(BatchingIndexer.class.getName());
+    private final Server solrServer;
+    private final int maxBatchDocuments;
+    private final long maxBatchBytes;
+    private final long maxBatchDelayMillis;
+    private final int maxPendingBatches;
+    private final Semaphore pendingBatchPermits;
+    private final ExecutorService senderPool;
+    private final ScheduledExecutorService flushTimer;
+    private final Set<Long> failedSourceIds = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+    private final Object batchLock = new Object();
+    private Batch currentBatch; // Guarded by batchLock.
+    private final AtomicInteger pendingBatches = new AtomicInteger(0);
+    private final AtomicLong documentsSent = new AtomicLong(0);
+    private final AtomicLong bytesSent = new AtomicLong(0);
+    private final AtomicLong batchesSent = new AtomicLong(0);
+    private final AtomicLong sendTimeMillis = new AtomicLong(0);
+    private final long startTimeMillis;
+
+    /**
+     * Constructs an indexer that sends documents to the Solr server in
+     * batches.
+     *
+     * @param solrServer The Solr server.
+     * @param maxBatchDocuments The maximum number of documents in a batch.
+     * @param maxBatchBytes The maximum size of the content of the documents in
+     * a batch.
+     * @param maxBatchDelayMillis The maximum time a document waits in a
+     * partial batch before the batch is sent.
+     * @param maxPendingBatches The maximum number of batches waiting to be
+     * sent or being sent.
+     * @param numberOfSenderThreads The number of sender threads.
+     */
+    BatchingIndexer(Server solrServer, int maxBatchDocuments, long maxBatchBytes, long maxBatchDelayMillis, int maxPendingBatches, int numberOfSenderThreads) {
+        this.solrServer = solrServer;
+        this.maxBatchDocuments = maxBatchDocuments;
+        this.maxBatchBytes = maxBatchBytes;
+        this.maxBatchDelayMillis = maxBatchDelayMillis;
+        this.maxPendingBatches = maxPendingBatches;
+        this.pendingBatchPermits = new Semaphore(maxPendingBatches, true);
+        this.senderPool = Executors.newFixedThreadPool(numberOfSenderThreads, new ThreadFactoryBuilder().setNameFormat("KWS-index-sender-%d").setDaemon(true).build()); //NON-NLS
+        this.flushTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("KWS-index-flush-timer-%d").setDaemon(true).build()); //NON-NLS
+        this.flushTimer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                sendIfExpired();
+            }
+        }, maxBatchDelayMillis, Math.max(maxBatchDelayMillis / 2, 1), TimeUnit.MILLISECONDS);
+        this.startTimeMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Adds a document to the current batch, sending the batch if it is full.
+     * Blocks if the maximum number of pending batches has been reached.
+     *
+     * @param doc The document.
+     * @param sourceId The object id of the file the document was created
+     * for.
+     * @param contentBytes The size of the content of the document.
+     * @throws InterruptedException if the calling thread is interrupted while
+     * blocked.
+     */
+    void add(SolrInputDocument doc, long sourceId, long contentBytes) throws InterruptedException {
+        Batch fullBatch = null;
+        synchronized (this.batchLock) {
+            if (this.currentBatch == null) {
+                this.currentBatch = new Batch();
+            }
+            this.currentBatch.add(doc, sourceId, contentBytes);
+            if (this.currentBatch.documents.size() >= this.maxBatchDocuments || this.currentBatch.bytes >= this.maxBatchBytes) {
+                fullBatch = this.currentBatch;
+                this.currentBatch = null;
+            }
+        }
+        if (fullBatch != null) {
+            this.send(fullBatch);
+        }
+    }
+
+    /**
+     * Sends the current batch, if any, and waits until all pending batches
+     * have been sent.
+     *
+     * @throws InterruptedException if the calling thread is interrupted while
+     * waiting.
+     */
+    void flush() throws InterruptedException {
+        Batch batch;
+        synchronized (this.batchLock) {
+            batch = this.currentBatch;
+            this.currentBatch = null;
+        }
+        if (batch != null) {
+            this.send(batch);
+        }
+        this.pendingBatchPermits.acquire(this.maxPendingBatches);
+        this.pendingBatchPermits.release(this.maxPendingBatches);
+    }
+
+    /**
+     * Gets and forgets the ids of the source files of documents that could not
+     * be indexed.
+     *
+     * @param sourceIds The ids of the source files of interest.
+     * @return The subset of the ids for which indexing failed.
+     */
+    Set<Long> getFailedSourceIds(Set<Long> sourceIds) {
+        Set<Long> failed = new HashSet<>();
+        for (Long sourceId : sourceIds) {
+            if (this.failedSourceIds.remove(sourceId)) {
+                failed.add(sourceId);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Gets a snapshot of the throughput metrics of this indexer.
+     *
+     * @return The metrics.
+     */
+    Metrics getMetrics() {
+        int queuedDocuments;
+        synchronized (this.batchLock) {
+            queuedDocuments = (this.currentBatch != null) ? this.currentBatch.documents.size() : 0;
+        }
+        return new Metrics(this.documentsSent.get(), this.bytesSent.get(), this.batchesSent.get(), this.sendTimeMillis.get(),
+                System.currentTimeMillis() - this.startTimeMillis, this.pendingBatches.get(), queuedDocuments);
+    }
+
+    /**
+     * Sends the current batch if its oldest document has waited longer than
+     * the maximum batch delay.
+     */
+    private void sendIfExpired() {
+        Batch batch = null;
+        synchronized (this.batchLock) {
+            if (this.currentBatch != null && System.currentTimeMillis() - this.currentBatch.createdMillis >= this.maxBatchDelayMillis) {
+                batch = this.currentBatch;
+                this.currentBatch = null;
+            }
+        }
+        if (batch != null) {
+            try {
+                this.send(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Hands a batch to the sender pool, blocking if the maximum number of
+     * pending batches has been reached.
+     *
+     * @param batch The batch.
+     * @throws InterruptedException if the calling thread is interrupted while
+     * blocked.
+     */
+    private void send(final Batch batch) throws InterruptedException {
+        try {
+            this.pendingBatchPermits.acquire();
+        } catch (InterruptedException ex) {
+            // The documents will not be indexed, so report them as failed.
+            this.failedSourceIds.addAll(batch.sourceIds);
+            throw ex;
+        }
+        this.pendingBatches.incrementAndGet();
+        this.senderPool.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    sendBatch(batch);
+                } finally {
+                    pendingBatches.decrementAndGet();
+                    pendingBatchPermits.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Adds the documents of a batch to the index, falling back to adding them
+     * one at a time if the batch is rejected.
+     *
+     * @param batch The batch.
+     */
+    private void sendBatch(Batch batch) {
+        long start = System.currentTimeMillis();
+        try {
+            this.solrServer.addDocuments(batch.documents);
+        } catch (KeywordSearchModuleException | RuntimeException ex) {
+            logger.log(Level.WARNING, "Failed to index batch of " + batch.documents.size() + " documents, retrying documents individually", ex); //NON-NLS
+            for (int i = 0; i < batch.documents.size(); ++i) {
+                try {
+                    this.solrServer.addDocument(batch.documents.get(i));
+                } catch (KeywordSearchModuleException | RuntimeException docEx) {
+                    long sourceId = batch.documentSourceIds.get(i);
+                    logger.log(Level.SEVERE, "Failed to index document for file with object id " + sourceId, docEx); //NON-NLS
+                    this.failedSourceIds.add(sourceId);
+                }
+            }
+        }
+        this.sendTimeMillis.addAndGet(System.currentTimeMillis() - start);
+        this.documentsSent.addAndGet(batch.documents.size());
+        this.bytesSent.addAndGet(batch.bytes);
+        this.batchesSent.incrementAndGet();
+    }
+
+    /**
+     * A batch of documents and the ids of the files they were created for.
+     */
+    private static final class Batch {
+
+        private final List<SolrInputDocument> documents = new ArrayList<>();
+        private final List<Long> documentSourceIds = new ArrayList<>();
+        private final Set<Long> sourceIds = new HashSet<>();
+        private final long createdMillis = System.currentTimeMillis();
+        private long bytes;
+
+        void add(SolrInputDocument doc, long sourceId, long contentBytes) {
+            this.documents.add(doc);
+            this.documentSourceIds.add(sourceId);
+            this.sourceIds.add(sourceId);
+            this.bytes += contentBytes;
+        }
+    }
+
+    /**
+     * A snapshot of the throughput metrics of a batching indexer.
+     */
+    static final class Metrics {
+
+        private final long documentsSent;
+        private final long bytesSent;
+        private final long batchesSent;
+        private final long sendTimeMillis;
+        private final long elapsedMillis;
+        private final int pendingBatches;
+        private final int queuedDocuments;
+
+        private Metrics(long documentsSent, long bytesSent, long batchesSent, long sendTimeMillis, long elapsedMillis, int pendingBatches, int queuedDocuments) {
+            this.documentsSent = documentsSent;
+            this.bytesSent = bytesSent;
+            this.batchesSent = batchesSent;
+            this.sendTimeMillis = sendTimeMillis;
+            this.elapsedMillis = elapsedMillis;
+            this.pendingBatches = pendingBatches;
+            this.queuedDocuments = queuedDocuments;
+        }
+
+        long getDocumentsSent() {
+            return documentsSent;
+        }
+
+        long getBytesSent() {
+            return bytesSent;
+        }
+
+        double getDocumentsPerSecond() {
+            return (elapsedMillis > 0) ? documentsSent * 1000.0 / elapsedMillis : 0;
+        }
+
+        double getBytesPerSecond() {
+            return (elapsedMillis > 0) ? bytesSent * 1000.0 / elapsedMillis : 0;
+        }
+
+        /**
+         * Gets the number of batches waiting to be sent or being sent.
+         *
+         * @return The count.
+         */
+        int getPendingBatches() {
+            return pendingBatches;
+        }
+
+        /**
+         * Gets the number of documents in the partial batch that is being
+         * filled.
+         *
+         * @return The count.
+         */
+        int getQueuedDocuments() {
+            return queuedDocuments;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d docs, %d bytes in %d batches (%.1f docs/s, %.1f KB/s, avg batch send %d ms), pending batches: %d, queued docs: %d", //NON-NLS
+                    documentsSent, bytesSent, batchesSent, getDocumentsPerSecond(), getBytesPerSecond() / 1024,
+                    (batchesSent > 0) ? sendTimeMillis / batchesSent : 0, pendingBatches, queuedDocuments);
+        }
+    }
+}
@@ -173,6 +173,7 @@ public boolean index(AbstractFile sourceFile) throws IngesterException {
                 try {
                     chunk.index(ingester, encodedBytes, encodedBytes.length, outCharset);
                     ++this.numChunks;
+                    module.matchLiteralKeywords(chunk, extracted);
                 } catch (Ingester.IngesterException ingEx) {
                     success = false;
                     logger.log(Level.WARNING, "Ingester had a problem with extracted HTML from file '" //NON-NLS
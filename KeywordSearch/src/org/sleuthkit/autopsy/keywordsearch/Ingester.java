@@ -24,13 +24,21 @@
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import org.apache.solr.client.solrj.SolrRequest.METHOD;
 import org.apache.solr.client.solrj.SolrServerException;
@@ -75,9 +83,35 @@ class Ingester {
     //TODO use a streaming way to add content to /update handler
     private static final int MAX_DOC_CHUNK_SIZE = 1024*1024;
     private static final String docContentEncoding = "UTF-8"; //NON-NLS
-
+    private static final int MAX_POOLED_CHUNK_BUFFERS = 16;
+    private final BlockingQueue<byte[]> chunkBufferPool = new ArrayBlockingQueue<>(MAX_POOLED_CHUNK_BUFFERS);
+    private final BatchingIndexer batchingIndexer;
+    // progress since the last commit, used to schedule commits
+    private final AtomicLong docsSinceCommit = new AtomicLong(0);
+    private final AtomicLong bytesSinceCommit = new AtomicLong(0);
+    // documents indexed and documents committed, per data source
+    private final ConcurrentHashMap<Long, AtomicLong> indexedDocCounts = new ConcurrentHashMap<>();
+    private final Map<Long, Long> committedDocCounts = new ConcurrentHashMap<>();
+    // Ingest sequence numbers of documents, seeded from the clock to keep them
+    // ascending across application runs. The lock is held for reading while a
+    // document is numbered and added, and for writing while a commit takes
+    // its snapshot, so that every document numbered before the snapshot is
+    // covered by the commit.
+    private final AtomicLong ingestSequence = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final ReadWriteLock ingestSequenceLock = new ReentrantReadWriteLock();
+    private volatile long committedSequence = ingestSequence.get();
 
     private Ingester() {
+        if (KeywordSearchSettings.getBatchIndexing()) {
+            batchingIndexer = new BatchingIndexer(solrServer,
+                    KeywordSearchSettings.getIndexingBatchMaxDocuments(),
+                    KeywordSearchSettings.getIndexingBatchMaxBytes(),
+                    KeywordSearchSettings.getIndexingBatchMaxDelayMillis(),
+                    KeywordSearchSettings.getIndexingMaxPendingBatches(),
+                    KeywordSearchSettings.getIndexingSenderThreads());
+        } else {
+            batchingIndexer = null;
+        }
     }
 
     public static synchronized Ingester getDefault() {
@@ -278,7 +312,6 @@ void ingest(ContentStream cs, Map<String, String> fields, final long size) throw
             throw new IngesterException(msg);
         }
         
-        final byte[] docChunkContentBuf = new byte[MAX_DOC_CHUNK_SIZE];
         SolrInputDocument updateDoc = new SolrInputDocument();
 
         for (String key : fields.keySet()) {
@@ -288,14 +321,16 @@ void ingest(ContentStream cs, Map<String, String> fields, final long size) throw
         //using size here, but we are no longer ingesting entire files
         //size is normally a chunk size, up to 1MB
     
+        int read = 0;
         if (size > 0) {
  
             InputStream is = null;
-            int read = 0;
+            byte[] docChunkContentBuf = borrowChunkBuffer();
             try {
                 is = cs.getStream();
                 read = is.read(docChunkContentBuf);
             } catch (IOException ex) {
+                returnChunkBuffer(docChunkContentBuf);
                 throw new IngesterException(
                         NbBundle.getMessage(this.getClass(), "Ingester.ingest.exception.cantReadStream.msg",
                                             cs.getName()));
@@ -307,7 +342,7 @@ void ingest(ContentStream cs, Map<String, String> fields, final long size) throw
                 }
             }
 
-            if (read != 0) {
+            if (read > 0) {
                 String s = "";
                 try {
                     s = new String(docChunkContentBuf, 0, read, docContentEncoding);
@@ -316,8 +351,10 @@ void ingest(ContentStream cs, Map<String, String> fields, final long size) throw
                 }
                 updateDoc.addField(Server.Schema.CONTENT.toString(), s);
             } else {
+                read = 0;
                 updateDoc.addField(Server.Schema.CONTENT.toString(), "");
             }
+            returnChunkBuffer(docChunkContentBuf);
         }
         else {
             //no content, such as case when 0th chunk indexed
@@ -325,16 +362,174 @@ void ingest(ContentStream cs, Map<String, String> fields, final long size) throw
         }
         
 
+        ingestSequenceLock.readLock().lock();
         try {
-            //TODO consider timeout thread, or vary socket timeout based on size of indexed content
-            solrServer.addDocument(updateDoc);
-            uncommitedIngests = true;
-        } catch (KeywordSearchModuleException ex) {
-            throw new IngesterException(
-                    NbBundle.getMessage(this.getClass(), "Ingester.ingest.exception.err.msg", cs.getName()), ex);
+            updateDoc.addField(Server.Schema.INGEST_SEQ.toString(), ingestSequence.incrementAndGet());
+            
+            if (batchingIndexer != null) {
+                // Errors are reported per file when the batch is sent, see
+                // getFailedSourceIds().
+                try {
+                    batchingIndexer.add(updateDoc, getSourceId(fields), read);
+                    uncommitedIngests = true;
+                    documentIndexed(fields, read);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IngesterException(
+                            NbBundle.getMessage(this.getClass(), "Ingester.ingest.exception.err.msg", cs.getName()), ex);
+                }
+                return;
+            }
+
+            try {
+                //TODO consider timeout thread, or vary socket timeout based on size of indexed content
+                solrServer.addDocument(updateDoc);
+                uncommitedIngests = true;
+                documentIndexed(fields, read);
+            } catch (KeywordSearchModuleException ex) {
+                throw new IngesterException(
+                        NbBundle.getMessage(this.getClass(), "Ingester.ingest.exception.err.msg", cs.getName()), ex);
+            }
+        } finally {
+            ingestSequenceLock.readLock().unlock();
+        }
+
+
+    }
+
+    /**
+     * Gets the object id of the file a document is created for from the
+     * document id field, which is either the file id or a chunk id.
+     *
+     * @param fields The document fields.
+     * @return The object id.
+     */
+    private static long getSourceId(Map<String, String> fields) {
+        String id = fields.get(Server.Schema.ID.toString());
+        int separatorIndex = id.indexOf(Server.ID_CHUNK_SEP);
+        return Long.parseLong(separatorIndex == -1 ? id : id.substring(0, separatorIndex));
+    }
+
+    /**
+     * Updates the counts of documents and bytes indexed since the last commit
+     * and of documents indexed for the data source of the document.
+     *
+     * @param fields The document fields.
+     * @param size The size of the document content.
+     */
+    private void documentIndexed(Map<String, String> fields, long size) {
+        docsSinceCommit.incrementAndGet();
+        bytesSinceCommit.addAndGet(size);
+        long dataSourceId;
+        try {
+            dataSourceId = Long.parseLong(fields.get(Server.Schema.IMAGE_ID.toString()));
+        } catch (NumberFormatException ex) {
+            return;
+        }
+        AtomicLong count = indexedDocCounts.get(dataSourceId);
+        if (count == null) {
+            AtomicLong newCount = new AtomicLong(0);
+            count = indexedDocCounts.putIfAbsent(dataSourceId, newCount);
+            if (count == null) {
+                count = newCount;
+            }
         }
+        count.incrementAndGet();
+    }
+
+    /**
+     * Gets the number of documents added to the index since the last commit.
+     *
+     * @return The document count.
+     */
+    long getDocsSinceCommit() {
+        return docsSinceCommit.get();
+    }
+
+    /**
+     * Gets the number of bytes of text added to the index since the last
+     * commit.
+     *
+     * @return The byte count.
+     */
+    long getBytesSinceCommit() {
+        return bytesSinceCommit.get();
+    }
+
+    /**
+     * Gets the number of documents for a data source that were added to the
+     * index by this ingester and are visible to searches, i.e., that were
+     * added before the last successful commit. The count only grows, so a
+     * change in the count means that there is something new to search.
+     *
+     * @param dataSourceId The object id of the data source.
+     * @return The document count.
+     */
+    long getCommittedDocCount(long dataSourceId) {
+        Long count = committedDocCounts.get(dataSourceId);
+        return (count != null) ? count : 0;
+    }
+
+    /**
+     * Gets the ingest sequence number of the last document that is known to
+     * be visible to searches, i.e., that was added before the last successful
+     * commit. Documents with higher numbers may or may not be visible yet.
+     *
+     * @return The ingest sequence number.
+     */
+    long getCommittedSequence() {
+        return committedSequence;
+    }
+
+    /**
+     * Gets a chunk content buffer from the pool of buffers, or allocates a new
+     * buffer if the pool is empty.
+     *
+     * @return The buffer.
+     */
+    private byte[] borrowChunkBuffer() {
+        byte[] buffer = chunkBufferPool.poll();
+        return (buffer != null) ? buffer : new byte[MAX_DOC_CHUNK_SIZE];
+    }
+
+    /**
+     * Returns a chunk content buffer to the pool of buffers, unless the pool
+     * is full.
+     *
+     * @param buffer The buffer.
+     */
+    private void returnChunkBuffer(byte[] buffer) {
+        chunkBufferPool.offer(buffer);
+    }
 
+    /**
+     * Waits until all of the documents added so far have been sent to Solr.
+     * Only needed when batch indexing is enabled.
+     */
+    void flush() {
+        if (batchingIndexer != null) {
+            try {
+                batchingIndexer.flush();
+            } catch (InterruptedException ex) {
+                logger.log(Level.WARNING, "Interrupted while waiting for pending index batches to be sent", ex); //NON-NLS
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 
+    /**
+     * Gets and forgets the ids of files for which documents could not be
+     * added to the index by the batching indexer. Call flush() first to
+     * include the outcome of all of the documents added so far.
+     *
+     * @param sourceIds The ids of the files of interest.
+     * @return The subset of the ids for which indexing failed.
+     */
+    Set<Long> getFailedSourceIds(Set<Long> sourceIds) {
+        if (batchingIndexer != null) {
+            return batchingIndexer.getFailedSourceIds(sourceIds);
+        }
+        return new HashSet<>();
     }
 
     /**
@@ -380,6 +575,7 @@ private void ingestExtract(ContentStream cs, Map<String, String> fields, final l
                                         fields.get("id"), fields.get("file_name")), e); //NON-NLS
         }
         uncommitedIngests = true;
+        documentIndexed(fields, size);
     }
 
     /**
@@ -480,15 +676,44 @@ public void run() {
      * Tells Solr to commit (necessary before ingested files will appear in
      * searches)
      */
-    void commit() {
+    synchronized void commit() {
+        // Everything counted before the snapshot is sent by the flush, so the
+        // snapshot is a lower bound of what the commit makes searchable.
+        Map<Long, Long> indexedSnapshot = new HashMap<>();
+        long sequenceSnapshot;
+        long docs;
+        long bytes;
+        ingestSequenceLock.writeLock().lock();
+        try {
+            for (Entry<Long, AtomicLong> entry : indexedDocCounts.entrySet()) {
+                indexedSnapshot.put(entry.getKey(), entry.getValue().get());
+            }
+            sequenceSnapshot = ingestSequence.get();
+            docs = docsSinceCommit.getAndSet(0);
+            bytes = bytesSinceCommit.getAndSet(0);
+        } finally {
+            ingestSequenceLock.writeLock().unlock();
+        }
+        if (batchingIndexer != null) {
+            flush();
+            logger.log(Level.INFO, "Batch indexing metrics: {0}", batchingIndexer.getMetrics()); //NON-NLS
+        }
         try {
+            long start = System.currentTimeMillis();
             solrServer.commit();
             uncommitedIngests = false;
+            committedDocCounts.putAll(indexedSnapshot);
+            committedSequence = sequenceSnapshot;
+            logger.log(Level.INFO, "Committed {0} documents ({1} bytes) in {2} ms", new Object[]{docs, bytes, System.currentTimeMillis() - start}); //NON-NLS
+            return;
         } catch (NoOpenCoreException ex) {
             logger.log(Level.WARNING, "Error commiting index", ex); //NON-NLS
         } catch (SolrServerException ex) {
             logger.log(Level.WARNING, "Error commiting index", ex); //NON-NLS
         }
+        // The documents are still uncommitted.
+        docsSinceCommit.addAndGet(docs);
+        bytesSinceCommit.addAndGet(bytes);
     }
 
     /**
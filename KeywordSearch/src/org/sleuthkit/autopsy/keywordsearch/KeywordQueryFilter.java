@@ -18,6 +18,7 @@
  */
 package org.sleuthkit.autopsy.keywordsearch;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
@@ -26,12 +27,14 @@
  *
  * Filter to restrict query only specific files, chunks, images
  * Single filter supports multiple ids per file/chunk/image, that act as OR filter
+ * An ingest sequence filter restricts the query to documents indexed with an
+ * ingest sequence number not less than the given one
  */
 class KeywordQueryFilter {
 
     public static enum FilterType {
 
-        FILE, CHUNK, DATA_SOURCE
+        FILE, CHUNK, DATA_SOURCE, MIN_INGEST_SEQUENCE
     };
     private Set<Long>idFilters;
     private FilterType filterType;
@@ -60,6 +63,15 @@ public String toString() {
         StringBuilder sb = new StringBuilder();
         String id = null;
         
+        if (filterType == FilterType.MIN_INGEST_SEQUENCE) {
+            // range query with open upper bound, ids are not OR'ed
+            sb.append(Server.Schema.INGEST_SEQ.toString());
+            sb.append(":[");
+            sb.append(idFilters.isEmpty() ? "*" : Long.toString(Collections.min(idFilters))); //NON-NLS
+            sb.append(" TO *]"); //NON-NLS
+            return sb.toString();
+        }
+        
         Iterator<Long>it = idFilters.iterator();
         for (int i = 0; it.hasNext(); ++i) {
             if (i > 0) {
@@ -19,15 +19,19 @@
 package org.sleuthkit.autopsy.keywordsearch;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import org.openide.util.NbBundle;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.autopsy.coreutils.MessageNotifyUtil;
 import org.sleuthkit.autopsy.coreutils.StringExtract.StringExtractUnicodeTable.SCRIPT;
+import org.sleuthkit.autopsy.ingest.BlackboardArtifactWriter;
 import org.sleuthkit.autopsy.ingest.FileIngestModule;
 import org.sleuthkit.autopsy.ingest.IngestJobContext;
 import org.sleuthkit.autopsy.ingest.IngestMessage;
@@ -37,6 +41,7 @@
 import org.sleuthkit.autopsy.keywordsearch.Ingester.IngesterException;
 import org.sleuthkit.autopsy.modules.filetypeid.FileTypeDetector;
 import org.sleuthkit.datamodel.AbstractFile;
+import org.sleuthkit.datamodel.BlackboardArtifact;
 import org.sleuthkit.datamodel.BlackboardAttribute;
 import org.sleuthkit.datamodel.TskCoreException;
 import org.sleuthkit.datamodel.TskData;
@@ -99,6 +104,11 @@ private enum IngestStatus {
         SKIPPED_ERROR_IO    ///< File was skipped because of IO issues reading it
     };
     private static final Map<Long, Map<Long, IngestStatus>> ingestStatus = new HashMap<>(); //guarded by itself
+    private static final Map<Long, LiteralKeywordMatcher> literalMatchers = new HashMap<>(); //guarded by itself
+    private LiteralKeywordMatcher literalMatcher;
+    // keywords already matched in the file of the last matched chunk
+    private long literalMatchFileId = -1;
+    private final Set<LiteralKeywordMatcher.Target> literalMatchTargets = new HashSet<>();
    
     private static void putIngestStatus(long ingestJobId, long fileId, IngestStatus status) {
         synchronized(ingestStatus) {            
@@ -113,6 +123,52 @@ private static void putIngestStatus(long ingestJobId, long fileId, IngestStatus
         }
     }    
     
+    /**
+     * Gets the literal keyword matcher of an ingest job, building it from the
+     * keyword lists of the job if this is the first request for the job.
+     *
+     * @param ingestJobId The ingest job id.
+     * @param keywordListNames The names of the keyword lists of the job.
+     * @return The matcher, or null if the job has no literal keywords.
+     */
+    private static LiteralKeywordMatcher getOrCreateLiteralKeywordMatcher(long ingestJobId, List<String> keywordListNames) {
+        synchronized (literalMatchers) {
+            if (literalMatchers.containsKey(ingestJobId)) {
+                return literalMatchers.get(ingestJobId);
+            }
+            XmlKeywordSearchList loader = XmlKeywordSearchList.getCurrent();
+            List<KeywordList> keywordLists = new ArrayList<>();
+            for (String name : keywordListNames) {
+                KeywordList list = loader.getList(name);
+                if (list != null) {
+                    keywordLists.add(list);
+                }
+            }
+            final long start = System.currentTimeMillis();
+            LiteralKeywordMatcher matcher = new LiteralKeywordMatcher(keywordLists);
+            logger.log(Level.INFO, "Built literal keyword matcher for job {0} in {1} ms", new Object[]{ingestJobId, System.currentTimeMillis() - start}); //NON-NLS
+            if (matcher.isEmpty()) {
+                matcher = null;
+            }
+            literalMatchers.put(ingestJobId, matcher);
+            return matcher;
+        }
+    }
+
+    /**
+     * Gets the literal keyword matcher of an ingest job, so that the keywords
+     * it matches during indexing are not searched for in the index as well.
+     *
+     * @param ingestJobId The ingest job id.
+     * @return The matcher, or null if literal keywords are not matched during
+     * indexing for the job.
+     */
+    static LiteralKeywordMatcher getLiteralKeywordMatcher(long ingestJobId) {
+        synchronized (literalMatchers) {
+            return literalMatchers.get(ingestJobId);
+        }
+    }
+
     KeywordSearchIngestModule(KeywordSearchJobSettings settings) {
         this.settings = settings;
         instanceNum = instanceCount.getAndIncrement();
@@ -195,6 +251,10 @@ public void startUp(IngestJobContext context) throws IngestModuleException {
         textExtractors.add(new HtmlTextExtractor(this));
         textExtractors.add(new TikaTextExtractor(this));
         
+        if (KeywordSearchSettings.getMatchLiteralsDuringIndexing()) {
+            literalMatcher = getOrCreateLiteralKeywordMatcher(jobId, settings.getNamesOfEnabledKeyWordLists());
+        }
+        
         indexer = new Indexer();
         initialized = true;
     }
@@ -244,6 +304,9 @@ public void shutDown() {
             return;
         }
 
+        // Write the literal keyword hits that are still queued
+        services.getBlackboardArtifactWriter().flush();
+
         if (context.fileIngestIsCancelled()) {
             stop();
             return;
@@ -258,6 +321,9 @@ public void shutDown() {
             synchronized(ingestStatus) {
                 ingestStatus.remove(jobId);
             }            
+            synchronized(literalMatchers) {
+                literalMatchers.remove(jobId);
+            }
         }
         
         //log number of files / chunks in index
@@ -274,6 +340,86 @@ public void shutDown() {
         cleanup();
     }
 
+    /**
+     * Gets the ingest job context of this module, for use by its text
+     * extractors.
+     *
+     * @return The context.
+     */
+    IngestJobContext getContext() {
+        return context;
+    }
+
+    /**
+     * Indicates whether the literal keywords of the keyword lists of the job
+     * are matched against text chunks while they are indexed.
+     *
+     * @return True if literal keywords are matched during indexing.
+     */
+    boolean isMatchingLiteralKeywords() {
+        return literalMatcher != null;
+    }
+
+    /**
+     * Matches the literal keywords of the keyword lists of the job against a
+     * text chunk that has been indexed, if literal keywords are matched during
+     * indexing, and queues the hits of the chunk to be written to the
+     * blackboard in a batch with other artifacts. The ingest messages for the
+     * hits are posted once they are written. Called by the text extractors for
+     * each chunk.
+     *
+     * @param chunk The chunk.
+     * @param text The text of the chunk.
+     */
+    void matchLiteralKeywords(AbstractFileChunk chunk, String text) {
+        if (literalMatcher == null) {
+            return;
+        }
+        
+        // Only one hit per keyword per file is written, like with searches
+        final long fileId = chunk.getParent().getSourceFile().getId();
+        if (fileId != literalMatchFileId) {
+            literalMatchFileId = fileId;
+            literalMatchTargets.clear();
+        }
+        
+        List<LiteralKeywordMatcher.Match> newMatches = new ArrayList<>();
+        for (LiteralKeywordMatcher.Match match : literalMatcher.findMatches(text)) {
+            if (literalMatchTargets.add(match.getTarget())) {
+                newMatches.add(match);
+            }
+        }
+        if (newMatches.isEmpty()) {
+            return;
+        }
+
+        BlackboardArtifactWriter artifactWriter = services.getBlackboardArtifactWriter();
+        for (LiteralKeywordMatcher.Match match : newMatches) {
+            final LiteralKeywordMatcher.Target target = match.getTarget();
+            final KeywordHit hit;
+            try {
+                hit = new KeywordHit(chunk.getIdString(), LiteralKeywordMatcher.getSnippet(text, match));
+            } catch (TskCoreException ex) {
+                logger.log(Level.WARNING, "Error creating keyword hit for file " + fileId, ex); //NON-NLS
+                continue;
+            }
+            LuceneQuery query = new LuceneQuery(target.getList(), target.getKeyword());
+            final Collection<BlackboardAttribute> attributes = query.createHitAttributes(target.getKeyword().getQuery(), hit, hit.getSnippet(), target.getList().getName());
+            BlackboardArtifactWriter.ArtifactWrittenCallback onWritten = null;
+            if (target.getList().getIngestMessages()) {
+                onWritten = new BlackboardArtifactWriter.ArtifactWrittenCallback() {
+                    @Override
+                    public void artifactWritten(BlackboardArtifact artifact) {
+                        KeywordCachedArtifact written = new KeywordCachedArtifact(artifact);
+                        written.add(attributes);
+                        QueryResults.writeSingleFileInboxMessage(written, hit.getContent(), true);
+                    }
+                };
+            }
+            artifactWriter.addArtifact(KeywordSearchModuleFactory.getModuleName(), hit.getContent(), BlackboardArtifact.ARTIFACT_TYPE.TSK_KEYWORD_HIT, attributes, onWritten);
+        }
+    }
+
     /**
      * Handle stop event (ingest interrupted) Cleanup resources, threads, timers
      */
@@ -281,6 +427,9 @@ private void stop() {
         logger.log(Level.INFO, "stop()"); //NON-NLS
 
         SearchRunner.getInstance().stopJob(jobId);
+        synchronized(literalMatchers) {
+            literalMatchers.remove(jobId);
+        }
     
         cleanup();
     }
@@ -292,6 +441,8 @@ private void cleanup() {
         textExtractors.clear();
         textExtractors = null;
         stringExtractor = null;
+        literalMatcher = null;
+        literalMatchTargets.clear();
 
         initialized = false;
     }
@@ -307,8 +458,15 @@ private void postIndexSummary() {
         int error_index = 0;
         int error_io = 0;
 
+        // Documents may have been indexed asynchronously in batches, in which
+        // case indexing errors are collected per file after the fact.
+        ingester.flush();
         synchronized(ingestStatus) {
             Map<Long, IngestStatus> ingestStatusForJob = ingestStatus.get(jobId);
+            for (Long fileId : ingester.getFailedSourceIds(ingestStatusForJob.keySet())) {
+                logger.log(Level.WARNING, "Failed to index file with object id {0}", fileId); //NON-NLS
+                ingestStatusForJob.put(fileId, IngestStatus.SKIPPED_ERROR_INDEXING);
+            }
             for (IngestStatus s : ingestStatusForJob.values()) {
                 switch (s) {
                     case TEXT_INGESTED:
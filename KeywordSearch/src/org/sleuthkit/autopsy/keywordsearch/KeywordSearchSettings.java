@@ -40,6 +40,30 @@ class KeywordSearchSettings {
     static final String PROPERTIES_SCRIPTS = NbBundle.getMessage(KeywordSearchSettings.class, "KeywordSearchSettings.propertiesScripts.text", MODULE_NAME);
     static final String SHOW_SNIPPETS = "showSnippets"; //NON-NLS
     static final boolean DEFAULT_SHOW_SNIPPETS = true;
+    static final String BATCH_INDEXING = "BatchIndexing"; //NON-NLS
+    static final String INDEXING_BATCH_MAX_DOCUMENTS = "IndexingBatchMaxDocuments"; //NON-NLS
+    static final String INDEXING_BATCH_MAX_BYTES = "IndexingBatchMaxBytes"; //NON-NLS
+    static final String INDEXING_BATCH_MAX_DELAY_MS = "IndexingBatchMaxDelayMs"; //NON-NLS
+    static final String INDEXING_MAX_PENDING_BATCHES = "IndexingMaxPendingBatches"; //NON-NLS
+    static final String INDEXING_SENDER_THREADS = "IndexingSenderThreads"; //NON-NLS
+    static final boolean DEFAULT_BATCH_INDEXING = false;
+    static final int DEFAULT_INDEXING_BATCH_MAX_DOCUMENTS = 100;
+    static final int DEFAULT_INDEXING_BATCH_MAX_BYTES = 8 * 1024 * 1024;
+    static final int DEFAULT_INDEXING_BATCH_MAX_DELAY_MS = 2000;
+    static final int DEFAULT_INDEXING_MAX_PENDING_BATCHES = 4;
+    static final int DEFAULT_INDEXING_SENDER_THREADS = 2;
+    static final String MIN_COMMIT_INTERVAL_SECS = "MinCommitIntervalSecs"; //NON-NLS
+    static final String COMMIT_DOCUMENT_THRESHOLD = "CommitDocumentThreshold"; //NON-NLS
+    static final String COMMIT_BYTE_THRESHOLD = "CommitByteThreshold"; //NON-NLS
+    static final String MATCH_LITERALS_DURING_INDEXING = "MatchLiteralsDuringIndexing"; //NON-NLS
+    static final boolean DEFAULT_MATCH_LITERALS_DURING_INDEXING = false;
+    static final int DEFAULT_MIN_COMMIT_INTERVAL_SECS = 30;
+    static final int DEFAULT_COMMIT_DOCUMENT_THRESHOLD = 2000;
+    static final int DEFAULT_COMMIT_BYTE_THRESHOLD = 256 * 1024 * 1024;
+    static final String PARALLEL_STRING_EXTRACTION = "ParallelStringExtraction"; //NON-NLS
+    static final String STRING_EXTRACTION_THREADS = "StringExtractionThreads"; //NON-NLS
+    static final boolean DEFAULT_PARALLEL_STRING_EXTRACTION = false;
+    static final int DEFAULT_STRING_EXTRACTION_THREADS = Runtime.getRuntime().availableProcessors();
     private static boolean skipKnown = true;
     private static final Logger logger = Logger.getLogger(KeywordSearchSettings.class.getName());
     private static UpdateFrequency UpdateFreq = UpdateFrequency.DEFAULT;
@@ -141,6 +165,144 @@ static boolean getShowSnippets() {
         }
     }
 
+    /**
+     * Gets whether or not documents are sent to Solr in batches on sender
+     * threads instead of one at a time on the ingest threads.
+     *
+     * @return The batch indexing setting.
+     */
+    static boolean getBatchIndexing() {
+        if (ModuleSettings.settingExists(PROPERTIES_OPTIONS, BATCH_INDEXING)) {
+            return Boolean.parseBoolean(ModuleSettings.getConfigSetting(PROPERTIES_OPTIONS, BATCH_INDEXING));
+        } else {
+            return DEFAULT_BATCH_INDEXING;
+        }
+    }
+
+    static void setBatchIndexing(boolean batchIndexing) {
+        ModuleSettings.setConfigSetting(PROPERTIES_OPTIONS, BATCH_INDEXING, Boolean.toString(batchIndexing));
+    }
+
+    static int getIndexingBatchMaxDocuments() {
+        return getPositiveIntSetting(INDEXING_BATCH_MAX_DOCUMENTS, DEFAULT_INDEXING_BATCH_MAX_DOCUMENTS);
+    }
+
+    static int getIndexingBatchMaxBytes() {
+        return getPositiveIntSetting(INDEXING_BATCH_MAX_BYTES, DEFAULT_INDEXING_BATCH_MAX_BYTES);
+    }
+
+    static int getIndexingBatchMaxDelayMillis() {
+        return getPositiveIntSetting(INDEXING_BATCH_MAX_DELAY_MS, DEFAULT_INDEXING_BATCH_MAX_DELAY_MS);
+    }
+
+    static int getIndexingMaxPendingBatches() {
+        return getPositiveIntSetting(INDEXING_MAX_PENDING_BATCHES, DEFAULT_INDEXING_MAX_PENDING_BATCHES);
+    }
+
+    static int getIndexingSenderThreads() {
+        return getPositiveIntSetting(INDEXING_SENDER_THREADS, DEFAULT_INDEXING_SENDER_THREADS);
+    }
+
+    /**
+     * Gets whether or not the literal keywords of the keyword lists of an
+     * ingest job are matched against the text chunks while they are indexed,
+     * instead of being searched for in the index.
+     *
+     * @return The literal matching setting.
+     */
+    static boolean getMatchLiteralsDuringIndexing() {
+        if (ModuleSettings.settingExists(PROPERTIES_OPTIONS, MATCH_LITERALS_DURING_INDEXING)) {
+            return Boolean.parseBoolean(ModuleSettings.getConfigSetting(PROPERTIES_OPTIONS, MATCH_LITERALS_DURING_INDEXING));
+        } else {
+            return DEFAULT_MATCH_LITERALS_DURING_INDEXING;
+        }
+    }
+
+    static void setMatchLiteralsDuringIndexing(boolean matchLiterals) {
+        ModuleSettings.setConfigSetting(PROPERTIES_OPTIONS, MATCH_LITERALS_DURING_INDEXING, Boolean.toString(matchLiterals));
+    }
+
+    /**
+     * Gets whether or not the strings of large files are extracted in
+     * segments, in parallel, when extracting strings of scripts other than
+     * Latin.
+     *
+     * @return The parallel string extraction setting.
+     */
+    static boolean getParallelStringExtraction() {
+        if (ModuleSettings.settingExists(PROPERTIES_OPTIONS, PARALLEL_STRING_EXTRACTION)) {
+            return Boolean.parseBoolean(ModuleSettings.getConfigSetting(PROPERTIES_OPTIONS, PARALLEL_STRING_EXTRACTION));
+        } else {
+            return DEFAULT_PARALLEL_STRING_EXTRACTION;
+        }
+    }
+
+    static void setParallelStringExtraction(boolean parallelExtraction) {
+        ModuleSettings.setConfigSetting(PROPERTIES_OPTIONS, PARALLEL_STRING_EXTRACTION, Boolean.toString(parallelExtraction));
+    }
+
+    /**
+     * Gets the number of threads shared by all of the parallel string
+     * extractions.
+     *
+     * @return The number of threads.
+     */
+    static int getStringExtractionThreads() {
+        return getPositiveIntSetting(STRING_EXTRACTION_THREADS, DEFAULT_STRING_EXTRACTION_THREADS);
+    }
+
+    /**
+     * Gets the minimum time between index commits made during ingest. The
+     * maximum time is set by the update frequency.
+     *
+     * @return The minimum commit interval in seconds.
+     */
+    static int getMinCommitIntervalSecs() {
+        return getPositiveIntSetting(MIN_COMMIT_INTERVAL_SECS, DEFAULT_MIN_COMMIT_INTERVAL_SECS);
+    }
+
+    /**
+     * Gets the number of documents indexed since the last commit that causes
+     * an index commit once the minimum commit interval has passed.
+     *
+     * @return The document threshold.
+     */
+    static int getCommitDocumentThreshold() {
+        return getPositiveIntSetting(COMMIT_DOCUMENT_THRESHOLD, DEFAULT_COMMIT_DOCUMENT_THRESHOLD);
+    }
+
+    /**
+     * Gets the number of bytes of text indexed since the last commit that
+     * causes an index commit once the minimum commit interval has passed.
+     *
+     * @return The byte threshold.
+     */
+    static int getCommitByteThreshold() {
+        return getPositiveIntSetting(COMMIT_BYTE_THRESHOLD, DEFAULT_COMMIT_BYTE_THRESHOLD);
+    }
+
+    /**
+     * Gets a positive integer option, falling back to a default value if the
+     * option is not set or is not a positive integer.
+     *
+     * @param key The option name.
+     * @param defaultValue The default value.
+     * @return The option value.
+     */
+    private static int getPositiveIntSetting(String key, int defaultValue) {
+        if (ModuleSettings.settingExists(PROPERTIES_OPTIONS, key)) {
+            try {
+                int value = Integer.parseInt(ModuleSettings.getConfigSetting(PROPERTIES_OPTIONS, key));
+                if (value > 0) {
+                    return value;
+                }
+            } catch (NumberFormatException ex) {
+                logger.log(Level.WARNING, "Invalid value for property " + key + ", using default value", ex); //NON-NLS
+            }
+        }
+        return defaultValue;
+    }
+
     /**
      * gets the currently set scripts to use
      *
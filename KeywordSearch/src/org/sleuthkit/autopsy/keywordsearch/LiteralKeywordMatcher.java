@@ -0,0 +1,348 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2015 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.keywordsearch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Matches all of the literal keywords of a set of keyword lists against text
+ * in a single pass, using an Aho-Corasick automaton. Used to find literal
+ * keyword hits in text chunks while they are indexed, instead of running one
+ * index query per keyword.
+ *
+ * Matching is case-insensitive and treats all white space characters as a
+ * space. Keywords that are whole word keywords only match if they are not
+ * preceded or followed by a letter or a digit. This approximates the phrase
+ * queries that are otherwise run against the index.
+ *
+ * Instances are immutable once constructed and can be shared by threads.
+ */
+final class LiteralKeywordMatcher {
+
+    private static final int ROOT = 0;
+    private static final int NO_NODE = -1;
+    // same tags as the ones the highlighter uses for snippets
+    private static final String HIT_TAG = "&laquo;"; //NON-NLS
+    private final Map<String, Set<Keyword>> coveredKeywords = new HashMap<>();
+    private final List<List<Target>> patternTargets = new ArrayList<>();
+    private final int[] patternLengths;
+    // the automaton: a node's children are at edgeOffsets[node] to
+    // edgeOffsets[node + 1] in edgeLabels/edgeTargets, sorted by label
+    private final int[] rootTransitions;
+    private final int[] edgeOffsets;
+    private final char[] edgeLabels;
+    private final int[] edgeTargets;
+    private final int[] failureLinks;
+    private final int[] nodePatterns;
+    private final int[] outputLinks;
+
+    /**
+     * A keyword and the keyword list it came from.
+     */
+    static final class Target {
+
+        private final Keyword keyword;
+        private final KeywordList list;
+
+        private Target(Keyword keyword, KeywordList list) {
+            this.keyword = keyword;
+            this.list = list;
+        }
+
+        Keyword getKeyword() {
+            return keyword;
+        }
+
+        KeywordList getList() {
+            return list;
+        }
+    }
+
+    /**
+     * A keyword hit in a piece of text.
+     */
+    static final class Match {
+
+        private final Target target;
+        private final int start;
+        private final int end;
+
+        private Match(Target target, int start, int end) {
+            this.target = target;
+            this.start = start;
+            this.end = end;
+        }
+
+        Target getTarget() {
+            return target;
+        }
+
+        /**
+         * @return The index of the first character of the hit.
+         */
+        int getStart() {
+            return start;
+        }
+
+        /**
+         * @return The index following the last character of the hit.
+         */
+        int getEnd() {
+            return end;
+        }
+    }
+
+    /**
+     * Compiles the literal keywords of keyword lists into a matcher.
+     *
+     * @param keywordLists The keyword lists.
+     */
+    LiteralKeywordMatcher(List<KeywordList> keywordLists) {
+        // collect the distinct patterns and the keywords they stand for
+        Map<String, Integer> patternIds = new HashMap<>();
+        List<String> patterns = new ArrayList<>();
+        for (KeywordList list : keywordLists) {
+            for (Keyword keyword : list.getKeywords()) {
+                if (!keyword.isLiteral() || keyword.getQuery() == null || keyword.getQuery().trim().isEmpty()) {
+                    continue;
+                }
+                String pattern = normalize(keyword.getQuery());
+                Integer patternId = patternIds.get(pattern);
+                if (patternId == null) {
+                    patternId = patterns.size();
+                    patternIds.put(pattern, patternId);
+                    patterns.add(pattern);
+                    patternTargets.add(new ArrayList<Target>());
+                }
+                patternTargets.get(patternId).add(new Target(keyword, list));
+                Set<Keyword> listKeywords = coveredKeywords.get(list.getName());
+                if (listKeywords == null) {
+                    listKeywords = new HashSet<>();
+                    coveredKeywords.put(list.getName(), listKeywords);
+                }
+                listKeywords.add(keyword);
+            }
+        }
+        patternLengths = new int[patterns.size()];
+
+        // build the trie, with the children of a node in a linked list
+        int maxNodes = 1;
+        for (String pattern : patterns) {
+            maxNodes += pattern.length();
+        }
+        int[] firstChild = new int[maxNodes];
+        int[] nextSibling = new int[maxNodes];
+        char[] labels = new char[maxNodes];
+        int[] patternAtNode = new int[maxNodes];
+        Arrays.fill(firstChild, NO_NODE);
+        Arrays.fill(patternAtNode, NO_NODE);
+        int nodeCount = 1;
+        for (int patternId = 0; patternId < patterns.size(); ++patternId) {
+            String pattern = patterns.get(patternId);
+            patternLengths[patternId] = pattern.length();
+            int node = ROOT;
+            for (int i = 0; i < pattern.length(); ++i) {
+                char c = pattern.charAt(i);
+                int child = firstChild[node];
+                while (child != NO_NODE && labels[child] != c) {
+                    child = nextSibling[child];
+                }
+                if (child == NO_NODE) {
+                    child = nodeCount++;
+                    labels[child] = c;
+                    nextSibling[child] = firstChild[node];
+                    firstChild[node] = child;
+                }
+                node = child;
+            }
+            patternAtNode[node] = patternId;
+        }
+
+        // compact the children into sorted arrays
+        edgeOffsets = new int[nodeCount + 1];
+        edgeLabels = new char[nodeCount - 1];
+        edgeTargets = new int[nodeCount - 1];
+        int edgeCount = 0;
+        for (int node = 0; node < nodeCount; ++node) {
+            edgeOffsets[node] = edgeCount;
+            for (int child = firstChild[node]; child != NO_NODE; child = nextSibling[child]) {
+                // insertion sort, nodes have few children
+                int i = edgeCount++;
+                while (i > edgeOffsets[node] && edgeLabels[i - 1] > labels[child]) {
+                    edgeLabels[i] = edgeLabels[i - 1];
+                    edgeTargets[i] = edgeTargets[i - 1];
+                    --i;
+                }
+                edgeLabels[i] = labels[child];
+                edgeTargets[i] = child;
+            }
+        }
+        edgeOffsets[nodeCount] = edgeCount;
+        rootTransitions = new int[Character.MAX_VALUE + 1];
+        Arrays.fill(rootTransitions, NO_NODE);
+        for (int i = edgeOffsets[ROOT]; i < edgeOffsets[ROOT + 1]; ++i) {
+            rootTransitions[edgeLabels[i]] = edgeTargets[i];
+        }
+        nodePatterns = Arrays.copyOf(patternAtNode, nodeCount);
+
+        // compute the failure and output links breadth first
+        failureLinks = new int[nodeCount];
+        outputLinks = new int[nodeCount];
+        Arrays.fill(outputLinks, NO_NODE);
+        int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        for (int i = edgeOffsets[ROOT]; i < edgeOffsets[ROOT + 1]; ++i) {
+            failureLinks[edgeTargets[i]] = ROOT;
+            queue[tail++] = edgeTargets[i];
+        }
+        while (head < tail) {
+            int node = queue[head++];
+            for (int i = edgeOffsets[node]; i < edgeOffsets[node + 1]; ++i) {
+                int child = edgeTargets[i];
+                int fallback = failureLinks[node];
+                int failure;
+                while ((failure = getChild(fallback, edgeLabels[i])) == NO_NODE && fallback != ROOT) {
+                    fallback = failureLinks[fallback];
+                }
+                failure = (failure == NO_NODE || failure == child) ? ROOT : failure;
+                failureLinks[child] = failure;
+                outputLinks[child] = (nodePatterns[failure] != NO_NODE) ? failure : outputLinks[failure];
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    /**
+     * Indicates whether the matcher has any keywords to match.
+     *
+     * @return True if there are no keywords.
+     */
+    boolean isEmpty() {
+        return patternLengths.length == 0;
+    }
+
+    /**
+     * Indicates whether a keyword from a keyword list is matched by this
+     * matcher.
+     *
+     * @param keyword The keyword.
+     * @param listName The name of the keyword list.
+     * @return True if the keyword is matched by this matcher.
+     */
+    boolean covers(Keyword keyword, String listName) {
+        Set<Keyword> listKeywords = coveredKeywords.get(listName);
+        return (listKeywords != null) && listKeywords.contains(keyword);
+    }
+
+    /**
+     * Finds all of the keyword hits in a piece of text.
+     *
+     * @param text The text.
+     * @return The hits, in the order of their end positions.
+     */
+    List<Match> findMatches(CharSequence text) {
+        List<Match> matches = new ArrayList<>();
+        final int length = text.length();
+        int state = ROOT;
+        for (int i = 0; i < length; ++i) {
+            char c = normalize(text.charAt(i));
+            int next;
+            while ((next = getChild(state, c)) == NO_NODE && state != ROOT) {
+                state = failureLinks[state];
+            }
+            state = (next == NO_NODE) ? ROOT : next;
+            int node = (nodePatterns[state] != NO_NODE) ? state : outputLinks[state];
+            while (node != NO_NODE) {
+                int patternId = nodePatterns[node];
+                int start = i + 1 - patternLengths[patternId];
+                boolean onWordBoundaries = isWordBoundary(text, start - 1) && isWordBoundary(text, i + 1);
+                for (Target target : patternTargets.get(patternId)) {
+                    if (onWordBoundaries || !target.getKeyword().isWholeword()) {
+                        matches.add(new Match(target, start, i + 1));
+                    }
+                }
+                node = outputLinks[node];
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Makes a snippet for a hit that looks like the snippets made by the
+     * highlighter, i.e., a fragment of the text around the hit with the hit
+     * tagged.
+     *
+     * @param text The text that contains the hit.
+     * @param match The hit.
+     * @return The snippet.
+     */
+    static String getSnippet(CharSequence text, Match match) {
+        int context = Math.max(0, (LuceneQuery.SNIPPET_LENGTH - (match.getEnd() - match.getStart())) / 2);
+        int start = Math.max(0, match.getStart() - context);
+        int end = Math.min(text.length(), match.getEnd() + context);
+        StringBuilder snippet = new StringBuilder();
+        snippet.append(text, start, match.getStart());
+        snippet.append(HIT_TAG).append(text, match.getStart(), match.getEnd()).append(HIT_TAG);
+        snippet.append(text, match.getEnd(), end);
+        return snippet.toString().trim();
+    }
+
+    private int getChild(int node, char c) {
+        if (node == ROOT) {
+            return rootTransitions[c];
+        }
+        int low = edgeOffsets[node];
+        int high = edgeOffsets[node + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char label = edgeLabels[middle];
+            if (label < c) {
+                low = middle + 1;
+            } else if (label > c) {
+                high = middle - 1;
+            } else {
+                return edgeTargets[middle];
+            }
+        }
+        return NO_NODE;
+    }
+
+    private static boolean isWordBoundary(CharSequence text, int index) {
+        return index < 0 || index >= text.length() || !Character.isLetterOrDigit(text.charAt(index));
+    }
+
+    private static char normalize(char c) {
+        return Character.isWhitespace(c) ? ' ' : Character.toLowerCase(c);
+    }
+
+    private static String normalize(String s) {
+        char[] chars = s.trim().toCharArray();
+        for (int i = 0; i < chars.length; ++i) {
+            chars[i] = normalize(chars[i]);
+        }
+        return new String(chars);
+    }
+}
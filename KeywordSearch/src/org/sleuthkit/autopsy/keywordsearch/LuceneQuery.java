@@ -143,9 +143,6 @@ public boolean validate() {
 
     @Override
     public KeywordCachedArtifact writeSingleFileHitsToBlackBoard(String termHit, KeywordHit hit, String snippet, String listName) {
-        final String MODULE_NAME = KeywordSearchModuleFactory.getModuleName();
-
-        Collection<BlackboardAttribute> attributes = new ArrayList<>();
         BlackboardArtifact bba;
         KeywordCachedArtifact writeResult;
         try {
@@ -156,6 +153,32 @@ public KeywordCachedArtifact writeSingleFileHitsToBlackBoard(String termHit, Key
             return null;
         }
 
+        Collection<BlackboardAttribute> attributes = createHitAttributes(termHit, hit, snippet, listName);
+
+        try {
+            bba.addAttributes(attributes); //write out to bb
+            writeResult.add(attributes);
+            return writeResult;
+        } catch (TskException e) {
+            logger.log(Level.WARNING, "Error adding bb attributes to artifact", e); //NON-NLS
+        }
+        return null;
+    }
+
+    /**
+     * Creates the attributes of the keyword hit artifact for a hit of the
+     * keyword of this query.
+     *
+     * @param termHit The term that was hit.
+     * @param hit The hit.
+     * @param snippet The snippet of the hit, may be null.
+     * @param listName The name of the keyword list of the keyword, may be null.
+     * @return The attributes.
+     */
+    Collection<BlackboardAttribute> createHitAttributes(String termHit, KeywordHit hit, String snippet, String listName) {
+        final String MODULE_NAME = KeywordSearchModuleFactory.getModuleName();
+
+        Collection<BlackboardAttribute> attributes = new ArrayList<>();
         if (snippet != null) {
             attributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_KEYWORD_PREVIEW.getTypeID(), MODULE_NAME, snippet));
         }
@@ -177,15 +200,7 @@ public KeywordCachedArtifact writeSingleFileHitsToBlackBoard(String termHit, Key
         if (hit.isArtifactHit()) {
             attributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_ASSOCIATED_ARTIFACT.getTypeID(), MODULE_NAME, hit.getArtifact().getArtifactID()));
         }
-        
-        try {
-            bba.addAttributes(attributes); //write out to bb
-            writeResult.add(attributes);
-            return writeResult;
-        } catch (TskException e) {
-            logger.log(Level.WARNING, "Error adding bb attributes to artifact", e); //NON-NLS
-        }
-        return null;
+        return attributes;
     }
 
     /**
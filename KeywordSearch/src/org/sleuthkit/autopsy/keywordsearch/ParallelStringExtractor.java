@@ -0,0 +1,247 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2015 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.keywordsearch;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.logging.Level;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.autopsy.coreutils.StringExtract;
+import org.sleuthkit.autopsy.coreutils.StringExtract.StringExtractResult;
+import org.sleuthkit.autopsy.coreutils.StringExtract.StringExtractUnicodeTable.SCRIPT;
+import org.sleuthkit.autopsy.datamodel.ContentUtils;
+import org.sleuthkit.datamodel.AbstractFile;
+import org.sleuthkit.datamodel.TskCoreException;
+
+/**
+ * Extracts the strings of a large file in segments, in parallel, and hands the
+ * text of the segments back in file order.
+ *
+ * The file is read sequentially by the consumer, one window at a time, and
+ * the windows are scanned by a fork-join pool shared by all extractions. Each
+ * window is read together with the bytes that overlap the preceding and the
+ * following windows: the scan of a window starts in the preceding window, so
+ * that it is in step with the scan of the preceding bytes by the time it
+ * reaches the window, and it continues into the following window to complete
+ * strings that cross the end of the window. Only the strings that start in the
+ * window are kept. If the scan of a window did not fall in step in time, which
+ * shows up as a string that starts before the end of the last string kept, the
+ * window is scanned again from the end of that string.
+ *
+ * A string that starts in a window and ends in the overlap after it is kept
+ * whole, unlike at the buffer boundaries of a sequential extraction. A string
+ * that runs more than the overlap past the end of its window is split at the
+ * end of the overlap, and the rest of it is found by the scan of the
+ * following window.
+ *
+ * The number of windows in flight is bounded, and their buffers are reused,
+ * so the memory used does not depend on the size of the file.
+ */
+final class ParallelStringExtractor {
+
+    private static final Logger logger = Logger.getLogger(ParallelStringExtractor.class.getName());
+    private static final int WINDOW_SIZE = 1024 * 1024;
+    // must be even, to keep the alignment of UTF-16 strings
+    private static final int OVERLAP_SIZE = 64 * 1024;
+    private static final int MAX_WINDOWS_IN_FLIGHT = 4;
+    /**
+     * Files smaller than this are not worth splitting into windows.
+     */
+    static final long MIN_FILE_SIZE = 4L * WINDOW_SIZE;
+    private static ForkJoinPool extractionPool;
+    private static final ThreadLocal<StringExtract> workerExtractors = new ThreadLocal<StringExtract>() {
+        @Override
+        protected StringExtract initialValue() {
+            return new StringExtract();
+        }
+    };
+    private final AbstractFile file;
+    private final long fileSize;
+    private final List<SCRIPT> scripts;
+    private final boolean extractUTF8;
+    private final boolean extractUTF16;
+    private final StringExtract stitchExtractor;
+    private final Deque<ForkJoinTask<Window>> windowsInFlight = new ArrayDeque<>();
+    private final Deque<Window> freeWindows = new ArrayDeque<>();
+    private long nextWindowStart = 0;
+    private long lastStringEnd = 0;
+    private boolean readEOF = false;
+
+    /**
+     * Constructs an extractor of the strings of a file.
+     *
+     * @param file The file.
+     * @param scripts The scripts to extract.
+     * @param extractUTF8 Whether to extract UTF-8 strings.
+     * @param extractUTF16 Whether to extract UTF-16 strings.
+     */
+    ParallelStringExtractor(AbstractFile file, List<SCRIPT> scripts, boolean extractUTF8, boolean extractUTF16) {
+        this.file = file;
+        this.fileSize = file.getSize();
+        this.scripts = new ArrayList<>(scripts);
+        this.extractUTF8 = extractUTF8;
+        this.extractUTF16 = extractUTF16;
+        this.stitchExtractor = new StringExtract();
+        configure(stitchExtractor);
+    }
+
+    /**
+     * Gets the text of the strings of the next window of the file.
+     *
+     * @param out The buffer to append the text to.
+     * @return False if there are no more windows.
+     * @throws IOException if the extraction is interrupted.
+     */
+    boolean nextText(StringBuilder out) throws IOException {
+        submitWindows();
+        ForkJoinTask<Window> task = windowsInFlight.poll();
+        if (task == null) {
+            return false;
+        }
+        Window window;
+        try {
+            window = task.get();
+        } catch (InterruptedException ex) {
+            close();
+            throw new InterruptedIOException("Interrupted while extracting strings from " + file.getName()); //NON-NLS
+        } catch (ExecutionException ex) {
+            close();
+            throw new IOException("Error extracting strings from " + file.getName(), ex.getCause()); //NON-NLS
+        }
+
+        if (window.firstStringStart != -1 && window.firstStringStart < lastStringEnd) {
+            window.text.setLength(0);
+            window.scan(stitchExtractor, (int) (lastStringEnd - window.bufferStart));
+        }
+        out.append(window.text);
+        if (window.firstStringStart != -1) {
+            lastStringEnd = window.lastStringEnd;
+        }
+        freeWindows.push(window);
+        submitWindows();
+        return true;
+    }
+
+    /**
+     * Cancels the windows in flight.
+     */
+    void close() {
+        for (ForkJoinTask<Window> task : windowsInFlight) {
+            task.cancel(false);
+        }
+        windowsInFlight.clear();
+        freeWindows.clear();
+        readEOF = true;
+    }
+
+    /**
+     * Reads windows of the file and submits them for extraction, until the
+     * maximum number of windows is in flight or the whole file is read.
+     */
+    private void submitWindows() {
+        while (!readEOF && windowsInFlight.size() < MAX_WINDOWS_IN_FLIGHT) {
+            if (nextWindowStart >= fileSize) {
+                readEOF = true;
+                break;
+            }
+            Window window = freeWindows.isEmpty() ? new Window() : freeWindows.pop();
+            window.windowStart = nextWindowStart;
+            window.windowEnd = Math.min(nextWindowStart + WINDOW_SIZE, fileSize);
+            window.bufferStart = Math.max(0, window.windowStart - OVERLAP_SIZE);
+            int toRead = (int) (Math.min(window.windowEnd + OVERLAP_SIZE, fileSize) - window.bufferStart);
+            try {
+                window.length = ContentUtils.readFully(file, window.buffer, 0, window.bufferStart, toRead);
+            } catch (TskCoreException ex) {
+                logger.log(Level.WARNING, "Error reading " + file.getName() + " (id: " + file.getId() + ") at offset " + window.bufferStart, ex); //NON-NLS
+                window.length = 0;
+            }
+            if (window.length <= window.windowStart - window.bufferStart) {
+                readEOF = true;
+                break;
+            }
+            window.text.setLength(0);
+            windowsInFlight.add(getExtractionPool().submit(window));
+            nextWindowStart = window.windowEnd;
+        }
+    }
+
+    private void configure(StringExtract extractor) {
+        extractor.setEnabledScripts(scripts);
+        extractor.setEnableUTF8(extractUTF8);
+        extractor.setEnableUTF16(extractUTF16);
+    }
+
+    private static synchronized ForkJoinPool getExtractionPool() {
+        if (extractionPool == null) {
+            extractionPool = new ForkJoinPool(KeywordSearchSettings.getStringExtractionThreads());
+        }
+        return extractionPool;
+    }
+
+    /**
+     * A window of the file, with the overlapping bytes around it and the text
+     * of the strings that start in it.
+     */
+    private final class Window implements Callable<Window> {
+
+        private final byte[] buffer = new byte[WINDOW_SIZE + 2 * OVERLAP_SIZE];
+        private final StringBuilder text = new StringBuilder();
+        private int length;
+        private long bufferStart;
+        private long windowStart;
+        private long windowEnd;
+        private long firstStringStart;
+        private long lastStringEnd;
+
+        @Override
+        public Window call() {
+            StringExtract extractor = workerExtractors.get();
+            configure(extractor);
+            scan(extractor, 0);
+            return this;
+        }
+
+        /**
+         * Scans the buffer for the strings that start in the window.
+         *
+         * @param extractor The string extractor to use.
+         * @param scanStart The offset in the buffer to start scanning from.
+         */
+        private void scan(StringExtract extractor, int scanStart) {
+            int emitStart = (int) (windowStart - bufferStart);
+            int emitEnd = (int) (windowEnd - bufferStart);
+            StringExtractResult result = extractor.extract(buffer, length, scanStart, Math.max(scanStart, emitStart), emitEnd, text);
+            if (result.getStartOffset() == -1) {
+                firstStringStart = -1;
+                lastStringEnd = -1;
+            } else {
+                firstStringStart = bufferStart + result.getStartOffset();
+                lastStringEnd = bufferStart + result.getFirstUnprocessedOff();
+            }
+        }
+    }
+}
@@ -148,7 +148,7 @@ Collection<BlackboardArtifact> writeAllHitsToBlackBoard(ProgressHandle progress,
                     if (writeResult != null) {
                         newArtifacts.add(writeResult.getArtifact());
                         if (notifyInbox) {
-                            writeSingleFileInboxMessage(writeResult, hit.getContent()); 
+                            writeSingleFileInboxMessage(writeResult, hit.getContent(), keywordSearchQuery.isLiteral());
                         }
                     } else {
                         logger.log(Level.WARNING, "BB artifact for keyword hit not written, file: {0}, hit: {1}", new Object[]{hit.getContent(), keyword.toString()}); //NON-NLS
@@ -193,15 +193,16 @@ private Collection<KeywordHit> getOneHitPerObject(Keyword keyword) {
      *
      * @param written
      * @param hitFile
+     * @param literal Whether the keyword is a literal or a regular expression
      */
-    private void writeSingleFileInboxMessage(KeywordCachedArtifact written, Content hitContent) {
+    static void writeSingleFileInboxMessage(KeywordCachedArtifact written, Content hitContent, boolean literal) {
         StringBuilder subjectSb = new StringBuilder();
         StringBuilder detailsSb = new StringBuilder();
 
-        if (!keywordSearchQuery.isLiteral()) {
-            subjectSb.append(NbBundle.getMessage(this.getClass(), "KeywordSearchIngestModule.regExpHitLbl"));
+        if (!literal) {
+            subjectSb.append(NbBundle.getMessage(QueryResults.class, "KeywordSearchIngestModule.regExpHitLbl"));
         } else {
-            subjectSb.append(NbBundle.getMessage(this.getClass(), "KeywordSearchIngestModule.kwHitLbl"));
+            subjectSb.append(NbBundle.getMessage(QueryResults.class, "KeywordSearchIngestModule.kwHitLbl"));
         }
         String uniqueKey = null;
         BlackboardAttribute attr = written.getAttribute(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_KEYWORD.getTypeID());
@@ -215,7 +216,7 @@ private void writeSingleFileInboxMessage(KeywordCachedArtifact written, Content
         detailsSb.append("<table border='0' cellpadding='4' width='280'>"); //NON-NLS
         //hit
         detailsSb.append("<tr>"); //NON-NLS
-        detailsSb.append(NbBundle.getMessage(this.getClass(), "KeywordSearchIngestModule.kwHitThLbl"));
+        detailsSb.append(NbBundle.getMessage(QueryResults.class, "KeywordSearchIngestModule.kwHitThLbl"));
         detailsSb.append("<td>").append(EscapeUtil.escapeHtml(attr.getValueString())).append("</td>"); //NON-NLS
         detailsSb.append("</tr>"); //NON-NLS
 
@@ -223,14 +224,14 @@ private void writeSingleFileInboxMessage(KeywordCachedArtifact written, Content
         attr = written.getAttribute(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_KEYWORD_PREVIEW.getTypeID());
         if (attr != null) {
             detailsSb.append("<tr>"); //NON-NLS
-            detailsSb.append(NbBundle.getMessage(this.getClass(), "KeywordSearchIngestModule.previewThLbl"));
+            detailsSb.append(NbBundle.getMessage(QueryResults.class, "KeywordSearchIngestModule.previewThLbl"));
             detailsSb.append("<td>").append(EscapeUtil.escapeHtml(attr.getValueString())).append("</td>"); //NON-NLS
             detailsSb.append("</tr>"); //NON-NLS
         }
 
         //file
         detailsSb.append("<tr>"); //NON-NLS
-        detailsSb.append(NbBundle.getMessage(this.getClass(), "KeywordSearchIngestModule.fileThLbl"));
+        detailsSb.append(NbBundle.getMessage(QueryResults.class, "KeywordSearchIngestModule.fileThLbl"));
         if (hitContent instanceof AbstractFile) {
             AbstractFile hitFile = (AbstractFile)hitContent;
             detailsSb.append("<td>").append(hitFile.getParentPath()).append(hitFile.getName()).append("</td>"); //NON-NLS
@@ -243,16 +244,16 @@ private void writeSingleFileInboxMessage(KeywordCachedArtifact written, Content
         //list
         attr = written.getAttribute(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_SET_NAME.getTypeID());
         detailsSb.append("<tr>"); //NON-NLS
-        detailsSb.append(NbBundle.getMessage(this.getClass(), "KeywordSearchIngestModule.listThLbl"));
+        detailsSb.append(NbBundle.getMessage(QueryResults.class, "KeywordSearchIngestModule.listThLbl"));
         detailsSb.append("<td>").append(attr.getValueString()).append("</td>"); //NON-NLS
         detailsSb.append("</tr>"); //NON-NLS
 
         //regex
-        if (!keywordSearchQuery.isLiteral()) {
+        if (!literal) {
             attr = written.getAttribute(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_KEYWORD_REGEXP.getTypeID());
             if (attr != null) {
                 detailsSb.append("<tr>"); //NON-NLS
-                detailsSb.append(NbBundle.getMessage(this.getClass(), "KeywordSearchIngestModule.regExThLbl"));
+                detailsSb.append(NbBundle.getMessage(QueryResults.class, "KeywordSearchIngestModule.regExThLbl"));
                 detailsSb.append("<td>").append(attr.getValueString()).append("</td>"); //NON-NLS
                 detailsSb.append("</tr>"); //NON-NLS
             }
@@ -42,12 +42,17 @@
 import org.sleuthkit.autopsy.coreutils.StopWatch;
 import org.sleuthkit.autopsy.ingest.IngestMessage;
 import org.sleuthkit.autopsy.ingest.IngestServices;
+import org.sleuthkit.autopsy.keywordsearch.KeywordSearchIngestModule.UpdateFrequency;
 import org.sleuthkit.datamodel.BlackboardArtifact;
 
 /**
  * Singleton keyword search manager:
- * Launches search threads for each job and performs commits, both on timed 
- * intervals.
+ * Launches search threads for each job and performs commits. Commits are 
+ * scheduled adaptively: an update check runs on a short timed interval and
+ * commits once enough has been indexed since the last commit and the minimum
+ * commit interval has passed, or once the maximum interval (the update 
+ * frequency) has passed. A job is only searched again when a commit made new
+ * documents of its data source searchable.
  */
 public final class SearchRunner {
     private static final Logger logger = Logger.getLogger(SearchRunner.class.getName());
@@ -56,6 +61,8 @@ public final class SearchRunner {
     private Ingester ingester = null;
     private volatile boolean updateTimerRunning = false;
     private Timer updateTimer;
+    private static final long UPDATE_CHECK_INTERVAL_MS = 5000;
+    private volatile long lastCommitTime = 0;
     
     // maps a jobID to the search
     private Map<Long, SearchJobInfo> jobs = new HashMap<>(); //guarded by "this"
@@ -94,8 +101,8 @@ public synchronized void startJob(long jobId, long dataSourceId, List<String> ke
         
         // start the timer, if needed
         if ((jobs.size() > 0) && (updateTimerRunning == false)) {
-            final long updateIntervalMs = ((long)KeywordSearchSettings.getUpdateFrequency().getTime()) * 60 * 1000;
-            updateTimer.scheduleAtFixedRate(new UpdateTimerTask(), updateIntervalMs, updateIntervalMs);
+            lastCommitTime = System.currentTimeMillis();
+            updateTimer.schedule(new UpdateTimerTask(), UPDATE_CHECK_INTERVAL_MS, UPDATE_CHECK_INTERVAL_MS);
             updateTimerRunning = true;
         }
     }
@@ -172,10 +179,15 @@ public synchronized void addKeywordListsToAllJobs(List<String> keywordListNames)
      */
     private void commit() {
         ingester.commit();
+        lastCommitTime = System.currentTimeMillis();
 
         // Signal a potential change in number of text_ingested files
         try {
+            // The first query after a commit pays for opening and warming the
+            // new searcher, so its time is logged as the reopen time
+            final long queryStart = System.currentTimeMillis();
             final int numIndexedFiles = KeywordSearch.getServer().queryNumIndexedFiles();
+            logger.log(Level.INFO, "Searcher reopen after commit took {0} ms", System.currentTimeMillis() - queryStart); //NON-NLS
             KeywordSearch.fireNumIndexedFilesChange(null, numIndexedFiles);
         } catch (NoOpenCoreException | KeywordSearchModuleException ex) {
             logger.log(Level.WARNING, "Error executing Solr query to check number of indexed files: ", ex); //NON-NLS
@@ -210,10 +222,25 @@ private void doFinalSearch(SearchJobInfo job) {
     
    
     /**
-     * Timer triggered re-search for each job (does a single index commit first)
+     * Timer triggered update check: commits the index if the commit policy
+     * says so, then re-searches each job that has newly committed documents
      */
     private class UpdateTimerTask extends TimerTask {
         private final Logger logger = Logger.getLogger(SearchRunner.UpdateTimerTask.class.getName());
+        private final boolean periodicUpdates;
+        private final long minCommitIntervalMs;
+        private final long maxCommitIntervalMs;
+        private final long commitDocThreshold;
+        private final long commitByteThreshold;
+
+        UpdateTimerTask() {
+            final UpdateFrequency frequency = KeywordSearchSettings.getUpdateFrequency();
+            periodicUpdates = (frequency != UpdateFrequency.NONE);
+            maxCommitIntervalMs = ((long) frequency.getTime()) * 60 * 1000;
+            minCommitIntervalMs = Math.min(((long) KeywordSearchSettings.getMinCommitIntervalSecs()) * 1000, maxCommitIntervalMs);
+            commitDocThreshold = KeywordSearchSettings.getCommitDocumentThreshold();
+            commitByteThreshold = KeywordSearchSettings.getCommitByteThreshold();
+        }
 
         @Override
         public void run() {
@@ -224,14 +251,26 @@ public void run() {
                 return;
             }
             
-            commit();
+            if (!periodicUpdates) {
+                return;
+            }
+            
+            if (isCommitDue()) {
+                commit();
+            }
 
             synchronized(SearchRunner.this) {
                 // Spawn a search thread for each job
                 for(Entry<Long, SearchJobInfo> j : jobs.entrySet()) {
                     SearchJobInfo job = j.getValue();
-                    // If no lists or the worker is already running then skip it
+                    // If no lists, the worker is already running or there is 
+                    // nothing new to search then skip it
                     if (!job.getKeywordListNames().isEmpty() && !job.isWorkerRunning()) {
+                        final long committedDocCount = ingester.getCommittedDocCount(job.getDataSourceId());
+                        if (committedDocCount == job.getSearchedDocCount()) {
+                            continue;
+                        }
+                        job.setSearchedDocCount(committedDocCount);
                         Searcher searcher = new Searcher(job);
                         job.setCurrentSearcher(searcher); //save the ref
                         searcher.execute(); //start thread
@@ -240,6 +279,25 @@ public void run() {
                 }
             }
         }
+        
+        /**
+         * Decides whether to commit now, based on the time since the last
+         * commit and the amount of text indexed since then.
+         *
+         * @return True if a commit should be done.
+         */
+        private boolean isCommitDue() {
+            final long docs = ingester.getDocsSinceCommit();
+            if (docs == 0) {
+                return false;
+            }
+            final long elapsedMs = System.currentTimeMillis() - lastCommitTime;
+            if (elapsedMs >= maxCommitIntervalMs) {
+                return true;
+            }
+            return (elapsedMs >= minCommitIntervalMs) 
+                    && (docs >= commitDocThreshold || ingester.getBytesSinceCommit() >= commitByteThreshold);
+        }
     }    
     
     /**
@@ -253,8 +311,10 @@ private class SearchJobInfo {
         private volatile boolean workerRunning;
         private List<String> keywordListNames; //guarded by SearchJobInfo.this
         private Map<Keyword, List<Long>> currentResults; //guarded by SearchJobInfo.this
+        private Map<Keyword, Long> searchedSequences; //guarded by SearchJobInfo.this
         private SearchRunner.Searcher currentSearcher;
         private AtomicLong moduleReferenceCount = new AtomicLong(0);
+        private long searchedDocCount = 0; //guarded by SearchRunner.this
         private final Object finalSearchLock = new Object(); //used for a condition wait
 
         public SearchJobInfo(long jobId, long dataSourceId, List<String> keywordListNames) {
@@ -262,6 +322,7 @@ public SearchJobInfo(long jobId, long dataSourceId, List<String> keywordListName
             this.dataSourceId = dataSourceId;
             this.keywordListNames = new ArrayList<>(keywordListNames);
             currentResults = new HashMap<>();
+            searchedSequences = new HashMap<>();
             workerRunning = false;
             currentSearcher = null;
         }
@@ -292,6 +353,19 @@ public synchronized void addKeywordResults(Keyword k, List<Long> resultsIDs) {
             currentResults.put(k, resultsIDs);
         }
         
+        /**
+         * Gets the ingest sequence number up to which all of the documents
+         * have been searched for a keyword, or null if the keyword has not 
+         * been searched for yet in this job
+         */
+        public synchronized Long getSearchedSequence(Keyword k) {
+            return searchedSequences.get(k);
+        }
+
+        public synchronized void setSearchedSequence(Keyword k, long sequence) {
+            searchedSequences.put(k, sequence);
+        }
+        
         public boolean isWorkerRunning() {
             return workerRunning;
         }
@@ -308,6 +382,18 @@ public synchronized void setCurrentSearcher(SearchRunner.Searcher searchRunner)
             currentSearcher = searchRunner;
         }
         
+        /**
+         * Gets the committed document count of the data source as of the
+         * start of the last periodic search
+         */
+        public long getSearchedDocCount() {
+            return searchedDocCount;
+        }
+        
+        public void setSearchedDocCount(long count) {
+            searchedDocCount = count;
+        }
+        
         public void incrementModuleReferenceCount() {
             moduleReferenceCount.incrementAndGet();
         }
@@ -342,7 +428,9 @@ public void searchNotify() {
     /**
      * Searcher responsible for searching the current index and writing results
      * to blackboard and the inbox. Also, posts results to listeners as Ingest
-     * data events. Searches entire index, and keeps track of only new results
+     * data events. Searches the entire index for keywords that have not been
+     * searched for yet in the job, and only the documents indexed since the 
+     * last successful search for the others. Keeps track of only new results
      * to report and save. Runs as a background thread.
      */
     private final class Searcher extends SwingWorker<Object, Void> {
@@ -358,9 +446,12 @@ private final class Searcher extends SwingWorker<Object, Void> {
         private AggregateProgressHandle progressGroup;
         private final Logger logger = Logger.getLogger(SearchRunner.Searcher.class.getName());
         private boolean finalRun = false;
+        private final long committedSequence;
 
         Searcher(SearchJobInfo job) {
             this.job = job;
+            // everything up to here is visible to this search
+            committedSequence = ingester.getCommittedSequence();
             keywordListNames = job.getKeywordListNames();
             keywords = new ArrayList<>();
             keywordToList = new HashMap<>();
@@ -438,6 +529,13 @@ public boolean cancel() {
                     //set up a filter with 1 or more image ids OR'ed
                     final KeywordQueryFilter dataSourceFilter = new KeywordQueryFilter(KeywordQueryFilter.FilterType.DATA_SOURCE, job.getDataSourceId());
                     keywordSearchQuery.addFilter(dataSourceFilter);
+                    
+                    //limit search to documents indexed since the last search
+                    //for this keyword, if any
+                    final Long searchedSequence = job.getSearchedSequence(keywordQuery);
+                    if (searchedSequence != null) {
+                        keywordSearchQuery.addFilter(new KeywordQueryFilter(KeywordQueryFilter.FilterType.MIN_INGEST_SEQUENCE, searchedSequence + 1));
+                    }
 
                     QueryResults queryResults;
 
@@ -483,6 +581,8 @@ public boolean cancel() {
                         newArtifacts = newResults.writeAllHitsToBlackBoard(null, subProgresses[keywordsSearched], this, list.getIngestMessages());
                         
                     } //if has results
+                    
+                    job.setSearchedSequence(keywordQuery, committedSequence);
 
                     //reset the status text before it goes away
                     subProgresses[keywordsSearched].progress("");
@@ -529,6 +629,8 @@ protected void done() {
          */
         private void updateKeywords() {
             XmlKeywordSearchList loader = XmlKeywordSearchList.getCurrent();
+            // literal keywords matched during indexing are not searched for
+            LiteralKeywordMatcher literalMatcher = KeywordSearchIngestModule.getLiteralKeywordMatcher(job.getJobId());
 
             keywords.clear();
             keywordToList.clear();
@@ -538,6 +640,9 @@ private void updateKeywords() {
                 KeywordList list = loader.getList(name);
                 keywordLists.add(list);
                 for (Keyword k : list.getKeywords()) {
+                    if (literalMatcher != null && literalMatcher.covers(k, name)) {
+                        continue;
+                    }
                     keywords.add(k);
                     keywordToList.put(k.getQuery(), list);
                 }
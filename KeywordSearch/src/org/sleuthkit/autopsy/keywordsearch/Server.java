@@ -141,6 +141,12 @@ public String toString() {
                 return "num_chunks"; //NON-NLS
             }
         },
+        INGEST_SEQ {
+            @Override
+            public String toString() {
+                return "ingest_seq"; //NON-NLS
+            }
+        },
     };
     public static final String HL_ANALYZE_CHARS_UNLIMITED = "500000"; //max 1MB in a chunk. use -1 for unlimited, but -1 option may not be supported (not documented)
     //max content size we can send to Solr
@@ -619,6 +625,17 @@ void addDocument(SolrInputDocument doc) throws KeywordSearchModuleException {
         currentCore.addDocument(doc);
     }
 
+    /**
+     * Adds a batch of documents to the index in a single update request.
+     *
+     * @param docs The documents to add.
+     * @throws KeywordSearchModuleException if the documents could not be
+     * added.
+     */
+    void addDocuments(Collection<SolrInputDocument> docs) throws KeywordSearchModuleException {
+        currentCore.addDocuments(docs);
+    }
+
     /**
      * Get index dir location for the case
      *
@@ -1009,6 +1026,16 @@ private void commit() throws SolrServerException {
             }
         }
 
+        void addDocuments(Collection<SolrInputDocument> docs) throws KeywordSearchModuleException {
+            try {
+                solrCore.add(docs);
+            } catch (SolrServerException | IOException ex) {
+                logger.log(Level.SEVERE, "Could not add batch of " + docs.size() + " documents to index via update handler", ex); //NON-NLS
+                throw new KeywordSearchModuleException(
+                        NbBundle.getMessage(this.getClass(), "Server.addDocs.exception.msg", docs.size()), ex); //NON-NLS
+            }
+        }
+
         void addDocument(SolrInputDocument doc) throws KeywordSearchModuleException {
             try {
                 solrCore.add(doc);
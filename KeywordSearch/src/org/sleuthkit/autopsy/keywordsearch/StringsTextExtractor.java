@@ -119,8 +119,11 @@ public boolean index(AbstractFile sourceFile) throws IngesterException {
             //optimal for english, english only
             stringStream = new AbstractFileStringStream(sourceFile, INDEX_CHARSET);
         } else {
+            //extract the strings of large files in segments, in parallel, if enabled
+            final boolean parallel = KeywordSearchSettings.getParallelStringExtraction()
+                    && sourceFile.getSize() >= ParallelStringExtractor.MIN_FILE_SIZE;
             stringStream = new AbstractFileStringIntStream(
-                    sourceFile, extractScripts, extractUTF8, extractUTF16, INDEX_CHARSET);
+                    sourceFile, extractScripts, extractUTF8, extractUTF16, INDEX_CHARSET, parallel);
         }
 
 
@@ -139,6 +142,9 @@ public boolean index(AbstractFile sourceFile) throws IngesterException {
                 try {
                     chunk.index(ingester, stringChunkBuf, readSize + BOM_LEN, INDEX_CHARSET);
                     ++this.numChunks;
+                    if (module.isMatchingLiteralKeywords()) {
+                        module.matchLiteralKeywords(chunk, new String(stringChunkBuf, BOM_LEN, (int) readSize, INDEX_CHARSET));
+                    }
                 } catch (IngesterException ingEx) {
                     success = false;
                     logger.log(Level.WARNING, "Ingester had a problem with extracted strings from file '" + sourceFile.getName() + "' (id: " + sourceFile.getId() + ").", ingEx); //NON-NLS
@@ -38,7 +38,6 @@
 import org.openide.util.NbBundle;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.datamodel.AbstractFile;
-import org.sleuthkit.datamodel.ReadContentInputStream;
 import org.apache.tika.Tika;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
@@ -119,7 +118,7 @@ public boolean index(AbstractFile sourceFile) throws Ingester.IngesterException
 
         boolean success = false;
         Reader reader = null;
-        final InputStream stream = new ReadContentInputStream(sourceFile);
+        final InputStream stream = module.getContext().getFileContentInputStream(sourceFile);
         try {
             Metadata meta = new Metadata();
 
@@ -227,6 +226,7 @@ public boolean index(AbstractFile sourceFile) throws Ingester.IngesterException
                 try {
                     chunk.index(ingester, encodedBytes, encodedBytes.length, OUTPUT_CHARSET);
                     ++this.numChunks;
+                    module.matchLiteralKeywords(chunk, extracted);
                 } catch (Ingester.IngesterException ingEx) {
                     success = false;
                     logger.log(Level.WARNING, "Ingester had a problem with extracted strings from file '" //NON-NLS
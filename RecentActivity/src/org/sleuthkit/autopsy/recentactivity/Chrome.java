@@ -29,7 +29,6 @@
 import com.google.gson.JsonParser;
 import com.google.gson.JsonSyntaxException;
 import org.openide.util.NbBundle;
-import org.sleuthkit.autopsy.ingest.IngestServices;
 import org.sleuthkit.autopsy.datamodel.ContentUtils;
 import java.util.logging.Level;
 import java.util.*;
@@ -37,10 +36,10 @@
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.sql.SQLException;
 import org.sleuthkit.autopsy.casemodule.services.FileManager;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.autopsy.ingest.IngestJobContext;
-import org.sleuthkit.autopsy.ingest.ModuleDataEvent;
 import org.sleuthkit.datamodel.AbstractFile;
 import org.sleuthkit.datamodel.BlackboardArtifact;
 import org.sleuthkit.datamodel.BlackboardArtifact.ARTIFACT_TYPE;
@@ -132,36 +131,40 @@ private void getHistory() {
                 dbFile.delete();
                 break;
             }
-            List<HashMap<String, Object>> tempList;
-            tempList = this.dbConnect(temps, historyQuery);
-            logger.log(Level.INFO, "{0}- Now getting history from {1} with {2}artifacts identified.", new Object[]{moduleName, temps, tempList.size()}); //NON-NLS
-            for (HashMap<String, Object> result : tempList) {
-                Collection<BlackboardAttribute> bbattributes = new ArrayList<BlackboardAttribute>();
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         ((result.get("url").toString() != null) ? result.get("url").toString() : ""))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         (Long.valueOf(result.get("last_visit_time").toString()) / 1000000)- Long.valueOf("11644473600"))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_REFERRER.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         ((result.get("from_visit").toString() != null) ? result.get("from_visit").toString() : ""))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_TITLE.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         ((result.get("title").toString() != null) ? result.get("title").toString() : ""))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.moduleName")));
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         (Util.extractDomain((result.get("url").toString() != null) ? result.get("url").toString() : "")))); //NON-NLS
-                this.addArtifact(ARTIFACT_TYPE.TSK_WEB_HISTORY, historyFile, bbattributes);
+            logger.log(Level.INFO, "{0}- Now getting history from {1}", new Object[]{moduleName, temps}); //NON-NLS
+            try (SQLiteRowCursor cursor = SQLiteRowCursor.open(temps, historyQuery)) {
+                int urlColumn = cursor.getColumnIndex("url"); //NON-NLS
+                int lastVisitTimeColumn = cursor.getColumnIndex("last_visit_time"); //NON-NLS
+                int fromVisitColumn = cursor.getColumnIndex("from_visit"); //NON-NLS
+                int titleColumn = cursor.getColumnIndex("title"); //NON-NLS
+                while (cursor.next()) {
+                    String url = cursor.getString(urlColumn);
+                    Collection<BlackboardAttribute> bbattributes = new ArrayList<BlackboardAttribute>();
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"), url));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
+                                                             (cursor.getLong(lastVisitTimeColumn) / 1000000) - 11644473600L));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_REFERRER.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
+                                                             cursor.getString(fromVisitColumn)));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_TITLE.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
+                                                             cursor.getString(titleColumn)));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.moduleName")));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
+                                                             Util.extractDomain(url)));
+                    this.addArtifact(ARTIFACT_TYPE.TSK_WEB_HISTORY, historyFile, bbattributes);
+                }
+            } catch (SQLException ex) {
+                this.addDbQueryError(temps, ex);
             }
             dbFile.delete();
         }
 
-        IngestServices.getInstance().fireModuleDataEvent(new ModuleDataEvent(NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         BlackboardArtifact.ARTIFACT_TYPE.TSK_WEB_HISTORY));
     }
 
     /**
@@ -299,7 +302,6 @@ private void getBookmark() {
             dbFile.delete();
         }
 
-        IngestServices.getInstance().fireModuleDataEvent(new ModuleDataEvent(NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"), BlackboardArtifact.ARTIFACT_TYPE.TSK_WEB_BOOKMARK));
     }
 
     /**
@@ -346,37 +348,41 @@ private void getCookie() {
                 break;
             }
 
-            List<HashMap<String, Object>> tempList = this.dbConnect(temps, cookieQuery);
-            logger.log(Level.INFO, "{0}- Now getting cookies from {1} with {2}artifacts identified.", new Object[]{moduleName, temps, tempList.size()}); //NON-NLS
-            for (HashMap<String, Object> result : tempList) {
-                Collection<BlackboardAttribute> bbattributes = new ArrayList<BlackboardAttribute>();
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         ((result.get("host_key").toString() != null) ? result.get("host_key").toString() : ""))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         (Long.valueOf(result.get("last_access_utc").toString()) / 1000000)- Long.valueOf("11644473600"))); //NON-NLS
-                                                         
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_NAME.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         ((result.get("name").toString() != null) ? result.get("name").toString() : ""))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_VALUE.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         ((result.get("value").toString() != null) ? result.get("value").toString() : ""))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.moduleName")));
-                String domain = result.get("host_key").toString(); //NON-NLS
-                domain = domain.replaceFirst("^\\.+(?!$)", "");
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"), domain));
-                this.addArtifact(ARTIFACT_TYPE.TSK_WEB_COOKIE, cookiesFile, bbattributes);
+            logger.log(Level.INFO, "{0}- Now getting cookies from {1}", new Object[]{moduleName, temps}); //NON-NLS
+            try (SQLiteRowCursor cursor = SQLiteRowCursor.open(temps, cookieQuery)) {
+                int hostKeyColumn = cursor.getColumnIndex("host_key"); //NON-NLS
+                int lastAccessColumn = cursor.getColumnIndex("last_access_utc"); //NON-NLS
+                int nameColumn = cursor.getColumnIndex("name"); //NON-NLS
+                int valueColumn = cursor.getColumnIndex("value"); //NON-NLS
+                while (cursor.next()) {
+                    String hostKey = cursor.getString(hostKeyColumn);
+                    Collection<BlackboardAttribute> bbattributes = new ArrayList<BlackboardAttribute>();
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"), hostKey));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
+                                                             (cursor.getLong(lastAccessColumn) / 1000000) - 11644473600L));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_NAME.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
+                                                             cursor.getString(nameColumn)));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_VALUE.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
+                                                             cursor.getString(valueColumn)));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.moduleName")));
+                    String domain = hostKey.replaceFirst("^\\.+(?!$)", "");
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"), domain));
+                    this.addArtifact(ARTIFACT_TYPE.TSK_WEB_COOKIE, cookiesFile, bbattributes);
+                }
+            } catch (SQLException ex) {
+                this.addDbQueryError(temps, ex);
             }
 
             dbFile.delete();
         }
 
-        IngestServices.getInstance().fireModuleDataEvent(new ModuleDataEvent(NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"), BlackboardArtifact.ARTIFACT_TYPE.TSK_WEB_COOKIE));
     }
 
     /**
@@ -421,49 +427,43 @@ private void getDownload() {
                 break;
             }
 
-            List<HashMap<String, Object>> tempList;
-            
-            if (isChromePreVersion30(temps)) {
-                tempList = this.dbConnect(temps, downloadQuery);
-            } else {
-                tempList = this.dbConnect(temps, downloadQueryVersion30);
-            }
-            
-            logger.log(Level.INFO, "{0}- Now getting downloads from {1} with {2}artifacts identified.", new Object[]{moduleName, temps, tempList.size()}); //NON-NLS
-            for (HashMap<String, Object> result : tempList) {
-                Collection<BlackboardAttribute> bbattributes = new ArrayList<BlackboardAttribute>();
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PATH.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"), (result.get("full_path").toString()))); //NON-NLS
-                long pathID = Util.findID(dataSource, (result.get("full_path").toString())); //NON-NLS
-                if (pathID != -1) {
-                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PATH_ID.getTypeID(),
-                                                             NbBundle.getMessage(this.getClass(),
-                                                                                 "Chrome.parentModuleName"), pathID));
+            String query = isChromePreVersion30(temps) ? downloadQuery : downloadQueryVersion30;
+            logger.log(Level.INFO, "{0}- Now getting downloads from {1}", new Object[]{moduleName, temps}); //NON-NLS
+            try (SQLiteRowCursor cursor = SQLiteRowCursor.open(temps, query)) {
+                int fullPathColumn = cursor.getColumnIndex("full_path"); //NON-NLS
+                int urlColumn = cursor.getColumnIndex("url"); //NON-NLS
+                int startTimeColumn = cursor.getColumnIndex("start_time"); //NON-NLS
+                while (cursor.next()) {
+                    String fullPath = cursor.getString(fullPathColumn);
+                    String url = cursor.getString(urlColumn);
+                    Collection<BlackboardAttribute> bbattributes = new ArrayList<BlackboardAttribute>();
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PATH.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"), fullPath));
+                    long pathID = Util.findID(dataSource, fullPath);
+                    if (pathID != -1) {
+                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PATH_ID.getTypeID(),
+                                                                 NbBundle.getMessage(this.getClass(),
+                                                                                     "Chrome.parentModuleName"), pathID));
+                    }
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"), url));
+                    long time = (cursor.getLong(startTimeColumn) / 1000000) - 11644473600L;
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"), time));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"), Util.extractDomain(url)));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.moduleName")));
+                    this.addArtifact(ARTIFACT_TYPE.TSK_WEB_DOWNLOAD, downloadFile, bbattributes);
                 }
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         ((result.get("url").toString() != null) ? result.get("url").toString() : ""))); //NON-NLS
-                //bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL_DECODED.getTypeID(), "Recent Activity", ((result.get("url").toString() != null) ? EscapeUtil.decodeURL(result.get("url").toString()) : "")));
-                Long time = (Long.valueOf(result.get("start_time").toString()) / 1000000)- Long.valueOf("11644473600"); //NON-NLS
-                
-                //TODO Revisit usage of deprecated constructor as per TSK-583
-                //bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_LAST_ACCESSED.getTypeID(), "Recent Activity", "Last Visited", time));
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"), time));
-                String domain = Util.extractDomain((result.get("url").toString() != null) ? result.get("url").toString() : ""); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"), domain));
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.moduleName")));
-                this.addArtifact(ARTIFACT_TYPE.TSK_WEB_DOWNLOAD, downloadFile, bbattributes);
+            } catch (SQLException ex) {
+                this.addDbQueryError(temps, ex);
             }
 
             dbFile.delete();
         }
 
-        IngestServices.getInstance().fireModuleDataEvent(new ModuleDataEvent(NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         BlackboardArtifact.ARTIFACT_TYPE.TSK_WEB_DOWNLOAD));
     }
 
     /**
@@ -508,61 +508,56 @@ private void getLogin() {
                 dbFile.delete();
                 break;
             }
-            List<HashMap<String, Object>> tempList = this.dbConnect(temps, loginQuery);
-            logger.log(Level.INFO, "{0}- Now getting login information from {1} with {2}artifacts identified.", new Object[]{moduleName, temps, tempList.size()}); //NON-NLS
-            for (HashMap<String, Object> result : tempList) {
-                Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         ((result.get("origin_url").toString() != null) ? result.get("origin_url").toString() : ""))); //NON-NLS
-                //bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL_DECODED.getTypeID(), "Recent Activity", ((result.get("origin_url").toString() != null) ? EscapeUtil.decodeURL(result.get("origin_url").toString()) : "")));
-                //TODO Revisit usage of deprecated constructor as per TSK-583
-                //bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(), "Recent Activity", "Last Visited", ((Long.valueOf(result.get("last_visit_time").toString())) / 1000000)));
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         (Long.valueOf(result.get("last_visit_time").toString()) / 1000000)- Long.valueOf("11644473600"))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_REFERRER.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         ((result.get("from_visit").toString() != null) ? result.get("from_visit").toString() : ""))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_NAME.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         ((result.get("title").toString() != null) ? result.get("title").toString() : ""))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.moduleName")));
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL_DECODED.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         (Util.extractDomain((result.get("origin_url").toString() != null) ? result.get("url").toString() : "")))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_USER_NAME.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         ((result.get("username_value").toString() != null) ? result.get("username_value").toString().replaceAll("'", "''") : ""))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         result.get("signon_realm").toString())); //NON-NLS
-                this.addArtifact(ARTIFACT_TYPE.TSK_WEB_HISTORY, signonFile, bbattributes);
-                
-                Collection<BlackboardAttribute> osAcctAttributes = new ArrayList<>();
-                osAcctAttributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_USER_NAME.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
-                                                         ((result.get("username_value").toString() != null) ? result.get("username_value").toString().replaceAll("'", "''") : ""))); //NON-NLS
-                this.addArtifact(ARTIFACT_TYPE.TSK_OS_ACCOUNT, signonFile, osAcctAttributes);
+            logger.log(Level.INFO, "{0}- Now getting login information from {1}", new Object[]{moduleName, temps}); //NON-NLS
+            try (SQLiteRowCursor cursor = SQLiteRowCursor.open(temps, loginQuery)) {
+                int originUrlColumn = cursor.getColumnIndex("origin_url"); //NON-NLS
+                int userNameColumn = cursor.getColumnIndex("username_value"); //NON-NLS
+                int signonRealmColumn = cursor.getColumnIndex("signon_realm"); //NON-NLS
+                while (cursor.next()) {
+                    String originUrl = cursor.getString(originUrlColumn);
+                    String userName = cursor.getString(userNameColumn).replaceAll("'", "''");
+                    Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"), originUrl));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.moduleName")));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL_DECODED.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
+                                                             Util.extractDomain(originUrl)));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_USER_NAME.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"), userName));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"),
+                                                             cursor.getString(signonRealmColumn)));
+                    this.addArtifact(ARTIFACT_TYPE.TSK_WEB_HISTORY, signonFile, bbattributes);
+
+                    Collection<BlackboardAttribute> osAcctAttributes = new ArrayList<>();
+                    osAcctAttributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_USER_NAME.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"), userName));
+                    this.addArtifact(ARTIFACT_TYPE.TSK_OS_ACCOUNT, signonFile, osAcctAttributes);
+                }
+            } catch (SQLException ex) {
+                this.addDbQueryError(temps, ex);
             }
 
             dbFile.delete();
         }
 
-        IngestServices.getInstance().fireModuleDataEvent(new ModuleDataEvent(NbBundle.getMessage(this.getClass(), "Chrome.parentModuleName"), BlackboardArtifact.ARTIFACT_TYPE.TSK_WEB_HISTORY));
     }
 
     private boolean isChromePreVersion30(String temps) {
         String query = "PRAGMA table_info(downloads)"; //NON-NLS
-        List<HashMap<String, Object>> columns = this.dbConnect(temps, query);
-        for (HashMap<String, Object> col : columns) {
-            if (col.get("name").equals("url")) { //NON-NLS
-                return true;
+        try (SQLiteRowCursor cursor = SQLiteRowCursor.open(temps, query)) {
+            int nameColumn = cursor.getColumnIndex("name"); //NON-NLS
+            while (cursor.next()) {
+                if (cursor.getString(nameColumn).equals("url")) { //NON-NLS
+                    return true;
+                }
             }
+        } catch (SQLException ex) {
+            this.addDbQueryError(temps, ex);
         }
-        
         return false;
     }
 }
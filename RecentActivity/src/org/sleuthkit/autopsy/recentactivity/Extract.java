@@ -22,9 +22,6 @@
  */
 package org.sleuthkit.autopsy.recentactivity;
 
-import org.sleuthkit.autopsy.coreutils.SQLiteDBConnect;
-import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.*;
 import java.util.logging.Level;
@@ -33,6 +30,7 @@
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.autopsy.casemodule.Case;
 import org.sleuthkit.autopsy.ingest.IngestJobContext;
+import org.sleuthkit.autopsy.ingest.IngestServices;
 import org.sleuthkit.autopsy.ingest.IngestModule.IngestModuleException;
 import org.sleuthkit.datamodel.*;
 
@@ -41,7 +39,7 @@ abstract class Extract {
     protected Case currentCase = Case.getCurrentCase();
     protected SleuthkitCase tskCase = currentCase.getSleuthkitCase();
     private final Logger logger = Logger.getLogger(this.getClass().getName());
-    private final ArrayList<String> errorMessages = new ArrayList<>();
+    private final List<String> errorMessages = Collections.synchronizedList(new ArrayList<String>());
     String moduleName = "";
     boolean dataFound = false;
 
@@ -76,7 +74,9 @@ protected void addErrorMessage(String message) {
     }
 
     /**
-     * Generic method for adding a blackboard artifact to the blackboard
+     * Generic method for adding a blackboard artifact to the blackboard. The
+     * artifact is queued with the ingest services artifact writer, which
+     * writes it to the case database with others in a batch.
      *
      * @param type is a blackboard.artifact_type enum to determine which type
      * the artifact should be
@@ -86,64 +86,19 @@ protected void addErrorMessage(String message) {
      * to be added to the artifact after the artifact has been created
      */
     protected void addArtifact(BlackboardArtifact.ARTIFACT_TYPE type, AbstractFile content, Collection<BlackboardAttribute> bbattributes) {
-        try {
-            BlackboardArtifact bbart = content.newArtifact(type);
-            bbart.addAttributes(bbattributes);
-        } catch (TskException ex) {
-            logger.log(Level.SEVERE, "Error while trying to add an artifact", ex); //NON-NLS
-        }
+        IngestServices.getInstance().getBlackboardArtifactWriter().addArtifact(RecentActivityExtracterModuleFactory.getModuleName(), content, type, bbattributes);
     }
 
     /**
-     * Returns a List from a result set based on sql query. This is used to
-     * query sqlite databases storing user recent activity data, such as in
-     * firefox sqlite db
+     * Logs and reports an error opening or reading a sqlite db storing user
+     * recent activity data, such as a firefox sqlite db.
      *
      * @param path is the string path to the sqlite db file
-     * @param query is a sql string query that is to be run
-     * @return list is the ArrayList that contains the resultset information in
-     * it that the query obtained
+     * @param ex is the exception thrown
      */
-    protected List<HashMap<String, Object>> dbConnect(String path, String query) {
-        ResultSet temprs;
-        List<HashMap<String, Object>> list;
-        String connectionString = "jdbc:sqlite:" + path; //NON-NLS
-        try {
-            SQLiteDBConnect tempdbconnect = new SQLiteDBConnect("org.sqlite.JDBC", connectionString); //NON-NLS
-            temprs = tempdbconnect.executeQry(query);
-            list = this.resultSetToArrayList(temprs);
-            tempdbconnect.closeConnection();
-        } catch (SQLException ex) {
-            logger.log(Level.SEVERE, "Error while trying to read into a sqlite db." + connectionString, ex); //NON-NLS
-            errorMessages.add(NbBundle.getMessage(this.getClass(), "Extract.dbConn.errMsg.failedToQueryDb", getName()));
-            return Collections.<HashMap<String,Object>>emptyList();
-        }
-        return list;
-    }
-
-    /**
-     * Returns a List of AbstractFile objects from TSK based on sql query.
-     *
-     * @param rs is the resultset that needs to be converted to an arraylist
-     * @return list returns the arraylist built from the converted resultset
-     */
-    private List<HashMap<String, Object>> resultSetToArrayList(ResultSet rs) throws SQLException {
-        ResultSetMetaData md = rs.getMetaData();
-        int columns = md.getColumnCount();
-        List<HashMap<String, Object>> list = new ArrayList<>(50);
-        while (rs.next()) {
-            HashMap<String, Object> row = new HashMap<>(columns);
-            for (int i = 1; i <= columns; ++i) {
-                if (rs.getObject(i) == null) {
-                    row.put(md.getColumnName(i), "");
-                } else {
-                    row.put(md.getColumnName(i), rs.getObject(i));
-                }
-            }
-            list.add(row);
-        }
-
-        return list;
+    protected void addDbQueryError(String path, SQLException ex) {
+        logger.log(Level.SEVERE, "Error while trying to read into a sqlite db." + path, ex); //NON-NLS
+        errorMessages.add(NbBundle.getMessage(this.getClass(), "Extract.dbConn.errMsg.failedToQueryDb", getName()));
     }
 
     /**
@@ -46,8 +46,6 @@
 import org.openide.modules.InstalledFileLocator;
 import org.sleuthkit.autopsy.casemodule.Case;
 import org.sleuthkit.autopsy.datamodel.ContentUtils;
-import org.sleuthkit.autopsy.ingest.IngestServices;
-import org.sleuthkit.autopsy.ingest.ModuleDataEvent;
 import org.sleuthkit.datamodel.BlackboardArtifact;
 import org.sleuthkit.datamodel.BlackboardArtifact.ARTIFACT_TYPE;
 import org.sleuthkit.datamodel.BlackboardAttribute;
@@ -65,7 +63,6 @@
 class ExtractIE extends Extract {
 
     private static final Logger logger = Logger.getLogger(ExtractIE.class.getName());
-    private IngestServices services = IngestServices.getInstance();
     private String moduleTempResultsDir;
     private String PASCO_LIB_PATH;
     private String JAVA_PATH;
@@ -147,8 +144,6 @@ private void getBookmark() {
                             "ExtractIE.parentModuleName.noSpace"), domain));
             this.addArtifact(ARTIFACT_TYPE.TSK_WEB_BOOKMARK, fav, bbattributes);
         }
-        services.fireModuleDataEvent(new ModuleDataEvent(
-                NbBundle.getMessage(this.getClass(), "ExtractIE.parentModuleName"), BlackboardArtifact.ARTIFACT_TYPE.TSK_WEB_BOOKMARK));
     }
 
     private String getURLFromIEBookmarkFile(AbstractFile fav) {
@@ -255,8 +250,6 @@ private void getCookie() {
                             "ExtractIE.parentModuleName.noSpace"), domain));
             this.addArtifact(ARTIFACT_TYPE.TSK_WEB_COOKIE, cookiesFile, bbattributes);
         }
-        services.fireModuleDataEvent(new ModuleDataEvent(
-                NbBundle.getMessage(this.getClass(), "ExtractIE.parentModuleName"), BlackboardArtifact.ARTIFACT_TYPE.TSK_WEB_COOKIE));
     }
 
     /**
@@ -264,7 +257,6 @@ private void getCookie() {
      */
     private void getHistory() {
         logger.log(Level.INFO, "Pasco results path: {0}", moduleTempResultsDir); //NON-NLS
-        boolean foundHistory = false;
 
         final File pascoRoot = InstalledFileLocator.getDefault().locate("pasco2", ExtractIE.class.getPackage().getName(), false); //NON-NLS
         if (pascoRoot == null) {
@@ -337,7 +329,6 @@ private void getHistory() {
             //Now fetch the results, parse them and the delete the files.
             if (bPascProcSuccess) {
                 parsePascoOutput(indexFile, filename);
-                foundHistory = true;
 
                 //Delete index<n>.dat file since it was succcessfully by Pasco
                 datFile.delete();
@@ -348,10 +339,6 @@ private void getHistory() {
             }
         }
 
-        if (foundHistory) {
-            services.fireModuleDataEvent(new ModuleDataEvent(
-                    NbBundle.getMessage(this.getClass(), "ExtractIE.parentModuleName"), BlackboardArtifact.ARTIFACT_TYPE.TSK_WEB_HISTORY));
-        }
     }
 
     /**
@@ -488,42 +475,38 @@ private void parsePascoOutput(AbstractFile origFile, String pascoOutputFileName)
                 }
             }
 
-            try {
-                BlackboardArtifact bbart = origFile.newArtifact(ARTIFACT_TYPE.TSK_WEB_HISTORY);
-                Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(),
-                        NbBundle.getMessage(this.getClass(),
-                                "ExtractIE.parentModuleName.noSpace"), realurl));
-                //bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL_DECODED.getTypeID(), "RecentActivity", EscapeUtil.decodeURL(realurl)));
-
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(),
-                        NbBundle.getMessage(this.getClass(),
-                                "ExtractIE.parentModuleName.noSpace"), ftime));
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_REFERRER.getTypeID(),
-                        NbBundle.getMessage(this.getClass(),
-                                "ExtractIE.parentModuleName.noSpace"), ""));
-                // @@@ NOte that other browser modules are adding TITLE in hre for the title
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(),
-                        NbBundle.getMessage(this.getClass(),
-                                "ExtractIE.parentModuleName.noSpace"),
-                        NbBundle.getMessage(this.getClass(),
-                                "ExtractIE.moduleName.text")));
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(),
-                        NbBundle.getMessage(this.getClass(),
-                                "ExtractIE.parentModuleName.noSpace"), domain));
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_USER_NAME.getTypeID(),
-                        NbBundle.getMessage(this.getClass(),
-                                "ExtractIE.parentModuleName.noSpace"), user));
-                bbart.addAttributes(bbattributes);
-
-                if ((!user.isEmpty()) && (!reportedUserAccounts.contains(user))) {
-                    BlackboardArtifact osAttr = origFile.newArtifact(ARTIFACT_TYPE.TSK_OS_ACCOUNT);
-                    osAttr.addAttribute(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_USER_NAME.getTypeID(),
-                            NbBundle.getMessage(this.getClass(), "ExtractIE.parentModuleName.noSpace"), user));
-                    reportedUserAccounts.add(user);
-                }
-            } catch (TskCoreException ex) {
-                logger.log(Level.SEVERE, "Error writing Internet Explorer web history artifact to the blackboard.", ex); //NON-NLS
+            Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(),
+                    NbBundle.getMessage(this.getClass(),
+                            "ExtractIE.parentModuleName.noSpace"), realurl));
+            //bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL_DECODED.getTypeID(), "RecentActivity", EscapeUtil.decodeURL(realurl)));
+
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(),
+                    NbBundle.getMessage(this.getClass(),
+                            "ExtractIE.parentModuleName.noSpace"), ftime));
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_REFERRER.getTypeID(),
+                    NbBundle.getMessage(this.getClass(),
+                            "ExtractIE.parentModuleName.noSpace"), ""));
+            // @@@ NOte that other browser modules are adding TITLE in hre for the title
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(),
+                    NbBundle.getMessage(this.getClass(),
+                            "ExtractIE.parentModuleName.noSpace"),
+                    NbBundle.getMessage(this.getClass(),
+                            "ExtractIE.moduleName.text")));
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(),
+                    NbBundle.getMessage(this.getClass(),
+                            "ExtractIE.parentModuleName.noSpace"), domain));
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_USER_NAME.getTypeID(),
+                    NbBundle.getMessage(this.getClass(),
+                            "ExtractIE.parentModuleName.noSpace"), user));
+            this.addArtifact(ARTIFACT_TYPE.TSK_WEB_HISTORY, origFile, bbattributes);
+
+            if ((!user.isEmpty()) && (!reportedUserAccounts.contains(user))) {
+                Collection<BlackboardAttribute> osAcctAttributes = new ArrayList<>();
+                osAcctAttributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_USER_NAME.getTypeID(),
+                        NbBundle.getMessage(this.getClass(), "ExtractIE.parentModuleName.noSpace"), user));
+                this.addArtifact(ARTIFACT_TYPE.TSK_OS_ACCOUNT, origFile, osAcctAttributes);
+                reportedUserAccounts.add(user);
             }
         }
         fileScanner.close();
@@ -22,15 +22,21 @@
  */
 package org.sleuthkit.autopsy.recentactivity;
 
-import java.io.*;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.File;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.*;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import org.openide.modules.InstalledFileLocator;
 import org.openide.util.NbBundle;
 import org.sleuthkit.autopsy.coreutils.ExecUtil;
@@ -39,58 +45,34 @@
 import org.sleuthkit.autopsy.datamodel.ContentUtils;
 import org.sleuthkit.autopsy.ingest.DataSourceIngestModuleProcessTerminator;
 import org.sleuthkit.autopsy.ingest.IngestJobContext;
+import org.sleuthkit.autopsy.recentactivity.RegistryHive.Key;
 import org.sleuthkit.autopsy.recentactivity.UsbDeviceIdMapper.USBInfo;
 import org.sleuthkit.datamodel.*;
 import org.sleuthkit.datamodel.BlackboardArtifact.ARTIFACT_TYPE;
 import org.sleuthkit.datamodel.BlackboardAttribute.ATTRIBUTE_TYPE;
-import org.sleuthkit.datamodel.OSUtility; // TEMP
-import org.sleuthkit.autopsy.casemodule.Case;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
 /**
- * Extract windows registry data using regripper. Runs two versions of
- * regripper. One is the generally available set of plug-ins and the second is a
- * set that were customized for Autopsy to produce a more structured output of
- * XML so that we can parse and turn into blackboard artifacts.
+ * Extract windows registry data. The keys that Autopsy makes blackboard
+ * artifacts from are read directly from the hives with RegistryHive. The
+ * generally available set of regripper plug-ins can also be run on each hive,
+ * to produce a report of everything else. That takes a regripper process per
+ * hive, so it is only done if regripper is installed and the
+ * RegRipperFullReport setting is turned on.
  */
 class ExtractRegistry extends Extract {
 
     private Logger logger = Logger.getLogger(this.getClass().getName());
-    private String RR_PATH;
     private String RR_FULL_PATH;
-    private String rrHome;  // The current version of RegRipper need to be run from its own directory
     private String rrFullHome;
-    private boolean rrFound = false;    // true if we found the Autopsy-specific version of regripper
     private boolean rrFullFound = false; // true if we found the full version of regripper    
     private Content dataSource;
     private IngestJobContext context;
     final private static UsbDeviceIdMapper usbMapper = new UsbDeviceIdMapper();
+    private static final String[] OFFICE_VERSIONS = {"7.0", "8.0", "9.0", "10.0", "11.0", "12.0"}; //NON-NLS
+    private static final String[] OFFICE_2010_PROGRAMS = {"Word", "Excel", "Access", "PowerPoint"}; //NON-NLS
 
     ExtractRegistry() {
         moduleName = NbBundle.getMessage(ExtractIE.class, "ExtractRegistry.moduleName.text");
-        final File rrRoot = InstalledFileLocator.getDefault().locate("rr", ExtractRegistry.class.getPackage().getName(), false); //NON-NLS
-        if (rrRoot == null) {
-            logger.log(Level.SEVERE, "RegRipper not found"); //NON-NLS
-            rrFound = false;
-            return;
-        } else {
-            rrFound = true;
-        }
-
-        rrHome = rrRoot.getAbsolutePath();
-        logger.log(Level.INFO, "RegRipper home: {0}", rrHome); //NON-NLS
-
-        if (PlatformUtil.isWindowsOS()) {
-            RR_PATH = rrHome + File.separator + "rip.exe"; //NON-NLS
-        } else {
-            RR_PATH = "perl " + rrHome + File.separator + "rip.pl"; //NON-NLS
-        }
-
         final File rrFullRoot = InstalledFileLocator.getDefault().locate("rr-full", ExtractRegistry.class.getPackage().getName(), false); //NON-NLS
         if (rrFullRoot == null) {
             logger.log(Level.SEVERE, "RegRipper Full not found"); //NON-NLS
@@ -143,140 +125,164 @@ private List<AbstractFile> findRegistryFiles() {
     }
 
     /**
-     * Identifies registry files in the database by mtimeItem, runs regripper on
-     * them, and parses the output.
+     * Identifies registry files in the database by name and analyzes them,
+     * several at a time if the recent activity extracters are run in parallel.
      */
     private void analyzeRegistryFiles() {
         List<AbstractFile> allRegistryFiles = findRegistryFiles();
 
-        // open the log file
-        FileWriter logFile = null;
-        try {
-            logFile = new FileWriter(RAImageIngestModule.getRAOutputPath(currentCase, "reg") + File.separator + "regripper-info.txt"); //NON-NLS
-        } catch (IOException ex) {
+        // write the log file
+        try (FileWriter logFile = new FileWriter(RAImageIngestModule.getRAOutputPath(currentCase, "reg") + File.separator + "regripper-info.txt")) { //NON-NLS
+            for (int j = 0; j < allRegistryFiles.size(); j++) {
+                logFile.write(Integer.toString(j) + "\t" + allRegistryFiles.get(j).getUniquePath() + "\n");
+            }
+        } catch (TskCoreException | IOException ex) {
             logger.log(Level.SEVERE, null, ex);
         }
 
-        int j = 0;
-        for (AbstractFile regFile : allRegistryFiles) {
-            String regFileName = regFile.getName();
-            String regFileNameLocal = RAImageIngestModule.getRATempPath(currentCase, "reg") + File.separator + regFileName;
-            String outputPathBase = RAImageIngestModule.getRAOutputPath(currentCase, "reg") + File.separator + regFileName + "-regripper-" + Integer.toString(j++); //NON-NLS
-            File regFileNameLocalFile = new File(regFileNameLocal);
-            try {
-                ContentUtils.writeToFile(regFile, regFileNameLocalFile);
-            } catch (IOException ex) {
-                logger.log(Level.SEVERE, "Error writing the temp registry file. {0}", ex); //NON-NLS
-                this.addErrorMessage(
-                        NbBundle.getMessage(this.getClass(), "ExtractRegistry.analyzeRegFiles.errMsg.errWritingTemp",
-                                this.getName(), regFileName));
-                continue;
-            }
-
-            if (context.dataSourceIngestIsCancelled()) {
-                break;
-            }
-
-            try {
-                if (logFile != null) {
-                    logFile.write(Integer.toString(j - 1) + "\t" + regFile.getUniquePath() + "\n");
-                }
-            } catch (TskCoreException | IOException ex) {
-                logger.log(Level.SEVERE, null, ex);
-            }
-
-            logger.log(Level.INFO, "{0}- Now getting registry information from {1}", new Object[]{moduleName, regFileNameLocal}); //NON-NLS
-            RegOutputFiles regOutputFiles = ripRegistryFile(regFileNameLocal, outputPathBase);
-            if (context.dataSourceIngestIsCancelled()) {
-                break;
+        if (!RecentActivitySettings.getParallelExtraction() || allRegistryFiles.size() < 2) {
+            for (int j = 0; j < allRegistryFiles.size() && !context.dataSourceIngestIsCancelled(); j++) {
+                analyzeRegistryFile(allRegistryFiles.get(j), j);
             }
+            return;
+        }
 
-            // parse the autopsy-specific output
-            if (regOutputFiles.autopsyPlugins.isEmpty() == false) {
-                if (parseAutopsyPluginOutput(regOutputFiles.autopsyPlugins, regFile) == false) {
-                    this.addErrorMessage(
-                            NbBundle.getMessage(this.getClass(), "ExtractRegistry.analyzeRegFiles.failedParsingResults",
-                                    this.getName(), regFileName));
-                }
+        ExecutorService hivePool = Executors.newFixedThreadPool(Math.min(RecentActivitySettings.getExtractionThreads(), allRegistryFiles.size()),
+                new ThreadFactoryBuilder().setNameFormat("RA-registry-%d").setDaemon(true).build()); //NON-NLS
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int j = 0; j < allRegistryFiles.size(); j++) {
+                final AbstractFile regFile = allRegistryFiles.get(j);
+                final int fileNumber = j;
+                futures.add(hivePool.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        if (!context.dataSourceIngestIsCancelled()) {
+                            analyzeRegistryFile(regFile, fileNumber);
+                        }
+                        return null;
+                    }
+                }));
             }
-
-            // create a report for the full output
-            if (regOutputFiles.fullPlugins.isEmpty() == false) {
+            for (Future<Void> future : futures) {
                 try {
-                    currentCase.addReport(regOutputFiles.fullPlugins, NbBundle.getMessage(this.getClass(), "ExtractRegistry.parentModuleName.noSpace"), "RegRipper " + regFile.getUniquePath()); //NON-NLS
-                } catch (TskCoreException e) {
-                    this.addErrorMessage("Error adding regripper output as Autopsy report: " + e.getLocalizedMessage()); //NON-NLS
+                    future.get();
+                } catch (ExecutionException ex) {
+                    logger.log(Level.SEVERE, "Error analyzing registry file", ex); //NON-NLS
                 }
             }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            hivePool.shutdownNow();
+        }
+    }
 
-            // delete the hive
-            regFileNameLocalFile.delete();
+    /**
+     * Makes blackboard artifacts from a registry file, and runs regripper on
+     * it to make a report if the full report is turned on.
+     *
+     * @param regFile The registry file.
+     * @param fileNumber The number of the file in the regripper-info.txt log.
+     */
+    private void analyzeRegistryFile(AbstractFile regFile, int fileNumber) {
+        String regFileName = regFile.getName();
+        String hiveType = getHiveType(regFileName);
+        if (hiveType == null || context.dataSourceIngestIsCancelled()) {
+            return;
         }
 
+        logger.log(Level.INFO, "{0}- Now getting registry information from {1}", new Object[]{moduleName, regFileName}); //NON-NLS
         try {
-            if (logFile != null) {
-                logFile.close();
+            RegistryHive hive = RegistryHive.open(regFile);
+            switch (hiveType) {
+                case "system": //NON-NLS
+                    parseSystemHive(hive.getRootKey(), regFile);
+                    break;
+                case "software": //NON-NLS
+                    parseSoftwareHive(hive.getRootKey(), regFile);
+                    break;
+                case "ntuser": //NON-NLS
+                    parseNtuserHive(hive.getRootKey(), regFile);
+                    break;
+                default:
+                    break;
             }
-        } catch (IOException ex) {
-            logger.log(Level.SEVERE, null, ex);
+        } catch (IOException | RuntimeException ex) {
+            logger.log(Level.SEVERE, "Error parsing registry file " + regFileName + " (id: " + regFile.getId() + ")", ex); //NON-NLS
+            this.addErrorMessage(
+                    NbBundle.getMessage(this.getClass(), "ExtractRegistry.analyzeRegFiles.failedParsingResults",
+                            this.getName(), regFileName));
+        }
+        if (context.dataSourceIngestIsCancelled()) {
+            return;
         }
-    }
-
-    private class RegOutputFiles {
 
-        public String autopsyPlugins = "";
-        public String fullPlugins = "";
+        // run the full set of rr modules and create a report for the output
+        if (rrFullFound && RecentActivitySettings.getRegRipperFullReport()) {
+            writeRegRipperReport(regFile, hiveType, fileNumber);
+        }
     }
 
     /**
-     * Execute regripper on the given registry.
+     * Copies a registry file to the temp directory and runs the full set of
+     * regripper plug-ins on the copy to make a report.
      *
-     * @param regFilePath Path to local copy of registry
-     * @param outFilePathBase Path to location to save output file to. Base
-     * mtimeItem that will be extended on
+     * @param regFile The registry file.
+     * @param hiveType The type of the hive.
+     * @param fileNumber The number of the file in the regripper-info.txt log.
      */
-    private RegOutputFiles ripRegistryFile(String regFilePath, String outFilePathBase) {
-        String autopsyType = "";    // Type argument for rr for autopsy-specific modules
-        String fullType;   // Type argument for rr for full set of modules
-
-        RegOutputFiles regOutputFiles = new RegOutputFiles();
-
-        if (regFilePath.toLowerCase().contains("system")) { //NON-NLS
-            autopsyType = "autopsysystem"; //NON-NLS
-            fullType = "system"; //NON-NLS
-        } else if (regFilePath.toLowerCase().contains("software")) { //NON-NLS
-            autopsyType = "autopsysoftware"; //NON-NLS
-            fullType = "software"; //NON-NLS
-        } else if (regFilePath.toLowerCase().contains("ntuser")) { //NON-NLS
-            autopsyType = "autopsyntuser"; //NON-NLS
-            fullType = "ntuser"; //NON-NLS
-        } else if (regFilePath.toLowerCase().contains("sam")) { //NON-NLS
-            fullType = "sam"; //NON-NLS
-        } else if (regFilePath.toLowerCase().contains("security")) { //NON-NLS
-            fullType = "security"; //NON-NLS
-        } else {
-            return regOutputFiles;
+    private void writeRegRipperReport(AbstractFile regFile, String hiveType, int fileNumber) {
+        String regFileName = regFile.getName();
+        String regFileNameLocal = RAImageIngestModule.getRATempPath(currentCase, "reg") + File.separator + regFileName + "-" + fileNumber; //NON-NLS
+        String outputPathBase = RAImageIngestModule.getRAOutputPath(currentCase, "reg") + File.separator + regFileName + "-regripper-" + Integer.toString(fileNumber); //NON-NLS
+        File regFileNameLocalFile = new File(regFileNameLocal);
+        try {
+            ContentUtils.writeToFile(regFile, regFileNameLocalFile);
+        } catch (IOException ex) {
+            logger.log(Level.SEVERE, "Error writing the temp registry file. {0}", ex); //NON-NLS
+            this.addErrorMessage(
+                    NbBundle.getMessage(this.getClass(), "ExtractRegistry.analyzeRegFiles.errMsg.errWritingTemp",
+                            this.getName(), regFileName));
+            return;
         }
 
-        // run the autopsy-specific set of modules
-        if (!autopsyType.isEmpty() && rrFound) {
-            regOutputFiles.autopsyPlugins = outFilePathBase + "-autopsy.txt"; //NON-NLS
-            String errFilePath = outFilePathBase + "-autopsy.err.txt"; //NON-NLS
-            logger.log(Level.INFO, "Writing RegRipper results to: {0}", regOutputFiles.autopsyPlugins); //NON-NLS
-            executeRegRipper(RR_PATH, rrHome, regFilePath, autopsyType, regOutputFiles.autopsyPlugins, errFilePath);
-        }
-        if (context.dataSourceIngestIsCancelled()) {
-            return regOutputFiles;
+        try {
+            String fullPlugins = outputPathBase + "-full.txt"; //NON-NLS
+            String errFilePath = outputPathBase + "-full.err.txt"; //NON-NLS
+            logger.log(Level.INFO, "Writing Full RegRipper results to: {0}", fullPlugins); //NON-NLS
+            executeRegRipper(RR_FULL_PATH, rrFullHome, regFileNameLocal, hiveType, fullPlugins, errFilePath);
+            try {
+                currentCase.addReport(fullPlugins, NbBundle.getMessage(this.getClass(), "ExtractRegistry.parentModuleName.noSpace"), "RegRipper " + regFile.getUniquePath()); //NON-NLS
+            } catch (TskCoreException e) {
+                this.addErrorMessage("Error adding regripper output as Autopsy report: " + e.getLocalizedMessage()); //NON-NLS
+            }
+        } finally {
+            // delete the hive
+            regFileNameLocalFile.delete();
         }
+    }
 
-        // run the full set of rr modules
-        if (!fullType.isEmpty() && rrFullFound) {
-            regOutputFiles.fullPlugins = outFilePathBase + "-full.txt"; //NON-NLS
-            String errFilePath = outFilePathBase + "-full.err.txt"; //NON-NLS
-            logger.log(Level.INFO, "Writing Full RegRipper results to: {0}", regOutputFiles.fullPlugins); //NON-NLS
-            executeRegRipper(RR_FULL_PATH, rrFullHome, regFilePath, fullType, regOutputFiles.fullPlugins, errFilePath);
+    /**
+     * Gets the type of a registry hive from its file name.
+     *
+     * @return The type, which is also the regripper profile for the hive, or
+     * null if the file is not a hive we know.
+     */
+    private static String getHiveType(String regFileName) {
+        String name = regFileName.toLowerCase();
+        if (name.contains("system")) { //NON-NLS
+            return "system"; //NON-NLS
+        } else if (name.contains("software")) { //NON-NLS
+            return "software"; //NON-NLS
+        } else if (name.contains("ntuser")) { //NON-NLS
+            return "ntuser"; //NON-NLS
+        } else if (name.contains("sam")) { //NON-NLS
+            return "sam"; //NON-NLS
+        } else if (name.contains("security")) { //NON-NLS
+            return "security"; //NON-NLS
         }
-        return regOutputFiles;
+        return null;
     }
 
     private void executeRegRipper(String regRipperPath, String regRipperHomeDir, String hiveFilePath, String hiveFileType, String outputFile, String errFile) {
@@ -300,380 +306,291 @@ private void executeRegRipper(String regRipperPath, String regRipperHomeDir, Str
         }
     }
 
-    // @@@ VERIFY that we are doing the right thing when we parse multiple NTUSER.DAT
     /**
+     * Gets the current control set key of a SYSTEM hive.
      *
-     * @param regFilePath Path to the output file produced by RegRipper.
-     * @param regFile File object for registry that we are parsing (to make
-     * blackboard artifacts with)
-     * @return
+     * @return The key, or null if the hive has none.
      */
-    private boolean parseAutopsyPluginOutput(String regFilePath, AbstractFile regFile) {
-        FileInputStream fstream = null;
-        try {
-            SleuthkitCase tempDb = currentCase.getSleuthkitCase();
-
-            // Read the file in and create a Document and elements
-            File regfile = new File(regFilePath);
-            fstream = new FileInputStream(regfile);
-
-            String regString = new Scanner(fstream, "UTF-8").useDelimiter("\\Z").next(); //NON-NLS
-            String startdoc = "<?xml version=\"1.0\"?><document>"; //NON-NLS
-            String result = regString.replaceAll("----------------------------------------", "");
-            result = result.replaceAll("\\n", ""); //NON-NLS
-            result = result.replaceAll("\\r", ""); //NON-NLS
-            result = result.replaceAll("'", "&apos;"); //NON-NLS
-            result = result.replaceAll("&", "&amp;"); //NON-NLS
-            result = result.replace('\0', ' '); // NON-NLS
-            String enddoc = "</document>"; //NON-NLS
-            String stringdoc = startdoc + result + enddoc;
-            DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-            Document doc = builder.parse(new InputSource(new StringReader(stringdoc)));
-
-            // cycle through the elements in the doc
-            Element oroot = doc.getDocumentElement();
-            NodeList children = oroot.getChildNodes();
-            int len = children.getLength();
-            for (int i = 0; i < len; i++) {
-                Element tempnode = (Element) children.item(i);
-
-                String dataType = tempnode.getNodeName();
-
-                NodeList timenodes = tempnode.getElementsByTagName("mtime"); //NON-NLS
-                Long mtime = null;
-                if (timenodes.getLength() > 0) {
-                    Element timenode = (Element) timenodes.item(0);
-                    String etime = timenode.getTextContent();
-                    try {
-                        Long epochtime = new SimpleDateFormat("EEE MMM d HH:mm:ss yyyy").parse(etime).getTime();
-                        mtime = epochtime;
-                        String Tempdate = mtime.toString();
-                        mtime = Long.valueOf(Tempdate) / 1000;
-                    } catch (ParseException ex) {
-                        logger.log(Level.WARNING, "Failed to parse epoch time when parsing the registry."); //NON-NLS
-                    }
-                }
-
-                NodeList artroots = tempnode.getElementsByTagName("artifacts"); //NON-NLS
-                if (artroots.getLength() == 0) {
-                    // If there isn't an artifact node, skip this entry
-                    continue;
-                }
+    private static Key getCurrentControlSet(Key root) throws IOException {
+        Key select = root.getSubkey("Select"); //NON-NLS
+        if (select == null || select.getValue("Current") == null) { //NON-NLS
+            return null;
+        }
+        return root.getSubkey(String.format("ControlSet%03d", select.getValue("Current").getLong())); //NON-NLS
+    }
 
-                Element artroot = (Element) artroots.item(0);
-                NodeList myartlist = artroot.getChildNodes();
-                String parentModuleName = NbBundle.getMessage(this.getClass(), "ExtractRegistry.parentModuleName.noSpace");
-                String winver = "";
-
-                // If all artifact nodes should really go under one Blackboard artifact, need to process it differently
-                if (dataType.equals("WinVersion")) { //NON-NLS
-
-                    String version = "";
-                    String systemRoot = "";
-                    String productId = "";
-                    String regOwner = "";
-                    String regOrg = "";
-                    Long installtime = null;
-
-                    for (int j = 0; j < myartlist.getLength(); j++) {
-                        Node artchild = myartlist.item(j);
-                        // If it has attributes, then it is an Element (based off API)
-                        if (artchild.hasAttributes()) {
-                            Element artnode = (Element) artchild;
-
-                            String value = artnode.getTextContent().trim();
-                            String name = artnode.getAttribute("name"); //NON-NLS
-
-                            if (name.equals("ProductName")) { // NON_NLS
-                                version = value;
-                            } else if (name.equals("CSDVersion")) { // NON_NLS
-                                // This is dependant on the fact that ProductName shows up first in the module output
-                                version = version + " " + value;
-                            } else if (name.equals("SystemRoot")) { //NON-NLS
-                                systemRoot = value;
-                            } else if (name.equals("ProductId")) { //NON-NLS
-                                productId = value;
-                            } else if (name.equals("RegisteredOwner")) { //NON-NLS
-                                regOwner = value;
-                            } else if (name.equals("RegisteredOrganization")) { //NON-NLS
-                                regOrg = value;
-                            } else if (name.equals("InstallDate")) { //NON-NLS
-                                try {
-                                    Long epochtime = new SimpleDateFormat("EEE MMM d HH:mm:ss yyyy").parse(value).getTime();
-                                    installtime = epochtime;
-                                    String Tempdate = installtime.toString();
-                                    installtime = Long.valueOf(Tempdate) / 1000;
-                                } catch (ParseException e) {
-                                    logger.log(Level.SEVERE, "RegRipper::Conversion on DateTime -> ", e); //NON-NLS
-                                }
-                            }
-                        }
-                    }
+    /**
+     * Makes the attached USB device and operating system information
+     * artifacts from a SYSTEM hive.
+     */
+    private void parseSystemHive(Key root, AbstractFile regFile) throws IOException {
+        String parentModuleName = NbBundle.getMessage(this.getClass(), "ExtractRegistry.parentModuleName.noSpace");
+        Key controlSet = getCurrentControlSet(root);
+        if (controlSet == null) {
+            return;
+        }
 
-                    try {
-                        Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
-                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(), parentModuleName, version));
-                        if (installtime != null) {
-                            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME.getTypeID(), parentModuleName, installtime));
+        Key usb = controlSet.getSubkey("Enum\\USB"); //NON-NLS
+        if (usb != null) {
+            for (Key deviceClass : usb.getSubkeys()) {
+                String dev = deviceClass.getName();
+                for (Key device : deviceClass.getSubkeys()) {
+                    Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME.getTypeID(), parentModuleName, device.getTimestamp()));
+                    String make = "";
+                    String model = dev;
+                    if (dev.toLowerCase().contains("vid")) { //NON-NLS
+                        USBInfo info = usbMapper.parseAndLookup(dev);
+                        if (info.getVendor() != null) {
+                            make = info.getVendor();
                         }
-                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PATH.getTypeID(), parentModuleName, systemRoot));
-                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PRODUCT_ID.getTypeID(), parentModuleName, productId));
-                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_OWNER.getTypeID(), parentModuleName, regOwner));
-                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_ORGANIZATION.getTypeID(), parentModuleName, regOrg));
-
-                        // Check if there is already an OS_INFO artifact for this file, and add to that if possible.
-                        ArrayList<BlackboardArtifact> results = tempDb.getBlackboardArtifacts(ARTIFACT_TYPE.TSK_OS_INFO, regFile.getId());
-                        if (results.isEmpty()) {
-                            BlackboardArtifact bbart = regFile.newArtifact(ARTIFACT_TYPE.TSK_OS_INFO);
-                            bbart.addAttributes(bbattributes);
-                        } else {
-                            results.get(0).addAttributes(bbattributes);
-                        }
-
-                    } catch (TskCoreException ex) {
-                        logger.log(Level.SEVERE, "Error adding installed program artifact to blackboard."); //NON-NLS                                    
-                    }
-                } else if (dataType.equals("Profiler")) { // NON-NLS
-
-                    String os = "";
-                    String procArch = "";
-                    String procId = "";
-                    String tempDir = "";
-
-                    for (int j = 0; j < myartlist.getLength(); j++) {
-                        Node artchild = myartlist.item(j);
-                        // If it has attributes, then it is an Element (based off API)
-                        if (artchild.hasAttributes()) {
-                            Element artnode = (Element) artchild;
-
-                            String value = artnode.getTextContent().trim();
-                            String name = artnode.getAttribute("name"); //NON-NLS
-
-                            if (name.equals("OS")) { // NON-NLS
-                                os = value;
-                            } else if (name.equals("PROCESSOR_ARCHITECTURE")) { // NON-NLS
-                                procArch = value;
-                            } else if (name.equals("PROCESSOR_IDENTIFIER")) {  //NON-NLS
-                                procId = value;
-                            } else if (name.equals("TEMP")) { //NON-NLS
-                                tempDir = value;
-                            }
+                        if (info.getProduct() != null) {
+                            model = info.getProduct();
                         }
                     }
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DEVICE_MAKE.getTypeID(), parentModuleName, make));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DEVICE_MODEL.getTypeID(), parentModuleName, model));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DEVICE_ID.getTypeID(), parentModuleName, device.getName()));
+                    this.addArtifact(ARTIFACT_TYPE.TSK_DEVICE_ATTACHED, regFile, bbattributes);
+                }
+            }
+        }
 
-                    try {
-                        Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
-                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_VERSION.getTypeID(), parentModuleName, os));
-                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROCESSOR_ARCHITECTURE.getTypeID(), parentModuleName, procArch));
-                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_TEMP_DIR.getTypeID(), parentModuleName, tempDir));
-
-                        // Check if there is already an OS_INFO artifact for this file and add to that if possible
-                        ArrayList<BlackboardArtifact> results = tempDb.getBlackboardArtifacts(ARTIFACT_TYPE.TSK_OS_INFO, regFile.getId());
-                        if (results.isEmpty()) {
-                            BlackboardArtifact bbart = regFile.newArtifact(ARTIFACT_TYPE.TSK_OS_INFO);
-                            bbart.addAttributes(bbattributes);
-                        } else {
-                            results.get(0).addAttributes(bbattributes);
-                        }
-                    } catch (TskCoreException ex) {
-                        logger.log(Level.SEVERE, "Error adding os info artifact to blackboard."); //NON-NLS
-                    }
-                } else if (dataType.equals("CompName")) { // NON-NLS
+        Collection<BlackboardAttribute> osInfoAttributes = new ArrayList<>();
+        Key environment = controlSet.getSubkey("Control\\Session Manager\\Environment"); //NON-NLS
+        if (environment != null) {
+            osInfoAttributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_VERSION.getTypeID(), parentModuleName, getValueString(environment, "OS"))); //NON-NLS
+            osInfoAttributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROCESSOR_ARCHITECTURE.getTypeID(), parentModuleName, getValueString(environment, "PROCESSOR_ARCHITECTURE"))); //NON-NLS
+            osInfoAttributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_TEMP_DIR.getTypeID(), parentModuleName, getValueString(environment, "TEMP"))); //NON-NLS
+        }
+        Key computerName = controlSet.getSubkey("Control\\ComputerName\\ComputerName"); //NON-NLS
+        Key tcpipParameters = controlSet.getSubkey("Services\\Tcpip\\Parameters"); //NON-NLS
+        if (computerName != null || tcpipParameters != null) {
+            osInfoAttributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_NAME.getTypeID(), parentModuleName, getValueString(computerName, "ComputerName"))); //NON-NLS
+            osInfoAttributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(), parentModuleName, getValueString(tcpipParameters, "Domain"))); //NON-NLS
+        }
+        addOsInfoAttributes(regFile, osInfoAttributes);
+    }
 
-                    String compName = "";
-                    String domain = "";
+    /**
+     * Makes the operating system information, installed program and account
+     * artifacts from a SOFTWARE hive.
+     */
+    private void parseSoftwareHive(Key root, AbstractFile regFile) throws IOException {
+        String parentModuleName = NbBundle.getMessage(this.getClass(), "ExtractRegistry.parentModuleName.noSpace");
+
+        Key currentVersion = root.getSubkey("Microsoft\\Windows NT\\CurrentVersion"); //NON-NLS
+        if (currentVersion != null) {
+            String version = getValueString(currentVersion, "ProductName"); //NON-NLS
+            String servicePack = currentVersion.getValueString("CSDVersion"); //NON-NLS
+            if (servicePack != null) {
+                version = version + " " + servicePack;
+            }
+            Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(), parentModuleName, version));
+            RegistryHive.Value installDate = currentVersion.getValue("InstallDate"); //NON-NLS
+            if (installDate != null) {
+                try {
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME.getTypeID(), parentModuleName, installDate.getLong()));
+                } catch (IOException ex) {
+                    logger.log(Level.WARNING, "Failed to parse install date when parsing the registry."); //NON-NLS
+                }
+            }
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PATH.getTypeID(), parentModuleName, getValueString(currentVersion, "SystemRoot"))); //NON-NLS
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PRODUCT_ID.getTypeID(), parentModuleName, getValueString(currentVersion, "ProductId"))); //NON-NLS
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_OWNER.getTypeID(), parentModuleName, getValueString(currentVersion, "RegisteredOwner"))); //NON-NLS
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_ORGANIZATION.getTypeID(), parentModuleName, getValueString(currentVersion, "RegisteredOrganization"))); //NON-NLS
+            addOsInfoAttributes(regFile, bbattributes);
+        }
 
-                    for (int j = 0; j < myartlist.getLength(); j++) {
-                        Node artchild = myartlist.item(j);
-                        // If it has attributes, then it is an Element (based off API)
-                        if (artchild.hasAttributes()) {
-                            Element artnode = (Element) artchild;
+        for (String uninstallPath : new String[]{"Microsoft\\Windows\\CurrentVersion\\Uninstall", "Wow6432Node\\Microsoft\\Windows\\CurrentVersion\\Uninstall"}) { //NON-NLS
+            Key uninstall = root.getSubkey(uninstallPath);
+            if (uninstall == null) {
+                continue;
+            }
+            for (Key program : uninstall.getSubkeys()) {
+                String display = getValueString(program, "DisplayName"); //NON-NLS
+                if (display.isEmpty()) {
+                    display = program.getName();
+                }
+                String displayVersion = program.getValueString("DisplayVersion"); //NON-NLS
+                if (displayVersion != null) {
+                    display = display + " v." + displayVersion; //NON-NLS
+                }
+                Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
+                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(), parentModuleName, display));
+                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME.getTypeID(), parentModuleName, program.getTimestamp()));
+                this.addArtifact(ARTIFACT_TYPE.TSK_INSTALLED_PROG, regFile, bbattributes);
+            }
+        }
 
-                            String value = artnode.getTextContent().trim();
-                            String name = artnode.getAttribute("name"); //NON-NLS
+        Key profileList = root.getSubkey("Microsoft\\Windows NT\\CurrentVersion\\ProfileList"); //NON-NLS
+        if (profileList != null) {
+            for (Key profile : profileList.getSubkeys()) {
+                String homeDir = getValueString(profile, "ProfileImagePath"); //NON-NLS
+                String username = homeDir.substring(homeDir.lastIndexOf('\\') + 1);
+                int extension = username.indexOf('.');
+                if (extension >= 0) {
+                    username = username.substring(0, extension);
+                }
+                Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
+                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_USER_NAME.getTypeID(), parentModuleName, username));
+                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_USER_ID.getTypeID(), parentModuleName, profile.getName()));
+                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PATH.getTypeID(), parentModuleName, homeDir));
+                this.addArtifact(ARTIFACT_TYPE.TSK_OS_ACCOUNT, regFile, bbattributes);
+            }
+        }
+    }
 
-                            if (name.equals("ComputerName")) { // NON-NLS
-                                compName = value;
-                            } else if (name.equals("Domain")) { // NON-NLS
-                                domain = value;
-                            }
+    /**
+     * Makes the recent Office document and mapped network drive artifacts
+     * from an NTUSER.DAT hive.
+     */
+    private void parseNtuserHive(Key root, AbstractFile regFile) throws IOException {
+        String parentModuleName = NbBundle.getMessage(this.getClass(), "ExtractRegistry.parentModuleName.noSpace");
+
+        // Office 97 to 2007 keep most recently used lists under the newest version's key
+        Key office = null;
+        for (String version : OFFICE_VERSIONS) {
+            Key versionKey = root.getSubkey("Software\\Microsoft\\Office\\" + version); //NON-NLS
+            if (versionKey != null && versionKey.getSubkey("Common\\Open Find") != null) { //NON-NLS
+                office = versionKey;
+            }
+        }
+        if (office != null) {
+            // @@@ BC: Consider removing this after some more testing. It looks like an Mtime associated with the root key and not the individual item
+            long mtime = office.getTimestamp();
+            for (String function : new String[]{"Open", "Save As", "File Save"}) { //NON-NLS
+                Key word = office.getSubkey("Common\\Open Find\\Microsoft Office Word\\Settings\\" + function + "\\File Name MRU"); //NON-NLS
+                if (word != null) {
+                    for (String fileName : getValueString(word, "Value").split("[\\n\\x00]")) { //NON-NLS
+                        if (!fileName.isEmpty()) {
+                            addRecentObject(regFile, mtime, function, fileName, "Word"); //NON-NLS
                         }
                     }
+                }
+            }
+            addRecentObjects(regFile, mtime, office.getSubkey("Excel\\Recent Files"), "Excel"); //NON-NLS
+            addRecentObjects(regFile, mtime, office.getSubkey("PowerPoint\\Recent File List"), "PowerPoint"); //NON-NLS
+        }
 
-                    try {
-                        Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
-                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_NAME.getTypeID(), parentModuleName, compName));
-                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(), parentModuleName, domain));
-
-                        // Check if there is already an OS_INFO artifact for this file and add to that if possible
-                        ArrayList<BlackboardArtifact> results = tempDb.getBlackboardArtifacts(ARTIFACT_TYPE.TSK_OS_INFO, regFile.getId());
-                        if (results.isEmpty()) {
-                            BlackboardArtifact bbart = regFile.newArtifact(ARTIFACT_TYPE.TSK_OS_INFO);
-                            bbart.addAttributes(bbattributes);
-                        } else {
-                            results.get(0).addAttributes(bbattributes);
-                        }
-                    } catch (TskCoreException ex) {
-                        logger.log(Level.SEVERE, "Error adding os info artifact to blackboard."); //NON-NLS
+        // Office 2010 keeps the time each file was used with it
+        Key office2010 = root.getSubkey("Software\\Microsoft\\Office\\14.0"); //NON-NLS
+        if (office2010 != null) {
+            for (String program : OFFICE_2010_PROGRAMS) {
+                Key fileMru = office2010.getSubkey(program + "\\File MRU"); //NON-NLS
+                if (fileMru == null) {
+                    continue;
+                }
+                for (RegistryHive.Value value : fileMru.getValues()) {
+                    if (value.getName().equals("Max Display")) { //NON-NLS
+                        continue;
                     }
-                } else {
-                    for (int j = 0; j < myartlist.getLength(); j++) {
-                        Node artchild = myartlist.item(j);
-                        // If it has attributes, then it is an Element (based off API)
-                        if (artchild.hasAttributes()) {
-                            Element artnode = (Element) artchild;
-
-                            String value = artnode.getTextContent().trim();
-                            Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
-
-                            switch (dataType) {
-                                case "recentdocs": //NON-NLS                                
-                                    // BlackboardArtifact bbart = tempDb.getContentById(orgId).newArtifact(ARTIFACT_TYPE.TSK_RECENT_OBJECT);
-                                    // bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_LAST_ACCESSED.getTypeID(), "RecentActivity", dataType, mtime));
-                                    // bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_NAME.getTypeID(), "RecentActivity", dataType, mtimeItem));
-                                    // bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_VALUE.getTypeID(), "RecentActivity", dataType, value));
-                                    // bbart.addAttributes(bbattributes);
-                                    // @@@ BC: Why are we ignoring this...
-                                    break;
-                                case "usb": //NON-NLS
-                                    try {
-                                        Long usbMtime = Long.parseLong(artnode.getAttribute("mtime")); //NON-NLS
-                                        usbMtime = Long.valueOf(usbMtime.toString());
-
-                                        BlackboardArtifact bbart = regFile.newArtifact(ARTIFACT_TYPE.TSK_DEVICE_ATTACHED);
-                                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME.getTypeID(), parentModuleName, usbMtime));
-                                        String dev = artnode.getAttribute("dev"); //NON-NLS
-                                        String make = "";
-                                        String model = dev;
-                                        if (dev.toLowerCase().contains("vid")) { //NON-NLS
-                                            USBInfo info = usbMapper.parseAndLookup(dev);
-                                            if (info.getVendor() != null) {
-                                                make = info.getVendor();
-                                            }
-                                            if (info.getProduct() != null) {
-                                                model = info.getProduct();
-                                            }
-                                        }
-                                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DEVICE_MAKE.getTypeID(), parentModuleName, make));
-                                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DEVICE_MODEL.getTypeID(), parentModuleName, model));
-                                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DEVICE_ID.getTypeID(), parentModuleName, value));
-                                        bbart.addAttributes(bbattributes);
-                                    } catch (TskCoreException ex) {
-                                        logger.log(Level.SEVERE, "Error adding device attached artifact to blackboard."); //NON-NLS
-                                    }
-                                    break;
-                                case "uninstall": //NON-NLS
-                                    Long itemMtime = null;
-                                    try {
-                                        Long epochtime = new SimpleDateFormat("EEE MMM d HH:mm:ss yyyy").parse(artnode.getAttribute("mtime")).getTime(); //NON-NLS
-                                        itemMtime = epochtime;
-                                        itemMtime = itemMtime / 1000;
-                                    } catch (ParseException e) {
-                                        logger.log(Level.WARNING, "Failed to parse epoch time for installed program artifact."); //NON-NLS
-                                    }
-
-                                    try {
-                                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(), parentModuleName, value));
-                                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME.getTypeID(), parentModuleName, itemMtime));
-                                        BlackboardArtifact bbart = regFile.newArtifact(ARTIFACT_TYPE.TSK_INSTALLED_PROG);
-                                        bbart.addAttributes(bbattributes);
-                                    } catch (TskCoreException ex) {
-                                        logger.log(Level.SEVERE, "Error adding installed program artifact to blackboard."); //NON-NLS
-                                    }
-                                    break;
-                                case "office": //NON-NLS
-                                    String officeName = artnode.getAttribute("name"); //NON-NLS
-
-                                    try {
-                                        BlackboardArtifact bbart = regFile.newArtifact(ARTIFACT_TYPE.TSK_RECENT_OBJECT);
-                                        // @@@ BC: Consider removing this after some more testing. It looks like an Mtime associated with the root key and not the individual item
-                                        if (mtime != null) {
-                                            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(), parentModuleName, mtime));
-                                        }
-                                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_NAME.getTypeID(), parentModuleName, officeName));
-                                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_VALUE.getTypeID(), parentModuleName, value));
-                                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(), parentModuleName, artnode.getNodeName()));
-                                        bbart.addAttributes(bbattributes);
-                                    } catch (TskCoreException ex) {
-                                        logger.log(Level.SEVERE, "Error adding recent object artifact to blackboard."); //NON-NLS
-                                    }
-                                    break;
-
-                                case "ProcessorArchitecture": //NON-NLS
-                                    // Architecture is now included under Profiler
-                                    //try {
-                                    //    String processorArchitecture = value;
-                                    //    if (processorArchitecture.equals("AMD64"))
-                                    //        processorArchitecture = "x86-64";
-
-                                    //    BlackboardArtifact bbart = regFile.newArtifact(ARTIFACT_TYPE.TSK_OS_INFO);
-                                    //    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROCESSOR_ARCHITECTURE.getTypeID(), parentModuleName, processorArchitecture));
-                                    //    bbart.addAttributes(bbattributes);
-                                    //} catch (TskCoreException ex) {
-                                    //    logger.log(Level.SEVERE, "Error adding os info artifact to blackboard."); //NON-NLS
-                                    //}
-                                    break;
-
-                                case "ProfileList": //NON-NLS
-                                    try {
-
-                                        String homeDir = value;
-                                        String sid = artnode.getAttribute("sid"); //NON-NLS
-                                        String username = artnode.getAttribute("username"); //NON-NLS
-
-                                        BlackboardArtifact bbart = regFile.newArtifact(ARTIFACT_TYPE.TSK_OS_ACCOUNT);
-                                        bbart.addAttribute(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_USER_NAME.getTypeID(),
-                                                parentModuleName, username));
-                                        bbart.addAttribute(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_USER_ID.getTypeID(),
-                                                parentModuleName, sid));
-                                        bbart.addAttribute(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PATH.getTypeID(),
-                                                parentModuleName, homeDir));
-                                    } catch (TskCoreException ex) {
-                                        logger.log(Level.SEVERE, "Error adding account artifact to blackboard."); //NON-NLS
-                                    }
-                                    break;
-
-                                case "NtuserNetwork": // NON-NLS
-                                    try {
-                                        String localPath = artnode.getAttribute("localPath"); //NON-NLS
-                                        String remoteName = value;
-                                        BlackboardArtifact bbart = regFile.newArtifact(ARTIFACT_TYPE.TSK_REMOTE_DRIVE);
-                                        bbart.addAttribute(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_LOCAL_PATH.getTypeID(),
-                                                parentModuleName, localPath));
-                                        bbart.addAttribute(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_REMOTE_PATH.getTypeID(),
-                                                parentModuleName, remoteName));
-
-                                    } catch (TskCoreException ex) {
-                                        logger.log(Level.SEVERE, "Error adding network artifact to blackboard."); //NON-NLS
-                                    }
-                                    break;
-
-                                default:
-                                    logger.log(Level.WARNING, "Unrecognized node name: {0}", dataType); //NON-NLS
-                                    break;
-                            }
+                    // e.g. [F00000000][T01CC69B8F7CBE2D0]*C:\Documents\file.docx
+                    String data = value.getString();
+                    int separator = data.indexOf('*');
+                    Long mtime = null;
+                    int time = data.indexOf("][T"); //NON-NLS
+                    if (time >= 0 && time + 19 <= data.length()) {
+                        try {
+                            // the FILETIME is 16 hex digits, too many for a signed long
+                            long filetime = (Long.parseLong(data.substring(time + 3, time + 11), 16) << 32)
+                                    | Long.parseLong(data.substring(time + 11, time + 19), 16);
+                            mtime = RegistryHive.filetimeToEpochSeconds(filetime);
+                        } catch (NumberFormatException ex) {
+                            logger.log(Level.WARNING, "Failed to parse time of recent Office document."); //NON-NLS
                         }
                     }
+                    addRecentObject(regFile, mtime, value.getName(), data.substring(separator + 1), program);
                 }
             }
-            return true;
-        } catch (FileNotFoundException ex) {
-            logger.log(Level.SEVERE, "Error finding the registry file."); //NON-NLS
-        } catch (SAXException ex) {
-            logger.log(Level.SEVERE, "Error parsing the registry XML: {0}", ex); //NON-NLS
-        } catch (IOException ex) {
-            logger.log(Level.SEVERE, "Error building the document parser: {0}", ex); //NON-NLS
-        } catch (ParserConfigurationException ex) {
-            logger.log(Level.SEVERE, "Error configuring the registry parser: {0}", ex); //NON-NLS
-        } finally {
-            try {
-                if (fstream != null) {
-                    fstream.close();
+        }
+
+        Key network = root.getSubkey("Network"); //NON-NLS
+        if (network != null) {
+            for (Key drive : network.getSubkeys()) {
+                String remoteName = drive.getValueString("RemotePath"); //NON-NLS
+                if (remoteName != null) {
+                    Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_LOCAL_PATH.getTypeID(), parentModuleName, "Network\\" + drive.getName())); //NON-NLS
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_REMOTE_PATH.getTypeID(), parentModuleName, remoteName));
+                    this.addArtifact(ARTIFACT_TYPE.TSK_REMOTE_DRIVE, regFile, bbattributes);
                 }
-            } catch (IOException ex) {
             }
         }
-        return false;
+    }
+
+    /**
+     * Makes recent object artifacts from the values of an Office most recently
+     * used list key, e.g., File1, File2..., in the order of their numbers.
+     */
+    private void addRecentObjects(AbstractFile regFile, long mtime, Key mruKey, String program) throws IOException {
+        if (mruKey == null) {
+            return;
+        }
+        List<RegistryHive.Value> files = new ArrayList<>(mruKey.getValues());
+        Collections.sort(files, new Comparator<RegistryHive.Value>() {
+            @Override
+            public int compare(RegistryHive.Value first, RegistryHive.Value second) {
+                long firstNumber = getValueNumber(first);
+                long secondNumber = getValueNumber(second);
+                return (firstNumber < secondNumber) ? -1 : ((firstNumber == secondNumber) ? 0 : 1);
+            }
+        });
+        for (RegistryHive.Value value : files) {
+            addRecentObject(regFile, mtime, value.getName(), value.getString(), program);
+        }
+    }
+
+    private static long getValueNumber(RegistryHive.Value value) {
+        try {
+            String number = value.getName().replaceAll("\\D", ""); //NON-NLS
+            return number.isEmpty() ? 0 : Long.parseLong(number);
+        } catch (IOException | NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    private void addRecentObject(AbstractFile regFile, Long mtime, String name, String value, String program) {
+        String parentModuleName = NbBundle.getMessage(this.getClass(), "ExtractRegistry.parentModuleName.noSpace");
+        Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
+        if (mtime != null) {
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(), parentModuleName, mtime));
+        }
+        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_NAME.getTypeID(), parentModuleName, name));
+        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_VALUE.getTypeID(), parentModuleName, value));
+        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(), parentModuleName, program));
+        this.addArtifact(ARTIFACT_TYPE.TSK_RECENT_OBJECT, regFile, bbattributes);
+    }
+
+    /**
+     * Adds operating system information attributes to the OS_INFO artifact of
+     * a registry file, making the artifact if there is not one already.
+     */
+    private void addOsInfoAttributes(AbstractFile regFile, Collection<BlackboardAttribute> bbattributes) {
+        if (bbattributes.isEmpty()) {
+            return;
+        }
+        try {
+            List<BlackboardArtifact> results = tskCase.getBlackboardArtifacts(ARTIFACT_TYPE.TSK_OS_INFO, regFile.getId());
+            if (results.isEmpty()) {
+                this.addArtifact(ARTIFACT_TYPE.TSK_OS_INFO, regFile, bbattributes);
+            } else {
+                results.get(0).addAttributes(bbattributes);
+            }
+        } catch (TskCoreException ex) {
+            logger.log(Level.SEVERE, "Error adding os info artifact to blackboard."); //NON-NLS
+        }
+    }
+
+    /**
+     * Gets the data of a value of a key as a string.
+     *
+     * @return The data, or an empty string if there is no such key or value.
+     */
+    private static String getValueString(Key key, String name) throws IOException {
+        String value = (key != null) ? key.getValueString(name) : null;
+        return (value != null) ? value.trim() : "";
     }
 
     @Override
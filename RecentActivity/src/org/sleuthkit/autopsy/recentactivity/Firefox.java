@@ -26,9 +26,9 @@
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.logging.Level;
 
@@ -37,10 +37,7 @@
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.autopsy.datamodel.ContentUtils;
 import org.sleuthkit.autopsy.ingest.IngestJobContext;
-import org.sleuthkit.autopsy.ingest.IngestServices;
-import org.sleuthkit.autopsy.ingest.ModuleDataEvent;
 import org.sleuthkit.datamodel.AbstractFile;
-import org.sleuthkit.datamodel.BlackboardArtifact;
 import org.sleuthkit.datamodel.BlackboardArtifact.ARTIFACT_TYPE;
 import org.sleuthkit.datamodel.BlackboardAttribute;
 import org.sleuthkit.datamodel.BlackboardAttribute.ATTRIBUTE_TYPE;
@@ -59,7 +56,6 @@ class Firefox extends Extract {
     private static final String bookmarkQuery = "SELECT fk, moz_bookmarks.title, url, (moz_bookmarks.dateAdded/1000000) as dateAdded FROM moz_bookmarks INNER JOIN moz_places ON moz_bookmarks.fk=moz_places.id"; //NON-NLS
     private static final String downloadQuery = "SELECT target, source,(startTime/1000000) as startTime, maxBytes  FROM moz_downloads"; //NON-NLS
     private static final String downloadQueryVersion24 = "SELECT url, content as target, (lastModified/1000000) as lastModified FROM moz_places, moz_annos WHERE moz_places.id = moz_annos.place_id AND moz_annos.anno_attribute_id = 3"; //NON-NLS
-    private final IngestServices services = IngestServices.getInstance();
     private Content dataSource;
     private IngestJobContext context;
     
@@ -120,42 +116,46 @@ private void getHistory() {
                 dbFile.delete();
                 break;
             }
-            List<HashMap<String, Object>> tempList = this.dbConnect(temps, historyQuery);
-            logger.log(Level.INFO, "{0} - Now getting history from {1} with {2} artifacts identified.", new Object[]{moduleName, temps, tempList.size()}); //NON-NLS
-            for (HashMap<String, Object> result : tempList) {
-                Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         ((result.get("url").toString() != null) ? result.get("url").toString() : ""))); //NON-NLS
-                //bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL_DECODED.getTypeID(), "RecentActivity", ((result.get("url").toString() != null) ? EscapeUtil.decodeURL(result.get("url").toString()) : "")));
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         (Long.valueOf(result.get("visit_date").toString())))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_REFERRER.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         ((result.get("ref").toString() != null) ? result.get("ref").toString() : ""))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_TITLE.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         ((result.get("title").toString() != null) ? result.get("title").toString() : ""))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         NbBundle.getMessage(this.getClass(), "Firefox.moduleName")));
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"), (Util.extractDomain((result.get("url").toString() != null) ? result.get("url").toString() : "")))); //NON-NLS
-                this.addArtifact(ARTIFACT_TYPE.TSK_WEB_HISTORY, historyFile, bbattributes);
+            logger.log(Level.INFO, "{0} - Now getting history from {1}", new Object[]{moduleName, temps}); //NON-NLS
+            try (SQLiteRowCursor cursor = SQLiteRowCursor.open(temps, historyQuery)) {
+                int urlColumn = cursor.getColumnIndex("url"); //NON-NLS
+                int visitDateColumn = cursor.getColumnIndex("visit_date"); //NON-NLS
+                int refColumn = cursor.getColumnIndex("ref"); //NON-NLS
+                int titleColumn = cursor.getColumnIndex("title"); //NON-NLS
+                while (cursor.next()) {
+                    String url = cursor.getString(urlColumn);
+                    Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"), url));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"),
+                                                             cursor.getLong(visitDateColumn)));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_REFERRER.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"),
+                                                             cursor.getString(refColumn)));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_TITLE.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"),
+                                                             cursor.getString(titleColumn)));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"),
+                                                             NbBundle.getMessage(this.getClass(), "Firefox.moduleName")));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"), Util.extractDomain(url)));
+                    this.addArtifact(ARTIFACT_TYPE.TSK_WEB_HISTORY, historyFile, bbattributes);
+                }
+            } catch (SQLException ex) {
+                this.addDbQueryError(temps, ex);
             }
             ++j;
             dbFile.delete();
         }
 
-        services.fireModuleDataEvent(new ModuleDataEvent(
-                NbBundle.getMessage(this.getClass(), "Firefox.parentModuleName"), BlackboardArtifact.ARTIFACT_TYPE.TSK_WEB_HISTORY));
     }
 
     /**
@@ -201,42 +201,44 @@ private void getBookmark() {
                 dbFile.delete();
                 break;
             }
-            List<HashMap<String, Object>> tempList = this.dbConnect(temps, bookmarkQuery);
-            logger.log(Level.INFO, "{0} - Now getting bookmarks from {1} with {2} artifacts identified.", new Object[]{moduleName, temps, tempList.size()}); //NON-NLS
-            for (HashMap<String, Object> result : tempList) {
-
-                Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         ((result.get("url").toString() != null) ? result.get("url").toString() : ""))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_TITLE.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         ((result.get("title").toString() != null) ? result.get("title").toString() : ""))); //NON-NLS
-                if (Long.valueOf(result.get("dateAdded").toString()) > 0) { //NON-NLS
-                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_CREATED.getTypeID(),
+            logger.log(Level.INFO, "{0} - Now getting bookmarks from {1}", new Object[]{moduleName, temps}); //NON-NLS
+            try (SQLiteRowCursor cursor = SQLiteRowCursor.open(temps, bookmarkQuery)) {
+                int urlColumn = cursor.getColumnIndex("url"); //NON-NLS
+                int titleColumn = cursor.getColumnIndex("title"); //NON-NLS
+                int dateAddedColumn = cursor.getColumnIndex("dateAdded"); //NON-NLS
+                while (cursor.next()) {
+                    String url = cursor.getString(urlColumn);
+                    Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"), url));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_TITLE.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"),
+                                                             cursor.getString(titleColumn)));
+                    long dateAdded = cursor.getLong(dateAddedColumn);
+                    if (dateAdded > 0) {
+                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_CREATED.getTypeID(),
+                                                                 NbBundle.getMessage(this.getClass(),
+                                                                                     "Firefox.parentModuleName.noSpace"),
+                                                                 dateAdded));
+                    }
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(),
                                                              NbBundle.getMessage(this.getClass(),
                                                                                  "Firefox.parentModuleName.noSpace"),
-                                                             (Long.valueOf(result.get("dateAdded").toString())))); //NON-NLS
+                                                             NbBundle.getMessage(this.getClass(), "Firefox.moduleName")));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"), Util.extractDomain(url)));
+                    this.addArtifact(ARTIFACT_TYPE.TSK_WEB_BOOKMARK, bookmarkFile, bbattributes);
                 }
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         NbBundle.getMessage(this.getClass(), "Firefox.moduleName")));
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         (Util.extractDomain((result.get("url").toString() != null) ? result.get("url").toString() : "")))); //NON-NLS
-                this.addArtifact(ARTIFACT_TYPE.TSK_WEB_BOOKMARK, bookmarkFile, bbattributes);
-
+            } catch (SQLException ex) {
+                this.addDbQueryError(temps, ex);
             }
             ++j;
             dbFile.delete();
         }
 
-        services.fireModuleDataEvent(new ModuleDataEvent(
-                NbBundle.getMessage(this.getClass(), "Firefox.parentModuleName"), BlackboardArtifact.ARTIFACT_TYPE.TSK_WEB_BOOKMARK));
     }
 
     /**
@@ -289,51 +291,55 @@ private void getCookie() {
                 query = cookieQueryV3;
             }
 
-            List<HashMap<String, Object>> tempList = this.dbConnect(temps, query);
-            logger.log(Level.INFO, "{0} - Now getting cookies from {1} with {2} artifacts identified.", new Object[]{moduleName, temps, tempList.size()}); //NON-NLS
-            for (HashMap<String, Object> result : tempList) {
-
-                Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         ((result.get("host").toString() != null) ? result.get("host").toString() : ""))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         (Long.valueOf(result.get("lastAccessed").toString())))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_NAME.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         ((result.get("name").toString() != null) ? result.get("name").toString() : ""))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_VALUE.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         ((result.get("value").toString() != null) ? result.get("value").toString() : ""))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         NbBundle.getMessage(this.getClass(), "Firefox.moduleName")));
-                
-                if (checkColumn == true) {
-                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_CREATED.getTypeID(),
+            logger.log(Level.INFO, "{0} - Now getting cookies from {1}", new Object[]{moduleName, temps}); //NON-NLS
+            try (SQLiteRowCursor cursor = SQLiteRowCursor.open(temps, query)) {
+                int hostColumn = cursor.getColumnIndex("host"); //NON-NLS
+                int lastAccessedColumn = cursor.getColumnIndex("lastAccessed"); //NON-NLS
+                int nameColumn = cursor.getColumnIndex("name"); //NON-NLS
+                int valueColumn = cursor.getColumnIndex("value"); //NON-NLS
+                int creationTimeColumn = checkColumn ? cursor.getColumnIndex("creationTime") : 0; //NON-NLS
+                while (cursor.next()) {
+                    String host = cursor.getString(hostColumn);
+                    Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"), host));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"),
+                                                             cursor.getLong(lastAccessedColumn)));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_NAME.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"),
+                                                             cursor.getString(nameColumn)));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_VALUE.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"),
+                                                             cursor.getString(valueColumn)));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(),
                                                              NbBundle.getMessage(this.getClass(),
                                                                                  "Firefox.parentModuleName.noSpace"),
-                                                             (Long.valueOf(result.get("creationTime").toString())))); //NON-NLS
+                                                             NbBundle.getMessage(this.getClass(), "Firefox.moduleName")));
+                    if (checkColumn) {
+                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_CREATED.getTypeID(),
+                                                                 NbBundle.getMessage(this.getClass(),
+                                                                                     "Firefox.parentModuleName.noSpace"),
+                                                                 cursor.getLong(creationTimeColumn)));
+                    }
+                    String domain = Util.extractDomain(host);
+                    domain = domain.replaceFirst("^\\.+(?!$)", "");
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"), domain));
+                    this.addArtifact(ARTIFACT_TYPE.TSK_WEB_COOKIE, cookiesFile, bbattributes);
                 }
-                String domain = Util.extractDomain(result.get("host").toString()); //NON-NLS
-                domain = domain.replaceFirst("^\\.+(?!$)", "");
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"), domain));
-                this.addArtifact(ARTIFACT_TYPE.TSK_WEB_COOKIE, cookiesFile, bbattributes);
+            } catch (SQLException ex) {
+                this.addDbQueryError(temps, ex);
             }
             ++j;
             dbFile.delete();
         }
 
-        services.fireModuleDataEvent(new ModuleDataEvent(
-                NbBundle.getMessage(this.getClass(), "Firefox.parentModuleName"), BlackboardArtifact.ARTIFACT_TYPE.TSK_WEB_COOKIE));
     }
 
     /**
@@ -390,54 +396,52 @@ private void getDownloadPreVersion24() {
                 break;
             }
 
-            List<HashMap<String, Object>> tempList = this.dbConnect(temps, downloadQuery);
-            logger.log(Level.INFO, "{0}- Now getting downloads from {1} with {2} artifacts identified.", new Object[]{moduleName, temps, tempList.size()}); //NON-NLS
-            for (HashMap<String, Object> result : tempList) {
-
-                Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
-
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         ((result.get("source").toString() != null) ? result.get("source").toString() : ""))); //NON-NLS
-                //bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL_DECODED.getTypeID(), "RecentActivity", ((result.get("source").toString() != null) ? EscapeUtil.decodeURL(result.get("source").toString()) : "")));
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         (Long.valueOf(result.get("startTime").toString())))); //NON-NLS
-                
-                String target = result.get("target").toString(); //NON-NLS
-
-                if (target != null) {
-                    try {
-                        String decodedTarget = URLDecoder.decode(target.toString().replaceAll("file:///", ""), "UTF-8"); //NON-NLS
-                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PATH.getTypeID(),
-                                                                 NbBundle.getMessage(this.getClass(),
-                                                                                     "Firefox.parentModuleName.noSpace"),
-                                                                 decodedTarget));
-                        long pathID = Util.findID(dataSource, decodedTarget);
-                        if (pathID != -1) {
-                            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PATH_ID.getTypeID(),
+            logger.log(Level.INFO, "{0}- Now getting downloads from {1}", new Object[]{moduleName, temps}); //NON-NLS
+            try (SQLiteRowCursor cursor = SQLiteRowCursor.open(temps, downloadQuery)) {
+                int sourceColumn = cursor.getColumnIndex("source"); //NON-NLS
+                int startTimeColumn = cursor.getColumnIndex("startTime"); //NON-NLS
+                int targetColumn = cursor.getColumnIndex("target"); //NON-NLS
+                while (cursor.next()) {
+                    String source = cursor.getString(sourceColumn);
+                    Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"), source));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"),
+                                                             cursor.getLong(startTimeColumn)));
+                    String target = cursor.getString(targetColumn);
+                    if (!target.isEmpty()) {
+                        try {
+                            String decodedTarget = URLDecoder.decode(target.replaceAll("file:///", ""), "UTF-8"); //NON-NLS
+                            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PATH.getTypeID(),
                                                                      NbBundle.getMessage(this.getClass(),
                                                                                          "Firefox.parentModuleName.noSpace"),
-                                                                     pathID));
+                                                                     decodedTarget));
+                            long pathID = Util.findID(dataSource, decodedTarget);
+                            if (pathID != -1) {
+                                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PATH_ID.getTypeID(),
+                                                                         NbBundle.getMessage(this.getClass(),
+                                                                                             "Firefox.parentModuleName.noSpace"),
+                                                                         pathID));
+                            }
+                        } catch (UnsupportedEncodingException ex) {
+                            logger.log(Level.SEVERE, "Error decoding Firefox download URL in " + temps, ex); //NON-NLS
+                            errors++;
                         }
-                    } catch (UnsupportedEncodingException ex) {
-                        logger.log(Level.SEVERE, "Error decoding Firefox download URL in " + temps, ex); //NON-NLS
-                        errors++;
                     }
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"),
+                                                             NbBundle.getMessage(this.getClass(), "Firefox.moduleName")));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"), Util.extractDomain(source)));
+                    this.addArtifact(ARTIFACT_TYPE.TSK_WEB_DOWNLOAD, downloadsFile, bbattributes);
                 }
-                    
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         NbBundle.getMessage(this.getClass(), "Firefox.moduleName")));
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         (Util.extractDomain((result.get("source").toString() != null) ? result.get("source").toString() : "")))); //NON-NLS
-                this.addArtifact(ARTIFACT_TYPE.TSK_WEB_DOWNLOAD, downloadsFile, bbattributes);
-
+            } catch (SQLException ex) {
+                this.addDbQueryError(temps, ex);
             }
             if (errors > 0) {
                 this.addErrorMessage(
@@ -449,8 +453,6 @@ private void getDownloadPreVersion24() {
             break;
         }
         
-        services.fireModuleDataEvent(new ModuleDataEvent(
-                NbBundle.getMessage(this.getClass(), "Firefox.parentModuleName"), BlackboardArtifact.ARTIFACT_TYPE.TSK_WEB_DOWNLOAD));
     }
 
     /**
@@ -499,55 +501,52 @@ private void getDownloadVersion24() {
                 break;
             }
 
-            List<HashMap<String, Object>> tempList = this.dbConnect(temps, downloadQueryVersion24);
-
-            logger.log(Level.INFO, "{0} - Now getting downloads from {1} with {2} artifacts identified.", new Object[]{moduleName, temps, tempList.size()}); //NON-NLS
-            for (HashMap<String, Object> result : tempList) {
-
-                Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
-
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         ((result.get("url").toString() != null) ? result.get("url").toString() : ""))); //NON-NLS
-                //bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL_DECODED.getTypeID(), "RecentActivity", ((result.get("source").toString() != null) ? EscapeUtil.decodeURL(result.get("source").toString()) : "")));
-                //TODO Revisit usage of deprecated constructor as per TSK-583
-                //bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_LAST_ACCESSED.getTypeID(), "RecentActivity", "Last Visited", (Long.valueOf(result.get("startTime").toString()))));
-
-                String target = result.get("target").toString(); //NON-NLS
-                if (target != null) {
-                    try {
-                        String decodedTarget = URLDecoder.decode(target.toString().replaceAll("file:///", ""), "UTF-8"); //NON-NLS
-                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PATH.getTypeID(),
-                                                                 NbBundle.getMessage(this.getClass(),
-                                                                                     "Firefox.parentModuleName.noSpace"),
-                                                                 decodedTarget));
-                        long pathID = Util.findID(dataSource, decodedTarget);
-                        if (pathID != -1) {
-                            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PATH_ID.getTypeID(),
+            logger.log(Level.INFO, "{0} - Now getting downloads from {1}", new Object[]{moduleName, temps}); //NON-NLS
+            try (SQLiteRowCursor cursor = SQLiteRowCursor.open(temps, downloadQueryVersion24)) {
+                int urlColumn = cursor.getColumnIndex("url"); //NON-NLS
+                int targetColumn = cursor.getColumnIndex("target"); //NON-NLS
+                int lastModifiedColumn = cursor.getColumnIndex("lastModified"); //NON-NLS
+                while (cursor.next()) {
+                    String url = cursor.getString(urlColumn);
+                    Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"), url));
+                    String target = cursor.getString(targetColumn);
+                    if (!target.isEmpty()) {
+                        try {
+                            String decodedTarget = URLDecoder.decode(target.replaceAll("file:///", ""), "UTF-8"); //NON-NLS
+                            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PATH.getTypeID(),
                                                                      NbBundle.getMessage(this.getClass(),
                                                                                          "Firefox.parentModuleName.noSpace"),
-                                                                     pathID));
+                                                                     decodedTarget));
+                            long pathID = Util.findID(dataSource, decodedTarget);
+                            if (pathID != -1) {
+                                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PATH_ID.getTypeID(),
+                                                                         NbBundle.getMessage(this.getClass(),
+                                                                                             "Firefox.parentModuleName.noSpace"),
+                                                                         pathID));
+                            }
+                        } catch (UnsupportedEncodingException ex) {
+                            logger.log(Level.SEVERE, "Error decoding Firefox download URL in " + temps, ex); //NON-NLS
+                            errors++;
                         }
-                    } catch (UnsupportedEncodingException ex) {
-                        logger.log(Level.SEVERE, "Error decoding Firefox download URL in " + temps, ex); //NON-NLS
-                        errors++;
                     }
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"),
+                                                             cursor.getLong(lastModifiedColumn)));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"),
+                                                             NbBundle.getMessage(this.getClass(), "Firefox.moduleName")));
+                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(),
+                                                             NbBundle.getMessage(this.getClass(),
+                                                                                 "Firefox.parentModuleName.noSpace"), Util.extractDomain(url)));
+                    this.addArtifact(ARTIFACT_TYPE.TSK_WEB_DOWNLOAD, downloadsFile, bbattributes);
                 }
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         Long.valueOf(result.get("lastModified").toString()))); //NON-NLS
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         NbBundle.getMessage(this.getClass(), "Firefox.moduleName")));
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(),
-                                                         NbBundle.getMessage(this.getClass(),
-                                                                             "Firefox.parentModuleName.noSpace"),
-                                                         (Util.extractDomain((result.get("url").toString() != null) ? result.get("url").toString() : "")))); //NON-NLS
-                this.addArtifact(ARTIFACT_TYPE.TSK_WEB_DOWNLOAD, downloadsFile, bbattributes);
-
+            } catch (SQLException ex) {
+                this.addDbQueryError(temps, ex);
             }
             if (errors > 0) {
                 this.addErrorMessage(NbBundle.getMessage(this.getClass(), "Firefox.getDlV24.errMsg.errParsingArtifacts",
@@ -558,7 +557,5 @@ private void getDownloadVersion24() {
             break;
         }
 
-        services.fireModuleDataEvent(new ModuleDataEvent(
-                NbBundle.getMessage(this.getClass(), "Firefox.parentModuleName"), BlackboardArtifact.ARTIFACT_TYPE.TSK_WEB_DOWNLOAD));
     }
 }
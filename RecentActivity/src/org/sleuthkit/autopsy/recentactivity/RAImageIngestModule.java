@@ -22,9 +22,21 @@
  */
 package org.sleuthkit.autopsy.recentactivity;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import org.openide.util.NbBundle;
 import org.sleuthkit.autopsy.casemodule.Case;
@@ -46,6 +58,7 @@ public final class RAImageIngestModule implements DataSourceIngestModule {
     private static final Logger logger = Logger.getLogger(RAImageIngestModule.class.getName());
     private final List<Extract> extracters = new ArrayList<>();
     private final List<Extract> browserExtracters = new ArrayList<>();
+    private final Map<Extract, List<Extract>> dependencies = new HashMap<>();
     private IngestServices services = IngestServices.getInstance();
     private IngestJobContext context;
     private StringBuilder subCompleted = new StringBuilder();
@@ -74,6 +87,9 @@ public void startUp(IngestJobContext context) throws IngestModuleException {
         browserExtracters.add(chrome);
         browserExtracters.add(firefox);
         browserExtracters.add(iexplore);
+
+        // extracters that read the artifacts of other extracters
+        dependencies.put(SEUQA, Arrays.asList(chrome, firefox, iexplore));
         
        for (Extract extracter : extracters) {
             extracter.init();
@@ -89,27 +105,31 @@ public ProcessResult process(Content dataSource, DataSourceIngestModuleProgress
 
         progressBar.switchToDeterminate(extracters.size());
         
-        ArrayList<String> errors = new ArrayList<>();
+        Set<Extract> failedExtracters = Collections.newSetFromMap(new ConcurrentHashMap<Extract, Boolean>());
+        if (RecentActivitySettings.getParallelExtraction()) {
+            runExtractersInParallel(dataSource, progressBar, failedExtracters);
+        } else {
+            for (int i = 0; i < extracters.size(); i++) {
+                Extract extracter = extracters.get(i);
+                if (context.dataSourceIngestIsCancelled()) {
+                    logger.log(Level.INFO, "Recent Activity has been canceled, quitting before {0}", extracter.getName()); //NON-NLS
+                    break;
+                }
 
-        for (int i = 0; i < extracters.size(); i++) {
-            Extract extracter = extracters.get(i);
-            if (context.dataSourceIngestIsCancelled()) {
-                logger.log(Level.INFO, "Recent Activity has been canceled, quitting before {0}", extracter.getName()); //NON-NLS
-                break;
+                progressBar.progress(extracter.getName(), i);
+                runExtracter(extracter, dataSource, failedExtracters);
+                progressBar.progress(i + 1);
             }
-            
-            progressBar.progress(extracter.getName(), i);
+        }
 
-            try {
-                extracter.process(dataSource, context);
-            } catch (Exception ex) {
-                logger.log(Level.SEVERE, "Exception occurred in " + extracter.getName(), ex); //NON-NLS
+        ArrayList<String> errors = new ArrayList<>();
+        for (Extract extracter : extracters) {
+            if (failedExtracters.contains(extracter)) {
                 subCompleted.append(NbBundle.getMessage(this.getClass(), "RAImageIngestModule.process.errModFailed",
                                                         extracter.getName()));
                 errors.add(
                         NbBundle.getMessage(this.getClass(), "RAImageIngestModule.process.errModErrs", RecentActivityExtracterModuleFactory.getModuleName()));
             }
-            progressBar.progress(i + 1);
             errors.addAll(extracter.getErrorMessages());
         }
 
@@ -181,6 +201,97 @@ public ProcessResult process(Content dataSource, DataSourceIngestModuleProgress
 
 
 
+    /**
+     * Runs an extracter, recording it as failed if it throws.
+     */
+    private void runExtracter(Extract extracter, Content dataSource, Set<Extract> failedExtracters) {
+        try {
+            extracter.process(dataSource, context);
+        } catch (Exception ex) {
+            logger.log(Level.SEVERE, "Exception occurred in " + extracter.getName(), ex); //NON-NLS
+            failedExtracters.add(extracter);
+        } finally {
+            // the extracters that depend on this one read its artifacts
+            services.getBlackboardArtifactWriter().flush();
+        }
+    }
+
+    /**
+     * Runs the extracters on a bounded thread pool, each one as soon as the
+     * extracters it depends on are done, and waits for all of them. The
+     * progress bar is only updated by the data source ingest thread.
+     */
+    private void runExtractersInParallel(final Content dataSource, DataSourceIngestModuleProgress progressBar, final Set<Extract> failedExtracters) {
+        ExecutorService extractionPool = Executors.newFixedThreadPool(Math.min(RecentActivitySettings.getExtractionThreads(), extracters.size()),
+                new ThreadFactoryBuilder().setNameFormat("RA-extracter-%d").setDaemon(true).build()); //NON-NLS
+        final Set<Extract> runningExtracters = Collections.newSetFromMap(new ConcurrentHashMap<Extract, Boolean>());
+        final LinkedBlockingQueue<Extract> doneExtracters = new LinkedBlockingQueue<>();
+        try {
+            // The extracters are listed after the ones they depend on, and the
+            // pool starts them in the order they are submitted, so an
+            // extracter only ever waits for extracters that are already
+            // running or done.
+            Map<Extract, CountDownLatch> doneSignals = new HashMap<>();
+            for (final Extract extracter : extracters) {
+                final List<CountDownLatch> prerequisites = new ArrayList<>();
+                List<Extract> dependsOn = dependencies.get(extracter);
+                if (dependsOn != null) {
+                    for (Extract prerequisite : dependsOn) {
+                        prerequisites.add(doneSignals.get(prerequisite));
+                    }
+                }
+                final CountDownLatch doneSignal = new CountDownLatch(1);
+                doneSignals.put(extracter, doneSignal);
+                extractionPool.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            for (CountDownLatch prerequisite : prerequisites) {
+                                prerequisite.await();
+                            }
+                            if (context.dataSourceIngestIsCancelled()) {
+                                logger.log(Level.INFO, "Recent Activity has been canceled, skipping {0}", extracter.getName()); //NON-NLS
+                                return;
+                            }
+                            runningExtracters.add(extracter);
+                            runExtracter(extracter, dataSource, failedExtracters);
+                        } catch (InterruptedException ex) {
+                            logger.log(Level.WARNING, "Interrupted while waiting to run " + extracter.getName(), ex); //NON-NLS
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            runningExtracters.remove(extracter);
+                            doneSignal.countDown();
+                            doneExtracters.add(extracter);
+                        }
+                    }
+                });
+            }
+
+            int doneCount = 0;
+            while (doneCount < extracters.size()) {
+                Extract done = doneExtracters.poll(500, TimeUnit.MILLISECONDS);
+                if (done != null) {
+                    ++doneCount;
+                }
+                StringBuilder runningNames = new StringBuilder();
+                for (Extract extracter : extracters) {
+                    if (runningExtracters.contains(extracter)) {
+                        if (runningNames.length() > 0) {
+                            runningNames.append(", "); //NON-NLS
+                        }
+                        runningNames.append(extracter.getName());
+                    }
+                }
+                progressBar.progress(runningNames.toString(), doneCount);
+            }
+        } catch (InterruptedException ex) {
+            logger.log(Level.WARNING, "Interrupted while waiting for the recent activity extracters", ex); //NON-NLS
+            Thread.currentThread().interrupt();
+        } finally {
+            extractionPool.shutdown();
+        }
+    }
+
     /**
      * Get the temp path for a specific sub-module in recent activity. Will
      * create the dir if it doesn't exist.
@@ -0,0 +1,102 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2015 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.recentactivity;
+
+import java.util.logging.Level;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.autopsy.coreutils.ModuleSettings;
+
+/**
+ * Settings of the recent activity module, kept in the RecentActivity_Options
+ * module settings file.
+ */
+final class RecentActivitySettings {
+
+    static final String PROPERTIES_OPTIONS = "RecentActivity_Options"; //NON-NLS
+    static final String PARALLEL_EXTRACTION = "ParallelExtraction"; //NON-NLS
+    static final String EXTRACTION_THREADS = "ExtractionThreads"; //NON-NLS
+    static final String REGRIPPER_FULL_REPORT = "RegRipperFullReport"; //NON-NLS
+    static final boolean DEFAULT_PARALLEL_EXTRACTION = false;
+    static final boolean DEFAULT_REGRIPPER_FULL_REPORT = false;
+    static final int DEFAULT_EXTRACTION_THREADS = Math.min(Runtime.getRuntime().availableProcessors(), 4);
+    private static final Logger logger = Logger.getLogger(RecentActivitySettings.class.getName());
+
+    private RecentActivitySettings() {
+    }
+
+    /**
+     * Gets whether or not the extractors that do not depend on each other are
+     * run at the same time, instead of one after another.
+     *
+     * @return The parallel extraction setting.
+     */
+    static boolean getParallelExtraction() {
+        return getBooleanSetting(PARALLEL_EXTRACTION, DEFAULT_PARALLEL_EXTRACTION);
+    }
+
+    static void setParallelExtraction(boolean parallelExtraction) {
+        ModuleSettings.setConfigSetting(PROPERTIES_OPTIONS, PARALLEL_EXTRACTION, Boolean.toString(parallelExtraction));
+    }
+
+    /**
+     * Gets the maximum number of extractors run at the same time for a data
+     * source, when extractors are run in parallel.
+     *
+     * @return The number of threads.
+     */
+    static int getExtractionThreads() {
+        return getPositiveIntSetting(EXTRACTION_THREADS, DEFAULT_EXTRACTION_THREADS);
+    }
+
+    /**
+     * Gets whether or not the full set of RegRipper plug-ins is run on each
+     * registry hive to make a report. It takes a process per hive, so it is
+     * off unless asked for.
+     *
+     * @return The RegRipper full report setting.
+     */
+    static boolean getRegRipperFullReport() {
+        return getBooleanSetting(REGRIPPER_FULL_REPORT, DEFAULT_REGRIPPER_FULL_REPORT);
+    }
+
+    static void setRegRipperFullReport(boolean regRipperFullReport) {
+        ModuleSettings.setConfigSetting(PROPERTIES_OPTIONS, REGRIPPER_FULL_REPORT, Boolean.toString(regRipperFullReport));
+    }
+
+    private static boolean getBooleanSetting(String key, boolean defaultValue) {
+        if (ModuleSettings.settingExists(PROPERTIES_OPTIONS, key)) {
+            return Boolean.parseBoolean(ModuleSettings.getConfigSetting(PROPERTIES_OPTIONS, key));
+        }
+        return defaultValue;
+    }
+
+    private static int getPositiveIntSetting(String key, int defaultValue) {
+        if (ModuleSettings.settingExists(PROPERTIES_OPTIONS, key)) {
+            try {
+                int value = Integer.parseInt(ModuleSettings.getConfigSetting(PROPERTIES_OPTIONS, key));
+                if (value > 0) {
+                    return value;
+                }
+            } catch (NumberFormatException ex) {
+                logger.log(Level.WARNING, "Invalid value for property " + key + ", using default value", ex); //NON-NLS
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -0,0 +1,470 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2015 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.recentactivity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.sleuthkit.autopsy.datamodel.ContentUtils;
+import org.sleuthkit.datamodel.Content;
+import org.sleuthkit.datamodel.TskCoreException;
+
+/**
+ * Read-only parser of a Windows registry hive file (the REGF format), e.g., a
+ * SYSTEM, SOFTWARE or NTUSER.DAT hive. The whole file is read from the case
+ * into memory when the hive is opened, without a copy on disk, and keys and
+ * values are parsed from the bytes when they are asked for.
+ * <p>
+ * Only absolute reads are made from the bytes, so a hive can be read by
+ * several threads at once. Different hives have nothing in common, so they
+ * can be parsed in parallel.
+ */
+final class RegistryHive {
+
+    static final int REG_SZ = 1;
+    static final int REG_EXPAND_SZ = 2;
+    static final int REG_BINARY = 3;
+    static final int REG_DWORD = 4;
+    static final int REG_DWORD_BIG_ENDIAN = 5;
+    static final int REG_MULTI_SZ = 7;
+    static final int REG_QWORD = 11;
+
+    private static final int BASE_BLOCK_SIZE = 4096;
+    private static final int ROOT_CELL_OFFSET = 0x24;
+    private static final int KEY_COMP_NAME = 0x20;
+    private static final int VALUE_COMP_NAME = 0x1;
+    private static final int DATA_IN_OFFSET = 0x80000000;
+    private static final int BIG_DATA_SEGMENT_SIZE = 16344;
+    private static final int KEY_RECORD_SIZE = 0x4C;
+    private static final int VALUE_RECORD_SIZE = 0x14;
+    private static final int BIG_DATA_RECORD_SIZE = 8;
+    private static final int LIST_HEADER_SIZE = 4;
+    private static final long FILETIME_EPOCH_DIFF_SECONDS = 11644473600L;
+    private static final Charset UTF_16LE = StandardCharsets.UTF_16LE;
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252"); //NON-NLS
+
+    private final ByteBuffer buffer;
+    private final Key rootKey;
+
+    private RegistryHive(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < BASE_BLOCK_SIZE
+                || buffer.get(0) != 'r' || buffer.get(1) != 'e' || buffer.get(2) != 'g' || buffer.get(3) != 'f') {
+            throw new IOException("Not a registry hive file"); //NON-NLS
+        }
+        this.rootKey = new Key(buffer.getInt(ROOT_CELL_OFFSET));
+    }
+
+    /**
+     * Opens a registry hive file.
+     *
+     * @param hiveFile The hive file.
+     * @return The hive.
+     * @throws IOException if the file cannot be read or is not a hive file.
+     */
+    static RegistryHive open(Content hiveFile) throws IOException {
+        if (hiveFile.getSize() > Integer.MAX_VALUE) {
+            throw new IOException("Registry hive file is too large: " + hiveFile.getName()); //NON-NLS
+        }
+        byte[] bytes = new byte[(int) hiveFile.getSize()];
+        int length;
+        try {
+            length = ContentUtils.readFully(hiveFile, bytes, 0, 0, bytes.length);
+        } catch (TskCoreException ex) {
+            throw new IOException("Error reading registry hive file: " + hiveFile.getName(), ex); //NON-NLS
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return new RegistryHive(buffer);
+    }
+
+    /**
+     * @return The root key of the hive.
+     */
+    Key getRootKey() {
+        return rootKey;
+    }
+
+    /**
+     * Gets the position in the file of the data of the cell at an offset from
+     * the start of the hive bins, checking that the whole cell is in the file
+     * and that it has room for at least a given number of bytes of data.
+     */
+    private int cell(int offset, int minDataSize) throws IOException {
+        long position = (long) BASE_BLOCK_SIZE + offset;
+        if (offset < 0 || position + 4 > buffer.limit()) {
+            throw new IOException("Invalid registry cell offset: " + offset); //NON-NLS
+        }
+        int size = Math.abs(buffer.getInt((int) position));
+        if (size < 4 + minDataSize || position + size > buffer.limit()) {
+            throw new IOException("Invalid registry cell size at offset: " + offset); //NON-NLS
+        }
+        return (int) position + 4;
+    }
+
+    /**
+     * Gets the number of bytes of data of a cell, given the position returned
+     * for it by cell().
+     */
+    private int cellDataSize(int position) {
+        return Math.abs(buffer.getInt(position - 4)) - 4;
+    }
+
+    /**
+     * Checks that a number of entries of a given size, read from a record of
+     * the hive, fit in the data of a cell after a header, so that a corrupt
+     * count cannot make the parser allocate more than the hive holds.
+     */
+    private void checkEntries(int position, int headerSize, int count, int entrySize) throws IOException {
+        if (count < 0 || (long) headerSize + (long) count * entrySize > cellDataSize(position)) {
+            throw new IOException("Registry list does not fit in its cell: " + count + " entries"); //NON-NLS
+        }
+    }
+
+    private void checkSignature(int position, char first, char second) throws IOException {
+        if (buffer.get(position) != first || buffer.get(position + 1) != second) {
+            throw new IOException("Expected a registry " + first + second + " record"); //NON-NLS
+        }
+    }
+
+    private byte[] getBytes(int position, int length) throws IOException {
+        if (length < 0 || (long) position + length > buffer.limit()) {
+            throw new IOException("Registry data runs past the end of the hive"); //NON-NLS
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            bytes[i] = buffer.get(position + i);
+        }
+        return bytes;
+    }
+
+    private String getName(int position, int length, boolean compressed) throws IOException {
+        return new String(getBytes(position, length), compressed ? WINDOWS_1252 : UTF_16LE);
+    }
+
+    /**
+     * A key of the hive.
+     */
+    final class Key {
+
+        private final int position;
+
+        private Key(int offset) throws IOException {
+            position = cell(offset, KEY_RECORD_SIZE);
+            checkSignature(position, 'n', 'k');
+        }
+
+        /**
+         * @return The name of the key.
+         */
+        String getName() throws IOException {
+            int flags = buffer.getShort(position + 0x02) & 0xFFFF;
+            int nameLength = buffer.getShort(position + 0x48) & 0xFFFF;
+            if (KEY_RECORD_SIZE + nameLength > cellDataSize(position)) {
+                throw new IOException("Registry key name does not fit in its cell"); //NON-NLS
+            }
+            return RegistryHive.this.getName(position + KEY_RECORD_SIZE, nameLength, (flags & KEY_COMP_NAME) != 0);
+        }
+
+        /**
+         * @return The last written time of the key, in seconds since the
+         * epoch.
+         */
+        long getTimestamp() {
+            return filetimeToEpochSeconds(buffer.getLong(position + 0x04));
+        }
+
+        /**
+         * Gets the subkeys of the key.
+         *
+         * @return The subkeys, in the order they are stored in.
+         * @throws IOException if the hive is corrupt.
+         */
+        List<Key> getSubkeys() throws IOException {
+            int count = buffer.getInt(position + 0x14);
+            if (count <= 0) {
+                return Collections.emptyList();
+            }
+            // not sized from the count, which is checked against the lists
+            List<Key> subkeys = new ArrayList<>();
+            addSubkeys(buffer.getInt(position + 0x1C), subkeys, 0);
+            return subkeys;
+        }
+
+        private void addSubkeys(int listOffset, List<Key> subkeys, int depth) throws IOException {
+            int list = cell(listOffset, LIST_HEADER_SIZE);
+            int count = buffer.getShort(list + 2) & 0xFFFF;
+            byte first = buffer.get(list);
+            byte second = buffer.get(list + 1);
+            if (first == 'l' && (second == 'f' || second == 'h')) {
+                checkEntries(list, LIST_HEADER_SIZE, count, 8);
+                for (int i = 0; i < count; ++i) {
+                    subkeys.add(new Key(buffer.getInt(list + 4 + i * 8)));
+                }
+            } else if (first == 'l' && second == 'i') {
+                checkEntries(list, LIST_HEADER_SIZE, count, 4);
+                for (int i = 0; i < count; ++i) {
+                    subkeys.add(new Key(buffer.getInt(list + 4 + i * 4)));
+                }
+            } else if (first == 'r' && second == 'i' && depth == 0) {
+                checkEntries(list, LIST_HEADER_SIZE, count, 4);
+                for (int i = 0; i < count; ++i) {
+                    addSubkeys(buffer.getInt(list + 4 + i * 4), subkeys, depth + 1);
+                }
+            } else {
+                throw new IOException("Invalid registry subkey list"); //NON-NLS
+            }
+        }
+
+        /**
+         * Gets a subkey of the key by path.
+         *
+         * @param path The names of the keys from this one to the subkey,
+         * separated by backslashes. Names are not case-sensitive.
+         * @return The subkey, or null if there is no such subkey.
+         * @throws IOException if the hive is corrupt.
+         */
+        Key getSubkey(String path) throws IOException {
+            Key key = this;
+            for (String name : path.split("\\\\")) {
+                Key next = null;
+                for (Key subkey : key.getSubkeys()) {
+                    if (subkey.getName().equalsIgnoreCase(name)) {
+                        next = subkey;
+                        break;
+                    }
+                }
+                if (next == null) {
+                    return null;
+                }
+                key = next;
+            }
+            return key;
+        }
+
+        /**
+         * Gets the values of the key.
+         *
+         * @return The values, in the order they are stored in.
+         * @throws IOException if the hive is corrupt.
+         */
+        List<Value> getValues() throws IOException {
+            int count = buffer.getInt(position + 0x24);
+            if (count <= 0) {
+                return Collections.emptyList();
+            }
+            int list = cell(buffer.getInt(position + 0x28), 0);
+            checkEntries(list, 0, count, 4);
+            List<Value> values = new ArrayList<>(count);
+            for (int i = 0; i < count; ++i) {
+                values.add(new Value(buffer.getInt(list + i * 4)));
+            }
+            return values;
+        }
+
+        /**
+         * Gets a value of the key by name.
+         *
+         * @param name The name of the value, not case-sensitive.
+         * @return The value, or null if there is no such value.
+         * @throws IOException if the hive is corrupt.
+         */
+        Value getValue(String name) throws IOException {
+            for (Value value : getValues()) {
+                if (value.getName().equalsIgnoreCase(name)) {
+                    return value;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Gets the data of a value of the key as a string.
+         *
+         * @param name The name of the value.
+         * @return The data, or null if there is no such value.
+         * @throws IOException if the hive is corrupt.
+         */
+        String getValueString(String name) throws IOException {
+            Value value = getValue(name);
+            return (value != null) ? value.getString() : null;
+        }
+    }
+
+    /**
+     * A value of a key of the hive.
+     */
+    final class Value {
+
+        private final int position;
+
+        private Value(int offset) throws IOException {
+            position = cell(offset, VALUE_RECORD_SIZE);
+            checkSignature(position, 'v', 'k');
+        }
+
+        /**
+         * @return The name of the value, empty for the default value of a key.
+         */
+        String getName() throws IOException {
+            int nameLength = buffer.getShort(position + 0x02) & 0xFFFF;
+            int flags = buffer.getShort(position + 0x10) & 0xFFFF;
+            if (VALUE_RECORD_SIZE + nameLength > cellDataSize(position)) {
+                throw new IOException("Registry value name does not fit in its cell"); //NON-NLS
+            }
+            return RegistryHive.this.getName(position + VALUE_RECORD_SIZE, nameLength, (flags & VALUE_COMP_NAME) != 0);
+        }
+
+        /**
+         * @return The type of the value, e.g., REG_SZ.
+         */
+        int getType() {
+            return buffer.getInt(position + 0x0C);
+        }
+
+        /**
+         * Gets the raw data of the value.
+         *
+         * @return The data.
+         * @throws IOException if the hive is corrupt.
+         */
+        byte[] getData() throws IOException {
+            int size = buffer.getInt(position + 0x04);
+            if ((size & DATA_IN_OFFSET) != 0) {
+                return getBytes(position + 0x08, Math.min(size & ~DATA_IN_OFFSET, 4));
+            }
+            if (size == 0) {
+                return new byte[0];
+            }
+            int data = cell(buffer.getInt(position + 0x08), 0);
+            int dataSize = cellDataSize(data);
+            if (size > BIG_DATA_SEGMENT_SIZE && dataSize >= BIG_DATA_RECORD_SIZE && buffer.get(data) == 'd' && buffer.get(data + 1) == 'b') {
+                // the data is split into segments listed by a big data record
+                int segmentCount = buffer.getShort(data + 2) & 0xFFFF;
+                if ((long) segmentCount * BIG_DATA_SEGMENT_SIZE < size) {
+                    throw new IOException("Registry big data is larger than its segments"); //NON-NLS
+                }
+                int segments = cell(buffer.getInt(data + 4), 0);
+                checkEntries(segments, 0, segmentCount, 4);
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(size);
+                for (int i = 0; i < segmentCount && bytes.size() < size; ++i) {
+                    int segment = cell(buffer.getInt(segments + i * 4), 0);
+                    int length = Math.min(BIG_DATA_SEGMENT_SIZE, size - bytes.size());
+                    if (length > cellDataSize(segment)) {
+                        throw new IOException("Registry data segment does not fit in its cell"); //NON-NLS
+                    }
+                    bytes.write(getBytes(segment, length), 0, length);
+                }
+                return bytes.toByteArray();
+            }
+            if (size > dataSize) {
+                throw new IOException("Registry value data does not fit in its cell"); //NON-NLS
+            }
+            return getBytes(data, size);
+        }
+
+        /**
+         * Gets the data of the value as a string: strings without their
+         * terminating null, the strings of a REG_MULTI_SZ separated by
+         * newlines, numbers in decimal and anything else in hex.
+         *
+         * @return The data as a string.
+         * @throws IOException if the hive is corrupt.
+         */
+        String getString() throws IOException {
+            byte[] data = getData();
+            switch (getType()) {
+                case REG_SZ:
+                case REG_EXPAND_SZ:
+                    return trimNulls(new String(data, UTF_16LE));
+                case REG_MULTI_SZ:
+                    return trimNulls(new String(data, UTF_16LE)).replace('\0', '\n');
+                case REG_DWORD:
+                case REG_DWORD_BIG_ENDIAN:
+                case REG_QWORD:
+                    return Long.toString(getLong());
+                default:
+                    StringBuilder hex = new StringBuilder(data.length * 2);
+                    for (byte b : data) {
+                        hex.append(String.format("%02x", b)); //NON-NLS
+                    }
+                    return hex.toString();
+            }
+        }
+
+        /**
+         * Gets the data of a REG_DWORD, REG_DWORD_BIG_ENDIAN or REG_QWORD
+         * value as an unsigned number.
+         *
+         * @return The number.
+         * @throws IOException if the hive is corrupt or the value is not a
+         * number.
+         */
+        long getLong() throws IOException {
+            byte[] data = getData();
+            switch (getType()) {
+                case REG_DWORD:
+                case REG_DWORD_BIG_ENDIAN:
+                    if (data.length >= 4) {
+                        boolean bigEndian = getType() == REG_DWORD_BIG_ENDIAN;
+                        long number = 0;
+                        for (int i = 0; i < 4; ++i) {
+                            number |= (long) (data[bigEndian ? 3 - i : i] & 0xFF) << (8 * i);
+                        }
+                        return number;
+                    }
+                    break;
+                case REG_QWORD:
+                    if (data.length >= 8) {
+                        long number = 0;
+                        for (int i = 0; i < 8; ++i) {
+                            number |= (long) (data[i] & 0xFF) << (8 * i);
+                        }
+                        return number;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            throw new IOException("Registry value is not a number"); //NON-NLS
+        }
+    }
+
+    /**
+     * Converts a Windows FILETIME, in 100 ns intervals since 1601, to seconds
+     * since the epoch.
+     */
+    static long filetimeToEpochSeconds(long filetime) {
+        return filetime / 10000000 - FILETIME_EPOCH_DIFF_SECONDS;
+    }
+
+    private static String trimNulls(String string) {
+        int end = string.length();
+        while (end > 0 && string.charAt(end - 1) == '\0') {
+            --end;
+        }
+        return string.substring(0, end);
+    }
+}
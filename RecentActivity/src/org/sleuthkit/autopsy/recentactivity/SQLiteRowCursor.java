@@ -0,0 +1,115 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2015 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.recentactivity;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import org.sleuthkit.autopsy.coreutils.SQLiteDBConnect;
+
+/**
+ * Iterates over the rows of the result of a query of a SQLite database one
+ * row at a time, so that the rows do not have to be held in memory. Columns
+ * are accessed by index, as typed values; the index of a column can be looked
+ * up by name once, before iterating.
+ * <p>
+ * Null values are read as empty strings and zeros, as the recent activity
+ * extracters have always treated them. Not thread-safe.
+ */
+final class SQLiteRowCursor implements AutoCloseable {
+
+    private final SQLiteDBConnect connection;
+    private final ResultSet resultSet;
+
+    private SQLiteRowCursor(SQLiteDBConnect connection, ResultSet resultSet) {
+        this.connection = connection;
+        this.resultSet = resultSet;
+    }
+
+    /**
+     * Runs a query of a SQLite database.
+     *
+     * @param path The path of the database file.
+     * @param query The query.
+     * @return A cursor positioned before the first row of the result.
+     * @throws SQLException if the database cannot be opened or queried.
+     */
+    static SQLiteRowCursor open(String path, String query) throws SQLException {
+        SQLiteDBConnect connection = new SQLiteDBConnect("org.sqlite.JDBC", "jdbc:sqlite:" + path); //NON-NLS
+        try {
+            return new SQLiteRowCursor(connection, connection.executeQry(query));
+        } catch (SQLException ex) {
+            connection.closeConnection();
+            throw ex;
+        }
+    }
+
+    /**
+     * Gets the index of a column of the result.
+     *
+     * @param columnName The name of the column.
+     * @return The index of the column, starting from 1.
+     * @throws SQLException if there is no such column.
+     */
+    int getColumnIndex(String columnName) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        for (int i = 1; i <= metaData.getColumnCount(); ++i) {
+            if (metaData.getColumnName(i).equalsIgnoreCase(columnName)) {
+                return i;
+            }
+        }
+        throw new SQLException("No column " + columnName + " in query result"); //NON-NLS
+    }
+
+    /**
+     * Moves to the next row.
+     *
+     * @return False if there are no more rows.
+     * @throws SQLException
+     */
+    boolean next() throws SQLException {
+        return resultSet.next();
+    }
+
+    /**
+     * @return The value of a column of the current row as a string, or an
+     * empty string if it is null.
+     */
+    String getString(int columnIndex) throws SQLException {
+        String value = resultSet.getString(columnIndex);
+        return (value != null) ? value : "";
+    }
+
+    /**
+     * @return The value of a column of the current row as a long, or zero if
+     * it is null.
+     */
+    long getLong(int columnIndex) throws SQLException {
+        return resultSet.getLong(columnIndex);
+    }
+
+    @Override
+    public void close() {
+        try {
+            resultSet.close();
+        } catch (SQLException ignore) {
+        }
+        connection.closeConnection();
+    }
+}
@@ -18,22 +18,15 @@
  */
 package org.sleuthkit.autopsy.thunderbirdparser;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedReader;
-import java.io.CharConversionException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.Charset;
-import java.nio.charset.CharsetEncoder;
-import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.StandardCharsets;
-import java.nio.charset.UnsupportedCharsetException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -48,12 +41,8 @@
 import org.apache.james.mime4j.dom.address.MailboxList;
 import org.apache.james.mime4j.dom.field.ContentDispositionField;
 import org.apache.james.mime4j.dom.field.ContentTypeField;
-import org.apache.james.mime4j.mboxiterator.CharBufferWrapper;
-import org.apache.james.mime4j.mboxiterator.MboxIterator;
 import org.apache.james.mime4j.message.DefaultMessageBuilder;
 import org.apache.james.mime4j.stream.MimeConfig;
-import org.apache.tika.parser.txt.CharsetDetector;
-import org.apache.tika.parser.txt.CharsetMatch;
 import org.openide.util.NbBundle;
 import org.sleuthkit.autopsy.ingest.IngestServices;
 
@@ -74,6 +63,18 @@ class MboxParser {
      */
     private static final String HTML_TYPE = "text/html"; //NON-NLS
     
+    /**
+     * The start of the line that precedes each message in a mbox file.
+     */
+    private static final byte[] FROM_LINE_START = "From ".getBytes(StandardCharsets.US_ASCII); //NON-NLS
+    
+    /**
+     * The size of the largest message that is parsed; the same limit the
+     * mime4j mbox iterator applies.
+     */
+    private static final int MAX_MESSAGE_SIZE = 10 * 1024 * 1024;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    
     /**
      * The local path of the mbox file.
      */
@@ -94,59 +95,103 @@ static boolean isValidMimeTypeMbox(byte[] buffer) {
     }
     
     /**
-     * Parse the mbox file and get the email messages.
-     * @param mboxFile
-     * @return a list of the email messages in the mbox file.
+     * Parse the messages of a mbox file one at a time, handing each to the
+     * consumer as soon as it has been extracted, so that only one message is
+     * held in memory at a time.
+     * <p>
+     * Messages are split on the "From " lines that start them, reading the
+     * file as bytes. This is what the single byte charsets that were tried
+     * first when decoding a mbox file amounted to; mime4j decodes each message
+     * according to its own headers.
+     *
+     * @param mboxStream A stream of the contents of the mbox file.
+     * @param emailConsumer Receives the email messages, in file order.
      */
-    List<EmailMessage> parse(File mboxFile) {
-        // Detect possible charsets
-        List<CharsetEncoder> encoders = getPossibleEncoders(mboxFile);
-        
-        CharsetEncoder theEncoder = null;
-        Iterable<CharBufferWrapper> mboxIterator = null;
-        // Loop through the possible encoders and find the first one that works.
-        // That will usually be one of the first ones.
-        for (CharsetEncoder encoder : encoders) {
-            try {
-                mboxIterator = MboxIterator.fromFile(mboxFile).charset(encoder.charset()).build();
-                theEncoder = encoder;
-                break;
-            } catch (CharConversionException | UnsupportedCharsetException ex) {
-                // Not the right encoder
-            } catch (IllegalArgumentException ex) {
-                // Not the right encoder
-            } catch (IOException ex) {
-                logger.log(Level.WARNING, "couldn't find mbox file.", ex); //NON-NLS
-                addErrorMessage(NbBundle.getMessage(this.getClass(), "MboxParser.parse.errMsg.failedToReadFile"));
-                return new ArrayList<>();
-            }
-        }
-        
-        // If no encoders work, post an error message and return.
-        if (mboxIterator == null || theEncoder == null) {
-            addErrorMessage(NbBundle.getMessage(this.getClass(), "MboxParser.parse.errMsg.couldntFindCharset"));
-            return new ArrayList<>();
-        }
-        
-        List<EmailMessage> emails = new ArrayList<>();
+    void parse(InputStream mboxStream, EmailMessageConsumer emailConsumer) {
+        MessageBuffer message = new MessageBuffer();
+        byte[] chunk = new byte[READ_BUFFER_SIZE];
+        boolean inMessage = false;
+        boolean inFromLine = false;
+        // The number of bytes of the current line that match the start of a
+        // From line, or -1 if the line is not a From line.
+        int fromLineMatched = 0;
         long failCount = 0;
-        
-        // Parse each message and extract an EmailMessage structure
-        for (CharBufferWrapper message : mboxIterator) {
-            try {
-                Message msg = messageBuilder.parseMessage(message.asInputStream(theEncoder.charset()));
-                emails.add(extractEmail(msg));
-            } catch (IOException ex) {
-                logger.log(Level.WARNING, "Failed to get message from mbox: {0}", ex.getMessage()); //NON-NLS
+
+        try {
+            int read;
+            while ((read = mboxStream.read(chunk)) != -1) {
+                int start = 0;
+                for (int i = 0; i < read; ++i) {
+                    byte b = chunk[i];
+                    if (inFromLine) {
+                        if (b == '\n') {
+                            inFromLine = false;
+                            fromLineMatched = 0;
+                            start = i + 1;
+                        }
+                    } else if (fromLineMatched >= 0 && b == FROM_LINE_START[fromLineMatched]) {
+                        if (++fromLineMatched == FROM_LINE_START.length) {
+                            // The message before the From line ends where
+                            // the From line starts.
+                            if (inMessage) {
+                                message.write(chunk, start, i + 1 - start);
+                                message.drop(FROM_LINE_START.length);
+                                if (!parseMessage(message, emailConsumer)) {
+                                    failCount++;
+                                }
+                            }
+                            message.reset();
+                            inMessage = true;
+                            inFromLine = true;
+                        }
+                    } else {
+                        fromLineMatched = (b == '\n') ? 0 : -1;
+                    }
+                }
+                if (inMessage && !inFromLine) {
+                    message.write(chunk, start, read - start);
+                }
+            }
+            if (inMessage && !parseMessage(message, emailConsumer)) {
                 failCount++;
             }
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Failed to read mbox file.", ex); //NON-NLS
+            addErrorMessage(NbBundle.getMessage(this.getClass(), "MboxParser.parse.errMsg.failedToReadFile"));
         }
-        
+
         if (failCount > 0) {
             addErrorMessage(
                     NbBundle.getMessage(this.getClass(), "MboxParser.parse.errMsg.failedToParseNMsgs", failCount));
         }
-        return emails;
+    }
+
+    /**
+     * Parse a single message split out of the mbox file and hand it to the
+     * consumer.
+     *
+     * @param message The bytes of the message.
+     * @param emailConsumer
+     * @return False if the message could not be parsed.
+     */
+    private boolean parseMessage(MessageBuffer message, EmailMessageConsumer emailConsumer) {
+        if (message.isTruncated()) {
+            logger.log(Level.WARNING, "Skipping mbox message larger than {0} bytes", MAX_MESSAGE_SIZE); //NON-NLS
+            return false;
+        }
+        Message msg = null;
+        try {
+            msg = messageBuilder.parseMessage(message.asInputStream());
+            emailConsumer.accept(extractEmail(msg));
+            return true;
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Failed to get message from mbox: {0}", ex.getMessage()); //NON-NLS
+            return false;
+        } finally {
+            if (msg != null) {
+                msg.dispose();
+            }
+        }
     }
     
     String getErrors() {
@@ -338,55 +383,53 @@ private String getAddresses(AddressList addressList) {
         return (addressList == null) ? "" : getAddresses(addressList.flatten());
     }
 
+    private void addErrorMessage(String msg) {
+        errors.append("<li>").append(msg).append("</li>"); //NON-NLS
+    }
+
     /**
-     * Get a list of the possible encoders for the given mboxFile using Tika's
-     * CharsetDetector. At a minimum, returns the standard built in charsets.
-     * @param mboxFile
-     * @return 
+     * Holds the bytes of one message, up to the maximum message size, and
+     * reads them back without copying them.
      */
-    private List<CharsetEncoder> getPossibleEncoders(File mboxFile) {
-        InputStream is;
-        List<CharsetEncoder> possibleEncoders = new ArrayList<>();
-        
-        possibleEncoders.add(StandardCharsets.ISO_8859_1.newEncoder());
-        possibleEncoders.add(StandardCharsets.US_ASCII.newEncoder());
-        possibleEncoders.add(StandardCharsets.UTF_16.newEncoder());
-        possibleEncoders.add(StandardCharsets.UTF_16BE.newEncoder());
-        possibleEncoders.add(StandardCharsets.UTF_16LE.newEncoder());
-        possibleEncoders.add(StandardCharsets.UTF_8.newEncoder());
-        
-        try {
-            is = new BufferedInputStream(new FileInputStream(mboxFile));
-        } catch (FileNotFoundException ex) {
-            logger.log(Level.WARNING, "Failed to find mbox file while detecting charset"); //NON-NLS
-            return possibleEncoders;
+    private static final class MessageBuffer extends ByteArrayOutputStream {
+
+        private boolean truncated;
+
+        MessageBuffer() {
+            super(READ_BUFFER_SIZE);
         }
-        
-        try {
-            CharsetDetector detector = new CharsetDetector();
-            detector.setText(is);
-            CharsetMatch[] matches = detector.detectAll();
-            for (CharsetMatch match : matches) {
-                try {
-                    possibleEncoders.add(Charset.forName(match.getName()).newEncoder());
-                } catch (UnsupportedCharsetException | IllegalCharsetNameException ex) {
-                    // Don't add unsupported charsets to the list
-                }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (count + len > MAX_MESSAGE_SIZE) {
+                truncated = true;
             }
-            return possibleEncoders;
-        } catch (IOException | IllegalArgumentException ex) {
-            logger.log(Level.WARNING, "Failed to detect charset of mbox file.", ex); //NON-NLS
-            return possibleEncoders;
-        } finally {
-            try {
-                is.close();
-            } catch (IOException ex) {
-                logger.log(Level.INFO, "Failed to close input stream"); //NON-NLS
+            if (!truncated) {
+                super.write(b, off, len);
             }
         }
-    }
-    
-    private void addErrorMessage(String msg) {
-        errors.append("<li>").append(msg).append("</li>"); //NON-NLS
+
+        /**
+         * Drops bytes from the end of the buffer.
+         *
+         * @param length The number of bytes to drop.
+         */
+        void drop(int length) {
+            count = Math.max(count - length, 0);
+        }
+
+        boolean isTruncated() {
+            return truncated;
+        }
+
+        InputStream asInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            truncated = false;
+        }
     }
 }
@@ -51,15 +51,9 @@ class PstParser {
      */
     private static int PST_HEADER = 0x2142444E;
     private IngestServices services;
-    /**
-     * A map of PSTMessages to their Local path within the file's internal
-     * directory structure.
-     */
-    private List<EmailMessage> results;
     private StringBuilder errors;
 
     PstParser(IngestServices services) {
-        results = new ArrayList<>();
         this.services = services;
         errors = new StringBuilder();
     }
@@ -70,18 +64,20 @@ enum ParseResult {
     }
 
     /**
-     * Parse and extract email messages from the pst/ost file.
+     * Parse and extract email messages from the pst/ost file, handing each to
+     * the consumer as soon as it has been extracted.
      *
      * @param file A pst or ost file.
+     * @param emailConsumer Receives the email messages.
      * @return ParseResult: OK on success, ERROR on an error, ENCRYPT if failed
      * because the file is encrypted.
      */
-    ParseResult parse(File file) {
+    ParseResult parse(File file, EmailMessageConsumer emailConsumer) {
         PSTFile pstFile;
         long failures;
         try {
             pstFile = new PSTFile(file);
-            failures = processFolder(pstFile.getRootFolder(), "\\", true);
+            failures = processFolder(pstFile.getRootFolder(), "\\", true, emailConsumer);
             if (failures > 0) {
                 addErrorMessage(
                         NbBundle.getMessage(this.getClass(), "PstParser.parse.errMsg.failedToParseNMsgs", failures));
@@ -97,31 +93,23 @@ ParseResult parse(File file) {
         }
     }
 
-    /**
-     * Get the results of the parsing.
-     *
-     * @return
-     */
-    List<EmailMessage> getResults() {
-        return results;
-    }
-
     String getErrors() {
         return errors.toString();
     }
 
     /**
-     * Process this folder and all subfolders, adding every email found to
-     * results. Accumulates the folder hierarchy path as it navigates the folder
+     * Process this folder and all subfolders, handing every email found to
+     * the consumer. Accumulates the folder hierarchy path as it navigates the folder
      * structure.
      *
      * @param folder The folder to navigate and process
      * @param path The path to the folder within the pst/ost file's directory
      * structure
+     * @param emailConsumer Receives the email messages.
      * @throws PSTException
      * @throws IOException
      */
-    private long processFolder(PSTFolder folder, String path, boolean root) {
+    private long processFolder(PSTFolder folder, String path, boolean root, EmailMessageConsumer emailConsumer) {
         String newPath = (root ? path : path + "\\" + folder.getDisplayName());
         long failCount = 0L; // Number of emails that failed
         if (folder.hasSubfolders()) {
@@ -134,7 +122,7 @@ private long processFolder(PSTFolder folder, String path, boolean root) {
             }
 
             for (PSTFolder f : subFolders) {
-                failCount += processFolder(f, newPath, false);
+                failCount += processFolder(f, newPath, false, emailConsumer);
             }
         }
 
@@ -143,7 +131,7 @@ private long processFolder(PSTFolder folder, String path, boolean root) {
             // A folder's children are always emails, never other folders.
             try {
                 while ((email = (PSTMessage) folder.getNextChild()) != null) {
-                    results.add(extractEmailMessage(email, newPath));
+                    emailConsumer.accept(extractEmailMessage(email, newPath));
                 }
             } catch (PSTException | IOException ex) {
                 failCount++;
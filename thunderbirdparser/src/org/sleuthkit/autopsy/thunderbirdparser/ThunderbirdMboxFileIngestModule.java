@@ -20,6 +20,7 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
@@ -40,6 +41,7 @@
 import org.sleuthkit.datamodel.BlackboardAttribute;
 import org.sleuthkit.datamodel.BlackboardAttribute.ATTRIBUTE_TYPE;
 import org.sleuthkit.datamodel.DerivedFile;
+import org.sleuthkit.datamodel.ReadContentInputStream;
 import org.sleuthkit.datamodel.TskCoreException;
 import org.sleuthkit.datamodel.TskData;
 import org.sleuthkit.datamodel.TskException;
@@ -52,9 +54,15 @@
 public final class ThunderbirdMboxFileIngestModule implements FileIngestModule {
 
     private static final Logger logger = Logger.getLogger(ThunderbirdMboxFileIngestModule.class.getName());
+    /**
+     * The number of attachments added to the case before they are added to
+     * the ingest job.
+     */
+    private static final int DERIVED_FILES_BATCH_SIZE = 100;
     private IngestServices services = IngestServices.getInstance();
     private FileManager fileManager;
     private IngestJobContext context;
+    private final List<AbstractFile> derivedFiles = new ArrayList<>();
 
     ThunderbirdMboxFileIngestModule() {
     }
@@ -113,7 +121,7 @@ public ProcessResult process(AbstractFile abstractFile) {
      * @param abstractFile The pst/ost data file to process.
      * @return
      */
-    private ProcessResult processPst(AbstractFile abstractFile) {
+    private ProcessResult processPst(final AbstractFile abstractFile) {
         String fileName = getTempPath() + File.separator + abstractFile.getName()
                 + "-" + String.valueOf(abstractFile.getId());
         File file = new File(fileName);
@@ -135,13 +143,17 @@ private ProcessResult processPst(AbstractFile abstractFile) {
             return ProcessResult.OK;
         }
 
+        // The emails are processed and their artifacts added as they are parsed.
         PstParser parser = new PstParser(services);
-        PstParser.ParseResult result = parser.parse(file);
+        PstParser.ParseResult result = parser.parse(file, new EmailMessageConsumer() {
+            @Override
+            public void accept(EmailMessage email) {
+                processEmail(email, abstractFile);
+            }
+        });
+        flushEmails();
 
-        if (result == PstParser.ParseResult.OK) {
-            // parse success: Process email and add artifacts
-            processEmails(parser.getResults(), abstractFile);
-        } else if (result == PstParser.ParseResult.ENCRYPT) {
+        if (result == PstParser.ParseResult.ENCRYPT) {
             // encrypted pst: Add encrypted file artifact
             try {
                 BlackboardArtifact artifact = abstractFile.newArtifact(BlackboardArtifact.ARTIFACT_TYPE.TSK_ENCRYPTION_DETECTED);
@@ -150,7 +162,7 @@ private ProcessResult processPst(AbstractFile abstractFile) {
             } catch (TskCoreException ex) {
                 logger.log(Level.INFO, "Failed to add encryption attribute to file: {0}", abstractFile.getName()); //NON-NLS
             }
-        } else {
+        } else if (result == PstParser.ParseResult.ERROR) {
             // parsing error: log message
             postErrorMessage(
                     NbBundle.getMessage(this.getClass(), "ThunderbirdMboxFileIngestModule.processPst.errProcFile.msg",
@@ -182,7 +194,7 @@ private ProcessResult processPst(AbstractFile abstractFile) {
      * @param ingestContext
      * @return
      */
-    private ProcessResult processMBox(AbstractFile abstractFile) {
+    private ProcessResult processMBox(final AbstractFile abstractFile) {
         String mboxFileName = abstractFile.getName();
         String mboxParentDir = abstractFile.getParentPath();
         // use the local path to determine the e-mail folder structure
@@ -196,35 +208,20 @@ private ProcessResult processMBox(AbstractFile abstractFile) {
         emailFolder = emailFolder + mboxFileName;
         emailFolder = emailFolder.replaceAll(".sbd", ""); //NON-NLS
 
-        String fileName = getTempPath() + File.separator + abstractFile.getName()
-                + "-" + String.valueOf(abstractFile.getId());
-        File file = new File(fileName);
-
-        if (abstractFile.getSize() >= services.getFreeDiskSpace()) {
-            logger.log(Level.WARNING, "Not enough disk space to write file to disk."); //NON-NLS
-            postErrorMessage(
-                    NbBundle.getMessage(this.getClass(), "ThunderbirdMboxFileIngestModule.processMBox.errProcFile.msg",
-                    abstractFile.getName()),
-                    NbBundle.getMessage(this.getClass(),
-                    "ThunderbirdMboxFileIngestModule.processMBox.errProfFile.details"));
-            return ProcessResult.OK;
-        }
-
-        try {
-            ContentUtils.writeToFile(abstractFile, file);
-        } catch (IOException ex) {
-            logger.log(Level.WARNING, "Failed writing mbox file to disk.", ex); //NON-NLS
-            return ProcessResult.OK;
-        }
-
+        // The mbox file is parsed straight from the image, one message at a
+        // time, rather than from a copy of it.
         MboxParser parser = new MboxParser(services, emailFolder);
-        List<EmailMessage> emails = parser.parse(file);
-
-        processEmails(emails, abstractFile);
-
-        if (file.delete() == false) {
-            logger.log(Level.INFO, "Failed to delete temp file: {0}", file.getName()); //NON-NLS
+        try (InputStream in = new ReadContentInputStream(abstractFile)) {
+            parser.parse(in, new EmailMessageConsumer() {
+                @Override
+                public void accept(EmailMessage email) {
+                    processEmail(email, abstractFile);
+                }
+            });
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Failed to close mbox file stream.", ex); //NON-NLS
         }
+        flushEmails();
 
         String errors = parser.getErrors();
         if (errors.isEmpty() == false) {
@@ -267,29 +264,42 @@ public static String getRelModuleOutputPath() {
     }
 
     /**
-     * Take the extracted information in the email messages and add the
-     * appropriate artifacts and derived files.
+     * Take the extracted information in an email message and add the
+     * appropriate artifact and derived files. The artifacts are written and
+     * the derived files are added to the ingest job in batches, as the
+     * messages are parsed.
      *
-     * @param emails
+     * @param email
      * @param abstractFile
-     * @param ingestContext
      */
-    private void processEmails(List<EmailMessage> emails, AbstractFile abstractFile) {
-        List<AbstractFile> derivedFiles = new ArrayList<>();
-        for (EmailMessage email : emails) {
-            if (email.hasAttachment()) {
-                derivedFiles.addAll(handleAttachments(email.getAttachments(), abstractFile));
+    private void processEmail(EmailMessage email, AbstractFile abstractFile) {
+        if (email.hasAttachment()) {
+            derivedFiles.addAll(handleAttachments(email.getAttachments(), abstractFile));
+            if (derivedFiles.size() >= DERIVED_FILES_BATCH_SIZE) {
+                flushDerivedFiles();
             }
-            addArtifact(email, abstractFile);
         }
+        addArtifact(email, abstractFile);
+    }
 
-        if (derivedFiles.isEmpty() == false) {
-            for (AbstractFile derived : derivedFiles) {
-                services.fireModuleContentEvent(new ModuleContentEvent(derived));
-            }
+    /**
+     * Writes the email artifacts and adds the derived files that are still
+     * pending once a mbox or pst/ost file has been parsed.
+     */
+    private void flushEmails() {
+        flushDerivedFiles();
+        services.getBlackboardArtifactWriter().flush();
+    }
+
+    private void flushDerivedFiles() {
+        if (derivedFiles.isEmpty()) {
+            return;
+        }
+        for (AbstractFile derived : derivedFiles) {
+            services.fireModuleContentEvent(new ModuleContentEvent(derived));
         }
-        context.addFilesToJob(derivedFiles);
-        services.fireModuleDataEvent(new ModuleDataEvent(EmailParserModuleFactory.getModuleName(), BlackboardArtifact.ARTIFACT_TYPE.TSK_EMAIL_MSG));
+        context.addFilesToJob(new ArrayList<>(derivedFiles));
+        derivedFiles.clear();
     }
 
     /**
@@ -384,13 +394,8 @@ private void addArtifact(EmailMessage email, AbstractFile abstractFile) {
             bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PATH.getTypeID(), EmailParserModuleFactory.getModuleName(), "/foo/bar")); //NON-NLS
         }
 
-        try {
-            BlackboardArtifact bbart;
-            bbart = abstractFile.newArtifact(BlackboardArtifact.ARTIFACT_TYPE.TSK_EMAIL_MSG);
-            bbart.addAttributes(bbattributes);
-        } catch (TskCoreException ex) {
-            logger.log(Level.WARNING, null, ex);
-        }
+        services.getBlackboardArtifactWriter().addArtifact(EmailParserModuleFactory.getModuleName(), abstractFile,
+                BlackboardArtifact.ARTIFACT_TYPE.TSK_EMAIL_MSG, bbattributes);
     }
 
     void postErrorMessage(String subj, String details) {